@@ -0,0 +1,57 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.ActivityLog;
+import com.example.demo.util.AnalyticsUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list-scanning helpers of {@link AnalyticsUtils} over activity lists of growing size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class AnalyticsUtilsBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int activityRows;
+
+    private List<ActivityLog> activities;
+    private double[] scores;
+
+    @Setup
+    public void setUp() {
+        activities = BenchmarkFixtures.activities(activityRows, 42L);
+        Random random = new Random(7L);
+        scores = new double[Math.min(activityRows, 100_000)];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = random.nextDouble() * 100;
+        }
+    }
+
+    @Benchmark
+    public List<ActivityLog> filterByCourse() {
+        return AnalyticsUtils.filterByCourse(activities, 3L, BenchmarkFixtures::courseIdOf);
+    }
+
+    @Benchmark
+    public long countActivitiesByType() {
+        return AnalyticsUtils.countActivitiesByType(activities, "CONTENT_VIEW", "CONTENT_COMPLETION", "LESSON_COMPLETION");
+    }
+
+    @Benchmark
+    public int calculateTrend() {
+        return AnalyticsUtils.calculateTrend(activities, 30);
+    }
+
+    @Benchmark
+    public double calculatePercentile() {
+        return AnalyticsUtils.calculatePercentile(50.0, scores);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (primary score and allocation rate
+ * per operation) and exits with status 1 when any score regressed by more than the threshold.
+ *
+ * Usage: BaselineComparison baseline.json current.json [thresholdPercent, default 10]
+ */
+public final class BaselineComparison {
+
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BaselineComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        boolean regressed = false;
+        System.out.printf("%-90s %14s %14s %9s %12s%n", "Benchmark", "Baseline", "Current", "Change", "Alloc B/op");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            double score = after.at("/primaryMetric/score").asDouble();
+            String unit = after.at("/primaryMetric/scoreUnit").asText();
+            String alloc = allocation(after);
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s %12s  %s (new)%n", entry.getKey(), "-", score, "-", alloc, unit);
+                continue;
+            }
+            double baseScore = before.at("/primaryMetric/score").asDouble();
+            // Every benchmark here reports time per operation, so higher is worse
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            boolean worse = change > threshold;
+            regressed |= worse;
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %12s  %s%s%n",
+                    entry.getKey(), baseScore, score, change, alloc, unit, worse ? "  REGRESSION" : "");
+        }
+        System.exit(regressed ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText());
+            JsonNode params = result.get("params");
+            if (params != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText());
+                }
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static String allocation(JsonNode result) {
+        JsonNode alloc = result.at("/secondaryMetrics/" + ALLOC_METRIC + "/score");
+        return alloc.isMissingNode() ? "-" : String.format("%.0f", alloc.asDouble());
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.*;
+import com.example.demo.repository.QuestionRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic in-memory data for the benchmarks: exams with a given number of questions of every
+ * {@link QuestionType} plus a matching set of student answers, and activity log lists.
+ */
+final class BenchmarkFixtures {
+
+    static final int COURSES = 20;
+    static final String[] ACTIVITY_TYPES = {
+            "LOGIN", "CONTENT_VIEW", "CONTENT_COMPLETION", "LESSON_ACCESS", "LESSON_COMPLETION",
+            "EXAM_SUBMISSION", "ASSIGNMENT_SUBMISSION", "ASSIGNMENT_VIEW", "FILE_ACCESS"};
+
+    private BenchmarkFixtures() {
+    }
+
+    static Exam exam(int questionsPerType, long seed) {
+        Random random = new Random(seed);
+        Exam exam = new Exam();
+        exam.setId(1L);
+        exam.setTitle("Benchmark exam");
+        exam.setPassingScore(questionsPerType * QuestionType.values().length);
+
+        long[] ids = {1L};
+        for (int i = 0; i < questionsPerType; i++) {
+            for (QuestionType type : QuestionType.values()) {
+                exam.getQuestions().add(question(type, i, ids, random));
+            }
+        }
+        return exam;
+    }
+
+    /**
+     * Answers keyed by question id, about 70% of them correct, in the shapes the client sends.
+     */
+    static Map<String, Object> answers(Exam exam, long seed) {
+        Random random = new Random(seed);
+        Map<String, Object> answers = new HashMap<>();
+        for (Question question : exam.getQuestions()) {
+            boolean correct = random.nextDouble() < 0.7;
+            answers.put(question.getId().toString(), answer(question, correct, random));
+        }
+        return answers;
+    }
+
+    static List<ActivityLog> activities(int rows, long seed) {
+        Random random = new Random(seed);
+        User[] users = new User[Math.max(1, rows / 500)];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = new User();
+            users[i].setId((long) i + 1);
+        }
+        // Shared metadata maps and timestamps keep the 10M-row fixture within a few GB of heap
+        List<Map<String, String>> courseMetadata = new ArrayList<>();
+        for (long courseId = 1; courseId <= COURSES; courseId++) {
+            courseMetadata.add(Map.of("courseId", String.valueOf(courseId)));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime[] timestamps = new LocalDateTime[60 * 24];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = now.minusMinutes(i * 60L);
+        }
+
+        List<ActivityLog> activities = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ActivityLog log = new ActivityLog();
+            log.setId((long) i);
+            log.setUser(users[random.nextInt(users.length)]);
+            log.setActivityType(ACTIVITY_TYPES[random.nextInt(ACTIVITY_TYPES.length)]);
+            log.setRelatedEntityId((long) random.nextInt(1000));
+            log.setTimestamp(timestamps[random.nextInt(timestamps.length)]);
+            log.setTimeSpent((long) random.nextInt(600));
+            log.setMetadata(courseMetadata.get(random.nextInt(COURSES)));
+            activities.add(log);
+        }
+        return activities;
+    }
+
+    static Long courseIdOf(ActivityLog log) {
+        String courseId = log.getMetadata().get("courseId");
+        return courseId != null ? Long.valueOf(courseId) : null;
+    }
+
+    /**
+     * A QuestionRepository that only answers findByExamOrderById, which is all score calculation uses.
+     */
+    static QuestionRepository questionRepository(Exam exam) {
+        return (QuestionRepository) Proxy.newProxyInstance(
+                QuestionRepository.class.getClassLoader(),
+                new Class<?>[]{QuestionRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByExamOrderById")) {
+                        return exam.getQuestions();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Question question(QuestionType type, int index, long[] ids, Random random) {
+        Question question = new Question();
+        question.setId(ids[0]++);
+        question.setText(type + " question " + index);
+        question.setQuestionType(type);
+        question.setPoints(1 + random.nextInt(5));
+
+        switch (type) {
+            case MULTIPLE_CHOICE -> {
+                int correct = random.nextInt(4);
+                for (int i = 0; i < 4; i++) {
+                    question.getAnswers().add(option(ids[0]++, "Option " + i, i == correct, null));
+                }
+            }
+            case TRUE_FALSE -> {
+                boolean isTrue = random.nextBoolean();
+                question.getAnswers().add(option(ids[0]++, "True", isTrue, null));
+                question.getAnswers().add(option(ids[0]++, "False", !isTrue, null));
+            }
+            case FILL_IN_THE_BLANKS -> {
+                question.setTemplate("The {} is {} and {}");
+                for (int i = 0; i < 3; i++) {
+                    BlankAnswer blank = new BlankAnswer();
+                    blank.setId(ids[0]++);
+                    blank.setBlankIndex(i);
+                    blank.setCorrectAnswer("word" + i);
+                    blank.setAcceptableAnswers("[\"alt" + i + "\",\"other" + i + "\"]");
+                    question.getBlankAnswers().add(blank);
+                }
+            }
+            case MATCHING -> {
+                for (int i = 0; i < 5; i++) {
+                    MatchingPair pair = new MatchingPair();
+                    pair.setId(ids[0]++);
+                    pair.setLeftItem("left " + i);
+                    pair.setRightItem("right " + i);
+                    question.getMatchingPairs().add(pair);
+                }
+            }
+            case CATEGORIZATION -> {
+                question.getCategories().addAll(List.of("A", "B", "C"));
+                for (int i = 0; i < 6; i++) {
+                    question.getAnswers().add(option(ids[0]++, "item " + i, false, "ABC".substring(i % 3, i % 3 + 1)));
+                }
+            }
+            case SHORT_ANSWER -> question.setCorrectAnswer("answer " + index);
+            case ESSAY -> {
+            }
+        }
+        return question;
+    }
+
+    private static Answer option(long id, String text, boolean correct, String category) {
+        Answer answer = new Answer();
+        answer.setId(id);
+        answer.setText(text);
+        answer.setCorrect(correct);
+        answer.setCategory(category);
+        return answer;
+    }
+
+    private static Object answer(Question question, boolean correct, Random random) {
+        switch (question.getQuestionType()) {
+            case MULTIPLE_CHOICE -> {
+                return question.getAnswers().stream()
+                        .filter(option -> option.getCorrect() == correct)
+                        .findFirst().orElseThrow().getId();
+            }
+            case TRUE_FALSE -> {
+                return question.getAnswers().stream()
+                        .filter(option -> option.getCorrect() == correct)
+                        .findFirst().orElseThrow().getText().toLowerCase();
+            }
+            case FILL_IN_THE_BLANKS -> {
+                return List.of("word0", correct ? "alt1" : "wrong", "WORD2");
+            }
+            case MATCHING -> {
+                Map<String, Object> matches = new HashMap<>();
+                for (MatchingPair pair : question.getMatchingPairs()) {
+                    boolean right = correct || random.nextBoolean();
+                    matches.put(pair.getLeftItem(), right ? pair.getRightItem() : "right x");
+                }
+                return matches;
+            }
+            case CATEGORIZATION -> {
+                Map<String, Object> categories = new HashMap<>();
+                for (Answer item : question.getAnswers()) {
+                    boolean right = correct || random.nextBoolean();
+                    categories.put(item.getText(), right ? item.getCategory() : "C");
+                }
+                return categories;
+            }
+            case SHORT_ANSWER -> {
+                return correct ? question.getCorrectAnswer().toUpperCase() : "something else";
+            }
+            default -> {
+                return "An essay answer that will be graded by hand.";
+            }
+        }
+    }
+}
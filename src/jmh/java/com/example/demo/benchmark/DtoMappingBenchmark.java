@@ -0,0 +1,48 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.ExamDTO;
+import com.example.demo.dto.QuestionDTO;
+import com.example.demo.model.Exam;
+import com.example.demo.model.Question;
+import com.example.demo.service.DTOMapperService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping of exams and their questions (no repository access on these paths).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int questionsPerType;
+
+    private DTOMapperService mapper;
+    private Exam exam;
+
+    @Setup
+    public void setUp() {
+        exam = BenchmarkFixtures.exam(questionsPerType, 42L);
+        mapper = new DTOMapperService(null, null, null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public void mapToQuestionDTO(Blackhole blackhole) {
+        for (Question question : exam.getQuestions()) {
+            QuestionDTO dto = mapper.mapToQuestionDTO(question);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    public ExamDTO mapToExamDTO() {
+        return mapper.mapToExamDTO(exam);
+    }
+}
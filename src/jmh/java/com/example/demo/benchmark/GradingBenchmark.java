@@ -0,0 +1,100 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.model.Exam;
+import com.example.demo.model.Question;
+import com.example.demo.model.QuestionType;
+import com.example.demo.model.SubmissionAnswers;
+import com.example.demo.service.ExamService;
+import com.example.demo.service.GradingTracer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Automatic grading: whole-exam score calculation and the partial-credit evaluators for
+ * matching and categorization questions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GradingBenchmark {
+
+    private static final MethodHandle CALCULATE_SCORE;
+    private static final MethodHandle MATCHING_PARTIAL;
+    private static final MethodHandle CATEGORIZATION_PARTIAL;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(ExamService.class, MethodHandles.lookup());
+            CALCULATE_SCORE = lookup.findVirtual(ExamService.class, "calculateScore",
+                    MethodType.methodType(int[].class, Exam.class, SubmissionAnswers.class, Map.class, GradingTracer.Trace.class));
+            MATCHING_PARTIAL = lookup.findVirtual(ExamService.class, "evaluateMatchingAnswerPartial",
+                    MethodType.methodType(double.class, Question.class, Object.class));
+            CATEGORIZATION_PARTIAL = lookup.findVirtual(ExamService.class, "evaluateCategorizationAnswerPartial",
+                    MethodType.methodType(double.class, Question.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Questions of each of the seven question types. */
+    @Param({"10", "50", "200"})
+    public int questionsPerType;
+
+    private ExamService examService;
+    private Exam exam;
+    private SubmissionAnswers answers;
+    private List<Question> matchingQuestions;
+    private List<Question> categorizationQuestions;
+
+    @Setup
+    public void setUp() {
+        exam = BenchmarkFixtures.exam(questionsPerType, 42L);
+        answers = new SubmissionAnswers(BenchmarkFixtures.answers(exam, 7L));
+        examService = new ExamService(null, null, BenchmarkFixtures.questionRepository(exam),
+                null, null, null, null, null, null);
+        matchingQuestions = ofType(QuestionType.MATCHING);
+        categorizationQuestions = ofType(QuestionType.CATEGORIZATION);
+    }
+
+    @Benchmark
+    public int[] calculateScore() throws Throwable {
+        return (int[]) CALCULATE_SCORE.invokeExact(examService, exam, answers, (Map) new HashMap<Long, Integer>(),
+                GradingTracer.Trace.NONE);
+    }
+
+    @Benchmark
+    public void gradeAnswer(Blackhole blackhole) {
+        for (Question question : exam.getQuestions()) {
+            blackhole.consume(examService.gradeAnswer(question, answers.get(question.getId())));
+        }
+    }
+
+    @Benchmark
+    public void evaluateMatchingAnswerPartial(Blackhole blackhole) throws Throwable {
+        for (Question question : matchingQuestions) {
+            blackhole.consume((double) MATCHING_PARTIAL.invokeExact(examService, question, answers.get(question.getId())));
+        }
+    }
+
+    @Benchmark
+    public void evaluateCategorizationAnswerPartial(Blackhole blackhole) throws Throwable {
+        for (Question question : categorizationQuestions) {
+            blackhole.consume((double) CATEGORIZATION_PARTIAL.invokeExact(examService, question, answers.get(question.getId())));
+        }
+    }
+
+    private List<Question> ofType(QuestionType type) {
+        return exam.getQuestions().stream().filter(question -> question.getQuestionType() == type).toList();
+    }
+}
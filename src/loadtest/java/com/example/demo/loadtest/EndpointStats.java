@@ -0,0 +1,76 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram (microseconds, 3 significant digits) and counters of one named endpoint.
+ */
+public final class EndpointStats {
+
+    private final String name;
+    private final Histogram latency = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(5), 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong firstStart = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEnd = new AtomicLong();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long startNanos, long endNanos, boolean ok, long responseBytes) {
+        latency.recordValue(Math.min(latency.getHighestTrackableValue(), (endNanos - startNanos) / 1000));
+        if (!ok) {
+            errors.increment();
+        }
+        bytes.add(responseBytes);
+        firstStart.accumulateAndGet(startNanos, Math::min);
+        lastEnd.accumulateAndGet(endNanos, Math::max);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long count() {
+        return latency.getTotalCount();
+    }
+
+    public double errorRate() {
+        return count() == 0 ? 0 : (double) errors.sum() / count();
+    }
+
+    public double percentileMillis(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    /**
+     * Requests per second over the window in which this endpoint was being called.
+     */
+    public double throughput() {
+        long window = lastEnd.get() - firstStart.get();
+        return window <= 0 ? 0 : count() / (window / 1e9);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", count());
+        map.put("errors", errors.sum());
+        map.put("errorRate", errorRate());
+        map.put("throughput", throughput());
+        map.put("mbReceived", bytes.sum() / (1024.0 * 1024.0));
+        map.put("p50", percentileMillis(50));
+        map.put("p90", percentileMillis(90));
+        map.put("p95", percentileMillis(95));
+        map.put("p99", percentileMillis(99));
+        map.put("max", latency.getMaxValue() / 1000.0);
+        return map;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the data the scenarios run against through the public API, so the harness works on any
+ * running instance: a teacher with one course and lesson, a video attached to the lesson, a
+ * finalized multiple-choice exam, and a class of enrolled students. Names carry a per-run prefix,
+ * so repeated runs against the same database don't collide.
+ */
+public final class Fixture {
+
+    public static final String PASSWORD = "Pass@1234";
+
+    public final String runId;
+    public final String teacherAuth;
+    public final long courseId;
+    public final long lessonId;
+    public final long examId;
+    public final long videoFileId;
+    public final int videoSize;
+    public final List<String> studentAuths;
+    /** Question id to the id of its correct option, and to all of its option ids */
+    public final Map<Long, Long> correctOptions;
+    public final Map<Long, List<Long>> options;
+
+    private Fixture(String runId, String teacherAuth, long courseId, long lessonId, long examId, long videoFileId,
+                    int videoSize, List<String> studentAuths, Map<Long, Long> correctOptions, Map<Long, List<Long>> options) {
+        this.runId = runId;
+        this.teacherAuth = teacherAuth;
+        this.courseId = courseId;
+        this.lessonId = lessonId;
+        this.examId = examId;
+        this.videoFileId = videoFileId;
+        this.videoSize = videoSize;
+        this.studentAuths = studentAuths;
+        this.correctOptions = correctOptions;
+        this.options = options;
+    }
+
+    public static Fixture create(LoadClient client, ExecutorService executor, int students, int questions,
+                                 int videoMegabytes, long seed) throws Exception {
+        long run = System.currentTimeMillis() % 1_000_000;
+        String runId = "lt" + run;
+        Random random = new Random(seed);
+
+        String teacherUsername = runId + "_teacher";
+        register(client, "teacher", teacherUsername, nationalId(run, 0));
+        String teacherAuth = LoadClient.basicAuth(teacherUsername, PASSWORD);
+
+        long courseId = client.postJsonOrFail(teacherAuth, "/api/courses",
+                Map.of("title", "Load test " + runId, "description", "Load test course")).get("id").asLong();
+        long lessonId = client.postJsonOrFail(teacherAuth, "/api/lessons/course/" + courseId,
+                Map.of("title", "Lesson 1", "description", "Load test lesson", "orderIndex", 1, "duration", 10))
+                .get("id").asLong();
+
+        // Random bytes are enough: the server only streams the file back
+        byte[] video = new byte[videoMegabytes * 1024 * 1024];
+        random.nextBytes(video);
+        JsonNode content = client.postMultipartOrFail(teacherAuth, "/api/content/upload",
+                Map.of("lessonId", String.valueOf(lessonId), "title", "Lecture", "contentType", "VIDEO", "orderIndex", "1"),
+                "lecture.mp4", "video/mp4", video);
+        long videoFileId = content.at("/file/id").asLong();
+
+        long examId = client.postJsonOrFail(teacherAuth, "/api/exams/lesson/" + lessonId,
+                Map.of("title", "Load test exam", "timeLimit", 30, "passingScore", questions / 2)).get("id").asLong();
+        Map<Long, Long> correctOptions = new LinkedHashMap<>();
+        Map<Long, List<Long>> options = new LinkedHashMap<>();
+        for (int q = 0; q < questions; q++) {
+            int correct = random.nextInt(4);
+            List<Map<String, Object>> choices = new ArrayList<>();
+            for (int o = 0; o < 4; o++) {
+                choices.add(Map.of("text", "Option " + (o + 1), "correct", o == correct));
+            }
+            JsonNode question = client.postJsonOrFail(teacherAuth, "/api/questions/exam/" + examId,
+                    Map.of("text", "Question " + (q + 1), "questionType", "MULTIPLE_CHOICE", "points", 1, "options", choices));
+            List<Long> optionIds = new ArrayList<>();
+            for (JsonNode answer : question.get("answers")) {
+                optionIds.add(answer.get("id").asLong());
+                if (answer.get("correct").asBoolean()) {
+                    correctOptions.put(question.get("id").asLong(), answer.get("id").asLong());
+                }
+            }
+            options.put(question.get("id").asLong(), optionIds);
+        }
+        client.putOrFail(teacherAuth, "/api/exams/" + examId + "/finalize");
+
+        // Registration hashes a password per student, so register in parallel; enrolling rewrites the
+        // course's whole enrollment collection, so concurrent enrolls would fight over its lock
+        List<Future<String>> registrations = new ArrayList<>();
+        for (int s = 1; s <= students; s++) {
+            int index = s;
+            registrations.add(executor.submit(() -> {
+                String username = runId + "_s" + index;
+                register(client, "student", username, nationalId(run, index));
+                return LoadClient.basicAuth(username, PASSWORD);
+            }));
+        }
+        List<String> studentAuths = new ArrayList<>();
+        for (Future<String> registration : registrations) {
+            String auth = registration.get();
+            client.postJsonOrFail(auth, "/api/courses/" + courseId + "/enroll", Map.of());
+            studentAuths.add(auth);
+        }
+
+        return new Fixture(runId, teacherAuth, courseId, lessonId, examId, videoFileId, video.length,
+                Collections.unmodifiableList(studentAuths), correctOptions, options);
+    }
+
+    private static void register(LoadClient client, String role, String username, String nationalId) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        user.put("username", username);
+        user.put("password", PASSWORD);
+        user.put("firstName", "Load");
+        user.put("lastName", username);
+        user.put("nationalId", nationalId);
+        user.put("email", username + "@loadtest.local");
+        client.postJsonOrFail(null, "/api/auth/register/" + role, user);
+    }
+
+    private static String nationalId(long run, int index) {
+        return String.format("%06d%04d", run, index);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared {@link HttpClient} that records every call under an endpoint name, e.g. "exam.submit".
+ * Failed calls (I/O errors and non-2xx statuses) are counted as errors rather than thrown; the
+ * {@code *OrFail} variants are for fixture setup, where a failure should abort the run.
+ */
+public final class LoadClient {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final String baseUrl;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public LoadClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    public static String basicAuth(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public JsonNode get(String endpoint, String auth, String path) {
+        return send(endpoint, request(path, auth).GET().build());
+    }
+
+    public JsonNode postJson(String endpoint, String auth, String path, Object body) {
+        return send(endpoint, request(path, auth)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build());
+    }
+
+    /**
+     * Reads a byte range of a streamed resource, draining the body without keeping it.
+     */
+    public boolean getRange(String endpoint, String path, long from, long to) {
+        HttpRequest request = request(path, null).header("Range", "bytes=" + from + "-" + to).GET().build();
+        long start = System.nanoTime();
+        boolean ok = false;
+        long received = 0;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    received += read;
+                }
+            }
+            ok = response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            // counted as an error
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stats(endpoint).record(start, System.nanoTime(), ok, received);
+        return ok;
+    }
+
+    public JsonNode getOrFail(String auth, String path) {
+        return orFail(path, request(path, auth).GET().build());
+    }
+
+    public JsonNode postJsonOrFail(String auth, String path, Object body) {
+        return orFail(path, request(path, auth)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json(body)))
+                .build());
+    }
+
+    public JsonNode putOrFail(String auth, String path) {
+        return orFail(path, request(path, auth).PUT(HttpRequest.BodyPublishers.noBody()).build());
+    }
+
+    public JsonNode postMultipartOrFail(String auth, String path, Map<String, String> fields,
+                                        String fileName, String contentType, byte[] file) {
+        String boundary = "----loadtest" + System.nanoTime();
+        StringBuilder head = new StringBuilder();
+        fields.forEach((name, value) -> head.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n\r\n")
+                .append(value).append("\r\n"));
+        head.append("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"file\"; filename=\"").append(fileName).append("\"\r\n")
+                .append("Content-Type: ").append(contentType).append("\r\n\r\n");
+        byte[] tail = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] headBytes = head.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] body = new byte[headBytes.length + file.length + tail.length];
+        System.arraycopy(headBytes, 0, body, 0, headBytes.length);
+        System.arraycopy(file, 0, body, headBytes.length, file.length);
+        System.arraycopy(tail, 0, body, headBytes.length + file.length, tail.length);
+
+        return orFail(path, request(path, auth)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build());
+    }
+
+    public Map<String, EndpointStats> stats() {
+        return new TreeMap<>(stats);
+    }
+
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        boolean ok = false;
+        JsonNode result = null;
+        long received = 0;
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            received = response.body().length;
+            ok = response.statusCode() / 100 == 2;
+            if (ok && received > 0) {
+                result = MAPPER.readTree(response.body());
+            }
+        } catch (IOException e) {
+            // counted as an error
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        stats(endpoint).record(start, System.nanoTime(), ok, received);
+        return result;
+    }
+
+    private JsonNode orFail(String path, HttpRequest request) {
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException(request.method() + " " + path + " returned "
+                        + response.statusCode() + ": " + response.body());
+            }
+            return response.body().isEmpty() ? MAPPER.nullNode() : MAPPER.readTree(response.body());
+        } catch (IOException e) {
+            throw new IllegalStateException(request.method() + " " + path + " failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted", e);
+        }
+    }
+
+    private HttpRequest.Builder request(String path, String auth) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofMinutes(2));
+        if (auth != null) {
+            builder.header("Authorization", auth);
+        }
+        return builder;
+    }
+
+    private EndpointStats stats(String endpoint) {
+        return stats.computeIfAbsent(endpoint, EndpointStats::new);
+    }
+
+    private static String json(Object body) {
+        try {
+            return MAPPER.writeValueAsString(body);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
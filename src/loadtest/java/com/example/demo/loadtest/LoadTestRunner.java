@@ -0,0 +1,177 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * End-to-end load test against a running instance. Builds a {@link Fixture}, replays the selected
+ * {@link Scenarios}, prints latency percentiles and throughput per endpoint, writes them as JSON,
+ * and exits with status 1 when a threshold is exceeded or a latency regressed against a baseline
+ * report.
+ *
+ * Start the app on a file database first (so the run sees realistic data volumes, e.g. one made
+ * by the synthetic dataset generator), then:
+ * <pre>
+ * mvn -Ploadtest compile exec:exec -Dloadtest.args="--base-url=http://localhost:8080 --students=500"
+ * </pre>
+ * Options (defaults in brackets): --base-url [http://localhost:8080], --scenarios
+ * [lesson-video,exam-submit,dashboards,chat], --students [500], --questions [20], --video-mb [8],
+ * --chunk-kb [1024], --teachers [10], --dashboard-iterations [5], --chat-pollers [200],
+ * --chat-seconds [30], --chat-interval-ms [3000], --seed [42],
+ * --thresholds [src/loadtest/thresholds.properties], --report [target/loadtest-report.json],
+ * --baseline [none], --max-regression [20, percent of p95].
+ */
+public final class LoadTestRunner {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        List<String> scenarios = List.of(options.getOrDefault("scenarios", "lesson-video,exam-submit,dashboards,chat").split(","));
+        int students = intOption(options, "students", 500);
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        LoadClient client = new LoadClient(baseUrl);
+        // One blocking thread per simulated user; the project targets Java 17, so no virtual threads
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(students, intOption(options, "chat-pollers", 200)), runnable -> {
+            Thread thread = new Thread(runnable, "load-user");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long setupStart = System.currentTimeMillis();
+        Fixture fixture = Fixture.create(client, executor, students, intOption(options, "questions", 20),
+                intOption(options, "video-mb", 8), seed);
+        System.out.printf("Fixture %s ready in %.1fs: course %d, exam %d, %d students%n", fixture.runId,
+                (System.currentTimeMillis() - setupStart) / 1000.0, fixture.courseId, fixture.examId, students);
+
+        Scenarios runner = new Scenarios(client, fixture, executor, seed);
+        for (String scenario : scenarios) {
+            long start = System.currentTimeMillis();
+            switch (scenario.trim()) {
+                case "lesson-video" -> runner.lessonVideo(intOption(options, "chunk-kb", 1024));
+                case "exam-submit" -> runner.examSubmit();
+                case "dashboards" -> runner.teacherDashboards(intOption(options, "teachers", 10),
+                        intOption(options, "dashboard-iterations", 5));
+                case "chat" -> runner.chatPolling(intOption(options, "chat-pollers", 200),
+                        intOption(options, "chat-seconds", 30), intOption(options, "chat-interval-ms", 3000));
+                default -> throw new IllegalArgumentException("Unknown scenario: " + scenario);
+            }
+            System.out.printf("Scenario %s finished in %.1fs%n", scenario.trim(), (System.currentTimeMillis() - start) / 1000.0);
+        }
+        executor.shutdownNow();
+
+        Map<String, EndpointStats> stats = client.stats();
+        print(stats);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("students", students);
+        report.put("scenarios", scenarios);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        stats.forEach((name, endpoint) -> endpoints.put(name, endpoint.toMap()));
+        report.put("endpoints", endpoints);
+        File reportFile = new File(options.getOrDefault("report", "target/loadtest-report.json"));
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        MAPPER.writeValue(reportFile, report);
+        System.out.println("Report written to " + reportFile);
+
+        List<String> failures = new ArrayList<>();
+        File thresholds = new File(options.getOrDefault("thresholds", "src/loadtest/thresholds.properties"));
+        if (thresholds.isFile()) {
+            failures.addAll(checkThresholds(stats, thresholds));
+        }
+        if (options.containsKey("baseline")) {
+            failures.addAll(checkBaseline(stats, new File(options.get("baseline")),
+                    Double.parseDouble(options.getOrDefault("max-regression", "20"))));
+        }
+        failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private static void print(Map<String, EndpointStats> stats) {
+        System.out.printf("%n%-40s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "Endpoint", "Count", "Errors", "Req/s", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "max ms");
+        stats.forEach((name, endpoint) -> {
+            Map<String, Object> values = endpoint.toMap();
+            System.out.printf("%-40s %8d %6.2f%% %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, endpoint.count(),
+                    endpoint.errorRate() * 100, endpoint.throughput(), values.get("p50"), values.get("p90"),
+                    values.get("p95"), values.get("p99"), values.get("max"));
+        });
+    }
+
+    /**
+     * Thresholds are {@code <endpoint>.<metric>=<max>} with metric p50, p90, p95, p99 (milliseconds)
+     * or errorRate (fraction); endpoint {@code *} applies to every endpoint without its own entry.
+     */
+    private static List<String> checkThresholds(Map<String, EndpointStats> stats, File file) throws IOException {
+        Properties thresholds = new Properties();
+        try (Reader reader = new FileReader(file)) {
+            thresholds.load(reader);
+        }
+        List<String> failures = new ArrayList<>();
+        stats.forEach((name, endpoint) -> {
+            Map<String, Object> values = endpoint.toMap();
+            for (String metric : List.of("p50", "p90", "p95", "p99", "errorRate")) {
+                String limit = thresholds.getProperty(name + "." + metric, thresholds.getProperty("*." + metric));
+                if (limit != null && ((Number) values.get(metric)).doubleValue() > Double.parseDouble(limit)) {
+                    failures.add(String.format("%s %s = %.3f exceeds %s", name, metric,
+                            ((Number) values.get(metric)).doubleValue(), limit));
+                }
+            }
+        });
+        return failures;
+    }
+
+    private static List<String> checkBaseline(Map<String, EndpointStats> stats, File file, double maxRegression)
+            throws IOException {
+        JsonNode baseline = MAPPER.readTree(file).get("endpoints");
+        List<String> failures = new ArrayList<>();
+        stats.forEach((name, endpoint) -> {
+            JsonNode before = baseline.get(name);
+            if (before == null) {
+                return;
+            }
+            double basePercentile = before.get("p95").asDouble();
+            double current = endpoint.percentileMillis(95);
+            if (basePercentile > 0 && (current - basePercentile) / basePercentile * 100 > maxRegression) {
+                failures.add(String.format("%s p95 regressed from %.1f ms to %.1f ms", name, basePercentile, current));
+            }
+        });
+        return failures;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+}
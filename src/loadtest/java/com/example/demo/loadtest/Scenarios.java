@@ -0,0 +1,158 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * The traffic shapes the harness replays. Each scenario runs one simulated user per task and
+ * blocks until all of them are done; endpoint names group the recorded latencies.
+ */
+public final class Scenarios {
+
+    private static final List<String> DASHBOARD_PATHS = List.of(
+            "/api/analytics/teacher/course/%d/performance",
+            "/api/analytics/teacher/course/%d/struggling-students",
+            "/api/analytics/teacher/course/%d/participation",
+            "/api/analytics/course/%d/exam-scores",
+            "/api/analytics/course/%d/at-risk-students",
+            "/api/analytics/course/%d/lesson-progress",
+            "/api/analytics/teacher/students-progress");
+
+    private final LoadClient client;
+    private final Fixture fixture;
+    private final ExecutorService executor;
+    private final long seed;
+
+    public Scenarios(LoadClient client, Fixture fixture, ExecutorService executor, long seed) {
+        this.client = client;
+        this.fixture = fixture;
+        this.executor = executor;
+        this.seed = seed;
+    }
+
+    /**
+     * The class opens the lesson together and streams the lecture video in range requests, the way
+     * a browser player does.
+     */
+    public void lessonVideo(int chunkKilobytes) throws Exception {
+        long chunk = chunkKilobytes * 1024L;
+        runAll(fixture.studentAuths.size(), s -> {
+            String auth = fixture.studentAuths.get(s);
+            client.get("lesson.get", auth, "/api/lessons/" + fixture.lessonId);
+            client.get("content.lesson", auth, "/api/content/lesson/" + fixture.lessonId);
+            JsonNode token = client.postJson("video.token", auth, "/api/video/token/" + fixture.videoFileId, Map.of());
+            if (token == null) {
+                return;
+            }
+            String streamUrl = token.get("streamUrl").asText();
+            for (long from = 0; from < fixture.videoSize; from += chunk) {
+                if (!client.getRange("video.range", streamUrl, from, Math.min(fixture.videoSize, from + chunk) - 1)) {
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * Every student submits the exam at the same moment, as at the end of a timed exam.
+     */
+    public void examSubmit() throws Exception {
+        CountDownLatch ready = new CountDownLatch(fixture.studentAuths.size());
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> submissions = new ArrayList<>();
+        for (int s = 0; s < fixture.studentAuths.size(); s++) {
+            int student = s;
+            submissions.add(executor.submit(() -> {
+                Map<String, Object> body = examAnswers(new Random(seed + student));
+                ready.countDown();
+                go.await();
+                client.postJson("exam.submit", fixture.studentAuths.get(student),
+                        "/api/exams/" + fixture.examId + "/submit", body);
+                return null;
+            }));
+        }
+        ready.await();
+        go.countDown();
+        for (Future<?> submission : submissions) {
+            submission.get();
+        }
+    }
+
+    /**
+     * Teachers open the course dashboards, each loading every analytics panel in turn.
+     */
+    public void teacherDashboards(int teachers, int iterations) throws Exception {
+        runAll(teachers, t -> {
+            for (int i = 0; i < iterations; i++) {
+                for (String path : DASHBOARD_PATHS) {
+                    String resolved = String.format(path, fixture.courseId);
+                    client.get(endpointName(path), fixture.teacherAuth, resolved);
+                }
+            }
+        });
+    }
+
+    /**
+     * Students keep the course chat open, which polls the unread count and the latest page.
+     */
+    public void chatPolling(int pollers, int seconds, int intervalMillis) throws Exception {
+        long until = System.currentTimeMillis() + seconds * 1000L;
+        int count = Math.min(pollers, fixture.studentAuths.size());
+        runAll(count, s -> {
+            String auth = fixture.studentAuths.get(s);
+            // Spread the first polls over one interval, like clients that opened the page at different times
+            sleep(new Random(seed + s).nextInt(Math.max(1, intervalMillis)));
+            while (System.currentTimeMillis() < until) {
+                client.get("chat.unread", auth, "/api/chat/course/" + fixture.courseId + "/unread");
+                client.get("chat.messages", auth, "/api/chat/course/" + fixture.courseId + "/messages?page=0&size=20");
+                sleep(intervalMillis);
+            }
+        });
+    }
+
+    private Map<String, Object> examAnswers(Random random) {
+        Map<String, Object> answers = new LinkedHashMap<>();
+        fixture.correctOptions.forEach((questionId, correct) -> {
+            List<Long> options = fixture.options.get(questionId);
+            answers.put(String.valueOf(questionId),
+                    random.nextDouble() < 0.7 ? correct : options.get(random.nextInt(options.size())));
+        });
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("answers", answers);
+        body.put("timeSpent", 600 + random.nextInt(600));
+        return body;
+    }
+
+    private void runAll(int users, IntConsumer user) throws Exception {
+        List<Future<?>> running = new ArrayList<>();
+        for (int u = 0; u < users; u++) {
+            int index = u;
+            running.add(executor.submit(() -> user.accept(index)));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+    }
+
+    private static String endpointName(String path) {
+        String[] parts = path.split("/");
+        return "analytics." + parts[parts.length - 1];
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import jakarta.annotation.PostConstruct;
@@ -14,6 +15,7 @@ import java.util.TimeZone;
 @SpringBootApplication
 @EnableTransactionManagement
 @EnableJpaAuditing
+@EnableScheduling
 @EntityScan(basePackages = {
 		"com.example.demo.model"
 })
@@ -0,0 +1,150 @@
+package com.example.demo.config;
+
+import com.example.demo.model.ActivityLog;
+import com.example.demo.model.ActivityType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off move of activity logs to the compact layout: the activity_type name column becomes
+ * the activity_type_code column, and the activity_metadata rows become the metadata_json and
+ * course_id columns of the log row. The old column and table are renamed to {@code *_legacy}
+ * once copied, so the migration runs only once and the original values stay available. Runs once
+ * Hibernate has added the new columns and before the web server starts or any startup job runs,
+ * so nothing reads the new columns half-filled.
+ */
+@Component
+public class ActivityLogCompactionMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityLogCompactionMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ActivityLogCompactionMigration(JdbcTemplate jdbcTemplate,
+                                          TransactionTemplate transactionTemplate,
+                                          @Value("${lms.activity-log.compaction-migration.enabled:true}") boolean enabled,
+                                          @Value("${lms.activity-log.compaction-migration.batch-size:10000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        if (columnExists("activity_log", "activity_type")) {
+            transactionTemplate.executeWithoutResult(status -> migrateActivityTypes());
+        }
+        if (tableExists("activity_metadata")) {
+            migrateMetadata();
+        }
+    }
+
+    private void migrateActivityTypes() {
+        // One pass over the table: CASE activity_type WHEN <name> THEN <code> ... ELSE <UNKNOWN> END
+        StringBuilder codes = new StringBuilder("CASE activity_type");
+        List<Object> params = new ArrayList<>();
+        for (ActivityType type : ActivityType.values()) {
+            codes.append(" WHEN ? THEN ?");
+            params.add(type.name());
+            params.add(type.getCode());
+        }
+        codes.append(" ELSE ? END");
+        params.add(ActivityType.UNKNOWN.getCode());
+        int migrated = jdbcTemplate.update("UPDATE activity_log SET activity_type_code = " + codes +
+                " WHERE activity_type_code IS NULL", params.toArray());
+        List<String> unknown = jdbcTemplate.queryForList(
+                "SELECT DISTINCT activity_type FROM activity_log WHERE activity_type_code = ? " +
+                        "AND (activity_type IS NULL OR activity_type <> ?)",
+                String.class, ActivityType.UNKNOWN.getCode(), ActivityType.UNKNOWN.name());
+        if (!unknown.isEmpty()) {
+            logger.warn("Activity types {} are not in ActivityType; those activities are migrated as UNKNOWN " +
+                    "(the names stay in activity_log.activity_type_legacy)", unknown);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE activity_log ALTER COLUMN activity_type RENAME TO activity_type_legacy");
+        logger.info("Migrated the activity type of {} activity logs to activity_type_code", migrated);
+    }
+
+    private void migrateMetadata() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(activity_log_id) FROM activity_metadata", Long.class);
+        long migrated = 0;
+        // Activity id ranges of batch-size ids, each copied in its own transaction
+        for (long fromId = 0; maxId != null && fromId < maxId; fromId += batchSize) {
+            long afterId = fromId;
+            Integer copied = transactionTemplate.execute(status -> migrateMetadata(afterId, afterId + batchSize));
+            migrated += copied != null ? copied : 0;
+        }
+
+        jdbcTemplate.execute("ALTER TABLE activity_metadata RENAME TO activity_metadata_legacy");
+        logger.info("Migrated the metadata of {} activity logs to activity_log.metadata_json", migrated);
+    }
+
+    private int migrateMetadata(long afterId, long toId) {
+        Map<Long, Map<String, String>> byActivity = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT activity_log_id, metadata_key, metadata_value FROM activity_metadata " +
+                        "WHERE activity_log_id > ? AND activity_log_id <= ?",
+                rs -> {
+                    byActivity.computeIfAbsent(rs.getLong(1), id -> new HashMap<>()).put(rs.getString(2), rs.getString(3));
+                }, afterId, toId);
+
+        List<Object[]> updates = new ArrayList<>(byActivity.size());
+        for (Map.Entry<Long, Map<String, String>> entry : byActivity.entrySet()) {
+            Map<String, String> metadata = entry.getValue();
+            updates.add(new Object[]{ActivityLog.encodeMetadata(metadata),
+                    ActivityLog.parseCourseId(metadata.get("courseId")), entry.getKey()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE activity_log SET metadata_json = ?, course_id = ? WHERE id = ?", updates);
+        return updates.size();
+    }
+
+    private boolean columnExists(String table, String column) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String[] names : new String[][]{{table, column}, {table.toUpperCase(), column.toUpperCase()}}) {
+                try (ResultSet columns = metaData.getColumns(null, null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.config;
+
+import com.example.demo.service.SyntheticDatasetGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Command-line entry point for {@link SyntheticDatasetGenerator}. Only active with
+ * {@code lms.dataset.generate=true}; generates the data set into the configured datasource and
+ * shuts the application down. Typically run without the web server:
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.arguments="--spring.main.web-application-type=none
+ *     --lms.dataset.generate=true --lms.dataset.scale=100 --spring.datasource.url=jdbc:h2:file:./data/load"
+ * </pre>
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "lms.dataset.generate", havingValue = "true")
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetGeneratorRunner.class);
+
+    private final SyntheticDatasetGenerator generator;
+    private final ConfigurableApplicationContext context;
+    private final double scale;
+    private final long seed;
+    private final int batchSize;
+    private final boolean exitWhenDone;
+
+    public DatasetGeneratorRunner(SyntheticDatasetGenerator generator,
+                                  ConfigurableApplicationContext context,
+                                  @Value("${lms.dataset.scale:1}") double scale,
+                                  @Value("${lms.dataset.seed:42}") long seed,
+                                  @Value("${lms.dataset.batch-size:5000}") int batchSize,
+                                  @Value("${lms.dataset.exit-when-done:true}") boolean exitWhenDone) {
+        this.generator = generator;
+        this.context = context;
+        this.scale = scale;
+        this.seed = seed;
+        this.batchSize = batchSize;
+        this.exitWhenDone = exitWhenDone;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SyntheticDatasetGenerator.Settings defaults = SyntheticDatasetGenerator.Settings.forScale(scale, seed);
+        SyntheticDatasetGenerator.Settings settings = new SyntheticDatasetGenerator.Settings(
+                defaults.seed(), defaults.courses(), defaults.students(), defaults.lessonsPerCourse(),
+                defaults.questionsPerExam(), defaults.enrollmentsPerStudent(), defaults.activitiesPerStudent(),
+                defaults.examParticipation(), defaults.password(), batchSize);
+
+        logger.info("Generating synthetic data set: scale={}, seed={}, {} courses, {} students",
+                scale, seed, settings.courses(), settings.students());
+        Map<String, Object> summary = generator.generate(settings);
+        logger.info("Synthetic data set generated: {}", summary);
+
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Second-level cache for the reference entities (Course, Lesson, Exam, Question, Role).
+ * Regions are created up front so each one gets a bounded heap and a TTL; values can be
+ * overridden per region with lms.cache.region.&lt;name&gt;.max-entries / .ttl
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String COURSE_REGION = "course";
+    public static final String LESSON_REGION = "lesson";
+    public static final String EXAM_REGION = "exam";
+    public static final String QUESTION_REGION = "question";
+    public static final String ROLE_REGION = "role";
+
+    // Hibernate's own regions for the query cache
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    public static final List<String> ENTITY_REGIONS =
+            List.of(COURSE_REGION, LESSON_REGION, EXAM_REGION, QUESTION_REGION, ROLE_REGION);
+
+    private static final String EHCACHE_PROVIDER = "org.ehcache.jsr107.EhcacheCachingProvider";
+
+    private final Environment environment;
+    private final long defaultMaxEntries;
+    private final Duration defaultTtl;
+
+    public HibernateCacheConfig(
+            Environment environment,
+            @Value("${lms.cache.default.max-entries:1000}") long defaultMaxEntries,
+            @Value("${lms.cache.default.ttl:PT30M}") Duration defaultTtl) {
+        this.environment = environment;
+        this.defaultMaxEntries = defaultMaxEntries;
+        this.defaultTtl = defaultTtl;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(EHCACHE_PROVIDER).getCacheManager();
+
+        for (String region : ENTITY_REGIONS) {
+            createRegion(cacheManager, region, true);
+        }
+        createRegion(cacheManager, QUERY_RESULTS_REGION, true);
+        // Timestamps must outlive every cached query result, otherwise stale results could be served
+        createRegion(cacheManager, UPDATE_TIMESTAMPS_REGION, false);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private void createRegion(CacheManager cacheManager, String region, boolean expiring) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+
+        long maxEntries = environment.getProperty(
+                "lms.cache.region." + region + ".max-entries", Long.class, defaultMaxEntries);
+        Duration ttl = environment.getProperty(
+                "lms.cache.region." + region + ".ttl", Duration.class, defaultTtl);
+
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(expiring
+                        ? ExpiryPolicyBuilder.timeToLiveExpiration(ttl)
+                        : ExpiryPolicyBuilder.noExpiration());
+
+        cacheManager.createCache(region, Eh107Configuration.fromEhcacheCacheConfiguration(builder));
+    }
+}
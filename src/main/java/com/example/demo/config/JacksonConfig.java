@@ -1,5 +1,9 @@
 package com.example.demo.config;
 
+import com.example.demo.dto.analytics.AtRiskReport;
+import com.example.demo.dto.analytics.ChallengingQuestionsReport;
+import com.example.demo.dto.analytics.CoursePerformanceReport;
+import com.example.demo.dto.analytics.TopPerformersReport;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -7,14 +11,26 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
+import java.util.List;
+
 @Configuration
 public class JacksonConfig {
 
+    private static final List<Class<?>> ANALYTICS_REPORT_TYPES = List.of(
+            AtRiskReport.class,
+            ChallengingQuestionsReport.class,
+            CoursePerformanceReport.class,
+            TopPerformersReport.class);
+
     @Bean
     public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
         ObjectMapper objectMapper = builder.build();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+
+        // Build and cache the serializers of the analytics report records at startup
+        // instead of on the first dashboard request; a writer for a root type prefetches its serializer
+        ANALYTICS_REPORT_TYPES.forEach(objectMapper::writerFor);
         return objectMapper;
     }
 }
\ No newline at end of file
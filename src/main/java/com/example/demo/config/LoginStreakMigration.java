@@ -0,0 +1,75 @@
+package com.example.demo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Carries the streaks that used to be stored on every progress row (current_streak,
+ * last_login_time) over to login_streak, taking the best value per student; students that
+ * already have a login_streak row keep it. The old columns are renamed to {@code *_legacy} once
+ * copied, so the migration runs only once. Runs before the web server starts, so no login
+ * writes a fresh streak first.
+ */
+@Component
+public class LoginStreakMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginStreakMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public LoginStreakMigration(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!progressHasStreakColumns()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> migrate());
+    }
+
+    private void migrate() {
+        List<Object[]> rows = jdbcTemplate.query(
+                "SELECT student_id, MAX(current_streak), MAX(last_login_time) FROM progress " +
+                "WHERE student_id IS NOT NULL AND last_login_time IS NOT NULL " +
+                "AND student_id NOT IN (SELECT user_id FROM login_streak) GROUP BY student_id",
+                (rs, rowNum) -> new Object[]{
+                        rs.getLong(1), rs.getInt(2), rs.getObject(3, LocalDateTime.class).toLocalDate().toEpochDay()});
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO login_streak (user_id, current_streak, longest_streak, last_login_day) VALUES (?, ?, ?, ?)",
+                rows.stream().map(row -> new Object[]{row[0], row[1], row[1], row[2]}).toList());
+
+        // last_login_time first: it is the column the migration checks for
+        jdbcTemplate.execute("ALTER TABLE progress ALTER COLUMN last_login_time RENAME TO last_login_time_legacy");
+        jdbcTemplate.execute("ALTER TABLE progress ALTER COLUMN current_streak RENAME TO current_streak_legacy");
+        logger.info("Migrated login streaks of {} users from progress", rows.size());
+    }
+
+    private boolean progressHasStreakColumns() {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String[] names : new String[][]{{"progress", "last_login_time"}, {"PROGRESS", "LAST_LOGIN_TIME"}}) {
+                try (ResultSet columns = metaData.getColumns(null, null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics beyond what actuator records on its own (HTTP server requests, Spring Data repository
+ * invocations, Hibernate statistics): {@code @Timed} on service methods, and bytes sent by the
+ * file and video streaming endpoints, counted as they are written so aborted streams count only
+ * what actually went out.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // Streaming endpoints by path prefix, tagged with a short name
+    private static final Map<String, String> STREAMING_PATHS = new LinkedHashMap<>();
+
+    static {
+        STREAMING_PATHS.put("/api/video/stream/", "video");
+        STREAMING_PATHS.put("/api/content/files/", "content-file");
+        STREAMING_PATHS.put("/api/files/", "file");
+        STREAMING_PATHS.put("/api/assignments/files/", "assignment-file");
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<StreamedBytesFilter> streamedBytesFilter(MeterRegistry registry) {
+        Map<String, Counter> counters = new LinkedHashMap<>();
+        STREAMING_PATHS.forEach((prefix, endpoint) -> counters.put(prefix, Counter.builder("lms.stream.bytes")
+                .description("Response bytes written by file and video streaming endpoints")
+                .baseUnit("bytes")
+                .tag("endpoint", endpoint)
+                .register(registry)));
+
+        FilterRegistrationBean<StreamedBytesFilter> registration = new FilterRegistrationBean<>(new StreamedBytesFilter(counters));
+        registration.addUrlPatterns("/api/video/stream/*", "/api/content/files/*", "/api/files/*", "/api/assignments/files/*");
+        return registration;
+    }
+
+    static class StreamedBytesFilter extends OncePerRequestFilter {
+
+        private final Map<String, Counter> counters;
+
+        StreamedBytesFilter(Map<String, Counter> counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        protected boolean shouldNotFilterAsyncDispatch() {
+            // The wrapper installed on the initial dispatch stays in place for async streaming
+            return true;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            Counter counter = null;
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                if (request.getRequestURI().startsWith(entry.getKey())) {
+                    counter = entry.getValue();
+                    break;
+                }
+            }
+            chain.doFilter(request, counter == null ? response : new CountingResponse(response, counter));
+        }
+    }
+
+    private static class CountingResponse extends HttpServletResponseWrapper {
+
+        private final Counter counter;
+        private ServletOutputStream outputStream;
+
+        CountingResponse(HttpServletResponse response, Counter counter) {
+            super(response);
+            this.counter = counter;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new CountingOutputStream(super.getOutputStream(), counter);
+            }
+            return outputStream;
+        }
+    }
+
+    private static class CountingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final Counter counter;
+
+        CountingOutputStream(ServletOutputStream delegate, Counter counter) {
+            this.delegate = delegate;
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            counter.increment();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            counter.increment(len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            delegate.setWriteListener(listener);
+        }
+    }
+}
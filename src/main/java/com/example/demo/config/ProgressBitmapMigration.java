@@ -0,0 +1,103 @@
+package com.example.demo.config;
+
+import com.example.demo.model.IdBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off copy of the old per-id progress tables (completed_lessons, viewed_content,
+ * completed_content) into the bitmap columns of the progress row. Ids are merged with whatever
+ * the row already holds, and each table is renamed to {@code <name>_legacy} once copied, so the
+ * migration runs only once and the original rows stay available. Runs before the web server
+ * starts, so lesson gating never sees the bitmaps half-filled; each update bumps the row version,
+ * so a save that read the row before it fails rather than overwriting the migrated bits.
+ */
+@Component
+public class ProgressBitmapMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressBitmapMigration.class);
+
+    private static final List<String[]> LEGACY_TABLES = List.of(
+            new String[]{"completed_lessons", "lesson_id", "completed_lessons_bits"},
+            new String[]{"viewed_content", "content_id", "viewed_content_bits"},
+            new String[]{"completed_content", "content_id", "completed_content_bits"});
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public ProgressBitmapMigration(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${lms.progress.bitmap-migration.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        for (String[] legacy : LEGACY_TABLES) {
+            if (tableExists(legacy[0])) {
+                transactionTemplate.executeWithoutResult(status -> migrate(legacy[0], legacy[1], legacy[2]));
+            }
+        }
+    }
+
+    private void migrate(String table, String idColumn, String bitsColumn) {
+        Map<Long, IdBitmap> byProgress = new HashMap<>();
+        jdbcTemplate.query("SELECT progress_id, " + idColumn + " FROM " + table, rs -> {
+            byProgress.computeIfAbsent(rs.getLong(1), id -> new IdBitmap()).add(rs.getLong(2));
+        });
+
+        // Merge with the bits the rows already hold, read in one pass rather than per row
+        jdbcTemplate.query("SELECT id, " + bitsColumn + " FROM progress WHERE " + bitsColumn + " IS NOT NULL", rs -> {
+            IdBitmap ids = byProgress.get(rs.getLong(1));
+            if (ids != null) {
+                ids.addAll(IdBitmap.fromBytes(rs.getBytes(2)));
+            }
+        });
+
+        List<Object[]> updates = new ArrayList<>(byProgress.size());
+        byProgress.forEach((progressId, ids) -> updates.add(new Object[]{ids.toBytes(), progressId}));
+        for (int from = 0; from < updates.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate("UPDATE progress SET " + bitsColumn + " = ?, version = version + 1 WHERE id = ?",
+                    updates.subList(from, Math.min(updates.size(), from + BATCH_SIZE)));
+        }
+
+        jdbcTemplate.execute("ALTER TABLE " + table + " RENAME TO " + table + "_legacy");
+        logger.info("Migrated {} progress rows from {} into progress.{}", byProgress.size(), table, bitsColumn);
+    }
+
+    private boolean tableExists(String table) {
+        Boolean exists = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String name : new String[]{table, table.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(null, null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        });
+        return Boolean.TRUE.equals(exists);
+    }
+}
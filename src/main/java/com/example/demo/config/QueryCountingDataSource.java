@@ -0,0 +1,127 @@
+package com.example.demo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Feeds {@link RequestQueryStats} from the JDBC layer, so statements are counted whoever issues
+ * them: Hibernate, JdbcTemplate batches or plain JDBC. Statements created while a request is being
+ * counted are wrapped; each execute call counts as one statement (a batch included) and is timed.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, new ConnectionHandler(super.getConnection(username, password)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private abstract static class Handler implements InvocationHandler {
+
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Pools and transaction managers compare the object they were handed
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            return handle(method, args);
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static final class ConnectionHandler extends Handler {
+
+        ConnectionHandler(Connection connection) {
+            super(connection);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if (!(result instanceof Statement statement) || RequestQueryStats.current() == null) {
+                return result;
+            }
+            // prepareStatement / prepareCall take the SQL first; a plain statement gets it per execute
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            if (statement instanceof CallableStatement) {
+                return proxy(CallableStatement.class, new StatementHandler(statement, sql));
+            }
+            if (statement instanceof PreparedStatement) {
+                return proxy(PreparedStatement.class, new StatementHandler(statement, sql));
+            }
+            return proxy(Statement.class, new StatementHandler(statement, sql));
+        }
+    }
+
+    private static final class StatementHandler extends Handler {
+
+        private final String preparedSql;
+
+        StatementHandler(Statement statement, String preparedSql) {
+            super(statement);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            if (!EXECUTE_METHODS.contains(method.getName())) {
+                return forward(method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return forward(method, args);
+            } finally {
+                RequestQueryStats stats = RequestQueryStats.current();
+                if (stats != null) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    stats.statementExecuted(sql != null ? sql : "(batch)", System.nanoTime() - start);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Per-request SQL statement counting: the counting DataSource wrapper, the budget filter, and the
+ * {@code X-Query-Count} / {@code X-Query-Time} debug headers. Disabled with lms.query-guard.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "lms.query-guard.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryGuardConfig {
+
+    public static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    public static final String QUERY_TIME_HEADER = "X-Query-Time";
+
+    /**
+     * Wraps the pool in a {@link QueryCountingDataSource} before Hibernate, JdbcTemplate and the
+     * transaction manager are handed it.
+     */
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)
+                        ? new QueryCountingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryGuardFilter> queryGuardFilter(
+            MeterRegistry meterRegistry,
+            @Value("${lms.query-guard.max-statements:50}") int maxStatements,
+            @Value("${lms.query-guard.max-jdbc-time:PT1S}") Duration maxJdbcTime,
+            @Value("${lms.query-guard.top-statements:5}") int topStatements) {
+        FilterRegistrationBean<QueryGuardFilter> registration = new FilterRegistrationBean<>(
+                new QueryGuardFilter(meterRegistry, maxStatements, maxJdbcTime, topStatements));
+        // Ahead of Spring Security, so the user lookup of basic authentication is counted too
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Adds the statement count and JDBC time so far to responses just before the body is written.
+     * Statements run while the body is serialized (lazy loading) show up in the metrics and budget
+     * log but not in the header.
+     */
+    @ControllerAdvice
+    @ConditionalOnProperty(name = "lms.query-guard.debug-header", havingValue = "true")
+    static class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                      ServerHttpRequest request, ServerHttpResponse response) {
+            RequestQueryStats stats = RequestQueryStats.current();
+            if (stats != null) {
+                response.getHeaders().set(QUERY_COUNT_HEADER, String.valueOf(stats.getCount()));
+                response.getHeaders().set(QUERY_TIME_HEADER, String.valueOf(stats.getJdbcMillis()));
+            }
+            return body;
+        }
+    }
+}
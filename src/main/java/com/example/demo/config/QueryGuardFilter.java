@@ -0,0 +1,93 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SQL statements and JDBC time of every HTTP request (see {@link RequestQueryStats}),
+ * records them per endpoint as {@code lms.request.statements} and {@code lms.request.jdbc}, and
+ * logs a warning with the most expensive statements when a request goes over its budget. An async
+ * request keeps its stats across dispatches and is recorded once the dispatch that writes the
+ * response is done.
+ */
+public class QueryGuardFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryGuardFilter.class);
+
+    private static final String STATS_ATTRIBUTE = QueryGuardFilter.class.getName() + ".STATS";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxStatements;
+    private final Duration maxJdbcTime;
+    private final int topStatements;
+
+    public QueryGuardFilter(MeterRegistry meterRegistry, int maxStatements, Duration maxJdbcTime, int topStatements) {
+        this.meterRegistry = meterRegistry;
+        this.maxStatements = maxStatements;
+        this.maxJdbcTime = maxJdbcTime;
+        this.topStatements = topStatements;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestQueryStats stats = (RequestQueryStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (isAsyncDispatch(request) && stats != null) {
+            RequestQueryStats.resume(stats);
+        } else {
+            stats = RequestQueryStats.begin();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestQueryStats.end();
+            if (isAsyncStarted(request)) {
+                request.setAttribute(STATS_ATTRIBUTE, stats);
+            } else if (stats.getCount() > 0) {
+                record(request, stats);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, RequestQueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNMATCHED";
+
+        DistributionSummary.builder("lms.request.statements")
+                .description("SQL statements issued per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getCount());
+        Timer.builder("lms.request.jdbc")
+                .description("JDBC execution time per HTTP request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getJdbcMillis(), TimeUnit.MILLISECONDS);
+
+        if (stats.getCount() > maxStatements || stats.getJdbcMillis() > maxJdbcTime.toMillis()) {
+            logger.warn("Query budget exceeded: endpoint=\"{} {}\" statements={} jdbcTimeMs={} maxStatements={} maxJdbcTimeMs={} top={}",
+                    request.getMethod(), uri, stats.getCount(), stats.getJdbcMillis(), maxStatements,
+                    maxJdbcTime.toMillis(), stats.top(topStatements, 300));
+        }
+    }
+}
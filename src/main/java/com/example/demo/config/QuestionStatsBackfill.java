@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import com.example.demo.service.QuestionStatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills question_stats from the existing submissions on the first start after it was added, so the
+ * question reports are complete without waiting for the nightly rebuild. Runs only while
+ * question_stats is still empty and there are questions to count.
+ */
+@Component
+public class QuestionStatsBackfill implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionStatsBackfill.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final QuestionStatsService questionStatsService;
+
+    public QuestionStatsBackfill(JdbcTemplate jdbcTemplate, QuestionStatsService questionStatsService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.questionStatsService = questionStatsService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question_stats", Integer.class);
+        if (existing == null || existing > 0) {
+            return;
+        }
+        Integer questions = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM question", Integer.class);
+        if (questions == null || questions == 0) {
+            return;
+        }
+        logger.info("Backfilled question stats: {}", questionStatsService.rebuildAll());
+    }
+}
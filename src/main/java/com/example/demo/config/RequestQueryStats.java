@@ -0,0 +1,127 @@
+package com.example.demo.config;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * SQL statements executed while serving the current HTTP request, with the JDBC time spent on
+ * each distinct statement; fed by {@link QueryCountingDataSource}. Bound to the request thread by {@link QueryGuardFilter};
+ * work a request hands to a pool is counted through {@link #callFor}. Outside a request
+ * (scheduled jobs, event listeners on other threads) nothing is recorded.
+ */
+public final class RequestQueryStats {
+
+    private static final ThreadLocal<RequestQueryStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, StatementStats> statements = new HashMap<>();
+    private int count;
+    private long jdbcNanos;
+
+    private RequestQueryStats() {
+    }
+
+    static RequestQueryStats begin() {
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void resume(RequestQueryStats stats) {
+        CURRENT.set(stats);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Stats of the request being served on this thread, or null outside a request.
+     */
+    public static RequestQueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs {@code task} on this pool thread on behalf of the request that owns {@code requestStats}.
+     * The task's statements are counted on their own and added to the request when it finishes.
+     */
+    public static <T> T callFor(RequestQueryStats requestStats, Supplier<T> task) {
+        if (requestStats == null) {
+            return task.get();
+        }
+        RequestQueryStats previous = CURRENT.get();
+        RequestQueryStats stats = new RequestQueryStats();
+        CURRENT.set(stats);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            requestStats.merge(stats);
+        }
+    }
+
+    synchronized void statementExecuted(String sql, long nanos) {
+        count++;
+        jdbcNanos += nanos;
+        StatementStats statement = statements.computeIfAbsent(sql, StatementStats::new);
+        statement.count++;
+        statement.nanos += nanos;
+    }
+
+    private synchronized void merge(RequestQueryStats other) {
+        count += other.count;
+        jdbcNanos += other.jdbcNanos;
+        for (StatementStats statement : other.statements.values()) {
+            StatementStats target = statements.computeIfAbsent(statement.sql, StatementStats::new);
+            target.count += statement.count;
+            target.nanos += statement.nanos;
+        }
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+
+    /**
+     * The most expensive distinct statements, by total JDBC time and then by how often they ran.
+     */
+    public synchronized List<Map<String, Object>> top(int limit, int maxSqlLength) {
+        List<StatementStats> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingLong((StatementStats s) -> s.nanos)
+                .thenComparingInt(s -> s.count).reversed());
+
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (StatementStats statement : sorted.subList(0, Math.min(limit, sorted.size()))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", statement.count);
+            entry.put("timeMs", statement.nanos / 1_000_000);
+            entry.put("sql", statement.sql.length() > maxSqlLength
+                    ? statement.sql.substring(0, maxSqlLength) + "..." : statement.sql);
+            top.add(entry);
+        }
+        return top;
+    }
+
+    private static final class StatementStats {
+        private final String sql;
+        private int count;
+        private long nanos;
+
+        private StatementStats(String sql) {
+            this.sql = sql;
+        }
+    }
+}
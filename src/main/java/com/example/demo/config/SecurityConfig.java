@@ -51,6 +51,9 @@ public class SecurityConfig {
                                 "/configuration/ui",
                                 "/configuration/security","/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**","/docs", "/api-docs/**").permitAll()
                         .requestMatchers("/api/video/stream/**").permitAll()
+                        // Actuator: health is public, metrics and the Prometheus scrape need an admin
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // H2 Console
                         .requestMatchers("/h2-console/**").permitAll()
                         // Static files and public pages
@@ -97,7 +100,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "Range", "Accept-Ranges", "Content-Range"));
-        configuration.setExposedHeaders(Arrays.asList("Content-Range", "Accept-Ranges", "Content-Length"));
+        configuration.setExposedHeaders(Arrays.asList("Content-Range", "Accept-Ranges", "Content-Length",
+                QueryGuardConfig.QUERY_COUNT_HEADER, QueryGuardConfig.QUERY_TIME_HEADER));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
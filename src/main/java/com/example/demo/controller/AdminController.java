@@ -4,13 +4,16 @@ import com.example.demo.dto.CourseDTO;
 import com.example.demo.dto.UserDTO;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
-import com.example.demo.service.AnalyticsService;
+import com.example.demo.service.CacheStatisticsService;
 import com.example.demo.service.CourseService;
 import com.example.demo.service.DTOMapperService;
+import com.example.demo.service.QuestionStatsService;
+import com.example.demo.service.StudyTimeRecalculationService;
 import com.example.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -29,16 +32,23 @@ public class AdminController {
     private final UserService userService;
     private final CourseService courseService;
     private final DTOMapperService dtoMapperService;
-    private final AnalyticsService analyticsService;
+    private final CacheStatisticsService cacheStatisticsService;
+    private final QuestionStatsService questionStatsService;
+    private final StudyTimeRecalculationService studyTimeRecalculationService;
 
     public AdminController(
             UserService userService,
             CourseService courseService,
-            DTOMapperService dtoMapperService, AnalyticsService analyticsService) {
+            DTOMapperService dtoMapperService,
+            CacheStatisticsService cacheStatisticsService,
+            QuestionStatsService questionStatsService,
+            StudyTimeRecalculationService studyTimeRecalculationService) {
         this.userService = userService;
         this.courseService = courseService;
         this.dtoMapperService = dtoMapperService;
-        this.analyticsService = analyticsService;
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.questionStatsService = questionStatsService;
+        this.studyTimeRecalculationService = studyTimeRecalculationService;
     }
 
     @GetMapping("/users")
@@ -108,26 +118,66 @@ public class AdminController {
     // اضافه کردن به AdminController.java
 
     @PostMapping("/recalculate-study-times")
-    @Operation(summary = "Recalculate study times", description = "Recalculate all study times from activity logs")
+    @Operation(summary = "Recalculate study times", description = "Start a background recalculation of all study times from activity logs")
     @SecurityRequirement(name = "basicAuth")
     public ResponseEntity<Map<String, Object>> recalculateStudyTimes(
             Authentication authentication) {
 
-        try {
-            // Inject AnalyticsService to AdminController constructor
-            analyticsService.recalculateStudyTimes();
+        boolean started = studyTimeRecalculationService.start();
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Study times recalculated successfully");
+        Map<String, Object> response = new HashMap<>(studyTimeRecalculationService.getStatus());
+        response.put("success", started);
+        response.put("message", started
+                ? "Study time recalculation started"
+                : "A study time recalculation is already running");
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", e.getMessage());
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(response);
+    }
 
-            return ResponseEntity.badRequest().body(response);
-        }
+    @GetMapping("/recalculate-study-times/status")
+    @Operation(summary = "Study time recalculation status", description = "Progress of the current or last study time recalculation")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<Map<String, Object>> getStudyTimeRecalculationStatus() {
+        return ResponseEntity.ok(studyTimeRecalculationService.getStatus());
+    }
+
+    @GetMapping("/cache-stats")
+    @Operation(summary = "Get cache statistics", description = "Hit/miss statistics of the second-level and query caches")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(cacheStatisticsService.getCacheStatistics());
+    }
+
+    @PostMapping("/cache-stats/reset")
+    @Operation(summary = "Reset cache statistics", description = "Reset Hibernate statistics counters")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<Map<String, Object>> resetCacheStatistics() {
+        cacheStatisticsService.resetStatistics();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "Cache statistics reset");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/cache/evict")
+    @Operation(summary = "Evict caches", description = "Evict all second-level, query and analytics result cache entries")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<Map<String, Object>> evictCaches() {
+        cacheStatisticsService.evictAll();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "All cache regions evicted");
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/question-stats/rebuild")
+    @Operation(summary = "Rebuild question statistics", description = "Recompute the per-question answer statistics from all submissions")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<Map<String, Object>> rebuildQuestionStats() {
+        Map<String, Object> response = new HashMap<>(questionStatsService.rebuildAll());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,11 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.analytics.*;
 import com.example.demo.model.*;
 import com.example.demo.repository.ActivityLogRepository;
 import com.example.demo.repository.CourseRepository;
 import com.example.demo.repository.ProgressRepository;
+import com.example.demo.service.AnalyticsBulkhead;
 import com.example.demo.service.AnalyticsService;
 import com.example.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +20,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,10 +32,12 @@ public class AnalyticsController {
     private final CourseRepository courseRepository;
     private final ProgressRepository progressRepository;
     private final ActivityLogRepository activityLogRepository;
+    private final AnalyticsBulkhead analyticsBulkhead;
 
 
-    public AnalyticsController(AnalyticsService analyticsService, UserService userService, CourseRepository courseRepository, ProgressRepository progressRepository, ActivityLogRepository activityLogRepository) {
+    public AnalyticsController(AnalyticsService analyticsService, UserService userService, CourseRepository courseRepository, ProgressRepository progressRepository, ActivityLogRepository activityLogRepository, AnalyticsBulkhead analyticsBulkhead) {
         this.analyticsService = analyticsService;
+        this.analyticsBulkhead = analyticsBulkhead;
         this.userService = userService;
         this.courseRepository = courseRepository;
         this.progressRepository = progressRepository;
@@ -56,36 +61,36 @@ public class AnalyticsController {
     }
 
     @GetMapping("/course/{courseId}/top-performers")
-    public ResponseEntity<Map<String, List<Map<String, Object>>>> getTopPerformers(@PathVariable Long courseId) {
-        Map<String, List<Map<String, Object>>> topPerformers = analyticsService.getTopPerformers(courseId);
+    public ResponseEntity<TopPerformersReport> getTopPerformers(@PathVariable Long courseId) {
+        TopPerformersReport topPerformers = analyticsService.getTopPerformers(courseId);
         return ResponseEntity.ok(topPerformers);
     }
 
     @GetMapping("/teacher/course/{courseId}/performance")
-    public ResponseEntity<Map<String, Object>> getCoursePerformanceForTeacher(
+    public CompletableFuture<ResponseEntity<CoursePerformanceReport>> getCoursePerformanceForTeacher(
             @PathVariable Long courseId,
             Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> coursePerformance = analyticsService.getCoursePerformanceForTeacher(courseId);
-        return ResponseEntity.ok(coursePerformance);
+        return analyticsBulkhead.submit(authentication, "coursePerformance",
+                () -> ResponseEntity.ok(analyticsService.getCoursePerformanceForTeacher(courseId)));
     }
 
     @GetMapping("/teacher/course/{courseId}/difficult-lessons")
-    public ResponseEntity<List<Map<String, Object>>> getDifficultLessons(@PathVariable Long courseId) {
-        List<Map<String, Object>> difficultLessons = analyticsService.getDifficultLessons(courseId);
-        return ResponseEntity.ok(difficultLessons);
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getDifficultLessons(@PathVariable Long courseId, Authentication authentication) {
+        return analyticsBulkhead.submit(authentication, "difficultLessons",
+                () -> ResponseEntity.ok(analyticsService.getDifficultLessons(courseId)));
     }
 
     @GetMapping("/teacher/course/{courseId}/struggling-students")
-    public ResponseEntity<List<Map<String, Object>>> getStrugglingStudents(@PathVariable Long courseId) {
-        List<Map<String, Object>> strugglingStudents = analyticsService.getStrugglingStudents(courseId);
-        return ResponseEntity.ok(strugglingStudents);
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getStrugglingStudents(@PathVariable Long courseId, Authentication authentication) {
+        return analyticsBulkhead.submit(authentication, "strugglingStudents",
+                () -> ResponseEntity.ok(analyticsService.getStrugglingStudents(courseId)));
     }
 
     @GetMapping("/teacher/course/{courseId}/participation")
-    public ResponseEntity<List<Map<String, Object>>> getParticipationMetrics(@PathVariable Long courseId) {
-        List<Map<String, Object>> participationMetrics = analyticsService.getParticipationMetrics(courseId);
-        return ResponseEntity.ok(participationMetrics);
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getParticipationMetrics(@PathVariable Long courseId, Authentication authentication) {
+        return analyticsBulkhead.submit(authentication, "participation",
+                () -> ResponseEntity.ok(analyticsService.getParticipationMetrics(courseId)));
     }
 
     @GetMapping("/student/exam/{examId}/details")
@@ -109,27 +114,27 @@ public class AnalyticsController {
 
 
     @GetMapping("/teacher/engagement-trends")
-    public ResponseEntity<List<Map<String, Object>>> getEngagementTrends(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getEngagementTrends(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        List<Map<String, Object>> trends = analyticsService.getEngagementTrends(teacher);
-        return ResponseEntity.ok(trends);
+        return analyticsBulkhead.submit(authentication, "engagementTrends",
+                () -> ResponseEntity.ok(analyticsService.getEngagementTrends(teacher)));
     }
 
     @GetMapping("/teacher/challenging-questions")
-    public ResponseEntity<List<Map<String, Object>>> getChallengingQuestions(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getChallengingQuestions(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        List<Map<String, Object>> questions = analyticsService.getChallengingQuestions(teacher);
-        return ResponseEntity.ok(questions);
+        return analyticsBulkhead.submit(authentication, "challengingQuestions",
+                () -> ResponseEntity.ok(analyticsService.getChallengingQuestions(teacher)));
     }
 
     @GetMapping("/teacher/daily-engagement")
-    public ResponseEntity<Map<String, Object>> getDailyEngagementStats(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getDailyEngagementStats(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> stats = analyticsService.getDailyEngagementStats(teacher);
-        return ResponseEntity.ok(stats);
+        return analyticsBulkhead.submit(authentication, "dailyEngagement",
+                () -> ResponseEntity.ok(analyticsService.getDailyEngagementStats(teacher)));
     }
     @GetMapping("/course/{courseId}/exam-scores")
-    public ResponseEntity<Map<String, Object>> getCourseExamScores(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCourseExamScores(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             @RequestParam(required = false) Long examId,
@@ -137,47 +142,47 @@ public class AnalyticsController {
             Authentication authentication) {
 
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> scores = analyticsService.getCourseExamScores(courseId, period, examId, includeDetails);
-        return ResponseEntity.ok(scores);
+        return analyticsBulkhead.submit(authentication, "examScores",
+                () -> ResponseEntity.ok(analyticsService.getCourseExamScores(courseId, period, examId, includeDetails)));
     }
 
     @GetMapping("/course/{courseId}/time-distribution")
-    public ResponseEntity<Map<String, Object>> getCourseTimeDistribution(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCourseTimeDistribution(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             @RequestParam(defaultValue = "daily") String granularity,
             Authentication authentication) {
 
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> timeDistribution = analyticsService.getCourseTimeDistribution(courseId, period, granularity);
-        return ResponseEntity.ok(timeDistribution);
+        return analyticsBulkhead.submit(authentication, "timeDistribution",
+                () -> ResponseEntity.ok(analyticsService.getCourseTimeDistribution(courseId, period, granularity)));
     }
 
     @GetMapping("/course/{courseId}/activity-stats")
-    public ResponseEntity<Map<String, Object>> getCourseActivityStats(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCourseActivityStats(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             @RequestParam(defaultValue = "false") boolean includeTimeline,
             Authentication authentication) {
 
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> activityStats = analyticsService.getCourseActivityStats(courseId, period, includeTimeline);
-        return ResponseEntity.ok(activityStats);
+        return analyticsBulkhead.submit(authentication, "activityStats",
+                () -> ResponseEntity.ok(analyticsService.getCourseActivityStats(courseId, period, includeTimeline)));
     }
     @GetMapping("/course/{courseId}/lesson-progress")
-    public ResponseEntity<Map<String, Object>> getCourseLessonProgress(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCourseLessonProgress(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             Authentication authentication) {
 
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> lessonProgress = analyticsService.getCourseLessonProgress(courseId, period);
-        return ResponseEntity.ok(lessonProgress);
+        return analyticsBulkhead.submit(authentication, "lessonProgress",
+                () -> ResponseEntity.ok(analyticsService.getCourseLessonProgress(courseId, period)));
     }
     @GetMapping("/teacher/students-progress")
     @Operation(summary = "Get students progress overview", description = "Get progress statistics for all students in teacher's courses")
     @SecurityRequirement(name = "basicAuth")
-    public ResponseEntity<Map<String, Object>> getStudentsProgressOverview(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStudentsProgressOverview(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
 
         // Verify user is a teacher
@@ -188,8 +193,8 @@ public class AnalyticsController {
             throw new RuntimeException("Access denied: Only teachers can access this endpoint");
         }
 
-        Map<String, Object> progressOverview = analyticsService.getStudentsProgressOverview(teacher);
-        return ResponseEntity.ok(progressOverview);
+        return analyticsBulkhead.submit(authentication, "studentsProgress",
+                () -> ResponseEntity.ok(analyticsService.getStudentsProgressOverview(teacher)));
     }
 
     @GetMapping("/teacher/student/{studentId}/performance")
@@ -217,13 +222,13 @@ public class AnalyticsController {
     @GetMapping("/teacher/course/{courseId}/students-summary")
     @Operation(summary = "Get students summary for a course", description = "Get summary of all students progress in a specific course")
     @SecurityRequirement(name = "basicAuth")
-    public ResponseEntity<List<Map<String, Object>>> getCourseStudentsSummary(
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getCourseStudentsSummary(
             @PathVariable Long courseId,
             Authentication authentication) {
 
         User teacher = userService.findByUsername(authentication.getName());
-        List<Map<String, Object>> studentsSummary = analyticsService.getCourseStudentsSummary(teacher, courseId);
-        return ResponseEntity.ok(studentsSummary);
+        return analyticsBulkhead.submit(authentication, "studentsSummary",
+                () -> ResponseEntity.ok(analyticsService.getCourseStudentsSummary(teacher, courseId)));
     }
 
 
@@ -256,7 +261,7 @@ public class AnalyticsController {
 
     // NEW COMPREHENSIVE ENDPOINT
     @GetMapping("/student/{studentId}/course/{courseId}/comprehensive-report")
-    public ResponseEntity<Map<String, Object>> getStudentComprehensiveReport(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getStudentComprehensiveReport(
             @PathVariable Long studentId,
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "30") int days,
@@ -271,37 +276,37 @@ public class AnalyticsController {
             throw new RuntimeException("Access denied");
         }
 
-        Map<String, Object> report = analyticsService.getStudentComprehensiveReport(studentId, courseId, days);
-        return ResponseEntity.ok(report);
+        return analyticsBulkhead.submit(authentication, "comprehensiveReport",
+                () -> ResponseEntity.ok(analyticsService.getStudentComprehensiveReport(studentId, courseId, days)));
     }
 
     // ADD NEW ENDPOINTS FOR TEACHER ANALYTICS
     @GetMapping("/teacher/system-overview")
-    public ResponseEntity<Map<String, Object>> getSystemOverview(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getSystemOverview(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> overview = analyticsService.getSystemOverview(teacher);
-        return ResponseEntity.ok(overview);
+        return analyticsBulkhead.submit(authentication, "systemOverview",
+                () -> ResponseEntity.ok(analyticsService.getSystemOverview(teacher)));
     }
 
     @GetMapping("/teacher/time-analysis")
-    public ResponseEntity<List<Map<String, Object>>> getTimeAnalysis(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getTimeAnalysis(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        List<Map<String, Object>> timeAnalysis = analyticsService.getTimeAnalysis(teacher);
-        return ResponseEntity.ok(timeAnalysis);
+        return analyticsBulkhead.submit(authentication, "timeAnalysis",
+                () -> ResponseEntity.ok(analyticsService.getTimeAnalysis(teacher)));
     }
 
     @GetMapping("/teacher/question-difficulty")
-    public ResponseEntity<List<Map<String, Object>>> getQuestionDifficultyAnalysis(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<List<Map<String, Object>>>> getQuestionDifficultyAnalysis(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        List<Map<String, Object>> difficultyAnalysis = analyticsService.getQuestionDifficultyAnalysis(teacher);
-        return ResponseEntity.ok(difficultyAnalysis);
+        return analyticsBulkhead.submit(authentication, "questionDifficulty",
+                () -> ResponseEntity.ok(analyticsService.getQuestionDifficultyAnalysis(teacher)));
     }
 
     @GetMapping("/teacher/lesson-performance")
-    public ResponseEntity<Map<String, Object>> getLessonPerformanceAnalysis(Authentication authentication) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getLessonPerformanceAnalysis(Authentication authentication) {
         User teacher = userService.findByUsername(authentication.getName());
-        Map<String, Object> lessonPerformance = analyticsService.getLessonPerformanceAnalysis(teacher);
-        return ResponseEntity.ok(lessonPerformance);
+        return analyticsBulkhead.submit(authentication, "lessonPerformance",
+                () -> ResponseEntity.ok(analyticsService.getLessonPerformanceAnalysis(teacher)));
     }
 
     @GetMapping("/teacher/student/{studentId}/study-time")
@@ -398,7 +403,7 @@ public class AnalyticsController {
     @GetMapping("/course/{courseId}/challenging-questions")
     @Operation(summary = "Get challenging questions for a course", description = "Get questions with high error rates and difficulty scores")
     @SecurityRequirement(name = "basicAuth")
-    public ResponseEntity<Map<String, Object>> getChallengingQuestionsForCourse(
+    public CompletableFuture<ResponseEntity<ChallengingQuestionsReport>> getChallengingQuestionsForCourse(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             Authentication authentication) {
@@ -413,14 +418,14 @@ public class AnalyticsController {
             throw new RuntimeException("Access denied: Only teachers can access this endpoint");
         }
 
-        Map<String, Object> challengingQuestions = analyticsService.getChallengingQuestionsForCourse(courseId, period);
-        return ResponseEntity.ok(challengingQuestions);
+        return analyticsBulkhead.submit(authentication, "courseChallengingQuestions",
+                () -> ResponseEntity.ok(analyticsService.getChallengingQuestionsForCourse(courseId, period)));
     }
 
     @GetMapping("/course/{courseId}/at-risk-students")
     @Operation(summary = "Get at-risk students for a course", description = "Get students who are at risk based on various factors")
     @SecurityRequirement(name = "basicAuth")
-    public ResponseEntity<Map<String, Object>> getAtRiskStudents(
+    public CompletableFuture<ResponseEntity<AtRiskReport>> getAtRiskStudents(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             Authentication authentication) {
@@ -435,14 +440,39 @@ public class AnalyticsController {
             throw new RuntimeException("Access denied: Only teachers can access this endpoint");
         }
 
-        Map<String, Object> atRiskStudents = analyticsService.getAtRiskStudents(courseId, period);
-        return ResponseEntity.ok(atRiskStudents);
+        return analyticsBulkhead.submit(authentication, "atRiskStudents",
+                () -> ResponseEntity.ok(analyticsService.getAtRiskStudents(courseId, period)));
+    }
+
+    @GetMapping("/course/{courseId}/dashboard")
+    @Operation(summary = "Get several course reports at once", description = "Compute the requested course reports (all by default) from one shared data load")
+    @SecurityRequirement(name = "basicAuth")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getCourseDashboard(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) List<String> reports,
+            @RequestParam(defaultValue = "month") String period,
+            @RequestParam(defaultValue = "daily") String granularity,
+            Authentication authentication) {
+
+        User teacher = userService.findByUsername(authentication.getName());
+
+        // Verify user is a teacher
+        boolean isTeacher = teacher.getRoles().stream()
+                .anyMatch(role -> role.getName().equals("ROLE_TEACHER"));
+
+        if (!isTeacher) {
+            throw new RuntimeException("Access denied: Only teachers can access this endpoint");
+        }
+
+        return analyticsBulkhead.submit(authentication, "courseDashboard",
+                () -> ResponseEntity.ok(analyticsService.getCourseDashboard(courseId,
+                        reports == null || reports.isEmpty() ? AnalyticsService.DASHBOARD_REPORTS : reports, period, granularity)));
     }
 
     @GetMapping("/course/{courseId}/trend-analysis")
     @Operation(summary = "Get trend analysis for a course", description = "Get performance trends over time for a course")
     @SecurityRequirement(name = "basicAuth")
-    public ResponseEntity<Map<String, Object>> getTrendAnalysis(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getTrendAnalysis(
             @PathVariable Long courseId,
             @RequestParam(defaultValue = "month") String period,
             Authentication authentication) {
@@ -457,8 +487,8 @@ public class AnalyticsController {
             throw new RuntimeException("Access denied: Only teachers can access this endpoint");
         }
 
-        Map<String, Object> trendAnalysis = analyticsService.getTrendAnalysis(courseId, period);
-        return ResponseEntity.ok(trendAnalysis);
+        return analyticsBulkhead.submit(authentication, "trendAnalysis",
+                () -> ResponseEntity.ok(analyticsService.getTrendAnalysis(courseId, period)));
     }
     /**
      * دریافت آنالیز پیشرفته فعالیت‌های دانش‌آموز
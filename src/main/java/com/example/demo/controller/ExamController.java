@@ -35,11 +35,15 @@ import java.util.stream.Collectors;
 import com.example.demo.dto.ExamWithDetailsDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 @RestController
 @RequestMapping("/api/exams")
 @Tag(name = "Exams", description = "Exam management operations")
 public class ExamController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExamController.class);
+
     @Autowired
     private QuestionRepository questionRepository;
 
@@ -55,10 +59,13 @@ public class ExamController {
     private final UserRepository userRepository;
     private final LessonCompletionService lessonCompletionService;
     private final ProgressService progressService;
+    private final QuestionStatsService questionStatsService;
+    private final GradingTracer gradingTracer;
     public ExamController(
             ExamService examService,
             UserService userService,
-            DTOMapperService dtoMapperService, ActivityTrackingService activityTrackingService, SubmissionRepository submissionRepository, SubmissionService submissionService, LessonRepository lessonRepository, ExamRepository examRepository, UserRepository userRepository, LessonCompletionService lessonCompletionService, ProgressService progressService) {
+            DTOMapperService dtoMapperService, ActivityTrackingService activityTrackingService, SubmissionRepository submissionRepository, SubmissionService submissionService, LessonRepository lessonRepository, ExamRepository examRepository, UserRepository userRepository, LessonCompletionService lessonCompletionService, ProgressService progressService,
+            QuestionStatsService questionStatsService, GradingTracer gradingTracer) {
         this.examService = examService;
         this.userService = userService;
         this.dtoMapperService = dtoMapperService;
@@ -71,6 +78,8 @@ public class ExamController {
         this.lessonCompletionService = lessonCompletionService;
 
         this.progressService = progressService;
+        this.questionStatsService = questionStatsService;
+        this.gradingTracer = gradingTracer;
     }
 
 
@@ -205,16 +214,10 @@ public class ExamController {
 
         if (answersObj instanceof Map) {
             try {
-                // اضافه کردن logging برای debug
-                System.out.println("Received answers: " + answersObj);
-
                 // Convert to JSON string using ObjectMapper
                 answersJson = objectMapper.writeValueAsString(answersObj);
-                System.out.println("Converted to JSON: " + answersJson);
-
             } catch (Exception e) {
-                System.err.println("Error converting answers to JSON: " + e.getMessage());
-                e.printStackTrace();
+                logger.error("Error converting answers to JSON", e);
                 throw new RuntimeException("Invalid answers format: " + e.getMessage());
             }
         }
@@ -230,13 +233,13 @@ public class ExamController {
                 long maxAllowedTime = exam.getTimeLimit() * 60 * 2; // Convert minutes to seconds and double it
                 if (timeSpent > maxAllowedTime) {
                     // Log but don't reject - could be network issues or browser issues
-                    System.out.println("Warning: Student spent " + timeSpent + " seconds on exam, which exceeds 2x time limit of " + exam.getTimeLimit() + " minutes");
+                    logger.warn("Exam {} submitted after {}s, more than twice its {} minute limit", examId, timeSpent, exam.getTimeLimit());
                 }
             }
             
             // Time spent should be at least 10 seconds (basic sanity check)
             if (timeSpent < 10) {
-                System.out.println("Warning: Student spent only " + timeSpent + " seconds on exam, which seems too fast");
+                logger.warn("Exam {} submitted after only {}s", examId, timeSpent);
             }
         }
 
@@ -551,7 +554,7 @@ public class ExamController {
 
             return ResponseEntity.ok(submissionService.getSubmissionWithAnswers(submissionId));
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            logger.error("Error fetching answers of submission {}", submissionId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching answers");
         }
     }
@@ -573,7 +576,6 @@ public class ExamController {
 
             // Parse کردن answers از JSON
             Map<String, Object> studentAnswers = parseAnswersJson(submission.getAnswersJson());
-            System.out.println("Parsed student answers: " + studentAnswers);
 
             // Students don't see manual grades, but we need empty map for compatibility
             Map<String, Integer> manualGrades = new HashMap<>();
@@ -594,7 +596,6 @@ public class ExamController {
                     // تلاش با ایندکس سوال
                     int questionIndex = questions.indexOf(question);
                     studentAnswer = studentAnswers.get(String.valueOf(questionIndex));
-                    System.out.println("Question " + questionId + " not found, trying index " + questionIndex + ": " + studentAnswer);
                 }
 
 
@@ -618,15 +619,12 @@ public class ExamController {
                     }
                 }
 
-                System.out.println("Processing question " + questionId + " with answer: " + studentAnswer);
-
                 // Check if there's a manual grade for this question
                 Integer manualGrade = manualGrades.get(questionId);
                 Map<String, Object> evaluation;
 
                 if (manualGrade != null) {
                     // Use manual grade
-                    System.out.println("Using manual grade " + manualGrade + " for question " + questionId);
                     evaluation = evaluateStudentAnswer(question, studentAnswer);
                     evaluation.put("earnedPoints", manualGrade);
                     evaluation.put("isCorrect", manualGrade > 0);
@@ -656,8 +654,7 @@ public class ExamController {
 
             // اگر نمره محاسبه شده با نمره ذخیره شده متفاوت است، به‌روزرسانی کن
             if (!Objects.equals(submission.getScore(), totalEarnedPoints)) {
-                System.out.println("Score mismatch detected. Stored: " + submission.getScore() +
-                        ", Calculated: " + totalEarnedPoints + ". Updating submission...");
+                logger.info("Score of submission {} corrected from {} to {}", submission.getId(), submission.getScore(), totalEarnedPoints);
 
                 submission.setScore(totalEarnedPoints);
                 submission.setPassed(totalEarnedPoints >= exam.getPassingScore());
@@ -667,8 +664,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error getting student answers: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting student answers", e);
 
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -679,28 +675,20 @@ public class ExamController {
     // متد کمکی برای parse کردن JSON answers
     private Map<String, Object> parseAnswersJson(String answersJson) {
         if (answersJson == null || answersJson.trim().isEmpty() || answersJson.trim().equals("{}")) {
-            System.out.println("Empty or null answers JSON");
             return new HashMap<>();
         }
 
         try {
-            System.out.println("Parsing answers JSON: " + answersJson);
-            Map<String, Object> parsed = objectMapper.readValue(answersJson, new TypeReference<Map<String, Object>>() {
+            return objectMapper.readValue(answersJson, new TypeReference<Map<String, Object>>() {
             });
-            System.out.println("Successfully parsed: " + parsed);
-            return parsed;
         } catch (Exception e) {
-            System.err.println("Error parsing answers JSON: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error parsing answers JSON", e);
             return new HashMap<>();
         }
     }
     public Map<String, Object> evaluateStudentAnswer(Question question, Object studentAnswer) {
         Map<String, Object> result = new HashMap<>();
 
-        System.out.println("Evaluating question " + question.getId() + " of type " + question.getQuestionType()
-                + " with student answer: " + studentAnswer);
-
         boolean isCorrect = false;
         int earnedPoints = 0;
 
@@ -712,25 +700,20 @@ public class ExamController {
                 // Binary scoring (TRUE/FALSE, MULTIPLE_CHOICE, FILL_IN_THE_BLANKS, SHORT_ANSWER, etc.)
                 isCorrect = (Boolean) evaluationResult;
                 earnedPoints = isCorrect ? question.getPoints() : 0;
-                System.out.println("Binary scoring - Correct: " + isCorrect + ", Points: " + earnedPoints);
             } else if (evaluationResult instanceof Double) {
                 // Partial scoring (MATCHING, CATEGORIZATION)
                 double percentage = (Double) evaluationResult;
                 ScoringPolicy policy = question.getScoringPolicy();
                 earnedPoints = examService.applyScoring(percentage, question.getPoints(), policy);
                 isCorrect = percentage >= 1.0; // Only consider "correct" if 100% accurate
-                System.out.println("Partial scoring - Percentage: " + String.format("%.2f", percentage * 100) +
-                                 "%, Points: " + earnedPoints + "/" + question.getPoints());
             } else {
                 // Fallback case
-                System.out.println("WARNING: Unexpected evaluation result type: " +
-                                 (evaluationResult != null ? evaluationResult.getClass().getSimpleName() : "null"));
+                logger.warn("Unexpected evaluation result {} for question {}", evaluationResult, question.getId());
                 isCorrect = false;
                 earnedPoints = 0;
             }
         } catch (Exception e) {
-            System.err.println("Error evaluating answer: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error evaluating answer", e);
         }
 
         result.put("isCorrect", isCorrect);
@@ -868,22 +851,15 @@ public class ExamController {
             Authentication authentication) {
 
         try {
-            System.out.println("=== MANUAL GRADING START ===");
-            System.out.println("Submission ID: " + submissionId);
-            System.out.println("Teacher: " + authentication.getName());
-
             User teacher = userService.findByUsername(authentication.getName());
 
             // پیدا کردن submission با lock برای جلوگیری از concurrent modifications
             Submission submission = submissionRepository.findById(submissionId)
                     .orElseThrow(() -> new RuntimeException("Submission not found"));
 
-            System.out.println("Current submission score: " + submission.getScore());
-            System.out.println("Current graded manually flag: " + submission.getGradedManually());
-
             // بررسی دسترسی معلم
             if (!submission.getExam().getLesson().getCourse().getTeacher().getId().equals(teacher.getId())) {
-                System.err.println("Access denied for teacher ID: " + teacher.getId());
+                logger.warn("Teacher {} denied manual grading of submission {}", teacher.getId(), submissionId);
                 return ResponseEntity.status(HttpStatus.FORBIDDEN)
                         .body(Map.of("success", false, "message", "Access denied"));
             }
@@ -897,19 +873,17 @@ public class ExamController {
                 manualGrades = new HashMap<>();
             }
 
-            System.out.println("Manual grades received: " + manualGrades);
-            System.out.println("Feedback: " + feedback);
-
             // Validate manual grades before processing
             validateManualGrades(submission, manualGrades);
 
             // Use the new recalculation method to get accurate total score
             int totalScore = examService.recalculateSubmissionScore(submission, manualGrades);
-            System.out.println("Calculated total score: " + totalScore);
 
-            // Store previous values for logging
+            // Reads the previous grades from the submission, so it has to run before they are replaced
+            questionStatsService.recordRegrade(submission, manualGrades);
+
+            // Kept for the student notification below
             Integer previousScore = submission.getScore();
-            Boolean previousGradedManually = submission.getGradedManually();
 
             // به‌روزرسانی submission با validation
             submission.setScore(totalScore);
@@ -927,10 +901,8 @@ public class ExamController {
             // Save with explicit flush to ensure immediate database update
             Submission savedSubmission = submissionRepository.saveAndFlush(submission);
 
-            System.out.println("=== MANUAL GRADING COMPLETE ===");
-            System.out.println("Previous score: " + previousScore + " -> New score: " + savedSubmission.getScore());
-            System.out.println("Previous graded manually: " + previousGradedManually + " -> New: " + savedSubmission.getGradedManually());
-            System.out.println("Passed: " + savedSubmission.isPassed());
+            logger.info("Submission {} graded manually by teacher {}: score {} -> {}",
+                    submissionId, teacher.getId(), previousScore, savedSubmission.getScore());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -958,12 +930,11 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (IllegalArgumentException e) {
-            System.err.println("Validation error in manual grading: " + e.getMessage());
+            logger.warn("Invalid manual grades for submission {}: {}", submissionId, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("success", false, "message", "خطا در اعتبارسنجی: " + e.getMessage()));
         } catch (Exception e) {
-            System.err.println("Error in manual grading: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error in manual grading", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در نمره‌گذاری: " + e.getMessage()));
         }
@@ -1084,8 +1055,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error getting submissions for grading: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting submissions for grading", e);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در دریافت اطلاعات: " + e.getMessage()));
@@ -1126,7 +1096,7 @@ public class ExamController {
                     manualGrades = objectMapper.readValue(submission.getManualGradesJson(),
                             new TypeReference<Map<String, Object>>() {});
                 } catch (Exception e) {
-                    System.err.println("Error parsing manual grades JSON: " + e.getMessage());
+                    logger.warn("Invalid manual grades JSON of submission {}: {}", submission.getId(), e.getMessage());
                 }
             }
 
@@ -1177,14 +1147,33 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error getting submission grading detail: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting submission grading detail", e);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در دریافت جزئیات: " + e.getMessage()));
         }
     }
 
+    @GetMapping("/submissions/{submissionId}/grading-trace")
+    @Operation(summary = "Get the stored grading traces of a submission",
+            description = "Per-question grading events of every grading pass; recorded only when lms.grading.trace.persist is enabled")
+    @SecurityRequirement(name = "basicAuth")
+    public ResponseEntity<?> getSubmissionGradingTrace(
+            @PathVariable Long submissionId,
+            Authentication authentication) {
+
+        User teacher = userService.findByUsername(authentication.getName());
+        Submission submission = submissionRepository.findById(submissionId)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+
+        if (!submission.getExam().getLesson().getCourse().getTeacher().getId().equals(teacher.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("success", false, "message", "Access denied"));
+        }
+
+        return ResponseEntity.ok(Map.of("submissionId", submissionId, "traces", gradingTracer.getTraces(submissionId)));
+    }
+
     @GetMapping("/{examId}/submissions")
     @Operation(summary = "Get all submissions for an exam")
     @SecurityRequirement(name = "basicAuth")
@@ -1235,8 +1224,7 @@ public class ExamController {
             return ResponseEntity.ok(submissionData);
 
         } catch (Exception e) {
-            System.err.println("Error getting exam submissions: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting exam submissions", e);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در دریافت اطلاعات: " + e.getMessage()));
@@ -1358,8 +1346,7 @@ public class ExamController {
             return new ResponseEntity<>(excelBytes, responseHeaders, HttpStatus.OK);
 
         } catch (Exception e) {
-            System.err.println("Error exporting exam results: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error exporting exam results", e);
             throw new RuntimeException("خطا در ایجاد فایل Excel: " + e.getMessage());
         }
     }
@@ -1438,8 +1425,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error getting manual grading overview: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting manual grading overview", e);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در دریافت اطلاعات: " + e.getMessage()));
@@ -1476,7 +1462,7 @@ public class ExamController {
                     manualGrades = objectMapper.readValue(submission.getManualGradesJson(),
                             new TypeReference<Map<String, Object>>() {});
                 } catch (Exception e) {
-                    System.err.println("Error parsing manual grades JSON: " + e.getMessage());
+                    logger.warn("Invalid manual grades JSON of submission {}: {}", submission.getId(), e.getMessage());
                 }
             }
 
@@ -1497,8 +1483,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error validating submission score: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error validating submission score", e);
 
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در اعتبارسنجی نمره: " + e.getMessage()));
@@ -1546,7 +1531,6 @@ public class ExamController {
 
             // Parse کردن answers از JSON
             Map<String, Object> studentAnswers = parseAnswersJson(submission.getAnswersJson());
-            System.out.println("Parsed student answers: " + studentAnswers);
 
             // Parse manual grades if they exist
             Map<String, Integer> manualGrades = new HashMap<>();
@@ -1555,9 +1539,8 @@ public class ExamController {
                     ObjectMapper mapper = new ObjectMapper();
                     manualGrades = mapper.readValue(submission.getManualGradesJson(),
                             new TypeReference<Map<String, Integer>>() {});
-                    System.out.println("Loaded manual grades: " + manualGrades);
                 } catch (Exception e) {
-                    System.err.println("Error parsing manual grades: " + e.getMessage());
+                    logger.warn("Invalid manual grades JSON of submission {}: {}", submission.getId(), e.getMessage());
                 }
             }
 
@@ -1577,7 +1560,6 @@ public class ExamController {
                     // تلاش با ایندکس سوال
                     int questionIndex = questions.indexOf(question);
                     studentAnswer = studentAnswers.get(String.valueOf(questionIndex));
-                    System.out.println("Question " + questionId + " not found, trying index " + questionIndex + ": " + studentAnswer);
                 }
 
 
@@ -1601,15 +1583,12 @@ public class ExamController {
                     }
                 }
 
-                System.out.println("Processing question " + questionId + " with answer: " + studentAnswer);
-
                 // Check if there's a manual grade for this question
                 Integer manualGrade = manualGrades.get(questionId);
                 Map<String, Object> evaluation;
 
                 if (manualGrade != null) {
                     // Use manual grade
-                    System.out.println("Using manual grade " + manualGrade + " for question " + questionId);
                     evaluation = evaluateStudentAnswer(question, studentAnswer);
                     evaluation.put("earnedPoints", manualGrade);
                     evaluation.put("isCorrect", manualGrade > 0);
@@ -1642,20 +1621,16 @@ public class ExamController {
             response.put("studentName", submission.getStudent().getFirstName() + " " +
                     (submission.getStudent().getLastName() != null ? submission.getStudent().getLastName() : ""));
 
-            System.out.println("Teacher view - Using stored submission score: " + actualScore +
-                             " (calculated from loop: " + totalEarnedPoints + ")");
-
             // اگر نمره محاسبه شده با نمره ذخیره شده متفاوت است، به‌روزرسانی کن
             if (!Objects.equals(submission.getScore(), totalEarnedPoints)) {
-                System.out.println("Score mismatch detected. Stored: " + submission.getScore() +
-                        ", Calculated: " + totalEarnedPoints + ". Using stored score for teacher view.");
+                logger.debug("Submission {} stores score {} but answers evaluate to {}; showing the stored score",
+                        submission.getId(), submission.getScore(), totalEarnedPoints);
             }
 
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error getting student answers: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error getting student answers", e);
 
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
@@ -1696,7 +1671,7 @@ public class ExamController {
                     manualGrades = objectMapper.readValue(submission.getManualGradesJson(),
                             new TypeReference<Map<String, Object>>() {});
                 } catch (Exception e) {
-                    System.err.println("Error parsing manual grades JSON: " + e.getMessage());
+                    logger.warn("Invalid manual grades JSON of submission {}: {}", submission.getId(), e.getMessage());
                 }
             }
 
@@ -1722,8 +1697,7 @@ public class ExamController {
                 response.put("scoreUpdated", true);
                 response.put("message", "نمره با موفقیت همگام‌سازی شد");
 
-                System.out.println("Score sync: Updated submission " + submissionId +
-                                 " from " + currentScore + " to " + recalculatedScore);
+                logger.info("Score of submission {} synced from {} to {}", submissionId, currentScore, recalculatedScore);
             } else {
                 response.put("scoreUpdated", false);
                 response.put("message", "نمره‌ها قبلاً همگام بودند");
@@ -1732,8 +1706,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error syncing submission scores: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error syncing submission scores", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در همگام‌سازی نمرات: " + e.getMessage()));
         }
@@ -1770,7 +1743,7 @@ public class ExamController {
                         manualGrades = objectMapper.readValue(submission.getManualGradesJson(),
                                 new TypeReference<Map<String, Object>>() {});
                     } catch (Exception e) {
-                        System.err.println("Error parsing manual grades for submission " + submission.getId());
+                        logger.warn("Invalid manual grades JSON of submission {}: {}", submission.getId(), e.getMessage());
                     }
                 }
 
@@ -1802,8 +1775,7 @@ public class ExamController {
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            System.err.println("Error checking scores sync status: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error checking scores sync status", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of("success", false, "message", "خطا در بررسی وضعیت همگام‌سازی: " + e.getMessage()));
         }
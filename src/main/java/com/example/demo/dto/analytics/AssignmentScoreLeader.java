@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * value is the average assignment score multiplied by 10 and rounded.
+ */
+public record AssignmentScoreLeader(Long studentId, String studentName, long value, long assignmentsSubmitted) {
+}
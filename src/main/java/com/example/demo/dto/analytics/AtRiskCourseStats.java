@@ -0,0 +1,4 @@
+package com.example.demo.dto.analytics;
+
+public record AtRiskCourseStats(int totalStudents, int atRiskCount, double averageRiskScore) {
+}
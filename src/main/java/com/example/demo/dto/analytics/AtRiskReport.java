@@ -0,0 +1,14 @@
+package com.example.demo.dto.analytics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of /api/analytics/course/{courseId}/at-risk-students
+ */
+public record AtRiskReport(
+        List<AtRiskStudent> students,
+        AtRiskCourseStats courseStats,
+        Map<String, Long> riskLevelCounts,
+        RiskAverages courseAverages) {
+}
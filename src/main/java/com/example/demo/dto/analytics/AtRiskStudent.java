@@ -0,0 +1,14 @@
+package com.example.demo.dto.analytics;
+
+public record AtRiskStudent(
+        Long id,
+        String firstName,
+        String lastName,
+        String username,
+        String email,
+        double riskScore,
+        String riskLevel,
+        RiskFactors factors,
+        StudentRiskMetrics studentMetrics,
+        RiskAverages courseAverages) {
+}
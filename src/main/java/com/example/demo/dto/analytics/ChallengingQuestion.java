@@ -0,0 +1,18 @@
+package com.example.demo.dto.analytics;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A question whose error rate is above the challenging threshold; difficulty is on a 0-5 scale.
+ */
+public record ChallengingQuestion(
+        Long questionId,
+        String questionText,
+        double errorRate,
+        double difficulty,
+        long totalAttempts,
+        long incorrectCount,
+        String topic,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String lessonTitle,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String examTitle) {
+}
@@ -0,0 +1,12 @@
+package com.example.demo.dto.analytics;
+
+import java.util.List;
+
+/**
+ * Response of /api/analytics/course/{courseId}/challenging-questions
+ */
+public record ChallengingQuestionsReport(
+        List<ChallengingQuestion> challengingQuestions,
+        ChallengingQuestionsSummary summary,
+        CourseRef course) {
+}
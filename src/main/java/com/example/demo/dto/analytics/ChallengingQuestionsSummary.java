@@ -0,0 +1,9 @@
+package com.example.demo.dto.analytics;
+
+public record ChallengingQuestionsSummary(
+        int totalDifficultQuestions,
+        double averageDifficulty,
+        int questionsNeedingReview,
+        double maxDifficulty,
+        String period) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto.analytics;
+
+public record CompletionLeader(
+        Long studentId,
+        String studentName,
+        Double value,
+        int completedLessons,
+        Integer totalLessons) {
+}
@@ -0,0 +1,25 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * Response of /api/analytics/teacher/course/{courseId}/performance.
+ * Some values are duplicated under two names for frontend compatibility.
+ */
+public record CoursePerformanceReport(
+        int totalStudents,
+        int studentCount,
+        int activeStudents,
+        long completedStudents,
+        double averageProgress,
+        double averageCompletion,
+        double averageTimeSpent,
+        double completionRate,
+        int examsTaken,
+        long passedExams,
+        double averageExamScore,
+        double passingRate,
+        double passRate,
+        int assignmentSubmissions,
+        double averageAssignmentScore,
+        long gradedAssignments,
+        double assignmentGradingRate) {
+}
@@ -0,0 +1,4 @@
+package com.example.demo.dto.analytics;
+
+public record CourseRef(Long id, String title) {
+}
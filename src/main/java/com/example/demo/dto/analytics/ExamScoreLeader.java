@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * value is the average exam score multiplied by 10 and rounded.
+ */
+public record ExamScoreLeader(Long studentId, String studentName, long value, long examsTaken) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * Course-wide averages the risk score of each student is measured against.
+ */
+public record RiskAverages(double avgProgress, double avgGrade, double avgAttendance) {
+}
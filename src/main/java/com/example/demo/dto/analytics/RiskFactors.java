@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * Contribution of each signal to the total risk score (weights 50 / 35 / 15).
+ */
+public record RiskFactors(double progressFactor, double gradeFactor, double attendanceFactor) {
+}
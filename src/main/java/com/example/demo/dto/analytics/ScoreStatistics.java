@@ -0,0 +1,42 @@
+package com.example.demo.dto.analytics;
+
+import com.example.demo.model.GradeCategory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aggregates of a set of exam or assignment submissions as computed by the database: count of all
+ * rows, and average, min, max and grade-category histogram over the rows that have a score.
+ */
+public record ScoreStatistics(long total, long scored, double average, int min, int max, long[] histogram) {
+
+    /**
+     * Reads one row of a statistics query: count(*), count(score), avg, min, max, then one count per
+     * {@link GradeCategory} in declaration order.
+     */
+    public static ScoreStatistics fromRow(Object[] row) {
+        long[] histogram = new long[GradeCategory.values().length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = row[5 + i] != null ? ((Number) row[5 + i]).longValue() : 0L;
+        }
+        return new ScoreStatistics(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                row[2] != null ? ((Number) row[2]).doubleValue() : 0.0,
+                row[3] != null ? ((Number) row[3]).intValue() : 0,
+                row[4] != null ? ((Number) row[4]).intValue() : 0,
+                histogram);
+    }
+
+    /**
+     * Histogram keyed by lower-case category name, every category present.
+     */
+    public Map<String, Integer> distribution() {
+        Map<String, Integer> distribution = new HashMap<>();
+        for (GradeCategory category : GradeCategory.values()) {
+            distribution.put(category.name().toLowerCase(), (int) histogram[category.ordinal()]);
+        }
+        return distribution;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * Raw signals of one student used for risk scoring.
+ */
+public record StudentRiskMetrics(double progress, double averageGrade, double attendanceDays) {
+}
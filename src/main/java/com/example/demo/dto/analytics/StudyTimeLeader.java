@@ -0,0 +1,7 @@
+package com.example.demo.dto.analytics;
+
+/**
+ * value is the study time in minutes; totalseconds keeps the raw value.
+ */
+public record StudyTimeLeader(Long studentId, String studentName, long value, long totalseconds) {
+}
@@ -0,0 +1,13 @@
+package com.example.demo.dto.analytics;
+
+import java.util.List;
+
+/**
+ * Response of /api/analytics/course/{courseId}/top-performers, top five per category.
+ */
+public record TopPerformersReport(
+        List<CompletionLeader> completion,
+        List<ExamScoreLeader> examScores,
+        List<AssignmentScoreLeader> assignmentScores,
+        List<StudyTimeLeader> studyTime) {
+}
@@ -0,0 +1,11 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after an activity log entry is stored for a user. {@code created} is false when an
+ * existing entry was updated or removed; {@code courseId} is its courseId metadata, if any.
+ */
+public record ActivityRecordedEvent(Long activityId, Long userId, String activityType, Long courseId,
+                                    LocalDateTime timestamp, Long timeSpent, boolean created) {
+}
@@ -0,0 +1,70 @@
+package com.example.demo.event;
+
+import com.example.demo.model.ActivityLog;
+import com.example.demo.model.Assignment;
+import com.example.demo.model.AssignmentSubmission;
+import com.example.demo.model.Exam;
+import com.example.demo.model.Lesson;
+import com.example.demo.model.Progress;
+import com.example.demo.model.Submission;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that turns writes on submissions, progress and activity logs into domain events,
+ * so every save path (services, controllers, test data) is covered without explicit publishing.
+ */
+@Component
+public class AnalyticsEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AnalyticsEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onCreate(Object entity) {
+        onWrite(entity, true);
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        onWrite(entity, false);
+    }
+
+    private void onWrite(Object entity, boolean created) {
+        if (entity instanceof Submission submission) {
+            eventPublisher.publishEvent(new SubmissionSavedEvent(
+                    courseIdOf(submission.getExam()),
+                    submission.getStudent() != null ? submission.getStudent().getId() : null));
+        } else if (entity instanceof AssignmentSubmission submission) {
+            Assignment assignment = submission.getAssignment();
+            eventPublisher.publishEvent(new SubmissionSavedEvent(
+                    assignment != null ? courseIdOf(assignment.getLesson()) : null,
+                    submission.getStudent() != null ? submission.getStudent().getId() : null));
+        } else if (entity instanceof Progress progress) {
+            eventPublisher.publishEvent(new ProgressChangedEvent(
+                    progress.getCourse() != null ? progress.getCourse().getId() : null,
+                    progress.getStudent() != null ? progress.getStudent().getId() : null));
+        } else if (entity instanceof ActivityLog log && log.getUser() != null) {
+            eventPublisher.publishEvent(new ActivityRecordedEvent(log.getId(), log.getUser().getId(), log.getActivityType(),
+                    log.getCourseId(), log.getTimestamp(), log.getTimeSpent(), created));
+        }
+    }
+
+    private Long courseIdOf(Exam exam) {
+        return exam != null ? courseIdOf(exam.getLesson()) : null;
+    }
+
+    private Long courseIdOf(Lesson lesson) {
+        if (lesson == null || lesson.getCourse() == null) {
+            return null;
+        }
+        return lesson.getCourse().getId();
+    }
+}
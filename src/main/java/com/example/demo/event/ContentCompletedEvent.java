@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+/**
+ * Published when a student marks a content item of a lesson as completed.
+ */
+public record ContentCompletedEvent(Long studentId, Long courseId, Long lessonId) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+/**
+ * Published whenever a lesson, content, exam or assignment of a course is created, changed or removed.
+ */
+public record CourseStructureChangedEvent(Long courseId) {
+}
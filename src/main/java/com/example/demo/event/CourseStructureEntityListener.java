@@ -0,0 +1,45 @@
+package com.example.demo.event;
+
+import com.example.demo.model.Assignment;
+import com.example.demo.model.Content;
+import com.example.demo.model.Exam;
+import com.example.demo.model.Lesson;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that reports changes to what a course's lessons require, so state derived
+ * from the lesson structure (such as the unlocked-lesson frontier) can be dropped.
+ */
+@Component
+public class CourseStructureEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CourseStructureEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Object entity) {
+        Lesson lesson = null;
+        if (entity instanceof Lesson changed) {
+            lesson = changed;
+        } else if (entity instanceof Content content) {
+            lesson = content.getLesson();
+        } else if (entity instanceof Exam exam) {
+            lesson = exam.getLesson();
+        } else if (entity instanceof Assignment assignment) {
+            lesson = assignment.getLesson();
+        }
+
+        if (lesson != null && lesson.getCourse() != null) {
+            eventPublisher.publishEvent(new CourseStructureChangedEvent(lesson.getCourse().getId()));
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.event;
+
+/**
+ * Published when a student is enrolled in or removed from a course.
+ */
+public record EnrollmentChangedEvent(Long courseId, Long studentId) {
+}
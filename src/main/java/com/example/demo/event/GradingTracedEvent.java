@@ -0,0 +1,10 @@
+package com.example.demo.event;
+
+import com.example.demo.model.GradingTrace;
+
+/**
+ * Published when a grading pass has been traced with persisting on; the unsaved trace row is
+ * stored once the grading transaction has committed.
+ */
+public record GradingTracedEvent(GradingTrace trace) {
+}
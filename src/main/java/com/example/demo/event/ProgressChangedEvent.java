@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Published whenever a progress record (completion, study time) is created, changed or removed.
+ * {@code studentId} is null when the change may cover any student of the course.
+ */
+public record ProgressChangedEvent(Long courseId, Long studentId) {
+}
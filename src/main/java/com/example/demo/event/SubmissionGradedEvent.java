@@ -0,0 +1,9 @@
+package com.example.demo.event;
+
+import java.util.Map;
+
+/**
+ * Published after an exam submission has been auto-graded, with the points earned per question id.
+ */
+public record SubmissionGradedEvent(Long submissionId, Map<Long, Integer> earnedPoints) {
+}
@@ -0,0 +1,8 @@
+package com.example.demo.event;
+
+/**
+ * Published whenever an exam or assignment submission is created, graded or removed.
+ * courseId may be null when the submission could not be traced back to a course.
+ */
+public record SubmissionSavedEvent(Long courseId, Long studentId) {
+}
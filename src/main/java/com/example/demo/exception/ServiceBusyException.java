@@ -0,0 +1,19 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when a request is turned away because the pool that would serve it is full; answered with
+ * 503 and a Retry-After header by {@link GlobalExceptionHandler}.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,20 +1,32 @@
 package com.example.demo.model;
 
 import com.example.demo.model.User;
+import com.example.demo.event.AnalyticsEntityListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 @Entity
+@Table(indexes = @Index(name = "idx_activity_log_user_timestamp", columnList = "user_id, timestamp"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(AnalyticsEntityListener.class)
 public class ActivityLog {
+    private static final ObjectMapper METADATA_MAPPER = new ObjectMapper();
+    private static final TypeReference<HashMap<String, String>> METADATA_TYPE = new TypeReference<>() {};
+
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
@@ -22,14 +34,78 @@ public class ActivityLog {
     @ManyToOne  // Add this annotation
     private User user;
 
+    // Stored as its ActivityType code (see ActivityLogCompactionMigration for the old name column)
+    @Convert(converter = ActivityTypeConverter.class)
+    @Column(name = "activity_type_code")
     private String activityType;
     private Long relatedEntityId;
     private LocalDateTime timestamp;
     private Long timeSpent; // Time spent on exam in seconds
 
-    @ElementCollection  // Add this for Map storage
-    @CollectionTable(name = "activity_metadata")
-    @MapKeyColumn(name = "metadata_key")
-    @Column(name = "metadata_value")
-    private Map<String, String> metadata = new HashMap<>(); // Change to String,String for simplicity
-}
\ No newline at end of file
+    // Metadata is kept as one JSON column in the row and only parsed when read; its courseId is
+    // also stored on its own so course reports can filter and group on it
+    @Column(name = "metadata_json", length = 4000)
+    private String metadataJson;
+
+    @Column(name = "course_id")
+    private Long courseId;
+
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Map<String, String> metadata;
+
+    /**
+     * The decoded metadata (read-only); change it with {@link #setMetadata(Map)}.
+     */
+    public Map<String, String> getMetadata() {
+        if (metadata == null) {
+            metadata = Collections.unmodifiableMap(decodeMetadata(metadataJson));
+        }
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, String> metadata) {
+        this.metadata = Collections.unmodifiableMap(metadata != null ? new HashMap<>(metadata) : new HashMap<>());
+        this.metadataJson = encodeMetadata(metadata);
+        this.courseId = parseCourseId(metadata != null ? metadata.get("courseId") : null);
+    }
+
+    public void setMetadataJson(String metadataJson) {
+        this.metadataJson = metadataJson;
+        this.metadata = null;
+    }
+
+    public static String encodeMetadata(Map<String, String> metadata) {
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        try {
+            return METADATA_MAPPER.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode activity metadata", e);
+        }
+    }
+
+    public static Map<String, String> decodeMetadata(String json) {
+        if (json == null || json.isEmpty()) {
+            return new HashMap<>();
+        }
+        try {
+            return METADATA_MAPPER.readValue(json, METADATA_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt activity metadata: " + json, e);
+        }
+    }
+
+    public static Long parseCourseId(String courseId) {
+        if (courseId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(courseId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
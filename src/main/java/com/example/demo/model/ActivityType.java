@@ -0,0 +1,65 @@
+package com.example.demo.model;
+
+/**
+ * Dictionary of activity log types. Activities store the code rather than the name; codes are
+ * fixed, so new types are added with a new code and existing ones never renumbered. UNKNOWN
+ * stands for activities logged with a type outside the dictionary, or none, before it existed.
+ */
+public enum ActivityType {
+    UNKNOWN(0),
+    LOGIN(1),
+    CONTENT_VIEW(2),
+    CONTENT_COMPLETION(3),
+    FILE_ACCESS(4),
+    FILE_DOWNLOAD(5),
+    LESSON_ACCESS(6),
+    LESSON_COMPLETION(7),
+    EXAM_START(8),
+    EXAM_SUBMISSION(9),
+    ASSIGNMENT_VIEW(10),
+    ASSIGNMENT_SUBMISSION(11),
+    CHAT_VIEW(12),
+    CHAT_MESSAGE_SEND(13),
+    CHAT_MESSAGE(14),
+    COURSE_ENROLLMENT(15),
+    FORUM_POST(16),
+    FORUM_REPLY(17),
+    LOGOUT(18);
+
+    private static final ActivityType[] BY_CODE = new ActivityType[64];
+
+    static {
+        for (ActivityType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final short code;
+
+    ActivityType(int code) {
+        this.code = (short) code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public static ActivityType fromCode(short code) {
+        ActivityType type = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown activity type code " + code);
+        }
+        return type;
+    }
+
+    /**
+     * The type with the given name; fails for names outside the dictionary.
+     */
+    public static ActivityType fromName(String name) {
+        try {
+            return valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown activity type " + name);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores an activity type name as its {@link ActivityType} code.
+ */
+@Converter
+public class ActivityTypeConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String activityType) {
+        return activityType == null ? null : ActivityType.fromName(activityType).getCode();
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short code) {
+        return code == null ? null : ActivityType.fromCode(code).name();
+    }
+}
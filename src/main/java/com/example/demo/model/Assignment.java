@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.event.CourseStructureEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(CourseStructureEntityListener.class)
 public class Assignment {
 
     @Id
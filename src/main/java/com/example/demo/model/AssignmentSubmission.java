@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.event.AnalyticsEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(AnalyticsEntityListener.class)
 public class AssignmentSubmission {
 
     @Id
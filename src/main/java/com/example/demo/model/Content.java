@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.event.CourseStructureEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -14,7 +15,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, CourseStructureEntityListener.class})
 public class Content {
 
     @Id
@@ -1,6 +1,9 @@
 package com.example.demo.model;
 
+import com.example.demo.event.CourseStructureEntityListener;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,9 +12,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exam")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(CourseStructureEntityListener.class)
 public class Exam {
 
     @Id
@@ -46,6 +52,7 @@ public class Exam {
     @OneToOne(mappedBy = "exam")
     private Lesson lesson;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "exam")
     @OneToMany(mappedBy = "exam", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Question> questions = new ArrayList<>();
 
@@ -73,6 +73,17 @@ public enum GradeCategory {
         return fromPercentage(percentage);
     }
 
+    /**
+     * Lowest raw score in this category for the given maximum score; the inverse of
+     * {@link #fromScore}, used to bucket scores in SQL.
+     *
+     * @param maxScore The maximum possible score
+     * @return The score at which this category starts
+     */
+    public double getMinScore(double maxScore) {
+        return maxScore * minPercentage / 100.0;
+    }
+
     /**
      * Checks if this category represents a passing grade (Average or better).
      *
@@ -0,0 +1,41 @@
+package com.example.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Audit record of one grading pass over a submission (on submit, or when a teacher regrades):
+ * the per-question scoring events as JSON, plus the resulting score. Only written when
+ * lms.grading.trace.persist is enabled.
+ */
+@Entity
+@Table(name = "grading_trace", indexes = @Index(name = "idx_grading_trace_submission", columnList = "submission_id"))
+@Data
+@NoArgsConstructor
+public class GradingTrace {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "submission_id", nullable = false)
+    private Long submissionId;
+
+    // SUBMIT or RECALCULATE
+    private String operation;
+
+    private Integer earnedPoints;
+
+    private Integer totalPoints;
+
+    private LocalDateTime createdAt;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    @JsonRawValue
+    private String eventsJson;
+}
@@ -0,0 +1,195 @@
+package com.example.demo.model;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * Set of entity ids backed by a compressed bitmap. Behaves like any {@code Set<Long>}, but
+ * membership, subset and intersection checks between two bitmaps run on whole words, and the
+ * set serializes to a compact byte array that fits in a single column.
+ */
+public class IdBitmap extends AbstractSet<Long> {
+
+    private final RoaringBitmap bitmap;
+
+    public IdBitmap() {
+        this(new RoaringBitmap());
+    }
+
+    private IdBitmap(RoaringBitmap bitmap) {
+        this.bitmap = bitmap;
+    }
+
+    public static IdBitmap of(Collection<Long> ids) {
+        IdBitmap result = new IdBitmap();
+        result.addAll(ids);
+        return result;
+    }
+
+    public static IdBitmap fromBytes(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        if (bytes != null && bytes.length > 0) {
+            try {
+                bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Corrupt id bitmap", e);
+            }
+        }
+        return new IdBitmap(bitmap);
+    }
+
+    public byte[] toBytes() {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    public IdBitmap copy() {
+        return new IdBitmap(bitmap.clone());
+    }
+
+    /**
+     * Number of ids present in both sets.
+     */
+    public int intersectionSize(IdBitmap other) {
+        return RoaringBitmap.andCardinality(bitmap, other.bitmap);
+    }
+
+    /**
+     * Number of ids of this set present in either of the other two.
+     */
+    public int intersectionSize(IdBitmap first, IdBitmap second) {
+        return RoaringBitmap.andCardinality(bitmap, RoaringBitmap.or(first.bitmap, second.bitmap));
+    }
+
+    @Override
+    public boolean add(Long id) {
+        return bitmap.checkedAdd(toIndex(id));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Long id && isIndexable(id) && bitmap.checkedRemove(id.intValue());
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long id && isIndexable(id) && bitmap.contains(id.intValue());
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof IdBitmap other) {
+            return bitmap.contains(other.bitmap);
+        }
+        return super.containsAll(c);
+    }
+
+    // Bulk removals work on the bitmap directly: the Roaring iterator cannot remove while iterating,
+    // so the iterator is read-only
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        int before = bitmap.getCardinality();
+        bitmap.andNot(toBitmap(c));
+        return bitmap.getCardinality() != before;
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        int before = bitmap.getCardinality();
+        bitmap.and(toBitmap(c));
+        return bitmap.getCardinality() != before;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Long> filter) {
+        RoaringBitmap removed = new RoaringBitmap();
+        bitmap.forEach((int id) -> {
+            if (filter.test(Integer.toUnsignedLong(id))) {
+                removed.add(id);
+            }
+        });
+        bitmap.andNot(removed);
+        return !removed.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return bitmap.getCardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bitmap.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        bitmap.clear();
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        Iterator<Integer> ids = bitmap.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return ids.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return Integer.toUnsignedLong(ids.next());
+            }
+
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IdBitmap other) {
+            return bitmap.equals(other.bitmap);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static RoaringBitmap toBitmap(Collection<?> c) {
+        if (c instanceof IdBitmap other) {
+            return other.bitmap;
+        }
+        RoaringBitmap ids = new RoaringBitmap();
+        for (Object o : c) {
+            if (o instanceof Long id && isIndexable(id)) {
+                ids.add(id.intValue());
+            }
+        }
+        return ids;
+    }
+
+    private static boolean isIndexable(long id) {
+        return id >= 0 && id <= 0xFFFFFFFFL;
+    }
+
+    private static int toIndex(Long id) {
+        if (id == null || !isIndexable(id)) {
+            throw new IllegalArgumentException("Id out of bitmap range: " + id);
+        }
+        return (int) id.longValue();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.hibernate.type.descriptor.java.MutableMutabilityPlan;
+
+/**
+ * Stores an {@link IdBitmap} as its serialized bytes; an empty column reads back as an empty set.
+ */
+@Converter
+public class IdBitmapConverter implements AttributeConverter<IdBitmap, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(IdBitmap ids) {
+        return ids == null || ids.isEmpty() ? null : ids.toBytes();
+    }
+
+    @Override
+    public IdBitmap convertToEntityAttribute(byte[] bytes) {
+        return IdBitmap.fromBytes(bytes);
+    }
+
+    /**
+     * Bitmaps are modified in place, so Hibernate needs its own snapshot to detect the change.
+     */
+    public static class Mutability extends MutableMutabilityPlan<IdBitmap> {
+        @Override
+        protected IdBitmap deepCopyNotNull(IdBitmap value) {
+            return value.copy();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Consecutive-day login streak of a user. Kept in one row per user and advanced with a single
+ * conditional update on login; a nightly job zeroes the streaks that were not continued.
+ */
+@Entity
+@Table(name = "login_streak")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginStreak {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private int currentStreak;
+
+    private int longestStreak;
+
+    // Day of the last login as an epoch day in Asia/Tehran; a plain number so date-typed binding
+    // and the JDBC time zone setting cannot move it across midnight
+    private Long lastLoginDay;
+}
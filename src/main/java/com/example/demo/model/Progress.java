@@ -1,42 +1,55 @@
 package com.example.demo.model;
 
+import com.example.demo.event.AnalyticsEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Mutability;
+
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
 
 @Entity
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(AnalyticsEntityListener.class)
 public class Progress {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
 
+    // Every save rewrites whole bitmaps, so concurrent saves are detected rather than merged
+    // silently (writers retry with @RetryOnConflict); existing rows start at 0
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @ManyToOne
     private User student;
 
     @ManyToOne
     private Course course;
 
+    // Completion state is kept as compressed id bitmaps in the progress row itself, so loading
+    // a student's progress is a single-row read (see ProgressBitmapMigration for the old tables)
+
     // Track completed lessons
-    @ElementCollection
-    @CollectionTable(name = "completed_lessons",
-            joinColumns = @JoinColumn(name = "progress_id"))
-    @Column(name = "lesson_id")
-    private Set<Long> completedLessons = new HashSet<>();
+    @Lob
+    @Convert(converter = IdBitmapConverter.class)
+    @Mutability(IdBitmapConverter.Mutability.class)
+    @Column(name = "completed_lessons_bits")
+    private IdBitmap completedLessons = new IdBitmap();
 
     // Track viewed content
-    @ElementCollection
-    @CollectionTable(name = "viewed_content",
-            joinColumns = @JoinColumn(name = "progress_id"))
-    @Column(name = "content_id")
-    private Set<Long> viewedContent = new HashSet<>();
+    @Lob
+    @Convert(converter = IdBitmapConverter.class)
+    @Mutability(IdBitmapConverter.Mutability.class)
+    @Column(name = "viewed_content_bits")
+    private IdBitmap viewedContent = new IdBitmap();
 
     private LocalDateTime lastAccessed;
 
@@ -44,13 +57,11 @@ public class Progress {
     private Integer totalLessons;
     private Integer completedLessonCount;
     private Double completionPercentage;
-    @ElementCollection
-    @CollectionTable(name = "completed_content",
-            joinColumns = @JoinColumn(name = "progress_id"))
-    @Column(name = "content_id")
-    private Set<Long> completedContent = new HashSet<>();
+    @Lob
+    @Convert(converter = IdBitmapConverter.class)
+    @Mutability(IdBitmapConverter.Mutability.class)
+    @Column(name = "completed_content_bits")
+    private IdBitmap completedContent = new IdBitmap();
 
     private Long totalStudyTime; // in seconds
-    private LocalDateTime lastLoginTime;
-    private Integer currentStreak;
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.example.demo.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -8,6 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,22 +48,26 @@ public class Question {
     private Exam exam;
 
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
     @ElementCollection
     @CollectionTable(name = "question_categories",
             joinColumns = @JoinColumn(name = "question_id"))
     @Column(name = "category")
     private List<String> categories = new ArrayList<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "question_id")
     private List<Answer> answers = new ArrayList<>();
 
     // برای سوالات fill in the blanks
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "question_id")
     private List<BlankAnswer> blankAnswers = new ArrayList<>();
 
     // برای سوالات matching
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "question")
     @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true)
     @JoinColumn(name = "question_id")
     private List<MatchingPair> matchingPairs = new ArrayList<>();
@@ -0,0 +1,77 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running answer statistics for a single question, maintained as exams are submitted and graded
+ * so difficulty analytics never have to re-grade submissions.
+ */
+@Entity
+@Table(name = "question_stats")
+@Data
+@NoArgsConstructor
+public class QuestionStats {
+
+    @Id
+    @Column(name = "question_id")
+    private Long questionId;
+
+    @Column(name = "exam_id")
+    private Long examId;
+
+    // Submissions of the question's exam, answered or not
+    private long attempts;
+
+    private long answered;
+
+    // Answers that earned full points
+    private long correct;
+
+    // Answers that earned at least half of the points (includes correct ones)
+    private long halfCredit;
+
+    // Partial-credit sum and the points that were available for it
+    private long earnedPoints;
+    private long possiblePoints;
+
+    // Share of the exam time, split evenly across the exam's questions
+    private long timeSpentSeconds;
+
+    // How often each option was picked (multiple choice / true-false only)
+    @ElementCollection
+    @CollectionTable(name = "question_stats_answer_counts", joinColumns = @JoinColumn(name = "question_id"))
+    @MapKeyColumn(name = "answer_key")
+    @Column(name = "answer_count")
+    private Map<String, Long> answerCounts = new HashMap<>();
+
+    private LocalDateTime firstAttemptAt;
+    private LocalDateTime lastAttemptAt;
+    private LocalDateTime updatedAt;
+
+    public QuestionStats(Long questionId, Long examId) {
+        this.questionId = questionId;
+        this.examId = examId;
+    }
+
+    public double getCorrectRate() {
+        return answered > 0 ? (double) correct / answered * 100 : 0.0;
+    }
+
+    public double getErrorRate() {
+        return attempts > 0 ? (double) (attempts - halfCredit) / attempts * 100 : 0.0;
+    }
+
+    public double getAverageScorePercent() {
+        return possiblePoints > 0 ? (double) earnedPoints / possiblePoints * 100 : 0.0;
+    }
+
+    public double getAverageTimeSeconds() {
+        return attempts > 0 ? (double) timeSpentSeconds / attempts : 0.0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.model;
 
+import com.example.demo.event.AnalyticsEntityListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(AnalyticsEntityListener.class)
 public class Submission {
 
     @Id
@@ -33,6 +35,11 @@ public class Submission {
     @Column(columnDefinition = "TEXT")
     private String answersJson;
 
+    // The same answers Smile-encoded, so reports can decode them without re-parsing the text
+    @Lob
+    @Column(name = "answers_smile")
+    private byte[] answersSmile;
+
     private Long timeSpent; // Time spent on exam in seconds
 
     @Column(name = "graded_manually")
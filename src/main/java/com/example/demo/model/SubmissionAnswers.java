@@ -0,0 +1,84 @@
+package com.example.demo.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a submission's answers keyed by question id. Values keep the shapes the
+ * answers JSON decodes to: numbers or strings for option ids and text, lists for blanks and
+ * maps for matching / categorization answers.
+ */
+public class SubmissionAnswers {
+
+    private static final SubmissionAnswers EMPTY = new SubmissionAnswers(Collections.emptyMap());
+
+    private final Map<String, Object> answers;
+
+    public SubmissionAnswers(Map<String, Object> answers) {
+        this.answers = Collections.unmodifiableMap(answers);
+    }
+
+    public static SubmissionAnswers empty() {
+        return EMPTY;
+    }
+
+    public Object get(Long questionId) {
+        return answers.get(String.valueOf(questionId));
+    }
+
+    public boolean isAnswered(Long questionId) {
+        return get(questionId) != null;
+    }
+
+    /**
+     * The answer as a single option id, or null when it is missing or not a plain number.
+     */
+    public Long getOptionId(Long questionId) {
+        return toOptionId(get(questionId));
+    }
+
+    /**
+     * Every answer that is a single option id, keyed by question id.
+     */
+    public Map<Long, Long> optionIds() {
+        Map<Long, Long> optionIds = new HashMap<>();
+        for (Map.Entry<String, Object> entry : answers.entrySet()) {
+            Long optionId = toOptionId(entry.getValue());
+            if (optionId != null) {
+                try {
+                    optionIds.put(Long.parseLong(entry.getKey()), optionId);
+                } catch (NumberFormatException e) {
+                    // Not a question id
+                }
+            }
+        }
+        return optionIds;
+    }
+
+    public int size() {
+        return answers.size();
+    }
+
+    public boolean isEmpty() {
+        return answers.isEmpty();
+    }
+
+    public Map<String, Object> asMap() {
+        return answers;
+    }
+
+    private static Long toOptionId(Object value) {
+        if (value instanceof Integer || value instanceof Long) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
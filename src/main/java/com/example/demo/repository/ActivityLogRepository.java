@@ -2,7 +2,10 @@ package com.example.demo.repository;
 
 import com.example.demo.model.ActivityLog;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -22,4 +25,38 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
 
     List<ActivityLog> findByUserOrderByTimestampDesc(User user);
 
+    /**
+     * Time spent per (user id, course id) over activities tagged with a course.
+     */
+    @Query("SELECT a.user.id, a.courseId, SUM(a.timeSpent) FROM ActivityLog a " +
+            "WHERE a.courseId IS NOT NULL AND a.timestamp BETWEEN :start AND :end " +
+            "GROUP BY a.user.id, a.courseId")
+    List<Object[]> sumTimeSpentByUserAndCourse(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Distinct days with any activity per (user id), for the users with progress in the course.
+     */
+    @Query("SELECT a.user.id, COUNT(DISTINCT CAST(a.timestamp AS LocalDate)) FROM ActivityLog a " +
+            "WHERE a.timestamp BETWEEN :start AND :end " +
+            "AND a.user.id IN (SELECT p.student.id FROM Progress p WHERE p.course.id = :courseId) " +
+            "GROUP BY a.user.id")
+    List<Object[]> countActiveDaysByCourseStudents(@Param("courseId") Long courseId,
+                                                   @Param("start") LocalDateTime start,
+                                                   @Param("end") LocalDateTime end);
+
+    // [userId, activityType, relatedEntityId, timeSpent, timestamp] of every activity in the window that
+    // points at an entity
+    @Query("SELECT a.user.id, a.activityType, a.relatedEntityId, a.timeSpent, a.timestamp FROM ActivityLog a " +
+            "WHERE a.timestamp BETWEEN :start AND :end AND a.relatedEntityId IS NOT NULL ORDER BY a.id")
+    List<Object[]> findEntityActivityRows(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT MAX(a.id) FROM ActivityLog a")
+    Long findMaxId();
+
+    // [id, userId, activityType, timeSpent, timestamp, courseId] of the next activities with a user
+    // after afterId, up to maxId, in id order
+    @Query("SELECT a.id, a.user.id, a.activityType, a.timeSpent, a.timestamp, a.courseId FROM ActivityLog a " +
+            "WHERE a.id > :afterId AND a.id <= :maxId ORDER BY a.id")
+    List<Object[]> findColumnStoreChunk(@Param("afterId") Long afterId, @Param("maxId") Long maxId, Pageable pageable);
+
 }
@@ -3,9 +3,15 @@ package com.example.demo.repository;
 import com.example.demo.model.Assignment;
 import com.example.demo.model.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByLesson(Lesson lesson);
     List<Assignment> findByLessonId(Long lessonId);
+
+    // [lessonId, assignmentId] pairs for every assignment of the course
+    @Query("SELECT a.lesson.id, a.id FROM Assignment a WHERE a.lesson.course.id = :courseId")
+    List<Object[]> findLessonAssignmentIdsByCourseId(@Param("courseId") Long courseId);
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +24,47 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
 
     List<AssignmentSubmission> findByAssignmentAndSubmittedAtBetween(Assignment assignment, LocalDateTime start, LocalDateTime end);
     Optional<AssignmentSubmission> findByStudentAndAssignment(User student, Assignment assignment);
+
+    @Query("SELECT DISTINCT a.assignment.id FROM AssignmentSubmission a WHERE a.student.id = :studentId AND a.assignment.lesson.course.id = :courseId")
+    List<Long> findSubmittedAssignmentIds(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    /**
+     * One row of score statistics (see ScoreStatistics.fromRow) over the submissions in the time
+     * window, narrowed to a course and student where those are not null.
+     */
+    @Query("SELECT COUNT(a), COUNT(a.score), AVG(a.score), MIN(a.score), MAX(a.score), " +
+            "SUM(CASE WHEN a.score < :averageFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.score >= :averageFrom AND a.score < :goodFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.score >= :goodFrom AND a.score < :excellentFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.score >= :excellentFrom THEN 1 ELSE 0 END) " +
+            "FROM AssignmentSubmission a WHERE a.submittedAt BETWEEN :start AND :end " +
+            "AND (:courseId IS NULL OR a.assignment.lesson.course.id = :courseId) " +
+            "AND (:studentId IS NULL OR a.student.id = :studentId)")
+    List<Object[]> scoreStatistics(@Param("courseId") Long courseId, @Param("studentId") Long studentId,
+                                   @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                   @Param("averageFrom") double averageFrom, @Param("goodFrom") double goodFrom,
+                                   @Param("excellentFrom") double excellentFrom);
+
+    // [studentId, assignmentId, score, graded] for every assignment submission in the course
+    @Query("SELECT a.student.id, a.assignment.id, a.score, a.graded FROM AssignmentSubmission a WHERE a.assignment.lesson.course.id = :courseId")
+    List<Object[]> findStudentAssignmentScoresByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT a.score FROM AssignmentSubmission a WHERE a.assignment.lesson.course.id = :courseId " +
+            "AND a.score IS NOT NULL ORDER BY a.id")
+    List<Integer> findScoresByCourseId(@Param("courseId") Long courseId);
+
+    // [studentId, firstName, lastName, score sum, scored submission count] per student in the course,
+    // or only for the given student when studentId is not null
+    @Query("SELECT st.id, st.firstName, st.lastName, SUM(a.score), COUNT(a) FROM AssignmentSubmission a " +
+            "JOIN a.student st WHERE a.assignment.lesson.course.id = :courseId AND a.score IS NOT NULL " +
+            "AND (:studentId IS NULL OR st.id = :studentId) GROUP BY st.id, st.firstName, st.lastName")
+    List<Object[]> sumScoresByStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+
+    // [id, studentId, assignmentId, score, graded] of every assignment submission of the course
+    @Query("SELECT a.id, a.student.id, a.assignment.id, a.score, a.graded FROM AssignmentSubmission a " +
+            "WHERE a.assignment.lesson.course.id = :courseId ORDER BY a.id")
+    List<Object[]> findResultsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT a.id FROM AssignmentSubmission a WHERE a.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
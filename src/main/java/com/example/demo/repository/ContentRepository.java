@@ -4,6 +4,8 @@ package com.example.demo.repository;
 import com.example.demo.model.Content;
 import com.example.demo.model.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +14,11 @@ public interface ContentRepository extends JpaRepository<Content, Long> {
     List<Content> findByLessonIdOrderByOrderIndex(Long lessonId);
     Content findById(long id);
     Optional<Content> findByFileId(Long fileId);
+
+    // [lessonId, contentId] pairs for every content of the course
+    @Query("SELECT c.lesson.id, c.id FROM Content c WHERE c.lesson.course.id = :courseId")
+    List<Object[]> findLessonContentIdsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT c.file.id FROM Content c WHERE c.lesson.course.id = :courseId AND c.file IS NOT NULL")
+    List<Long> findFileIdsByCourseId(@Param("courseId") Long courseId);
 }
\ No newline at end of file
@@ -3,6 +3,9 @@ package com.example.demo.repository;
 import com.example.demo.model.Course;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
@@ -14,4 +17,18 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
     List<Course> findByTeacherAndActiveTrue(User teacher);
     List<Course> findByTeacherAndActiveFalse(User teacher);
     List<Course> findByTeacherAndActive(User teacher, Boolean active);
+
+    @Query("SELECT DISTINCT c.id FROM Course c JOIN c.enrolledStudents s WHERE s.id IN :studentIds")
+    List<Long> findCourseIdsByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT COUNT(s) > 0 FROM Course c JOIN c.enrolledStudents s WHERE c.id = :courseId AND s.id = :studentId")
+    boolean isStudentEnrolled(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+
+    // [id, firstName, lastName] of every enrolled student, without loading the users and their roles
+    @Query("SELECT s.id, s.firstName, s.lastName FROM Course c JOIN c.enrolledStudents s WHERE c.id = :courseId")
+    List<Object[]> findEnrolledStudentRows(@Param("courseId") Long courseId);
+
+    @Query("SELECT s.id FROM Course c JOIN c.enrolledStudents s JOIN s.roles r " +
+            "WHERE c.id = :courseId AND r.name = :roleName")
+    List<Long> findEnrolledStudentIdsWithRole(@Param("courseId") Long courseId, @Param("roleName") String roleName);
 }
\ No newline at end of file
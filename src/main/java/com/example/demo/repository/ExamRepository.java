@@ -3,7 +3,10 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Exam;
 import com.example.demo.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -11,7 +14,11 @@ import java.util.List;
 import java.util.Optional;
 
 public interface ExamRepository extends JpaRepository<Exam, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     Optional<Exam> findByLessonId(Long lessonId);
     @Query("SELECT e FROM Exam e WHERE e.lesson.course.teacher = :teacher ORDER BY e.id DESC")
     List<Exam> findByTeacher(@Param("teacher") User teacher);
+
+    @Query("SELECT e.id FROM Exam e WHERE e.lesson.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
 }
\ No newline at end of file
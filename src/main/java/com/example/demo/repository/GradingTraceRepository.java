@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.GradingTrace;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface GradingTraceRepository extends JpaRepository<GradingTrace, Long> {
+
+    List<GradingTrace> findBySubmissionIdOrderByIdAsc(Long submissionId);
+}
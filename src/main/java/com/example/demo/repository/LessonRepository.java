@@ -3,10 +3,15 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Course;
 import com.example.demo.model.Lesson;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface LessonRepository extends JpaRepository<Lesson, Long> {
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Lesson> findByCourseOrderByOrderIndex(Course course);
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
     List<Lesson> findByCourseIdOrderByOrderIndex(Long courseId);
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.LoginStreak;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface LoginStreakRepository extends JpaRepository<LoginStreak, Long> {
+
+    /**
+     * Continues the streak when the previous login was yesterday and restarts it otherwise.
+     * Touches nothing when the user already logged in today; returns 0 then, and when the user
+     * has no streak row yet. Days are epoch days.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE LoginStreak s SET " +
+            "s.longestStreak = CASE WHEN s.lastLoginDay = :yesterday AND s.currentStreak + 1 > s.longestStreak " +
+            "THEN s.currentStreak + 1 ELSE s.longestStreak END, " +
+            "s.currentStreak = CASE WHEN s.lastLoginDay = :yesterday THEN s.currentStreak + 1 ELSE 1 END, " +
+            "s.lastLoginDay = :today " +
+            "WHERE s.userId = :userId AND (s.lastLoginDay IS NULL OR s.lastLoginDay < :today)")
+    int recordLogin(@Param("userId") Long userId, @Param("today") long today, @Param("yesterday") long yesterday);
+
+    /**
+     * Starts the streak of a user who has none yet; fails with a duplicate key when the row exists.
+     */
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO LoginStreak (userId, currentStreak, longestStreak, lastLoginDay) VALUES (:userId, 1, 1, :today)")
+    int insertFirstLogin(@Param("userId") Long userId, @Param("today") long today);
+
+    /**
+     * Zeroes every streak whose last login is older than yesterday.
+     */
+    @Modifying
+    @Query("UPDATE LoginStreak s SET s.currentStreak = 0 WHERE s.currentStreak > 0 AND s.lastLoginDay < :yesterday")
+    int resetBrokenStreaks(@Param("yesterday") long yesterday);
+}
@@ -3,12 +3,58 @@ package com.example.demo.repository;
 import com.example.demo.model.Course;
 import com.example.demo.model.Progress;
 import com.example.demo.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 import java.util.Optional;
 
 public interface ProgressRepository extends JpaRepository<Progress, Long> {
     List<Progress> findByStudent(User student);
     Optional<Progress> findByStudentAndCourse(User student, Course course);
+
+    // Row-locked for the completion writers, which rewrite whole bitmaps
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Progress p WHERE p.student = :student AND p.course = :course")
+    Optional<Progress> findForUpdate(@Param("student") User student, @Param("course") Course course);
     List<Progress> findByCourse(Course course);
+
+    /**
+     * (student id, first name, last name, username, email, completed content, viewed content) of every
+     * progress record of the course; skips loading the students with their roles.
+     */
+    @Query("SELECT s.id, s.firstName, s.lastName, s.username, s.email, p.completedContent, p.viewedContent " +
+            "FROM Progress p JOIN p.student s WHERE p.course.id = :courseId ORDER BY p.id")
+    List<Object[]> findStudentContentStateByCourseId(@Param("courseId") Long courseId);
+
+    // [completionPercentage, completedLessonCount, totalLessons] of every progress record of the course
+    @Query("SELECT p.completionPercentage, p.completedLessonCount, p.totalLessons FROM Progress p " +
+            "WHERE p.course.id = :courseId ORDER BY p.id")
+    List<Object[]> findCompletionByCourseId(@Param("courseId") Long courseId);
+
+    // [studentId, firstName, lastName, completionPercentage, completedLessons, totalLessons, totalStudyTime]
+    // of the course's progress records, or only the given student's when studentId is not null
+    @Query("SELECT s.id, s.firstName, s.lastName, p.completionPercentage, p.completedLessons, p.totalLessons, " +
+            "p.totalStudyTime FROM Progress p JOIN p.student s " +
+            "WHERE p.course.id = :courseId AND (:studentId IS NULL OR s.id = :studentId) ORDER BY p.id")
+    List<Object[]> findStandingsByCourseId(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+
+    // [studentId, firstName, lastName, completionPercentage, completedLessons, viewedContent, completedContent,
+    //  lastAccessed, totalStudyTime] of every progress record of the course
+    @Query("SELECT s.id, s.firstName, s.lastName, p.completionPercentage, p.completedLessons, p.viewedContent, " +
+            "p.completedContent, p.lastAccessed, p.totalStudyTime FROM Progress p JOIN p.student s " +
+            "WHERE p.course.id = :courseId ORDER BY p.id")
+    List<Object[]> findDashboardRowsByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT p FROM Progress p WHERE p.student.id = :studentId AND p.course.id = :courseId")
+    Optional<Progress> findByStudentIdAndCourseId(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    /**
+     * Next chunk of (progress id, student id, course id, total study time) after the given id.
+     */
+    @Query("SELECT p.id, p.student.id, p.course.id, p.totalStudyTime FROM Progress p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findStudyTimeChunk(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.QuestionStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface QuestionStatsRepository extends JpaRepository<QuestionStats, Long> {
+
+    // Locked in id order so concurrent submissions of the same exam cannot deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM QuestionStats s WHERE s.questionId IN :questionIds ORDER BY s.questionId")
+    List<QuestionStats> findAllForUpdate(@Param("questionIds") Collection<Long> questionIds);
+
+    List<QuestionStats> findByExamId(Long examId);
+
+    @Query("SELECT s.questionId FROM QuestionStats s WHERE s.questionId NOT IN (SELECT q.id FROM Question q)")
+    List<Long> findOrphanedQuestionIds();
+}
@@ -39,4 +39,54 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     @Query("SELECT s FROM Submission s WHERE s.exam.id = :examId AND s.student = :student")
     Optional<Submission> findByExamIdAndStudent(@Param("examId") Long examId, @Param("student") User student);
 
+    @Query("SELECT s.exam.id FROM Submission s WHERE s.student.id = :studentId AND s.passed = true AND s.exam.lesson.course.id = :courseId")
+    List<Long> findPassedExamIds(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
+
+    /**
+     * One row of score statistics (see ScoreStatistics.fromRow) over the submissions in the time
+     * window, narrowed to a course, exam and student where those are not null. Grade categories
+     * start at the given raw scores.
+     */
+    @Query("SELECT COUNT(s), COUNT(s.score), AVG(s.score), MIN(s.score), MAX(s.score), " +
+            "SUM(CASE WHEN s.score < :averageFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.score >= :averageFrom AND s.score < :goodFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.score >= :goodFrom AND s.score < :excellentFrom THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.score >= :excellentFrom THEN 1 ELSE 0 END) " +
+            "FROM Submission s WHERE s.submissionTime BETWEEN :start AND :end " +
+            "AND (:courseId IS NULL OR s.exam.lesson.course.id = :courseId) " +
+            "AND (:examId IS NULL OR s.exam.id = :examId) " +
+            "AND (:studentId IS NULL OR s.student.id = :studentId)")
+    List<Object[]> scoreStatistics(@Param("courseId") Long courseId, @Param("examId") Long examId,
+                                   @Param("studentId") Long studentId,
+                                   @Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                   @Param("averageFrom") double averageFrom, @Param("goodFrom") double goodFrom,
+                                   @Param("excellentFrom") double excellentFrom);
+
+    // [studentId, firstName, lastName, score, submissionTime] of an exam's submissions in the window, best first
+    @Query("SELECT s.student.id, s.student.firstName, s.student.lastName, s.score, s.submissionTime " +
+            "FROM Submission s WHERE s.exam.id = :examId AND s.submissionTime BETWEEN :start AND :end " +
+            "ORDER BY s.score DESC NULLS LAST, s.id")
+    List<Object[]> findStudentScoresByExamId(@Param("examId") Long examId,
+                                             @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // [studentId, examId, score] for every exam submission in the course
+    @Query("SELECT s.student.id, s.exam.id, s.score FROM Submission s WHERE s.exam.lesson.course.id = :courseId")
+    List<Object[]> findStudentExamScoresByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT s.score FROM Submission s WHERE s.exam.lesson.course.id = :courseId " +
+            "AND s.score IS NOT NULL ORDER BY s.id")
+    List<Integer> findScoresByCourseId(@Param("courseId") Long courseId);
+
+    // [studentId, firstName, lastName, score sum, submission count] per student in the course,
+    // or only for the given student when studentId is not null
+    @Query("SELECT st.id, st.firstName, st.lastName, SUM(s.score), COUNT(s) FROM Submission s JOIN s.student st " +
+            "WHERE s.exam.lesson.course.id = :courseId AND (:studentId IS NULL OR st.id = :studentId) " +
+            "GROUP BY st.id, st.firstName, st.lastName")
+    List<Object[]> sumScoresByStudent(@Param("courseId") Long courseId, @Param("studentId") Long studentId);
+
+    // [id, studentId, examId, score, passed] of every exam submission of the course
+    @Query("SELECT s.id, s.student.id, s.exam.id, s.score, s.passed FROM Submission s " +
+            "WHERE s.exam.lesson.course.id = :courseId ORDER BY s.id")
+    List<Object[]> findResultsByCourseId(@Param("courseId") Long courseId);
+
 }
\ No newline at end of file
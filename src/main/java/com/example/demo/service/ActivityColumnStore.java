@@ -0,0 +1,460 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ActivityRecordedEvent;
+import com.example.demo.model.ActivityType;
+import com.example.demo.repository.ActivityLogRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory copy of the activity log as primitive columns, for time analytics that only need
+ * who, when, which course, what type and how long. Rows live in append-only segments of direct
+ * (off-heap) memory, one block per column: timestamp as seconds of the local time since
+ * 2020-01-01 (an int that lasts until 2088, where epoch seconds would run out in 2038), user
+ * id, course id (-1 when untagged), time spent in seconds, and the activity type as its
+ * one-byte {@link ActivityType} code. A query is a scan over the columns, so it costs no
+ * entity loading and leaves almost nothing for the collector.
+ *
+ * The store is loaded from the database in the background after startup and then appended to
+ * as activities are committed; an activity the load already read is not appended again when its
+ * event arrives late. Until it is loaded, {@link #isReady()} is false and callers read
+ * the database instead. Updating or deleting a stored activity triggers a full reload, since
+ * that only happens when test data is reset.
+ */
+@Service
+public class ActivityColumnStore implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActivityColumnStore.class);
+
+    public static final int NO_COURSE = -1;
+
+    // Timestamps are stored as seconds since this local time; a whole number of days after 1970-01-01
+    private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final long BASE_EPOCH_SECOND = BASE.toEpochSecond(ZoneOffset.UTC);
+    // Day of week of BASE, counting from Monday = 0
+    private static final int BASE_DAY_OF_WEEK = BASE.getDayOfWeek().ordinal();
+    private static final int SECONDS_PER_DAY = 86400;
+
+    // Column blocks within a segment, as byte offsets in units of the segment capacity
+    private static final int TIMESTAMP = 0;
+    private static final int USER = 4;
+    private static final int COURSE = 8;
+    private static final int TIME_SPENT = 12;
+    private static final int TYPE = 16;
+    private static final int BYTES_PER_ROW = 17;
+
+    // Type column holds the ActivityType code; an activity without a type counts as UNKNOWN
+    private static final int MAX_TYPES = 256;
+
+    private final ActivityLogRepository activityLogRepository;
+    private final boolean enabled;
+    private final int segmentRows;
+    private final int loadBatchSize;
+    private final ExecutorService loader;
+    private final AtomicBoolean loadQueued = new AtomicBoolean();
+
+    // Appends, resets and pending events change under this lock. Readers take the
+    // published snapshot, whose rows are never written again
+    private final Object writeLock = new Object();
+    private Segment[] segments = new Segment[0];
+    private long rows;
+    private volatile Snapshot snapshot = new Snapshot(new Segment[0], 0);
+    private volatile boolean ready;
+    private boolean loading;
+
+    // Activities committed while a load is running
+    private final List<ActivityRecordedEvent> pending = new ArrayList<>();
+    // Ids up to the last load's high-water mark, and which of them it read
+    private long loadedMaxId;
+    private BitSet loadedIds = new BitSet();
+
+    public ActivityColumnStore(
+            ActivityLogRepository activityLogRepository,
+            MeterRegistry meterRegistry,
+            @Value("${lms.activity-store.enabled:true}") boolean enabled,
+            @Value("${lms.activity-store.segment-rows:65536}") int segmentRows,
+            @Value("${lms.activity-store.load-batch-size:5000}") int loadBatchSize) {
+        this.activityLogRepository = activityLogRepository;
+        this.enabled = enabled;
+        this.segmentRows = segmentRows;
+        this.loadBatchSize = loadBatchSize;
+        this.loader = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "activity-store-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("lms.activity-store.rows", this, store -> store.snapshot.rows)
+                .description("Activities held by the in-memory activity column store")
+                .register(meterRegistry);
+        Gauge.builder("lms.activity-store.memory", this, store -> (double) store.snapshot.segments.length * store.segmentRows * BYTES_PER_ROW)
+                .description("Off-heap memory allocated by the activity column store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            scheduleLoad();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Query query() {
+        return new Query();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActivityRecorded(ActivityRecordedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!event.created()) {
+            scheduleLoad();
+            return;
+        }
+        synchronized (writeLock) {
+            if (ready) {
+                if (!wasLoaded(event.activityId())) {
+                    append(event.userId(), event.courseId(), event.activityType(), event.timestamp(), event.timeSpent());
+                    publish();
+                }
+            } else if (loading) {
+                pending.add(event);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    private void scheduleLoad() {
+        if (loadQueued.compareAndSet(false, true)) {
+            loader.submit(this::load);
+        }
+    }
+
+    private void load() {
+        loadQueued.set(false);
+        synchronized (writeLock) {
+            ready = false;
+            loading = true;
+            rows = 0;
+            segments = new Segment[0];
+            loadedMaxId = 0;
+            loadedIds = new BitSet();
+            publish();
+        }
+
+        long startedAt = System.currentTimeMillis();
+        try {
+            Long maxId = activityLogRepository.findMaxId();
+            long afterId = 0L;
+            List<Object[]> chunk;
+            while (maxId != null
+                    && !(chunk = activityLogRepository.findColumnStoreChunk(afterId, maxId, PageRequest.of(0, loadBatchSize))).isEmpty()) {
+                synchronized (writeLock) {
+                    for (Object[] row : chunk) {
+                        // [id, userId, activityType, timeSpent, timestamp, courseId]
+                        long id = (Long) row[0];
+                        if (id <= Integer.MAX_VALUE) {
+                            loadedIds.set((int) id);
+                        }
+                        append((Long) row[1], (Long) row[5], (String) row[2],
+                                (LocalDateTime) row[4], (Long) row[3]);
+                    }
+                    publish();
+                }
+                afterId = (Long) chunk.get(chunk.size() - 1)[0];
+            }
+
+            synchronized (writeLock) {
+                loadedMaxId = maxId != null ? maxId : 0;
+                // Activities committed while loading, unless the load already picked them up
+                for (ActivityRecordedEvent event : pending) {
+                    if (!wasLoaded(event.activityId())) {
+                        append(event.userId(), event.courseId(), event.activityType(), event.timestamp(), event.timeSpent());
+                    }
+                }
+                pending.clear();
+                publish();
+                loading = false;
+                ready = true;
+            }
+            logger.info("Loaded {} activities into the activity column store in {} ms",
+                    snapshot.rows, System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                pending.clear();
+                loading = false;
+            }
+            logger.error("Loading the activity column store failed, time analytics stay on the database", e);
+        }
+    }
+
+    /**
+     * Whether the last load read this activity; ids past the int range are assumed read.
+     */
+    private boolean wasLoaded(long id) {
+        return id <= loadedMaxId && (id > Integer.MAX_VALUE || loadedIds.get((int) id));
+    }
+
+    private void append(Long userId, Long courseId, String activityType, LocalDateTime timestamp, Long timeSpent) {
+        if (userId == null || timestamp == null) {
+            return;
+        }
+        int index = (int) (rows % segmentRows);
+        if (index == 0) {
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = new Segment(segmentRows);
+        }
+        Segment segment = segments[segments.length - 1];
+        segment.putInt(TIMESTAMP, index, storedSecond(timestamp));
+        segment.putInt(USER, index, Math.toIntExact(userId));
+        segment.putInt(COURSE, index, courseId != null && courseId <= Integer.MAX_VALUE ? courseId.intValue() : NO_COURSE);
+        segment.putInt(TIME_SPENT, index, timeSpent != null ? (int) Math.min(timeSpent, Integer.MAX_VALUE) : 0);
+        segment.putByte(TYPE, index, typeCode(activityType));
+        rows++;
+    }
+
+    private void publish() {
+        snapshot = new Snapshot(segments, rows);
+    }
+
+    private static byte typeCode(String activityType) {
+        return (byte) (activityType == null ? ActivityType.UNKNOWN : ActivityType.fromName(activityType)).getCode();
+    }
+
+    private static int storedSecond(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC) - BASE_EPOCH_SECOND;
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    /**
+     * A filter over the stored activities. All bounds are inclusive, to the second.
+     */
+    public final class Query {
+
+        private int userId = -1;
+        private int[] courseIds;
+        private int from = Integer.MIN_VALUE;
+        private int to = Integer.MAX_VALUE;
+
+        private Query() {
+        }
+
+        public Query user(Long userId) {
+            this.userId = Math.toIntExact(userId);
+            return this;
+        }
+
+        public Query course(Long courseId) {
+            return courses(List.of(courseId));
+        }
+
+        /**
+         * Activities tagged with any of the courses.
+         */
+        public Query courses(Collection<Long> courseIds) {
+            this.courseIds = courseIds.stream()
+                    .filter(courseId -> courseId != null && courseId <= Integer.MAX_VALUE)
+                    .mapToInt(Long::intValue)
+                    .toArray();
+            return this;
+        }
+
+        public Query between(LocalDateTime start, LocalDateTime end) {
+            this.from = storedSecond(start);
+            this.to = storedSecond(end);
+            return this;
+        }
+
+        public long count() {
+            long[] count = new long[1];
+            scan((timestamp, timeSpent, type) -> count[0]++);
+            return count[0];
+        }
+
+        public long sumTimeSpent() {
+            long[] sum = new long[1];
+            scan((timestamp, timeSpent, type) -> sum[0] += timeSpent);
+            return sum[0];
+        }
+
+        /**
+         * Number of distinct days with a matching activity.
+         */
+        public int activeDays() {
+            Set<Integer> days = new HashSet<>();
+            scan((timestamp, timeSpent, type) -> days.add(Math.floorDiv(timestamp, SECONDS_PER_DAY)));
+            return days.size();
+        }
+
+        /**
+         * [count, total time spent] of the matching activities by activity type.
+         */
+        public Map<String, long[]> countAndTimeByType() {
+            long[][] totals = new long[MAX_TYPES][];
+            scan((timestamp, timeSpent, type) -> {
+                long[] total = totals[type];
+                if (total == null) {
+                    total = totals[type] = new long[2];
+                }
+                total[0]++;
+                total[1] += timeSpent;
+            });
+
+            Map<String, long[]> result = new HashMap<>();
+            for (int type = 0; type < MAX_TYPES; type++) {
+                if (totals[type] != null) {
+                    result.put(ActivityType.fromCode((short) type).name(), totals[type]);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * [count, total time spent] of the matching activities per time bucket, keyed by the start of
+         * the bucket in time order; empty buckets are left out. Buckets are counted from a local
+         * midnight, so hour and day buckets line up with the calendar.
+         */
+        public SortedMap<LocalDateTime, long[]> countAndTimeByBucket(Duration bucket) {
+            long bucketSeconds = bucket.getSeconds();
+            if (bucketSeconds <= 0) {
+                throw new IllegalArgumentException("Bucket must be at least a second: " + bucket);
+            }
+            Map<Long, long[]> totals = new HashMap<>();
+            // Rows are appended roughly in time order, so most rows land in the previous row's bucket
+            long[] lastBucket = {Long.MIN_VALUE};
+            long[][] lastTotal = new long[1][];
+            scan((timestamp, timeSpent, type) -> {
+                long index = Math.floorDiv((long) timestamp, bucketSeconds);
+                if (index != lastBucket[0]) {
+                    lastBucket[0] = index;
+                    lastTotal[0] = totals.computeIfAbsent(index, key -> new long[2]);
+                }
+                lastTotal[0][0]++;
+                lastTotal[0][1] += timeSpent;
+            });
+
+            SortedMap<LocalDateTime, long[]> result = new TreeMap<>();
+            totals.forEach((index, total) -> result.put(BASE.plusSeconds(index * bucketSeconds), total));
+            return result;
+        }
+
+        /**
+         * [count, total time spent] of the matching activities by day of week and hour of day, as
+         * {@code grid[day][hour]} with Monday as day 0.
+         */
+        public long[][][] countAndTimeByHourOfWeek() {
+            long[][][] grid = new long[7][24][2];
+            scan((timestamp, timeSpent, type) -> {
+                int day = Math.floorMod(Math.floorDiv(timestamp, SECONDS_PER_DAY) + BASE_DAY_OF_WEEK, 7);
+                long[] cell = grid[day][Math.floorMod(timestamp, SECONDS_PER_DAY) / 3600];
+                cell[0]++;
+                cell[1] += timeSpent;
+            });
+            return grid;
+        }
+
+        private boolean matchesCourse(int courseId) {
+            for (int candidate : courseIds) {
+                if (candidate == courseId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void scan(RowVisitor visitor) {
+            Snapshot current = snapshot;
+            for (int s = 0; s < current.segments.length; s++) {
+                Segment segment = current.segments[s];
+                int size = (int) Math.min(segmentRows, current.rows - (long) s * segmentRows);
+                for (int i = 0; i < size; i++) {
+                    if (userId != -1 && segment.getInt(USER, i) != userId) {
+                        continue;
+                    }
+                    int timestamp = segment.getInt(TIMESTAMP, i);
+                    if (timestamp < from || timestamp > to) {
+                        continue;
+                    }
+                    if (courseIds != null && !matchesCourse(segment.getInt(COURSE, i))) {
+                        continue;
+                    }
+                    visitor.visit(timestamp, segment.getInt(TIME_SPENT, i), segment.getByte(TYPE, i) & 0xFF);
+                }
+            }
+        }
+    }
+
+    private record Snapshot(Segment[] segments, long rows) {
+    }
+
+    private interface RowVisitor {
+        void visit(int timestamp, int timeSpent, int type);
+    }
+
+    private static final class Segment {
+
+        private final ByteBuffer data;
+        private final int capacity;
+
+        private Segment(int capacity) {
+            this.capacity = capacity;
+            this.data = ByteBuffer.allocateDirect(capacity * BYTES_PER_ROW);
+        }
+
+        private int getInt(int column, int index) {
+            return data.getInt(column * capacity + index * 4);
+        }
+
+        private void putInt(int column, int index, int value) {
+            data.putInt(column * capacity + index * 4, value);
+        }
+
+        private byte getByte(int column, int index) {
+            return data.get(column * capacity + index);
+        }
+
+        private void putByte(int column, int index, byte value) {
+            data.put(column * capacity + index, value);
+        }
+    }
+}
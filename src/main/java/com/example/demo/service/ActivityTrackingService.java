@@ -2,22 +2,25 @@ package com.example.demo.service;
 
 import com.example.demo.model.ActivityLog;
 import com.example.demo.model.Course;
+import com.example.demo.model.LoginStreak;
 import com.example.demo.model.Progress;
 import com.example.demo.model.User;
 import com.example.demo.repository.ActivityLogRepository;
+import com.example.demo.repository.LoginStreakRepository;
 import com.example.demo.repository.ProgressRepository;
 import com.example.demo.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -25,17 +28,21 @@ import java.util.Map;
 public class ActivityTrackingService {
 
     private static final Logger logger = LoggerFactory.getLogger(ActivityTrackingService.class);
+    public static final ZoneId STREAK_ZONE = ZoneId.of("Asia/Tehran");
 
     private final ActivityLogRepository activityLogRepository;
     private final ProgressRepository progressRepository;
     private final UserRepository userRepository;
+    private final LoginStreakRepository loginStreakRepository;
 
     public ActivityTrackingService(ActivityLogRepository activityLogRepository,
                                    ProgressRepository progressRepository,
-                                   UserRepository userRepository) {
+                                   UserRepository userRepository,
+                                   LoginStreakRepository loginStreakRepository) {
         this.activityLogRepository = activityLogRepository;
         this.progressRepository = progressRepository;
         this.userRepository = userRepository;
+        this.loginStreakRepository = loginStreakRepository;
     }
 
     public void logActivity(User user, String activityType, Long entityId, Long timeSpent, Map<String, String> metadata) {
@@ -60,6 +67,7 @@ public class ActivityTrackingService {
         logger.debug("Logged activity: type={}, user={}, timeSpent={}", activityType, user.getId(), timeSpent);
     }
     
+    @RetryOnConflict
     public void updateStudyTime(User user, Course course, Long additionalTime) {
         // Update total study time for specific course only
         Progress progress = progressRepository.findByStudentAndCourse(user, course).orElse(null);
@@ -70,30 +78,39 @@ public class ActivityTrackingService {
         }
     }
 
+    /**
+     * Records today's login in the user's streak: one conditional update, plus an insert on the
+     * user's first login. Independent of how many courses the user is enrolled in. Each statement
+     * runs in its own transaction, so a first-login insert that loses a race fails on its own.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateStreak(User user) {
-        // Update user login streak logic
-        List<Progress> progressList = progressRepository.findByStudent(user);
-        LocalDateTime now = LocalDateTime.now();
-
-        for (Progress progress : progressList) {
-            LocalDateTime lastLogin = progress.getLastLoginTime();
-            if (lastLogin != null) {
-                long daysBetween = ChronoUnit.DAYS.between(lastLogin.toLocalDate(), now.toLocalDate());
-                if (daysBetween == 1) {
-                    // Consecutive day
-                    progress.setCurrentStreak(progress.getCurrentStreak() != null ? progress.getCurrentStreak() + 1 : 1);
-                } else if (daysBetween > 1) {
-                    // Streak broken
-                    progress.setCurrentStreak(1);
-                }
-            } else {
-                progress.setCurrentStreak(1);
+        long today = LocalDate.now(STREAK_ZONE).toEpochDay();
+        if (loginStreakRepository.recordLogin(user.getId(), today, today - 1) == 0
+                && !loginStreakRepository.existsById(user.getId())) {
+            try {
+                loginStreakRepository.insertFirstLogin(user.getId(), today);
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent first login created the row; count this one on it
+                loginStreakRepository.recordLogin(user.getId(), today, today - 1);
             }
-            progress.setLastLoginTime(now);
-            progressRepository.save(progress);
         }
     }
 
+    @Transactional(readOnly = true)
+    public int getCurrentStreak(Long userId) {
+        return loginStreakRepository.findById(userId).map(LoginStreak::getCurrentStreak).orElse(0);
+    }
+
+    /**
+     * Nightly: zero the streaks of everyone who did not log in yesterday, in one statement.
+     */
+    @Scheduled(cron = "${lms.streak.reset-cron:0 5 0 * * *}", zone = "Asia/Tehran")
+    public void resetBrokenStreaks() {
+        int reset = loginStreakRepository.resetBrokenStreaks(LocalDate.now(STREAK_ZONE).toEpochDay() - 1);
+        logger.info("Reset {} broken login streaks", reset);
+    }
+
     /**
      * Check if an activity type is considered a study activity for time tracking
      */
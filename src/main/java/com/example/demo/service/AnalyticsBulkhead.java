@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.config.RequestQueryStats;
+import com.example.demo.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs heavy analytics reports on their own bounded pool instead of a Tomcat worker, so a burst of
+ * semester-wide reports cannot starve exam submissions, content views and chat of request threads.
+ *
+ * A report is turned away with 503 and Retry-After when the pool and its queue are full, or when
+ * the user already has {@code per-user} reports in flight. Each report gets its own open
+ * EntityManager for the duration of the task, as the request thread would under open-in-view, and
+ * its SQL statements are added to the request's {@link RequestQueryStats}. A report still queued or
+ * running after {@code timeout} is cancelled (see {@link StatementCancellation}), frees the user's slot and
+ * answers 503. Queue wait and run time are recorded per report as {@code lms.analytics.bulkhead.wait} and
+ * {@code lms.analytics.bulkhead.run}.
+ */
+@Service
+public class AnalyticsBulkhead {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsBulkhead.class);
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final int maxPerUser;
+    private final long retryAfterSeconds;
+    private final Duration timeout;
+
+    private final Map<String, Integer> inFlight = new ConcurrentHashMap<>();
+    private final Counter rejectedSaturated;
+    private final Counter rejectedPerUser;
+
+    public AnalyticsBulkhead(
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry,
+            @Value("${lms.analytics.bulkhead.threads:8}") int threads,
+            @Value("${lms.analytics.bulkhead.queue:50}") int queueSize,
+            @Value("${lms.analytics.bulkhead.per-user:2}") int maxPerUser,
+            @Value("${lms.analytics.bulkhead.retry-after:PT5S}") Duration retryAfter,
+            @Value("${lms.analytics.bulkhead.timeout:PT10M}") Duration timeout) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.meterRegistry = meterRegistry;
+        this.maxPerUser = maxPerUser;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.timeout = timeout;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "analytics-report-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "analytics-bulkhead", Tags.empty()).bindTo(meterRegistry);
+        this.rejectedSaturated = rejectedCounter("saturated");
+        this.rejectedPerUser = rejectedCounter("per-user");
+    }
+
+    /**
+     * Queues {@code task} for the caller; the future completes with its result or exception.
+     *
+     * @throws ServiceBusyException when the caller or the pool is at capacity
+     */
+    public <T> CompletableFuture<T> submit(Authentication authentication, String report, Supplier<T> task) {
+        String user = authentication != null ? authentication.getName() : "anonymous";
+        if (!acquire(user)) {
+            rejectedPerUser.increment();
+            throw new ServiceBusyException("Too many analytics reports in progress, please retry shortly", retryAfterSeconds);
+        }
+
+        RequestQueryStats requestStats = RequestQueryStats.current();
+        long queuedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        StatementCancellation cancellation = new StatementCancellation();
+        Future<?> running;
+        try {
+            running = executor.submit(() -> {
+                try {
+                    result.complete(run(report, queuedAt, cancellation,
+                            () -> RequestQueryStats.callFor(requestStats, task)));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(user);
+            rejectedSaturated.increment();
+            logger.warn("Analytics pool saturated, rejecting {} for {}", report, user);
+            throw new ServiceBusyException("Analytics is busy, please retry shortly", retryAfterSeconds);
+        }
+
+        result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+            if (e instanceof TimeoutException) {
+                running.cancel(false);
+                cancellation.cancel();
+                logger.warn("Analytics report {} for {} timed out after {}, cancelled", report, user, timeout);
+            }
+            release(user);
+        });
+        return result.exceptionallyCompose(e -> CompletableFuture.failedFuture(
+                e instanceof TimeoutException ? new AsyncRequestTimeoutException() : e));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(String report, long queuedAt, StatementCancellation cancellation, Supplier<T> task) {
+        long startedAt = System.nanoTime();
+        timer("lms.analytics.bulkhead.wait", "Time analytics reports spent queued for a thread", report)
+                .record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        cancellation.attach(entityManager.unwrap(Session.class));
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            return task.get();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(entityManager);
+            timer("lms.analytics.bulkhead.run", "Run time of analytics reports on the bulkhead pool", report)
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean acquire(String user) {
+        boolean[] acquired = new boolean[1];
+        inFlight.compute(user, (key, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxPerUser) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    private void release(String user) {
+        inFlight.computeIfPresent(user, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Timer timer(String name, String description, String report) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("report", report)
+                .register(meterRegistry);
+    }
+
+    private Counter rejectedCounter(String reason) {
+        return Counter.builder("lms.analytics.bulkhead.rejected")
+                .description("Analytics reports turned away with 503")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ActivityRecordedEvent;
+import com.example.demo.event.EnrollmentChangedEvent;
+import com.example.demo.event.SubmissionSavedEvent;
+import com.example.demo.repository.CourseRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cache for computed course analytics reports, keyed by (report, courseId, period, filters).
+ *
+ * Entries are size bounded and expire after a fixed TTL. After the refresh interval a read still
+ * returns the cached value while the report is recomputed in the background (stale-while-revalidate).
+ * Submission and enrollment changes drop the course's entries immediately so a regrade is never
+ * hidden behind a stale result. Activity only marks the courses of the active students stale: the
+ * students are collected and resolved to courses off the request thread every activity-flush, and
+ * a stale entry is recomputed in the background the next time it is read, once per mark.
+ */
+@Service
+public class AnalyticsResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsResultCache.class);
+
+    private final LoadingCache<ReportKey, Object> cache;
+    private final ExecutorService refreshExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final CourseRepository courseRepository;
+
+    // Students with activity since the last flush, and the time (cache ticker) each course was marked stale
+    private final Set<Long> activeStudents = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> staleSince = new ConcurrentHashMap<>();
+
+    public AnalyticsResultCache(
+            PlatformTransactionManager transactionManager,
+            CourseRepository courseRepository,
+            MeterRegistry meterRegistry,
+            @Value("${lms.analytics.cache.max-entries:500}") long maxEntries,
+            @Value("${lms.analytics.cache.ttl:PT15M}") Duration ttl,
+            @Value("${lms.analytics.cache.refresh-after:PT1M}") Duration refreshAfter,
+            @Value("${lms.analytics.cache.refresh-threads:2}") int refreshThreads) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.courseRepository = courseRepository;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "analytics-refresh-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .refreshAfterWrite(refreshAfter)
+                .executor(refreshExecutor)
+                .recordStats()
+                .build(this::load);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "analyticsResults");
+        new ExecutorServiceMetrics(refreshExecutor, "analytics-refresh", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    /**
+     * Return the cached report for the given key, computing it with {@code loader} on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String report, Long courseId, String period, Supplier<T> loader, Object... filters) {
+        ReportKey key = new ReportKey(report, courseId, period, Arrays.asList(filters), loader);
+        T value = (T) cache.get(key);
+        refreshIfStale(key);
+        return value;
+    }
+
+    /**
+     * Like {@link #get}, but a miss is answered by {@code computeNow}, e.g. from data the caller has
+     * already loaded. {@code loader} must compute the same report from scratch; it is kept for
+     * background refreshes.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getOrCompute(String report, Long courseId, String period, Supplier<T> loader,
+                              Supplier<T> computeNow, Object... filters) {
+        ReportKey key = new ReportKey(report, courseId, period, Arrays.asList(filters), loader);
+        T value = (T) cache.get(key, missed -> transactionTemplate.execute(status -> computeNow.get()));
+        refreshIfStale(key);
+        return value;
+    }
+
+    public void invalidateCourse(Long courseId) {
+        if (courseId == null) {
+            invalidateAll();
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> courseId.equals(key.courseId));
+    }
+
+    /**
+     * Marks the courses' entries stale: each is recomputed in the background on its next read.
+     */
+    public void markCoursesStale(Collection<Long> courseIds) {
+        long now = System.nanoTime();
+        courseIds.forEach(courseId -> staleSince.put(courseId, now));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("entries", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRatio", Math.round(stats.hitRate() * 10000) / 100.0);
+        result.put("loads", stats.loadCount());
+        result.put("loadFailures", stats.loadFailureCount());
+        result.put("averageLoadMillis", Math.round(stats.averageLoadPenalty() / 1_000_000.0 * 100) / 100.0);
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionSaved(SubmissionSavedEvent event) {
+        invalidateCourse(event.courseId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        invalidateCourse(event.courseId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActivityRecorded(ActivityRecordedEvent event) {
+        if (event.userId() != null && cache.estimatedSize() > 0) {
+            activeStudents.add(event.userId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lms.analytics.cache.activity-flush:PT10S}")
+    public void flushActivity() {
+        if (activeStudents.isEmpty()) {
+            return;
+        }
+        Set<Long> students = new HashSet<>(activeStudents);
+        activeStudents.removeAll(students);
+        List<Long> courseIds = transactionTemplate.execute(status -> courseRepository.findCourseIdsByStudentIds(students));
+        if (courseIds != null && !courseIds.isEmpty()) {
+            markCoursesStale(courseIds);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private void refreshIfStale(ReportKey key) {
+        Long marked = key.courseId != null ? staleSince.get(key.courseId) : null;
+        if (marked == null) {
+            return;
+        }
+        // Caffeine ages entries on System.nanoTime, like the stale marks; a refresh already
+        // running for the key is joined rather than started again
+        cache.policy().expireAfterWrite()
+                .flatMap(expiry -> expiry.ageOf(key))
+                .filter(age -> System.nanoTime() - age.toNanos() < marked)
+                .ifPresent(age -> cache.refresh(key));
+    }
+
+    private Object load(ReportKey key) {
+        logger.debug("Computing analytics report {} for course {} (period={}, filters={})",
+                key.report, key.courseId, key.period, key.filters);
+        // Background refreshes have no surrounding session, so give every load its own transaction
+        return transactionTemplate.execute(status -> key.loader.get());
+    }
+
+    /**
+     * Cache key; the loader travels with the key so a background refresh can recompute the
+     * report, but it takes no part in equality.
+     */
+    private static final class ReportKey {
+        private final String report;
+        private final Long courseId;
+        private final String period;
+        private final List<Object> filters;
+        private final Supplier<?> loader;
+
+        private ReportKey(String report, Long courseId, String period, List<Object> filters, Supplier<?> loader) {
+            this.report = report;
+            this.courseId = courseId;
+            this.period = period;
+            this.filters = filters;
+            this.loader = loader;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ReportKey other)) return false;
+            return report.equals(other.report)
+                    && Objects.equals(courseId, other.courseId)
+                    && Objects.equals(period, other.period)
+                    && filters.equals(other.filters);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(report, courseId, period, filters);
+        }
+    }
+}
@@ -1,10 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.analytics.*;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import com.example.demo.util.AnalyticsUtils;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.util.RankIndex;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,15 +16,20 @@ import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import com.example.demo.model.GradeCategory;
+import io.micrometer.core.annotation.Timed;
 import java.util.stream.Collectors;
 import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @Service
+@Timed("lms.analytics")
 public class AnalyticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalyticsService.class);
+    private static final int TOP_PERFORMERS_LIMIT = 5;
+    // Course-wide reports are handed to everyone opening the same course within this window
+    private static final long COURSE_REPORT_SHARE_MILLIS = 5000;
 
     private final CourseRepository courseRepository;
     private final ProgressRepository progressRepository;
@@ -41,6 +46,13 @@ public class AnalyticsService {
     private final ProgressService progressService;
     private final TimeAnalyticsService timeAnalyticsService;
     private final ScoreAnalyticsService scoreAnalyticsService;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final CourseLeaderboardService courseLeaderboardService;
+    private final ReportComposer reportComposer;
+    private final QuestionStatsService questionStatsService;
+    private final SubmissionAnswersCodec submissionAnswersCodec;
+    private final LoginStreakRepository loginStreakRepository;
+    private final ActivityColumnStore activityColumnStore;
 
     public AnalyticsService(
             CourseRepository courseRepository,
@@ -57,7 +69,14 @@ public class AnalyticsService {
             ExamService examService,
             ProgressService progressService,
             TimeAnalyticsService timeAnalyticsService,
-            ScoreAnalyticsService scoreAnalyticsService) {
+            ScoreAnalyticsService scoreAnalyticsService,
+            AnalyticsResultCache analyticsResultCache,
+            CourseLeaderboardService courseLeaderboardService,
+            ReportComposer reportComposer,
+            QuestionStatsService questionStatsService,
+            SubmissionAnswersCodec submissionAnswersCodec,
+            LoginStreakRepository loginStreakRepository,
+            ActivityColumnStore activityColumnStore) {
         this.courseRepository = courseRepository;
         this.progressRepository = progressRepository;
         this.submissionRepository = submissionRepository;
@@ -73,86 +92,114 @@ public class AnalyticsService {
         this.progressService = progressService;
         this.timeAnalyticsService = timeAnalyticsService;
         this.scoreAnalyticsService = scoreAnalyticsService;
+        this.analyticsResultCache = analyticsResultCache;
+        this.courseLeaderboardService = courseLeaderboardService;
+        this.reportComposer = reportComposer;
+        this.questionStatsService = questionStatsService;
+        this.submissionAnswersCodec = submissionAnswersCodec;
+        this.loginStreakRepository = loginStreakRepository;
+        this.activityColumnStore = activityColumnStore;
+    }
+
+    /**
+     * Reports the course dashboard can ask for in one request, in their default order.
+     */
+    public static final List<String> DASHBOARD_REPORTS = List.of("performance", "difficultLessons",
+            "strugglingStudents", "participation", "examScores", "timeDistribution", "lessonProgress", "atRisk");
+
+    /**
+     * Several course reports in one call, keyed by report name in request order. The reports read
+     * their course data from one shared {@link CourseAnalyticsContext}, so the roster, progress,
+     * results and activity are loaded once rather than once per report. Cached reports are served
+     * from the cache as they would be by their own endpoints.
+     */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
+    public Map<String, Object> getCourseDashboard(Long courseId, List<String> reports, String period, String granularity) {
+        for (String report : reports) {
+            if (!DASHBOARD_REPORTS.contains(report)) {
+                throw new RuntimeException("Unknown dashboard report: " + report);
+            }
+        }
+        CourseAnalyticsContext context = contextFor(courseId, period);
+        context.course();
+
+        Map<String, Object> dashboard = new LinkedHashMap<>();
+        for (String report : reports) {
+            dashboard.put(report, switch (report) {
+                case "performance" -> analyticsResultCache.getOrCompute("coursePerformance", courseId, null,
+                        () -> computeCoursePerformanceForTeacher(courseId), () -> coursePerformance(context));
+                case "difficultLessons" -> difficultLessons(context);
+                case "strugglingStudents" -> strugglingStudents(context);
+                case "participation" -> participationMetrics(context);
+                case "examScores" -> scoreAnalyticsService.getCourseExamScores(courseId, period, null, false);
+                case "timeDistribution" -> courseTimeDistribution(context, period, granularity);
+                case "lessonProgress" -> courseLessonProgress(context);
+                case "atRisk" -> getAtRiskStudents(courseId, period);
+                default -> throw new IllegalStateException(report);
+            });
+        }
+        return dashboard;
+    }
+
+    private CourseAnalyticsContext contextFor(Long courseId, String period) {
+        return new CourseAnalyticsContext(courseId, period, courseRepository, lessonRepository, progressRepository,
+                submissionRepository, assignmentSubmissionRepository, assignmentRepository, contentRepository,
+                activityLogRepository);
     }
 
     /**
      * Get participation metrics for course students
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public List<Map<String, Object>> getParticipationMetrics(Long courseId) {
+        return participationMetrics(contextFor(courseId, null));
+    }
+
+    private List<Map<String, Object>> participationMetrics(CourseAnalyticsContext context) {
+        context.course();
         List<Map<String, Object>> participationMetrics = new ArrayList<>();
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+        // Lessons, exams and assignments of the course are the same for every student
+        List<Lesson> lessons = context.lessons();
+        int totalExams = 0;
+        int totalAssignments = 0;
+        for (Lesson lesson : lessons) {
+            if (lesson.getExam() != null) {
+                totalExams++;
+            }
+            totalAssignments += context.assignmentIds(lesson.getId()).size();
+        }
+        int totalItems = lessons.size() + totalExams + totalAssignments;
 
-        // For each enrolled student
-        for (User student : course.getEnrolledStudents()) {
-            Map<String, Object> studentData = new HashMap<>();
+        Map<Long, Integer> examsTaken = new HashMap<>();
+        context.examResults().forEach(result -> examsTaken.merge(result.studentId(), 1, Integer::sum));
+        Map<Long, Integer> assignmentsSubmitted = new HashMap<>();
+        context.assignmentResults().forEach(result -> assignmentsSubmitted.merge(result.studentId(), 1, Integer::sum));
 
-            studentData.put("studentId", student.getId());
-            studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
+        for (CourseAnalyticsContext.Student student : context.roster()) {
+            Map<String, Object> studentData = new HashMap<>();
 
-            // Get student's progress
-            Progress progress = progressRepository.findByStudentAndCourse(student, course)
-                    .orElse(null);
+            studentData.put("studentId", student.id());
+            studentData.put("studentName", student.name());
 
+            CourseAnalyticsContext.ProgressRow progress = context.progressOf(student.id());
             if (progress != null) {
-                studentData.put("viewedContent", progress.getViewedContent().size());
-                studentData.put("completedLessons", progress.getCompletedLessons().size());
-                studentData.put("lastAccessed", progress.getLastAccessed());
+                studentData.put("viewedContent", progress.viewedContent().size());
+                studentData.put("completedLessons", progress.completedLessons().size());
+                studentData.put("lastAccessed", progress.lastAccessed());
             } else {
                 studentData.put("viewedContent", 0);
                 studentData.put("completedLessons", 0);
                 studentData.put("lastAccessed", null);
             }
 
-            // Get student's exam/assignment activity
-            List<Submission> examSubmissions = submissionRepository.findByStudent(student).stream()
-                    .filter(s -> s.getExam().getLesson().getCourse().getId().equals(courseId))
-                    .collect(Collectors.toList());
-
-            studentData.put("examsTaken", examSubmissions.size());
-
-            // Get assignment submissions
-            List<AssignmentSubmission> assignmentSubmissions = assignmentSubmissionRepository.findByStudent(student).stream()
-                    .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(courseId))
-                    .collect(Collectors.toList());
-
-            studentData.put("assignmentSubmissions", assignmentSubmissions.size());
-
-            // Calculate overall participation score
-            int totalItems = 0;
-            int participatedItems = 0;
-
-            // Count total lessons
-            int totalLessons = course.getLessons().size();
-            totalItems += totalLessons;
-
-            // Count completed lessons
-            int completedLessons = progress != null ? progress.getCompletedLessons().size() : 0;
-            participatedItems += completedLessons;
-
-            // Count exams
-            int totalExams = course.getLessons().stream()
-                    .map(Lesson::getExam)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList())
-                    .size();
-            totalItems += totalExams;
-
-            // Count taken exams
-            participatedItems += examSubmissions.size();
+            int studentExams = examsTaken.getOrDefault(student.id(), 0);
+            int studentAssignments = assignmentsSubmitted.getOrDefault(student.id(), 0);
+            studentData.put("examsTaken", studentExams);
+            studentData.put("assignmentSubmissions", studentAssignments);
 
-            // Count assignments
-            int totalAssignments = course.getLessons().stream()
-                    .flatMap(lesson -> assignmentRepository.findByLessonId(lesson.getId()).stream())
-                    .collect(Collectors.toList())
-                    .size();
-            totalItems += totalAssignments;
-
-            // Count submitted assignments
-            participatedItems += assignmentSubmissions.size();
-
-            // Calculate participation rate
+            int participatedItems = (progress != null ? progress.completedLessons().size() : 0)
+                    + studentExams + studentAssignments;
             double participationRate = totalItems > 0 ?
                     (double) participatedItems / totalItems * 100 : 0;
 
@@ -201,7 +248,8 @@ public class AnalyticsService {
         List<Map<String, Object>> questionAnalysis = new ArrayList<>();
 
         List<Question> questions = questionRepository.findByExamOrderById(exam);
-        Map<Long, Long> submissionAnswers = getSubmissionAnswers(submission);
+        List<Long> questionIds = questions.stream().map(Question::getId).collect(Collectors.toList());
+        Map<Long, Long> submissionAnswers = submissionAnswersCodec.read(submission, questionIds).optionIds();
 
         for (Question question : questions) {
             Map<String, Object> questionData = new HashMap<>();
@@ -272,35 +320,14 @@ public class AnalyticsService {
     // Replace the getChallengingQuestions method
     public List<Map<String, Object>> getChallengingQuestions(User teacher) {
         List<Question> teacherQuestions = questionRepository.findByTeacher(teacher);
+        Map<Long, QuestionStats> statsByQuestion = questionStatsService.getStats(teacherQuestions, null, null);
         List<Map<String, Object>> challengingQuestions = new ArrayList<>();
 
         for (Question question : teacherQuestions) {
-            // Get all submissions for this question
-            List<Submission> submissions = submissionRepository.findAll().stream()
-                    .filter(s -> {
-                        Map<Long, Long> answers = getSubmissionAnswers(s);
-                        return answers.containsKey(question.getId());
-                    })
-                    .collect(Collectors.toList());
-
-            if (submissions.isEmpty()) continue;
-
-            // Calculate correct rate
-            long correctAnswers = submissions.stream()
-                    .filter(s -> {
-                        Map<Long, Long> answers = getSubmissionAnswers(s);
-                        Long answerId = answers.get(question.getId());
-                        if (answerId == null) return false;
-
-                        return question.getAnswers().stream()
-                                .filter(a -> a.getId().equals(answerId))
-                                .findFirst()
-                                .map(Answer::getCorrect)
-                                .orElse(false);
-                    })
-                    .count();
+            QuestionStats stats = statsByQuestion.get(question.getId());
+            if (stats == null || stats.getAnswered() == 0) continue;
 
-            double correctRate = (double) correctAnswers / submissions.size() * 100;
+            double correctRate = stats.getCorrectRate();
 
             // Only include challenging questions (low correct rate)
             if (correctRate < 70) {
@@ -309,16 +336,9 @@ public class AnalyticsService {
                 questionData.put("text", question.getText());
                 questionData.put("difficulty", 100 - correctRate);
                 questionData.put("correctRate", correctRate);
-                questionData.put("attempts", submissions.size());
+                questionData.put("attempts", stats.getAnswered());
                 questionData.put("topic", "General");
-
-                // Calculate average time spent on this question
-                double avgTime = submissions.stream()
-                        .mapToLong(s -> s.getTimeSpent() != null ? s.getTimeSpent() / submissions.size() : 0)
-                        .average()
-                        .orElse(0.0);
-
-                questionData.put("avgTimeSeconds", avgTime);
+                questionData.put("avgTimeSeconds", stats.getAverageTimeSeconds());
 
                 challengingQuestions.add(questionData);
             }
@@ -357,7 +377,8 @@ public class AnalyticsService {
             analysis.put("completionPercentage", progress.getCompletionPercentage());
             analysis.put("totalStudyTimeSeconds", progress.getTotalStudyTime() != null ?
                     progress.getTotalStudyTime() : 0L);
-            analysis.put("streak", progress.getCurrentStreak() != null ? progress.getCurrentStreak() : 0);
+            analysis.put("streak", loginStreakRepository.findById(student.getId())
+                    .map(LoginStreak::getCurrentStreak).orElse(0));
             analysis.put("lastAccessed", progress.getLastAccessed());
             analysis.put("completedLessons", progress.getCompletedLessons().size());
             analysis.put("totalLessons", progress.getTotalLessons() != null ? progress.getTotalLessons() : 0);
@@ -402,20 +423,16 @@ public class AnalyticsService {
                         .average().orElse(0.0)));
 
         // Calculate class rank
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+        RankIndex completionIndex = courseRankIndex(courseId, RankMetric.COMPLETION_PERCENTAGE);
 
-        if (allProgress.size() <= 1) {
+        if (completionIndex.size() <= 1) {
             analysis.put("classRank", 1);
             analysis.put("totalStudents", 1);
         } else {
-            long betterStudents = allProgress.stream()
-                    .filter(p -> p.getCompletionPercentage() > (progress != null ?
-                            progress.getCompletionPercentage() : 0.0))
-                    .count();
+            long betterStudents = completionIndex.countAbove(progress != null ?
+                    progress.getCompletionPercentage() : 0.0);
             analysis.put("classRank", betterStudents + 1);
-            analysis.put("totalStudents", allProgress.size());
+            analysis.put("totalStudents", completionIndex.size());
         }
 
         return analysis;
@@ -631,6 +648,7 @@ public class AnalyticsService {
      */
     public List<Map<String, Object>> getQuestionDifficultyAnalysis(User teacher) {
         List<Question> teacherQuestions = questionRepository.findByTeacher(teacher);
+        Map<Long, QuestionStats> statsByQuestion = questionStatsService.getStats(teacherQuestions, null, null);
 
         // Group questions by topic (you might need to add topic field to Question entity)
         Map<String, List<Question>> questionsByTopic = teacherQuestions.stream()
@@ -654,14 +672,28 @@ public class AnalyticsService {
             topicData.put("mediumQuestions", mediumQuestions);
             topicData.put("hardQuestions", hardQuestions);
 
-            // Calculate average score and time for questions in this topic (placeholders)
-            double avgScore = 75.0; // Placeholder
-            double avgTime = 210.0; // Placeholder: 3.5 minutes in seconds
-            double difficultyRating = 3.2; // Placeholder: on scale of 1-5
+            // Average score and time over every recorded attempt of the topic's questions
+            long earnedPoints = 0;
+            long possiblePoints = 0;
+            long timeSpent = 0;
+            long attempts = 0;
+            for (Question question : questions) {
+                QuestionStats stats = statsByQuestion.get(question.getId());
+                if (stats == null) continue;
+                earnedPoints += stats.getEarnedPoints();
+                possiblePoints += stats.getPossiblePoints();
+                timeSpent += stats.getTimeSpentSeconds();
+                attempts += stats.getAttempts();
+            }
+
+            double avgScore = possiblePoints > 0 ? (double) earnedPoints / possiblePoints * 100 : 0.0;
+            double avgTime = attempts > 0 ? (double) timeSpent / attempts : 0.0;
+            // 1 (everyone gets full points) to 5 (nobody scores)
+            double difficultyRating = possiblePoints > 0 ? 1 + 4 * (1 - avgScore / 100) : 0.0;
 
-            topicData.put("avgScore", avgScore);
-            topicData.put("avgTime", avgTime);
-            topicData.put("difficultyRating", difficultyRating);
+            topicData.put("avgScore", AnalyticsUtils.roundTo2Decimals(avgScore));
+            topicData.put("avgTime", AnalyticsUtils.roundTo2Decimals(avgTime));
+            topicData.put("difficultyRating", AnalyticsUtils.roundTo2Decimals(difficultyRating));
 
             difficultyAnalysis.add(topicData);
         }
@@ -958,10 +990,9 @@ public class AnalyticsService {
 
         // Recent activity
         LocalDateTime oneWeekAgo = LocalDateTime.now().minusDays(7);
-        List<ActivityLog> recentActivities = activityLogRepository
-                .findByUserAndTimestampBetweenOrderByTimestampDesc(student, oneWeekAgo, LocalDateTime.now());
-
-        performance.put("recentActivityCount", recentActivities.size());
+        performance.put("recentActivityCount", activityColumnStore.isReady()
+                ? (int) activityColumnStore.query().user(student.getId()).between(oneWeekAgo, LocalDateTime.now()).count()
+                : activityLogRepository.findByUserAndTimestampBetweenOrderByTimestampDesc(student, oneWeekAgo, LocalDateTime.now()).size());
         performance.put("lastAccessed", studentProgress.stream()
                 .map(Progress::getLastAccessed)
                 .filter(Objects::nonNull)
@@ -1183,72 +1214,63 @@ public class AnalyticsService {
 
 
 
-    @Transactional
-    public void recalculateStudyTimes() {
-        List<Progress> allProgress = progressRepository.findAll();
-
-        for (Progress progress : allProgress) {
-            User student = progress.getStudent();
-            Course course = progress.getCourse();
-
-            // محاسبه زمان واقعی از ActivityLog
-            long actualStudyTime = calculateCourseStudyTime(student, course);
-
-            // به‌روزرسانی Progress
-            progress.setTotalStudyTime(actualStudyTime);
-            progressRepository.save(progress);
-        }
-    }
-
     // Additional methods for comprehensive report and other analytics
-    public Map<String, Object> getStudentComprehensiveReport(Long studentId, Long courseId, int days) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
 
-        Map<String, Object> report = new HashMap<>();
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        LocalDateTime endDate = LocalDateTime.now();
-
-        // 1. اطلاعات پایه دانش‌آموز
-        Map<String, Object> studentInfo = new HashMap<>();
-        studentInfo.put("id", student.getId());
-        studentInfo.put("name", student.getFirstName() + " " + student.getLastName());
-        studentInfo.put("username", student.getUsername());
-        studentInfo.put("email", student.getEmail());
-
-        Progress progress = progressRepository.findByStudentAndCourse(student, course).orElse(null);
-        if (progress != null) {
-            studentInfo.put("enrollmentDate", progress.getLastAccessed());
+    /**
+     * Student's report for one course. The sections are independent of each other apart from the
+     * progress record, so they are computed concurrently by {@link ReportComposer}; each one loads
+     * the student and course in its own session.
+     */
+    @SingleFlight
+    public Map<String, Object> getStudentComprehensiveReport(Long studentId, Long courseId, int days) {
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found");
+        }
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found");
         }
-        report.put("studentInfo", studentInfo);
-
-        // 2. آمار کلی عملکرد
-        Map<String, Object> overallStats = calculateOverallStats(student, course, progress);
-        report.put("overallStats", overallStats);
-
-        // 3. فعالیت هفتگی
-        List<Map<String, Object>> weeklyActivity = calculateWeeklyActivity(student, course, days);
-        report.put("weeklyActivity", weeklyActivity);
-
-        // 4. توزیع نمرات
-        List<Map<String, Object>> scoreDistribution = calculateScoreDistribution(student, course);
-        report.put("scoreDistribution", scoreDistribution);
-
-        // 5. تحلیل زمان
-        List<Map<String, Object>> timeAnalysis = calculateDetailedTimeAnalysis(student, course, days);
-        report.put("timeAnalysis", timeAnalysis);
 
-        // 6. فعالیت‌های اخیر
-        List<Map<String, Object>> recentActivities = getStudentActivityTimelineWithDays(studentId, days);
-        report.put("recentActivities", recentActivities);
+        return reportComposer.plan("comprehensiveReport")
+                .input("progress", () -> progressRepository.findByStudentAndCourse(student(studentId), course(courseId)).orElse(null))
+                // 1. اطلاعات پایه دانش‌آموز
+                .section("studentInfo", List.of("progress"), inputs -> {
+                    User student = student(studentId);
+                    Map<String, Object> studentInfo = new HashMap<>();
+                    studentInfo.put("id", student.getId());
+                    studentInfo.put("name", student.getFirstName() + " " + student.getLastName());
+                    studentInfo.put("username", student.getUsername());
+                    studentInfo.put("email", student.getEmail());
+
+                    Progress progress = (Progress) inputs.get("progress");
+                    if (progress != null) {
+                        studentInfo.put("enrollmentDate", progress.getLastAccessed());
+                    }
+                    return studentInfo;
+                })
+                // 2. آمار کلی عملکرد
+                .section("overallStats", List.of("progress"), inputs ->
+                        calculateOverallStats(student(studentId), course(courseId), (Progress) inputs.get("progress")))
+                // 3. فعالیت هفتگی
+                .section("weeklyActivity", () -> calculateWeeklyActivity(student(studentId), course(courseId), days))
+                // 4. توزیع نمرات
+                .section("scoreDistribution", () -> calculateScoreDistribution(student(studentId), course(courseId)))
+                // 5. تحلیل زمان
+                .section("timeAnalysis", () -> calculateDetailedTimeAnalysis(student(studentId), course(courseId), days))
+                // 6. فعالیت‌های اخیر
+                .section("recentActivities", () -> getStudentActivityTimelineWithDays(studentId, days))
+                // 7. روند پیشرفت ماهانه
+                .section("progressTrend", () -> calculateProgressTrend(student(studentId), course(courseId), 6))
+                .run();
+    }
 
-        // 7. روند پیشرفت ماهانه
-        List<Map<String, Object>> progressTrend = calculateProgressTrend(student, course, 6);
-        report.put("progressTrend", progressTrend);
+    private User student(Long studentId) {
+        return userRepository.findById(studentId)
+                .orElseThrow(() -> new RuntimeException("Student not found"));
+    }
 
-        return report;
+    private Course course(Long courseId) {
+        return courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
     }
 
     private List<Map<String, Object>> getStudentActivityTimelineWithDays(Long studentId, int days) {
@@ -1319,20 +1341,15 @@ public class AnalyticsService {
         stats.put("consistencyScore", Math.round(consistencyScore * 10.0));
 
         // رتبه در کلاس
-        List<Progress> allProgress = progressRepository.findAll()
-                .stream()
-                .filter(p -> p.getCourse().getId().equals(course.getId()))
-                .collect(Collectors.toList());
+        RankIndex completionIndex = courseRankIndex(course.getId(), RankMetric.COMPLETION_PERCENTAGE);
 
-        if (allProgress.size() <= 1) {
+        if (completionIndex.size() <= 1) {
             stats.put("classRank", 1);
             stats.put("totalStudents", 1);
         } else {
-            long betterStudents = allProgress.stream()
-                    .filter(p -> p.getCompletionPercentage() > (progress != null ? progress.getCompletionPercentage() : 0))
-                    .count();
+            long betterStudents = completionIndex.countAbove(progress != null ? progress.getCompletionPercentage() : 0);
             stats.put("classRank", (int) (betterStudents + 1));
-            stats.put("totalStudents", allProgress.size());
+            stats.put("totalStudents", completionIndex.size());
         }
 
         // تعداد آزمون‌های شرکت‌کرده
@@ -1501,6 +1518,12 @@ public class AnalyticsService {
 
     private double calculateConsistencyScore(User student, int days) {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
+        if (activityColumnStore.isReady()) {
+            return (double) activityColumnStore.query()
+                    .user(student.getId())
+                    .between(startDate, LocalDateTime.now())
+                    .activeDays() / days * 100;
+        }
         List<LocalDate> activeDays = activityLogRepository
                 .findByUserAndTimestampBetweenOrderByTimestampDesc(student, startDate, LocalDateTime.now())
                 .stream()
@@ -1516,101 +1539,31 @@ public class AnalyticsService {
     /**
      * Get course time distribution for students
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public Map<String, Object> getCourseTimeDistribution(Long courseId, String period, String granularity) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-
-        Map<String, Object> result = new HashMap<>();
-
-        LocalDateTime endDate = LocalDateTime.now();
-        LocalDateTime startDate = AnalyticsUtils.calculateStartDate(endDate, period);
-
-        // دریافت activity logs مربوط به این course (using inclusive date boundaries)
-        List<ActivityLog> allActivities = activityLogRepository.findAll().stream()
-                .filter(log -> !log.getTimestamp().isBefore(startDate) && !log.getTimestamp().isAfter(endDate))
-                .filter(log -> isCourseRelatedActivity(log, courseId))
-                .toList();
-
-        logger.info("Total activities found after time and course filtering: {}", allActivities.size());
-
-        // DEBUG: Log activity details to investigate timeSpent values
-        logger.info("=== DEBUG: Activity details ===");
-        allActivities.forEach(activity -> {
-            logger.info("Activity ID: {}, Type: {}, User: {}, TimeSpent: {}, Timestamp: {}",
-                activity.getId(), activity.getActivityType(), activity.getUser().getId(),
-                activity.getTimeSpent(), activity.getTimestamp());
-        });
-
-        // Get enrolled students for validation
-        Set<Long> enrolledStudentIds = course.getEnrolledStudents().stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> "ROLE_STUDENT".equals(role.getName()))) // Only include STUDENT role
-                .map(User::getId)
-                .collect(Collectors.toSet());
-
-        logger.info("Enrolled students with STUDENT role: {}", enrolledStudentIds.size());
-        logger.info("Enrolled student IDs: {}", enrolledStudentIds);
-
-        // Filter activities to only include enrolled students with STUDENT role AND study activities
-        List<ActivityLog> studentActivities = allActivities.stream()
-                .filter(log -> {
-                    User user = log.getUser();
-                    boolean isStudent = user.getRoles().stream()
-                            .anyMatch(role -> "ROLE_STUDENT".equals(role.getName()));
-                    boolean isEnrolled = enrolledStudentIds.contains(user.getId());
-                    boolean isStudyActivity = isStudyActivity(log.getActivityType());
-
-                    if (!isStudent) {
-                        String roleNames = user.getRoles().stream()
-                                .map(Role::getName)
-                                .collect(Collectors.joining(", "));
-                        logger.debug("Excluding activity from user {} with roles: {}", user.getId(), roleNames);
-                    }
-                    if (!isEnrolled && isStudent) {
-                        logger.debug("Excluding activity from non-enrolled student: {}", user.getId());
-                    }
-                    if (!isStudyActivity && isStudent && isEnrolled) {
-                        logger.debug("Excluding non-study activity: {} from student: {}", log.getActivityType(), user.getId());
-                    }
-
-                    return isStudent && isEnrolled && isStudyActivity;
-                })
-                .collect(Collectors.toList());
-
-        logger.info("Activities after student filtering: {}", studentActivities.size());
-
-        // Log activity breakdown by user
-        Map<Long, List<ActivityLog>> activitiesByUser = studentActivities.stream()
-                .collect(Collectors.groupingBy(log -> log.getUser().getId()));
+        return courseTimeDistribution(contextFor(courseId, period), period, granularity);
+    }
 
-        logger.info("Activity breakdown by user:");
-        activitiesByUser.forEach((userId, userActivities) -> {
-            logger.info("  User {}: {} activities", userId, userActivities.size());
-        });
+    private Map<String, Object> courseTimeDistribution(CourseAnalyticsContext context, String period, String granularity) {
+        Course course = context.course();
 
-        // Group by student
-        Map<Long, List<ActivityLog>> activitiesByStudent = studentActivities.stream()
-                .collect(Collectors.groupingBy(log -> log.getUser().getId()));
+        Map<String, Object> result = new HashMap<>();
 
-        // DEBUG: Log Progress table data for comparison
-        logger.info("=== DEBUG: Progress table data ===");
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
+        // Only study activity of enrolled users with the STUDENT role counts
+        Set<Long> enrolledStudentIds = context.enrolledStudentIds();
+        List<CourseAnalyticsContext.Activity> studentActivities = context.activities().stream()
+                .filter(activity -> enrolledStudentIds.contains(activity.userId()))
+                .filter(activity -> isStudyActivity(activity.activityType()))
                 .collect(Collectors.toList());
-        allProgress.forEach(progress -> {
-            logger.info("Progress: Student {}, Course {}, TotalStudyTime: {} seconds",
-                progress.getStudent().getId(), progress.getCourse().getId(), progress.getTotalStudyTime());
-        });
 
         // محاسبه total time per student from ActivityLog
         Map<Long, Long> timePerStudent = new HashMap<>();
-        for (Map.Entry<Long, List<ActivityLog>> entry : activitiesByStudent.entrySet()) {
-            Long totalTime = entry.getValue().stream()
-                    .mapToLong(log -> log.getTimeSpent() != null ? log.getTimeSpent() : 0L)
-                    .sum();
-            timePerStudent.put(entry.getKey(), totalTime);
+        for (CourseAnalyticsContext.Activity activity : studentActivities) {
+            timePerStudent.merge(activity.userId(), activity.timeSpent() != null ? activity.timeSpent() : 0L, Long::sum);
         }
 
+        logger.debug("Time distribution for course {}: {} course activities, {} from {} enrolled students",
+                context.courseId(), context.activities().size(), studentActivities.size(), timePerStudent.size());
 
         List<Long> times = new ArrayList<>(timePerStudent.values());
 
@@ -1622,25 +1575,21 @@ public class AnalyticsService {
                 createTimeRange("فعالیت بسیار زیاد (> 5 ساعت)", 18000L, null, times)
         );
 
-        // Timeline data - pass filtered student activities and fallback time data
         List<Map<String, Object>> timeline = new ArrayList<>();
         if ("daily".equals(granularity)) {
-            timeline = createDailyTimelineWithStudentFilter(studentActivities, startDate, endDate, enrolledStudentIds);
+            timeline = createStudentDailyTimeline(studentActivities, context.startDate(), context.endDate());
         } else if ("weekly".equals(granularity)) {
-            timeline = createWeeklyTimeline(studentActivities, startDate, endDate);
+            timeline = createWeeklyTimeline(studentActivities, context.startDate(), context.endDate());
         }
 
         // Calculate averages
-        long totalStudents = course.getEnrolledStudents().size();
+        long totalStudents = context.roster().size();
         double averageTimePerStudent = times.isEmpty() ? 0 : times.stream()
                 .mapToLong(Long::longValue)
                 .average()
                 .orElse(0.0);
 
-        logger.info("Final results: totalStudents={}, activeStudentsInActivities={}",
-                   totalStudents, activitiesByStudent.size());
-
-        result.put("courseId", courseId);
+        result.put("courseId", context.courseId());
         result.put("courseName", course.getTitle());
         result.put("period", period);
         result.put("totalStudents", totalStudents);
@@ -1654,6 +1603,7 @@ public class AnalyticsService {
     /**
      * Get course activity statistics
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public Map<String, Object> getCourseActivityStats(Long courseId, String period, boolean includeTimeline) {
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
@@ -1711,6 +1661,7 @@ public class AnalyticsService {
     /**
      * Get course exam scores with filtering and aggregation
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public Map<String, Object> getCourseExamScores(Long courseId, String period, Long examId, boolean includeDetails) {
         return scoreAnalyticsService.getCourseExamScores(courseId, period, examId, includeDetails);
     }
@@ -1718,50 +1669,46 @@ public class AnalyticsService {
     /**
      * Get lesson progress analysis for a course
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public Map<String, Object> getCourseLessonProgress(Long courseId, String period) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+        return courseLessonProgress(contextFor(courseId, period));
+    }
+
+    private Map<String, Object> courseLessonProgress(CourseAnalyticsContext context) {
+        context.course();
 
         Map<String, Object> result = new HashMap<>();
 
-        // Get all lessons for this course
-        List<Lesson> lessons = lessonRepository.findByCourseOrderByOrderIndex(course);
+        List<CourseAnalyticsContext.ProgressRow> allProgress = context.progress();
+        long totalStudents = context.roster().size();
 
-        // Get all progress records for this course
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
-
-        long totalStudents = course.getEnrolledStudents().size();
+        // Lesson visits inside the period (bounds exclusive), grouped by lesson
+        Map<Long, List<Long>> lessonTimes = new HashMap<>();
+        for (CourseAnalyticsContext.Activity activity : context.activities()) {
+            if (("LESSON_COMPLETION".equals(activity.activityType()) || "LESSON_ACCESS".equals(activity.activityType()))
+                    && activity.timestamp().isAfter(context.startDate())
+                    && activity.timestamp().isBefore(context.endDate())) {
+                lessonTimes.computeIfAbsent(activity.relatedEntityId(), id -> new ArrayList<>()).add(activity.timeSpent());
+            }
+        }
 
         // Calculate lesson progress
         List<Map<String, Object>> lessonProgressList = new ArrayList<>();
 
-        for (Lesson lesson : lessons) {
+        for (Lesson lesson : context.lessons()) {
             Map<String, Object> lessonData = new HashMap<>();
 
             // Count students who completed this lesson
             long completedStudents = allProgress.stream()
-                    .filter(p -> p.getCompletedLessons().contains(lesson.getId()))
+                    .filter(p -> p.completedLessons().contains(lesson.getId()))
                     .count();
 
             double completionRate = totalStudents > 0 ?
                     (double) completedStudents / totalStudents * 100 : 0;
 
             // Calculate average time spent on this lesson
-            LocalDateTime endDate = LocalDateTime.now();
-            LocalDateTime startDate = AnalyticsUtils.calculateStartDate(endDate, period);
-
-            List<ActivityLog> lessonActivities = activityLogRepository.findAll().stream()
-                    .filter(log -> "LESSON_COMPLETION".equals(log.getActivityType()) ||
-                            "LESSON_ACCESS".equals(log.getActivityType()))
-                    .filter(log -> log.getRelatedEntityId().equals(lesson.getId()))
-                    .filter(log -> log.getTimestamp().isAfter(startDate) &&
-                            log.getTimestamp().isBefore(endDate))
-                    .collect(Collectors.toList());
-
-            double averageTime = lessonActivities.stream()
-                    .mapToLong(ActivityLog::getTimeSpent)
+            double averageTime = lessonTimes.getOrDefault(lesson.getId(), Collections.emptyList()).stream()
+                    .mapToLong(Long::longValue)
                     .average()
                     .orElse(0.0);
 
@@ -1782,8 +1729,8 @@ public class AnalyticsService {
         distribution.put("average", 0);
         distribution.put("poor", 0);
 
-        for (Progress progress : allProgress) {
-            double completionPercentage = progress.getCompletionPercentage();
+        for (CourseAnalyticsContext.ProgressRow progress : allProgress) {
+            double completionPercentage = progress.completionPercentage();
 
             if (completionPercentage >= 80) {
                 distribution.merge("excellent", 1, Integer::sum);
@@ -2091,14 +2038,11 @@ public class AnalyticsService {
     }
 
     /**
-     * Enhanced daily timeline creation with proper student filtering and debugging
+     * Daily totals of study time and distinct active students; {@code activities} must already be
+     * limited to enrolled students.
      */
-    private List<Map<String, Object>> createDailyTimelineWithStudentFilter(List<ActivityLog> activities, LocalDateTime startDate, LocalDateTime endDate, Set<Long> enrolledStudentIds) {
-
-        logger.info("=== Creating daily timeline with student filter ===");
-        logger.info("Input activities: {}", activities.size());
-        logger.info("Valid student IDs: {}", enrolledStudentIds);
-
+    private List<Map<String, Object>> createStudentDailyTimeline(List<CourseAnalyticsContext.Activity> activities,
+                                                                 LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Map<String, Object>> timelineMap = new HashMap<>();
         Map<String, Set<Long>> uniqueStudentsPerDay = new HashMap<>();
 
@@ -2113,71 +2057,24 @@ public class AnalyticsService {
             current = current.plusDays(1);
         }
 
-        // Group activities by date and track unique students with additional validation
-        for (ActivityLog activity : activities) {
-            String dateStr = activity.getTimestamp().toLocalDate().toString();
-            Long userId = activity.getUser().getId();
-
-            if (timelineMap.containsKey(dateStr)) {
-                // Double-check that this user is an enrolled student (should already be filtered)
-                if (!enrolledStudentIds.contains(userId)) {
-                    logger.warn("Activity from non-enrolled user {} found in filtered activities, skipping", userId);
-                    continue;
-                }
-
-                // Double-check user role
-                boolean hasStudentRole = activity.getUser().getRoles().stream()
-                        .anyMatch(role -> "ROLE_STUDENT".equals(role.getName()));
-                if (!hasStudentRole) {
-                    String roleNames = activity.getUser().getRoles().stream()
-                            .map(Role::getName)
-                            .collect(Collectors.joining(", "));
-                    logger.warn("Activity from non-student user {} (roles: {}) found in filtered activities, skipping",
-                               userId, roleNames);
-                    continue;
-                }
-
-                Map<String, Object> dayData = timelineMap.get(dateStr);
+        for (CourseAnalyticsContext.Activity activity : activities) {
+            String dateStr = activity.timestamp().toLocalDate().toString();
+            Map<String, Object> dayData = timelineMap.get(dateStr);
+            if (dayData != null) {
                 Long currentseconds = (Long) dayData.get("totalseconds");
-                Long activityTimeSpent = activity.getTimeSpent() != null ? activity.getTimeSpent() : 0L;
-                dayData.put("totalseconds", currentseconds + activityTimeSpent);
-
-                // Track unique students per day
-                uniqueStudentsPerDay.get(dateStr).add(userId);
-
-                logger.info("DEBUG Timeline: Added activity for student {} on {}, activity timeSpent: {}, new total: {} seconds",
-                           userId, dateStr, activityTimeSpent, currentseconds + activityTimeSpent);
+                dayData.put("totalseconds", currentseconds + (activity.timeSpent() != null ? activity.timeSpent() : 0L));
+                uniqueStudentsPerDay.get(dateStr).add(activity.userId());
             }
         }
 
-        // FALLBACK: For students with no ActivityLog but have Progress.totalStudyTime, add to most recent day
-        Set<Long> studentsWithActivityLog = activities.stream()
-                .map(log -> log.getUser().getId())
-                .collect(Collectors.toSet());
-
-        String mostRecentDate = endDate.toLocalDate().toString();
-
-        // Update active students count with actual unique student count and log details
         for (String dateStr : timelineMap.keySet()) {
-            Map<String, Object> dayData = timelineMap.get(dateStr);
-            Set<Long> studentsOnDay = uniqueStudentsPerDay.get(dateStr);
-            int activeStudentsCount = studentsOnDay.size();
-
-            dayData.put("activeStudents", activeStudentsCount);
-
-            if (activeStudentsCount > 0) {
-                logger.info("Date {}: {} active students: {}, total seconds: {}",
-                    dateStr, activeStudentsCount, studentsOnDay, dayData.get("totalseconds"));
-            }
+            timelineMap.get(dateStr).put("activeStudents", uniqueStudentsPerDay.get(dateStr).size());
         }
 
-        List<Map<String, Object>> result = new ArrayList<>(timelineMap.values());
-        logger.info("=== Timeline creation complete, returning {} days of data ===", result.size());
-
-        return result;
+        return new ArrayList<>(timelineMap.values());
     }
 
-    private List<Map<String, Object>> createWeeklyTimeline(List<ActivityLog> activities, LocalDateTime startDate, LocalDateTime endDate) {
+    private List<Map<String, Object>> createWeeklyTimeline(List<CourseAnalyticsContext.Activity> activities, LocalDateTime startDate, LocalDateTime endDate) {
         // Similar implementation for weekly timeline
         return new ArrayList<>();
     }
@@ -2296,24 +2193,31 @@ public class AnalyticsService {
     /**
      * Get difficult lessons based on completion rates and scores (updated for assignments)
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public List<Map<String, Object>> getDifficultLessons(Long courseId) {
+        return difficultLessons(contextFor(courseId, null));
+    }
+
+    private List<Map<String, Object>> difficultLessons(CourseAnalyticsContext context) {
         List<Map<String, Object>> difficultLessons = new ArrayList<>();
 
-        // Fix: Use the correct repository method that accepts Long courseId
-        List<Lesson> lessons = lessonRepository.findByCourseIdOrderByOrderIndex(courseId);
+        List<CourseAnalyticsContext.ProgressRow> progressList = context.progress();
 
-        for (Lesson lesson : lessons) {
+        Map<Long, List<CourseAnalyticsContext.ExamResult>> examSubmissionsByExam = new HashMap<>();
+        context.examResults().forEach(result ->
+                examSubmissionsByExam.computeIfAbsent(result.examId(), id -> new ArrayList<>()).add(result));
+        Map<Long, List<CourseAnalyticsContext.AssignmentResult>> submissionsByAssignment = new HashMap<>();
+        context.assignmentResults().forEach(result ->
+                submissionsByAssignment.computeIfAbsent(result.assignmentId(), id -> new ArrayList<>()).add(result));
+
+        for (Lesson lesson : context.lessons()) {
             Map<String, Object> lessonData = new HashMap<>();
             lessonData.put("lessonId", lesson.getId());
             lessonData.put("lessonTitle", lesson.getTitle());
 
             // Calculate completion rate for this lesson
-            List<Progress> progressList = progressRepository.findAll().stream()
-                    .filter(p -> p.getCourse().getId().equals(courseId))
-                    .collect(Collectors.toList());
-
             long completedCount = progressList.stream()
-                    .filter(p -> p.getCompletedLessons().contains(lesson.getId()))
+                    .filter(p -> p.completedLessons().contains(lesson.getId()))
                     .count();
 
             double completionRate = progressList.isEmpty() ?
@@ -2321,36 +2225,41 @@ public class AnalyticsService {
 
             lessonData.put("completionRate", completionRate);
 
+            // Calculate difficulty score (lower completion and pass rates = higher difficulty)
+            double difficultyScore = 100 - completionRate;
+
             // If lesson has an exam, get exam performance
             if (lesson.getExam() != null) {
-                Exam exam = lesson.getExam();
-                List<Submission> examSubmissions = submissionRepository.findByExam(exam);
+                List<CourseAnalyticsContext.ExamResult> examSubmissions =
+                        examSubmissionsByExam.getOrDefault(lesson.getExam().getId(), Collections.emptyList());
 
                 double passRate = examSubmissions.isEmpty() ? 0 :
-                        (double) examSubmissions.stream().filter(Submission::isPassed).count() /
+                        (double) examSubmissions.stream().filter(CourseAnalyticsContext.ExamResult::passed).count() /
                                 examSubmissions.size() * 100;
 
                 double averageScore = examSubmissions.stream()
-                        .mapToDouble(Submission::getScore)
+                        .mapToDouble(CourseAnalyticsContext.ExamResult::score)
                         .average()
                         .orElse(0.0);
 
                 lessonData.put("examPassRate", passRate);
                 lessonData.put("examAverageScore", averageScore);
                 lessonData.put("examSubmissions", examSubmissions.size());
+
+                difficultyScore = (difficultyScore + (100 - passRate)) / 2;
             }
 
             // Check assignment performance for this lesson
-            List<Assignment> lessonAssignments = assignmentRepository.findByLessonId(lesson.getId());
+            List<Long> lessonAssignments = context.assignmentIds(lesson.getId());
             if (!lessonAssignments.isEmpty()) {
-                List<AssignmentSubmission> assignmentSubmissions = new ArrayList<>();
-                for (Assignment assignment : lessonAssignments) {
-                    assignmentSubmissions.addAll(assignmentSubmissionRepository.findByAssignment(assignment));
+                List<CourseAnalyticsContext.AssignmentResult> assignmentSubmissions = new ArrayList<>();
+                for (Long assignmentId : lessonAssignments) {
+                    assignmentSubmissions.addAll(submissionsByAssignment.getOrDefault(assignmentId, Collections.emptyList()));
                 }
 
                 double avgAssignmentScore = assignmentSubmissions.stream()
-                        .filter(as -> as.getScore() != null)
-                        .mapToInt(AssignmentSubmission::getScore)
+                        .filter(as -> as.score() != null)
+                        .mapToInt(CourseAnalyticsContext.AssignmentResult::score)
                         .average()
                         .orElse(0.0);
 
@@ -2358,19 +2267,6 @@ public class AnalyticsService {
                 lessonData.put("assignmentSubmissions", assignmentSubmissions.size());
             }
 
-            // Calculate difficulty score (lower completion and pass rates = higher difficulty)
-            double difficultyScore = 100 - completionRate;
-            if (lesson.getExam() != null) {
-                Exam exam = lesson.getExam();
-                List<Submission> examSubmissions = submissionRepository.findByExam(exam);
-
-                double passRate = examSubmissions.isEmpty() ? 0 :
-                        (double) examSubmissions.stream().filter(Submission::isPassed).count() /
-                                examSubmissions.size() * 100;
-
-                difficultyScore = (difficultyScore + (100 - passRate)) / 2;
-            }
-
             lessonData.put("difficultyScore", difficultyScore);
 
             difficultLessons.add(lessonData);
@@ -2389,51 +2285,51 @@ public class AnalyticsService {
     /**
      * Identify struggling students based on progress and scores (updated for assignments)
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public List<Map<String, Object>> getStrugglingStudents(Long courseId) {
-        List<Map<String, Object>> strugglingStudents = new ArrayList<>();
+        return strugglingStudents(contextFor(courseId, null));
+    }
 
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+    private List<Map<String, Object>> strugglingStudents(CourseAnalyticsContext context) {
+        context.course();
+        List<Map<String, Object>> strugglingStudents = new ArrayList<>();
 
-        // Get all progress records for this course
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+        Map<Long, List<CourseAnalyticsContext.ExamResult>> examSubmissionsByStudent = new HashMap<>();
+        context.examResults().forEach(result ->
+                examSubmissionsByStudent.computeIfAbsent(result.studentId(), id -> new ArrayList<>()).add(result));
+        Map<Long, List<CourseAnalyticsContext.AssignmentResult>> assignmentSubmissionsByStudent = new HashMap<>();
+        context.assignmentResults().forEach(result ->
+                assignmentSubmissionsByStudent.computeIfAbsent(result.studentId(), id -> new ArrayList<>()).add(result));
 
-        for (Progress progress : allProgress) {
-            User student = progress.getStudent();
+        for (CourseAnalyticsContext.ProgressRow progress : context.progress()) {
             Map<String, Object> studentData = new HashMap<>();
 
-            studentData.put("studentId", student.getId());
-            studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
-            studentData.put("completionPercentage", progress.getCompletionPercentage());
+            studentData.put("studentId", progress.studentId());
+            studentData.put("studentName", progress.studentName());
+            studentData.put("completionPercentage", progress.completionPercentage());
 
-            // Get student's exam submissions for this course
-            List<Submission> studentSubmissions = submissionRepository.findByStudent(student).stream()
-                    .filter(s -> s.getExam().getLesson().getCourse().getId().equals(courseId))
-                    .collect(Collectors.toList());
+            List<CourseAnalyticsContext.ExamResult> studentSubmissions =
+                    examSubmissionsByStudent.getOrDefault(progress.studentId(), Collections.emptyList());
 
             double averageScore = studentSubmissions.stream()
-                    .mapToDouble(Submission::getScore)
+                    .mapToDouble(CourseAnalyticsContext.ExamResult::score)
                     .average()
                     .orElse(0.0);
 
             long failedExams = studentSubmissions.stream()
-                    .filter(s -> !s.isPassed())
+                    .filter(s -> !s.passed())
                     .count();
 
             studentData.put("averageExamScore", averageScore);
             studentData.put("examsTaken", studentSubmissions.size());
             studentData.put("failedExams", failedExams);
 
-            // Get student's assignment submissions for this course (instead of exercise)
-            List<AssignmentSubmission> studentAssignmentSubmissions = assignmentSubmissionRepository.findByStudent(student).stream()
-                    .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(courseId))
-                    .collect(Collectors.toList());
+            List<CourseAnalyticsContext.AssignmentResult> studentAssignmentSubmissions =
+                    assignmentSubmissionsByStudent.getOrDefault(progress.studentId(), Collections.emptyList());
 
             double averageAssignmentScore = studentAssignmentSubmissions.stream()
-                    .filter(as -> as.getScore() != null)
-                    .mapToInt(AssignmentSubmission::getScore)
+                    .filter(as -> as.score() != null)
+                    .mapToInt(CourseAnalyticsContext.AssignmentResult::score)
                     .average()
                     .orElse(0.0);
 
@@ -2441,7 +2337,7 @@ public class AnalyticsService {
             studentData.put("assignmentSubmissions", studentAssignmentSubmissions.size());
 
             // Calculate struggle score (lower completion and scores = higher struggle)
-            double struggleScore = 100 - progress.getCompletionPercentage();
+            double struggleScore = 100 - progress.completionPercentage();
             if (!studentSubmissions.isEmpty()) {
                 double examStruggle = 100 - averageScore;
                 struggleScore = (struggleScore + examStruggle) / 2;
@@ -2543,16 +2439,13 @@ public class AnalyticsService {
         Progress studentProgress = progressRepository.findByStudentAndCourse(student, course)
                 .orElseThrow(() -> new RuntimeException("Progress not found"));
 
-        // Get all students' progress in the course
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+        // Class-wide values come from the course's rank indexes
+        RankIndex completionIndex = courseRankIndex(courseId, RankMetric.LESSON_COMPLETION_RATE);
+        RankIndex examIndex = courseRankIndex(courseId, RankMetric.EXAM_SCORE);
+        RankIndex assignmentIndex = courseRankIndex(courseId, RankMetric.ASSIGNMENT_SCORE);
 
         // Calculate class average completion
-        double averageCompletion = allProgress.stream()
-                .mapToDouble(p -> (double) p.getCompletedLessonCount() / p.getTotalLessons() * 100)
-                .average()
-                .orElse(0.0);
+        double averageCompletion = completionIndex.mean();
 
         // Get student's exam submissions for this course
         List<Submission> studentSubmissions = submissionRepository.findByStudent(student).stream()
@@ -2565,16 +2458,8 @@ public class AnalyticsService {
                 .average()
                 .orElse(0.0);
 
-        // Get all students' exam submissions for this course
-        List<Submission> allSubmissions = submissionRepository.findAll().stream()
-                .filter(s -> s.getExam().getLesson().getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
-
         // Calculate class average exam score
-        double classExamAverage = allSubmissions.stream()
-                .mapToDouble(Submission::getScore)
-                .average()
-                .orElse(0.0);
+        double classExamAverage = examIndex.mean();
 
         // Get student's assignment submissions for this course (instead of exercise)
         List<AssignmentSubmission> studentAssignmentSubmissions = assignmentSubmissionRepository.findByStudent(student).stream()
@@ -2587,133 +2472,203 @@ public class AnalyticsService {
                 .average()
                 .orElse(0.0);
 
-        // Get all students' assignment submissions for this course
-        List<AssignmentSubmission> allAssignmentSubmissions = assignmentSubmissionRepository.findAll().stream()
-                .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
-
-        double classAssignmentAverage = allAssignmentSubmissions.stream()
-                .filter(as -> as.getScore() != null)
-                .mapToInt(AssignmentSubmission::getScore)
-                .average()
-                .orElse(0.0);
+        double classAssignmentAverage = assignmentIndex.mean();
 
         // Build comparison data
         comparison.put("studentCompletion", studentProgress.getCompletionPercentage());
         comparison.put("classAverageCompletion", averageCompletion);
         double studentCompletionRate = (double) studentProgress.getCompletedLessonCount() / studentProgress.getTotalLessons() * 100;
-        comparison.put("completionPercentile", AnalyticsUtils.calculatePercentile(studentCompletionRate,
-                allProgress.stream().mapToDouble(p -> (double) p.getCompletedLessonCount() / p.getTotalLessons() * 100).toArray()));
+        comparison.put("completionPercentile", completionIndex.percentile(studentCompletionRate));
 
         comparison.put("studentExamAverage", studentExamAverage);
         comparison.put("classExamAverage", classExamAverage);
-        comparison.put("examPercentile", AnalyticsUtils.calculatePercentile(studentExamAverage,
-                allSubmissions.stream().mapToDouble(Submission::getScore).toArray()));
+        comparison.put("examPercentile", examIndex.percentile(studentExamAverage));
 
         // Assignment comparison (instead of exercise)
         comparison.put("studentAssignmentAverage", studentAssignmentAverage);
         comparison.put("classAssignmentAverage", classAssignmentAverage);
         comparison.put("assignmentSubmissions", studentAssignmentSubmissions.size());
-        comparison.put("assignmentPercentile", AnalyticsUtils.calculatePercentile(studentAssignmentAverage,
-                allAssignmentSubmissions.stream()
-                        .filter(as -> as.getScore() != null)
-                        .mapToDouble(as -> as.getScore().doubleValue())
-                        .toArray()));
+        comparison.put("assignmentPercentile", assignmentIndex.percentile(studentAssignmentAverage));
 
         return comparison;
     }
 
     /**
-     * Get overall course performance metrics for teacher (updated to include assignments)
+     * Metrics with a per-course {@link RankIndex}
      */
-    public Map<String, Object> getCoursePerformanceForTeacher(Long courseId) {
-        Map<String, Object> performance = new HashMap<>();
-
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+    private enum RankMetric {
+        COMPLETION_PERCENTAGE, LESSON_COMPLETION_RATE, EXAM_SCORE, ASSIGNMENT_SCORE
+    }
 
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+    /**
+     * Rank index of one metric over the course, cached with the course's reports so that it is
+     * rebuilt after submissions and enrollment changes.
+     */
+    private RankIndex courseRankIndex(Long courseId, RankMetric metric) {
+        return analyticsResultCache.get("rankIndex", courseId, null, () -> buildRankIndex(courseId, metric), metric);
+    }
 
-        // Calculate overall course metrics using modern activity-based calculation
-        double averageCompletion = course.getEnrolledStudents().stream()
-                .mapToDouble(student -> calculateProgressFromActivities(student, course))
-                .average()
-                .orElse(0.0);
+    private RankIndex buildRankIndex(Long courseId, RankMetric metric) {
+        double[] values = switch (metric) {
+            case COMPLETION_PERCENTAGE -> progressRepository.findCompletionByCourseId(courseId).stream()
+                    .mapToDouble(row -> row[0] != null ? ((Number) row[0]).doubleValue() : 0.0)
+                    .toArray();
+            case LESSON_COMPLETION_RATE -> progressRepository.findCompletionByCourseId(courseId).stream()
+                    .mapToDouble(row -> (double) intValue(row[1]) / intValue(row[2]) * 100)
+                    .toArray();
+            case EXAM_SCORE -> submissionRepository.findScoresByCourseId(courseId).stream()
+                    .mapToDouble(Integer::doubleValue)
+                    .toArray();
+            case ASSIGNMENT_SCORE -> assignmentSubmissionRepository.findScoresByCourseId(courseId).stream()
+                    .mapToDouble(Integer::doubleValue)
+                    .toArray();
+        };
+        return RankIndex.of(values);
+    }
 
-        long completedStudents = allProgress.stream()
-                .filter(p -> p.getCompletionPercentage() >= 100)
-                .count();
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
 
-        // Get all exam submissions for this course
-        List<Submission> allSubmissions = submissionRepository.findAll().stream()
-                .filter(s -> s.getExam().getLesson().getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+    /**
+     * Get overall course performance metrics for teacher (updated to include assignments)
+     */
+    public CoursePerformanceReport getCoursePerformanceForTeacher(Long courseId) {
+        return analyticsResultCache.get("coursePerformance", courseId, null,
+                () -> computeCoursePerformanceForTeacher(courseId));
+    }
 
-        double averageExamScore = allSubmissions.stream()
-                .mapToDouble(Submission::getScore)
-                .average()
-                .orElse(0.0);
+    private CoursePerformanceReport computeCoursePerformanceForTeacher(Long courseId) {
+        return coursePerformance(contextFor(courseId, null));
+    }
 
-        long passedExams = allSubmissions.stream()
-                .filter(Submission::isPassed)
-                .count();
+    private CoursePerformanceReport coursePerformance(CourseAnalyticsContext context) {
+        context.course();
 
-        // Get all assignment submissions for this course (instead of exercise submissions)
-        List<AssignmentSubmission> allAssignmentSubmissions = assignmentSubmissionRepository.findAll().stream()
-                .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
+        List<CourseAnalyticsContext.ProgressRow> allProgress = context.progress();
+        List<CourseAnalyticsContext.Student> enrolled = context.roster();
+        int enrolledCount = enrolled.size();
 
-        double averageAssignmentScore = allAssignmentSubmissions.stream()
-                .filter(as -> as.getScore() != null)
-                .mapToInt(AssignmentSubmission::getScore)
-                .average()
-                .orElse(0.0);
+        // Calculate overall course metrics using modern activity-based calculation
+        Map<Long, Set<Long>> takenExams = new HashMap<>();
+        context.examResults().forEach(result ->
+                takenExams.computeIfAbsent(result.studentId(), id -> new HashSet<>()).add(result.examId()));
+        Map<Long, Set<Long>> submittedAssignments = new HashMap<>();
+        context.assignmentResults().forEach(result ->
+                submittedAssignments.computeIfAbsent(result.studentId(), id -> new HashSet<>()).add(result.assignmentId()));
+        double completionSum = 0.0;
+        for (CourseAnalyticsContext.Student student : enrolled) {
+            completionSum += progressFromActivities(context, context.progressOf(student.id()),
+                    takenExams.getOrDefault(student.id(), Collections.emptySet()),
+                    submittedAssignments.getOrDefault(student.id(), Collections.emptySet()));
+        }
+        double averageCompletion = enrolledCount > 0 ? completionSum / enrolledCount : 0.0;
 
-        long gradedAssignments = allAssignmentSubmissions.stream()
-                .filter(AssignmentSubmission::isGraded)
-                .count();
+        long completedStudents = 0;
+        long studyTimeSum = 0L;
+        for (CourseAnalyticsContext.ProgressRow progress : allProgress) {
+            if (progress.completionPercentage() != null && progress.completionPercentage() >= 100) {
+                completedStudents++;
+            }
+            studyTimeSum += progress.totalStudyTime() != null ? progress.totalStudyTime() : 0L;
+        }
+        // Average study time in seconds for frontend display
+        double averageTimeSpent = allProgress.isEmpty() ? 0.0 : (double) studyTimeSum / allProgress.size();
+
+        int examsTaken = 0;
+        long passedExams = 0;
+        double examScoreSum = 0.0;
+        for (CourseAnalyticsContext.ExamResult submission : context.examResults()) {
+            examsTaken++;
+            examScoreSum += submission.score();
+            if (submission.passed()) {
+                passedExams++;
+            }
+        }
+        double averageExamScore = examsTaken > 0 ? examScoreSum / examsTaken : 0.0;
+
+        int assignmentSubmissions = 0;
+        long gradedAssignments = 0;
+        int scoredAssignments = 0;
+        long assignmentScoreSum = 0L;
+        for (CourseAnalyticsContext.AssignmentResult submission : context.assignmentResults()) {
+            assignmentSubmissions++;
+            if (submission.score() != null) {
+                scoredAssignments++;
+                assignmentScoreSum += submission.score();
+            }
+            if (submission.graded()) {
+                gradedAssignments++;
+            }
+        }
+        double averageAssignmentScore = scoredAssignments > 0 ? (double) assignmentScoreSum / scoredAssignments : 0.0;
 
-        // Calculate average study time for all students in the course
-        double averageTimeSpent = allProgress.stream()
-                .mapToLong(p -> p.getTotalStudyTime() != null ? p.getTotalStudyTime() : 0L)
-                .average()
-                .orElse(0.0);
+        // Calculate completion rate (percentage of students who completed the course)
+        double completionRate = enrolledCount == 0 ? 0 : (double) completedStudents / enrolledCount * 100;
+        double passRate = examsTaken == 0 ? 0 : (double) passedExams / examsTaken * 100;
+        double gradingRate = assignmentSubmissions == 0 ? 0 : (double) gradedAssignments / assignmentSubmissions * 100;
+
+        return new CoursePerformanceReport(
+                enrolledCount,
+                enrolledCount,
+                allProgress.size(),
+                completedStudents,
+                AnalyticsUtils.roundTo2Decimals(averageCompletion),
+                averageCompletion,
+                AnalyticsUtils.roundTo2Decimals(averageTimeSpent),
+                AnalyticsUtils.roundTo2Decimals(completionRate),
+                examsTaken,
+                passedExams,
+                AnalyticsUtils.roundTo2Decimals(averageExamScore),
+                AnalyticsUtils.roundTo2Decimals(passRate),
+                passRate,
+                assignmentSubmissions,
+                AnalyticsUtils.roundTo2Decimals(averageAssignmentScore),
+                gradedAssignments,
+                AnalyticsUtils.roundTo2Decimals(gradingRate));
+    }
 
-        // seconds for frontend display
-        averageTimeSpent = averageTimeSpent ;
+    /**
+     * Same measure as {@link #calculateProgressFromActivities}, read from the context: contents viewed
+     * or completed, exams taken and assignments submitted, over everything the course has. The
+     * student's progress row may be null.
+     */
+    private double progressFromActivities(CourseAnalyticsContext context, CourseAnalyticsContext.ProgressRow progress,
+                                          Set<Long> takenExams, Set<Long> submittedAssignments) {
+        List<Lesson> lessons = context.lessons();
+        if (lessons.isEmpty()) return 0.0;
 
-        // Calculate completion rate (percentage of students who completed the course)
-        double completionRate = course.getEnrolledStudents().isEmpty() ? 0 :
-                (double) completedStudents / course.getEnrolledStudents().size() * 100;
-
-        // Build performance data with frontend-expected structure
-        performance.put("totalStudents", course.getEnrolledStudents().size());
-        performance.put("studentCount", course.getEnrolledStudents().size()); // Alternative key for compatibility
-        performance.put("activeStudents", allProgress.size());
-        performance.put("completedStudents", completedStudents);
-        performance.put("averageProgress", Math.round(averageCompletion * 100.0) / 100.0); // Frontend expects this key
-        performance.put("averageCompletion", averageCompletion); // Keep for backward compatibility
-        performance.put("averageTimeSpent", Math.round(averageTimeSpent * 100.0) / 100.0); // In minutes
-        performance.put("completionRate", Math.round(completionRate * 100.0) / 100.0);
-
-        // Exam metrics
-        performance.put("examsTaken", allSubmissions.size());
-        performance.put("passedExams", passedExams);
-        performance.put("averageExamScore", Math.round(averageExamScore * 100.0) / 100.0);
-        performance.put("passingRate", allSubmissions.isEmpty() ? 0 :
-                Math.round((double) passedExams / allSubmissions.size() * 100 * 100.0) / 100.0); // Frontend expects this key
-        performance.put("passRate", allSubmissions.isEmpty() ? 0 : (double) passedExams / allSubmissions.size() * 100);
-
-        // Assignment metrics (instead of exercise metrics)
-        performance.put("assignmentSubmissions", allAssignmentSubmissions.size());
-        performance.put("averageAssignmentScore", Math.round(averageAssignmentScore * 100.0) / 100.0);
-        performance.put("gradedAssignments", gradedAssignments);
-        performance.put("assignmentGradingRate", allAssignmentSubmissions.isEmpty() ? 0 :
-                Math.round((double) gradedAssignments / allAssignmentSubmissions.size() * 100 * 100.0) / 100.0);
+        int totalActivities = 0;
+        int completedActivities = 0;
+        for (Lesson lesson : lessons) {
+            List<Long> contentIds = context.contentIds(lesson.getId());
+            totalActivities += contentIds.size();
+            if (progress != null) {
+                for (Long contentId : contentIds) {
+                    if (progress.completedContent().contains(contentId) || progress.viewedContent().contains(contentId)) {
+                        completedActivities++;
+                    }
+                }
+            }
+            if (lesson.getExam() != null) {
+                totalActivities++;
+                if (takenExams.contains(lesson.getExam().getId())) {
+                    completedActivities++;
+                }
+            }
+            List<Long> assignmentIds = context.assignmentIds(lesson.getId());
+            totalActivities += assignmentIds.size();
+            for (Long assignmentId : assignmentIds) {
+                if (submittedAssignments.contains(assignmentId)) {
+                    completedActivities++;
+                }
+            }
+        }
 
-        return performance;
+        if (totalActivities == 0) {
+            return 0.0;
+        }
+        return Math.min(100.0, (double) completedActivities / totalActivities * 100);
     }
 
     private String generateActivityDescription(ActivityLog activity) {
@@ -3024,135 +2979,20 @@ public class AnalyticsService {
     /**
      * Get top performers for a course in different categories
      */
-    public Map<String, List<Map<String, Object>>> getTopPerformers(Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-
-        Map<String, List<Map<String, Object>>> topPerformers = new HashMap<>();
-
-        // Get all progress records for this course
-        List<Progress> allProgress = progressRepository.findAll().stream()
-                .filter(p -> p.getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
-
-        // Top by completion rate
-        List<Map<String, Object>> topByCompletion = allProgress.stream()
-                .sorted((p1, p2) -> Double.compare(p2.getCompletionPercentage(), p1.getCompletionPercentage()))
-                .limit(5)
-                .map(progress -> {
-                    Map<String, Object> studentData = new HashMap<>();
-                    User student = progress.getStudent();
-                    studentData.put("studentId", student.getId());
-                    studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
-                    studentData.put("value", progress.getCompletionPercentage());
-                    studentData.put("completedLessons", progress.getCompletedLessons().size());
-                    studentData.put("totalLessons", progress.getTotalLessons());
-                    return studentData;
-                })
-                .collect(Collectors.toList());
-
-        // Top by exam scores
-        List<Submission> allSubmissions = submissionRepository.findAll().stream()
-                .filter(s -> s.getExam().getLesson().getCourse().getId().equals(courseId))
-                .collect(Collectors.toList());
-
-        Map<Long, Double> studentExamAverages = allSubmissions.stream()
-                .collect(Collectors.groupingBy(
-                        s -> s.getStudent().getId(),
-                        Collectors.averagingDouble(Submission::getScore)
-                ));
-
-        List<Map<String, Object>> topByExamScores = studentExamAverages.entrySet().stream()
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
-                .limit(5)
-                .map(entry -> {
-                    Map<String, Object> studentData = new HashMap<>();
-                    User student = userRepository.findById(entry.getKey())
-                            .orElse(null);
-                    if (student != null) {
-                        studentData.put("studentId", student.getId());
-                        studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
-                        studentData.put("value", Math.round(entry.getValue() * 10.0));
-
-                        // Count exams taken
-                        long examsTaken = allSubmissions.stream()
-                                .filter(s -> s.getStudent().getId().equals(student.getId()))
-                                .count();
-                        studentData.put("examsTaken", examsTaken);
-                    }
-                    return studentData;
-                })
-                .filter(data -> data.get("studentName") != null)
-                .collect(Collectors.toList());
-
-        // Top by assignment scores
-        List<AssignmentSubmission> allAssignmentSubmissions = assignmentSubmissionRepository.findAll().stream()
-                .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(courseId))
-                .filter(as -> as.getScore() != null)
-                .collect(Collectors.toList());
-
-        Map<Long, Double> studentAssignmentAverages = allAssignmentSubmissions.stream()
-                .collect(Collectors.groupingBy(
-                        as -> as.getStudent().getId(),
-                        Collectors.averagingDouble(AssignmentSubmission::getScore)
-                ));
-
-        List<Map<String, Object>> topByAssignmentScores = studentAssignmentAverages.entrySet().stream()
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
-                .limit(5)
-                .map(entry -> {
-                    Map<String, Object> studentData = new HashMap<>();
-                    User student = userRepository.findById(entry.getKey())
-                            .orElse(null);
-                    if (student != null) {
-                        studentData.put("studentId", student.getId());
-                        studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
-                        studentData.put("value", Math.round(entry.getValue() * 10.0));
-
-                        // Count assignments submitted
-                        long assignmentsSubmitted = allAssignmentSubmissions.stream()
-                                .filter(as -> as.getStudent().getId().equals(student.getId()))
-                                .count();
-                        studentData.put("assignmentsSubmitted", assignmentsSubmitted);
-                    }
-                    return studentData;
-                })
-                .filter(data -> data.get("studentName") != null)
-                .collect(Collectors.toList());
-
-        // Top by study time (from progress records)
-        List<Map<String, Object>> topByStudyTime = allProgress.stream()
-                .filter(p -> p.getTotalStudyTime() != null && p.getTotalStudyTime() > 0)
-                .sorted((p1, p2) -> Long.compare(
-                        p2.getTotalStudyTime() != null ? p2.getTotalStudyTime() : 0L,
-                        p1.getTotalStudyTime() != null ? p1.getTotalStudyTime() : 0L))
-                .limit(5)
-                .map(progress -> {
-                    Map<String, Object> studentData = new HashMap<>();
-                    User student = progress.getStudent();
-                    studentData.put("studentId", student.getId());
-                    studentData.put("studentName", student.getFirstName() + " " + student.getLastName());
-                    studentData.put("value", Math.round(progress.getTotalStudyTime() / 60.0)); // Convert seconds to minutes for display
-                    studentData.put("totalseconds", progress.getTotalStudyTime());
-                    return studentData;
-                })
-                .collect(Collectors.toList());
-
-        topPerformers.put("completion", topByCompletion);
-        topPerformers.put("examScores", topByExamScores);
-        topPerformers.put("assignmentScores", topByAssignmentScores);
-        topPerformers.put("studyTime", topByStudyTime);
-
-        return topPerformers;
+    public TopPerformersReport getTopPerformers(Long courseId) {
+        return courseLeaderboardService.getTopPerformers(courseId, TOP_PERFORMERS_LIMIT);
     }
 
     /**
      * Get challenging questions for a specific course
      */
 
-    public Map<String, Object> getChallengingQuestionsForCourse(Long courseId, String period) {
-        Map<String, Object> result = new HashMap<>();
+    public ChallengingQuestionsReport getChallengingQuestionsForCourse(Long courseId, String period) {
+        return analyticsResultCache.get("challengingQuestions", courseId, period,
+                () -> computeChallengingQuestionsForCourse(courseId, period));
+    }
 
+    private ChallengingQuestionsReport computeChallengingQuestionsForCourse(Long courseId, String period) {
         // Validate course exists
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
@@ -3163,8 +3003,9 @@ public class AnalyticsService {
 
         // Get all questions for this course
         List<Question> courseQuestions = questionRepository.findByCourseId(courseId);
+        Map<Long, QuestionStats> statsByQuestion = questionStatsService.getStats(courseQuestions, startDate, endDate);
 
-        List<Map<String, Object>> challengingQuestions = new ArrayList<>();
+        List<ChallengingQuestion> challengingQuestions = new ArrayList<>();
 
         // Statistics for summary
         int totalDifficult = 0;
@@ -3173,67 +3014,29 @@ public class AnalyticsService {
         double maxDifficulty = 0.0;
 
         for (Question question : courseQuestions) {
-            // Get submissions for this question within time period
-            List<Submission> submissions = submissionRepository
-                    .findByExamAndSubmissionTimeBetween(question.getExam(), startDate, endDate);
-
-            if (submissions.isEmpty()) continue;
-
-            // Calculate error rate
-            long totalAnswers = submissions.size();
-            long incorrectAnswers = submissions.stream()
-                    .mapToLong(sub -> {
-                        try {
-                            // استفاده از ExamService برای ارزیابی پاسخ
-                            Map<String, Object> studentAnswers = parseSubmissionAnswers(sub.getAnswersJson());
-                            Object studentAnswer = studentAnswers.get(question.getId().toString());
-
-                            if (studentAnswer == null) {
-                                return 1; // No answer = incorrect
-                            }
-
-                            // استفاده از ExamService برای ارزیابی صحیح پاسخ
-                            Object evaluation = examService.evaluateAnswerWithPartialScoring(question, studentAnswer);
-
-                            if (evaluation instanceof Boolean) {
-                                return ((Boolean) evaluation) ? 0 : 1;
-                            } else if (evaluation instanceof Number) {
-                                // اگر نمره جزئی است، بیش از 50% را درست در نظر بگیر
-                                double score = ((Number) evaluation).doubleValue();
-                                double maxScore = question.getPoints() != null ? question.getPoints() : 1.0;
-                                return (score / maxScore) >= 0.5 ? 0 : 1;
-                            }
-
-                            return 1; // در صورت عدم قطعیت، اشتباه در نظر بگیر
-
-                        } catch (Exception e) {
-                            System.err.println("Error evaluating answer for question " + question.getId() +
-                                    " in submission " + sub.getId() + ": " + e.getMessage());
-                            return 1; // در صورت خطا، اشتباه در نظر بگیر
-                        }
-                    })
-                    .sum();
+            QuestionStats stats = statsByQuestion.get(question.getId());
+            if (stats == null || stats.getAttempts() == 0) continue;
 
-            double errorRate = totalAnswers > 0 ? (double) incorrectAnswers / totalAnswers * 100 : 0;
+            // Unanswered and less-than-half-credit answers count as incorrect
+            long totalAnswers = stats.getAttempts();
+            long incorrectAnswers = stats.getAttempts() - stats.getHalfCredit();
+            double errorRate = stats.getErrorRate();
 
             // Only include questions with high error rate (> 60%)
             if (errorRate > 60) {
-                Map<String, Object> questionData = new HashMap<>();
-                questionData.put("questionId", question.getId());
-                questionData.put("questionText", question.getText());
-                questionData.put("errorRate", Math.round(errorRate * 100.0) / 100.0);
-                questionData.put("difficulty", Math.round((errorRate / 100.0 * 5) * 100.0) / 100.0); // Scale 0-5
-                questionData.put("totalAttempts", totalAnswers);
-                questionData.put("incorrectCount", incorrectAnswers);
-                questionData.put("topic", question.getExam() != null ? question.getExam().getTitle() : "General");
-
                 // Add lesson and exam info
-                if (question.getExam() != null && question.getExam().getLesson() != null) {
-                    questionData.put("lessonTitle", question.getExam().getLesson().getTitle());
-                    questionData.put("examTitle", question.getExam().getTitle());
-                }
-
-                challengingQuestions.add(questionData);
+                boolean hasLesson = question.getExam() != null && question.getExam().getLesson() != null;
+
+                challengingQuestions.add(new ChallengingQuestion(
+                        question.getId(),
+                        question.getText(),
+                        Math.round(errorRate * 100.0) / 100.0,
+                        Math.round((errorRate / 100.0 * 5) * 100.0) / 100.0, // Scale 0-5
+                        totalAnswers,
+                        incorrectAnswers,
+                        question.getExam() != null ? question.getExam().getTitle() : "General",
+                        hasLesson ? question.getExam().getLesson().getTitle() : null,
+                        hasLesson ? question.getExam().getTitle() : null));
 
                 // Update statistics
                 totalDifficult++;
@@ -3244,11 +3047,7 @@ public class AnalyticsService {
         }
 
         // Sort by error rate (descending)
-        challengingQuestions.sort((q1, q2) -> {
-            Double rate1 = (Double) q1.get("errorRate");
-            Double rate2 = (Double) q2.get("errorRate");
-            return rate2.compareTo(rate1);
-        });
+        challengingQuestions.sort(Comparator.comparingDouble(ChallengingQuestion::errorRate).reversed());
 
         // Limit to top 20 most challenging
         if (challengingQuestions.size() > 20) {
@@ -3256,29 +3055,26 @@ public class AnalyticsService {
         }
 
         // Build summary statistics
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("totalDifficultQuestions", totalDifficult);
-        summary.put("averageDifficulty", totalDifficult > 0 ? Math.round(totalDifficultyScore / totalDifficult * 100.0) / 100.0 : 0);
-        summary.put("questionsNeedingReview", needsReview);
-        summary.put("maxDifficulty", Math.round(maxDifficulty * 100.0) / 100.0);
-        summary.put("period", period);
-
-        result.put("challengingQuestions", challengingQuestions);
-        result.put("summary", summary);
-        result.put("course", Map.of(
-                "id", course.getId(),
-                "title", course.getTitle()
-        ));
-
-        return result;
+        ChallengingQuestionsSummary summary = new ChallengingQuestionsSummary(
+                totalDifficult,
+                totalDifficult > 0 ? Math.round(totalDifficultyScore / totalDifficult * 100.0) / 100.0 : 0,
+                needsReview,
+                Math.round(maxDifficulty * 100.0) / 100.0,
+                period);
+
+        return new ChallengingQuestionsReport(
+                challengingQuestions, summary, new CourseRef(course.getId(), course.getTitle()));
     }
 
     /**
      * Get at-risk students for a specific course using weighted scoring system
      */
-    public Map<String, Object> getAtRiskStudents(Long courseId, String period) {
-        Map<String, Object> result = new HashMap<>();
+    public AtRiskReport getAtRiskStudents(Long courseId, String period) {
+        return analyticsResultCache.get("atRiskStudents", courseId, period,
+                () -> computeAtRiskStudents(courseId, period));
+    }
 
+    private AtRiskReport computeAtRiskStudents(Long courseId, String period) {
         // Validate course exists
         Course course = courseRepository.findById(courseId)
                 .orElseThrow(() -> new RuntimeException("Course not found"));
@@ -3287,262 +3083,128 @@ public class AnalyticsService {
         LocalDateTime endDate = LocalDateTime.now();
         LocalDateTime startDate = AnalyticsUtils.calculateStartDate(endDate, period);
 
-        // Get all students enrolled in this course
-        List<Progress> courseProgress = progressRepository.findByCourse(course);
-        List<Map<String, Object>> atRiskStudents = new ArrayList<>();
-        List<Map<String, Object>> allStudents = new ArrayList<>();
-
-        // Calculate course-wide averages first
-        Map<String, Double> courseAverages = calculateCourseAverages(course, startDate, endDate);
-
-        // Process each student
-        for (Progress progress : courseProgress) {
-            User student = progress.getStudent();
-
-            // Calculate individual student metrics
-            Map<String, Double> studentMetrics = calculateStudentMetrics(student, course, progress, startDate, endDate);
-
-            // Calculate weighted risk score
-            Map<String, Object> riskAssessment = calculateWeightedRiskScore(studentMetrics, courseAverages);
-
-            // Create student data object
-            Map<String, Object> studentData = new HashMap<>();
-            studentData.put("id", student.getId());
-            studentData.put("firstName", student.getFirstName());
-            studentData.put("lastName", student.getLastName());
-            studentData.put("username", student.getUsername());
-            studentData.put("email", student.getEmail());
-            studentData.put("riskScore", riskAssessment.get("riskScore"));
-            studentData.put("riskLevel", riskAssessment.get("riskLevel"));
-            studentData.put("factors", riskAssessment.get("factors"));
-            studentData.put("studentMetrics", studentMetrics);
-            studentData.put("courseAverages", courseAverages);
-
-            allStudents.add(studentData);
-
-            // Include in at-risk list if score >= 50
-            double riskScore = (Double) riskAssessment.get("riskScore");
-            if (riskScore >= 50.0) {
-                atRiskStudents.add(studentData);
+        // Every student with progress in the course is one row of the feature matrix
+        List<Object[]> students = progressRepository.findStudentContentStateByCourseId(course.getId());
+        RiskFeatureMatrix matrix = loadRiskFeatures(course.getId(), students, startDate, endDate);
+        RiskAverages courseAverages = matrix.averages();
+        matrix.score(courseAverages);
+
+        List<AtRiskStudent> atRiskStudents = new ArrayList<>();
+        double riskScoreSum = 0.0;
+        for (int i = 0; i < matrix.size; i++) {
+            riskScoreSum += matrix.riskScore[i];
+            if (matrix.riskScore[i] >= RiskFeatureMatrix.AT_RISK_THRESHOLD) {
+                Object[] student = students.get(i);
+                atRiskStudents.add(new AtRiskStudent(
+                        (Long) student[0],
+                        (String) student[1],
+                        (String) student[2],
+                        (String) student[3],
+                        (String) student[4],
+                        matrix.riskScore[i],
+                        matrix.riskLevel[i],
+                        matrix.factors(i),
+                        matrix.metrics(i),
+                        courseAverages));
             }
         }
 
         // Sort at-risk students by risk score (highest first)
-        atRiskStudents.sort((a, b) -> Double.compare((Double) b.get("riskScore"), (Double) a.get("riskScore")));
+        atRiskStudents.sort(Comparator.comparingDouble(AtRiskStudent::riskScore).reversed());
 
         // Calculate course statistics
-        Map<String, Object> courseStats = new HashMap<>();
-        courseStats.put("totalStudents", allStudents.size());
-        courseStats.put("atRiskCount", atRiskStudents.size());
-
-        double averageRiskScore = allStudents.stream()
-            .mapToDouble(s -> (Double) s.get("riskScore"))
-            .average()
-            .orElse(0.0);
-        courseStats.put("averageRiskScore", Math.round(averageRiskScore * 10.0) / 10.0);
+        double averageRiskScore = students.isEmpty() ? 0.0 : riskScoreSum / students.size();
+        AtRiskCourseStats courseStats = new AtRiskCourseStats(
+                students.size(),
+                atRiskStudents.size(),
+                Math.round(averageRiskScore * 10.0) / 10.0);
 
         // Count risk levels
         Map<String, Long> riskLevelCounts = atRiskStudents.stream()
-            .collect(Collectors.groupingBy(
-                s -> (String) s.get("riskLevel"),
-                Collectors.counting()
-            ));
-
-        result.put("students", atRiskStudents);
-        result.put("courseStats", courseStats);
-        result.put("riskLevelCounts", riskLevelCounts);
-        result.put("courseAverages", courseAverages);
+            .collect(Collectors.groupingBy(AtRiskStudent::riskLevel, Collectors.counting()));
 
-        return result;
+        return new AtRiskReport(atRiskStudents, courseStats, riskLevelCounts, courseAverages);
     }
 
     /**
-     * Calculate course-wide averages for progress, grades, and attendance
+     * Progress, grade and attendance of every student row, one course-wide query per signal. Progress matches ProgressService.calculateProgressFromActivities: viewed or completed
+     * contents plus exams and assignments with a submission, over everything the course has.
      */
-    private Map<String, Double> calculateCourseAverages(Course course, LocalDateTime startDate, LocalDateTime endDate) {
-        List<Progress> courseProgress = progressRepository.findByCourse(course);
-        Map<String, Double> averages = new HashMap<>();
-
-        double totalProgress = 0.0;
-        double totalGrade = 0.0;
-        double totalAttendance = 0.0;
-        int validProgressCount = 0;
-        int validGradeCount = 0;
-        int validAttendanceCount = 0;
-
-        for (Progress progress : courseProgress) {
-            User student = progress.getStudent();
-
-            // Calculate progress percentage using granular activity-based calculation
-            double progressPercentage = progressService.calculateProgressFromActivities(student, course);
-            if (progressPercentage >= 0) {
-                totalProgress += progressPercentage;
-                validProgressCount++;
-            }
-
-            // Calculate average grade from all exams and assignments
-            List<Submission> examSubmissions = submissionRepository.findByStudent(student).stream()
-                .filter(s -> s.getExam().getLesson().getCourse().getId().equals(course.getId()))
-                .collect(Collectors.toList());
-
-            List<AssignmentSubmission> assignmentSubmissions = assignmentSubmissionRepository.findByStudent(student).stream()
-                .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(course.getId()))
-                .filter(as -> as.isGraded() && as.getScore() != null)
-                .collect(Collectors.toList());
-
-            if (!examSubmissions.isEmpty() || !assignmentSubmissions.isEmpty()) {
-                double examAvg = examSubmissions.stream()
-                    .mapToDouble(Submission::getScore)
-                    .average()
-                    .orElse(0.0);
-
-                double assignmentAvg = assignmentSubmissions.stream()
-                    .mapToDouble(AssignmentSubmission::getScore)
-                    .average()
-                    .orElse(0.0);
-
-                double combinedAvg = (!examSubmissions.isEmpty() && !assignmentSubmissions.isEmpty())
-                    ? (examAvg + assignmentAvg) / 2.0
-                    : (!examSubmissions.isEmpty() ? examAvg : assignmentAvg);
-
-                if (combinedAvg > 0) {
-                    totalGrade += combinedAvg;
-                    validGradeCount++;
-                }
-            }
-
-            // Calculate attendance days (unique activity days)
-            Set<LocalDate> activeDays = activityLogRepository
-                .findByUserAndTimestampBetween(student, startDate, endDate)
-                .stream()
-                .map(log -> log.getTimestamp().toLocalDate())
-                .collect(Collectors.toSet());
-
-            int attendanceDays = activeDays.size();
-            totalAttendance += attendanceDays;
-            validAttendanceCount++;
+    private RiskFeatureMatrix loadRiskFeatures(Long courseId, List<Object[]> students,
+                                               LocalDateTime startDate, LocalDateTime endDate) {
+        int size = students.size();
+        RiskFeatureMatrix matrix = new RiskFeatureMatrix(size);
+        Map<Long, Integer> rowByStudentId = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            rowByStudentId.put((Long) students.get(i)[0], i);
         }
 
-        averages.put("avgProgress", validProgressCount > 0 ? totalProgress / validProgressCount : 0.0);
-        averages.put("avgGrade", validGradeCount > 0 ? totalGrade / validGradeCount : 0.0);
-        averages.put("avgAttendance", validAttendanceCount > 0 ? totalAttendance / validAttendanceCount : 0.0);
-
-        return averages;
-    }
-
-    /**
-     * Calculate individual student metrics
-     */
-    private Map<String, Double> calculateStudentMetrics(User student, Course course, Progress progress, LocalDateTime startDate, LocalDateTime endDate) {
-        Map<String, Double> metrics = new HashMap<>();
-
-        // 1. Progress percentage using granular activity-based calculation
-        double progressPercentage = progressService.calculateProgressFromActivities(student, course);
-        metrics.put("progress", Math.max(0.0, progressPercentage));
-
-        // 2. Average grade from exams and assignments
-        List<Submission> examSubmissions = submissionRepository.findByStudent(student).stream()
-            .filter(s -> s.getExam().getLesson().getCourse().getId().equals(course.getId()))
-            .collect(Collectors.toList());
-
-        List<AssignmentSubmission> assignmentSubmissions = assignmentSubmissionRepository.findByStudent(student).stream()
-            .filter(as -> as.getAssignment().getLesson().getCourse().getId().equals(course.getId()))
-            .filter(as -> as.isGraded() && as.getScore() != null)
-            .collect(Collectors.toList());
-
-        double examAvg = examSubmissions.stream()
-            .mapToDouble(Submission::getScore)
-            .average()
-            .orElse(0.0);
-
-        double assignmentAvg = assignmentSubmissions.stream()
-            .mapToDouble(AssignmentSubmission::getScore)
-            .average()
-            .orElse(0.0);
-
-        double combinedAvg = (!examSubmissions.isEmpty() && !assignmentSubmissions.isEmpty())
-            ? (examAvg + assignmentAvg) / 2.0
-            : (!examSubmissions.isEmpty() ? examAvg : assignmentAvg);
-
-        metrics.put("averageGrade", Math.max(0.0, combinedAvg));
-
-        // 3. Attendance days (unique activity days)
-        Set<LocalDate> activeDays = activityLogRepository
-            .findByUserAndTimestampBetween(student, startDate, endDate)
-            .stream()
-            .map(log -> log.getTimestamp().toLocalDate())
-            .collect(Collectors.toSet());
-
-        metrics.put("attendanceDays", (double) activeDays.size());
-
-        return metrics;
-    }
-
-    /**
-     * Calculate weighted risk score based on user's criteria:
-     * - Progress rate vs course average: 50% weight
-     * - Grade average vs course average: 35% weight
-     * - Attendance days vs course average: 15% weight
-     * Risk threshold: >= 50 points
-     */
-    private Map<String, Object> calculateWeightedRiskScore(Map<String, Double> studentMetrics, Map<String, Double> courseAverages) {
-        Map<String, Object> assessment = new HashMap<>();
-        Map<String, Double> factors = new HashMap<>();
-
-        double progressFactor = 0.0;
-        double gradeFactor = 0.0;
-        double attendanceFactor = 0.0;
-
-        // 1. Progress factor (50% weight)
-        double studentProgress = studentMetrics.get("progress");
-        double avgProgress = courseAverages.get("avgProgress");
-        if (avgProgress > 0 && studentProgress < avgProgress) {
-            progressFactor = Math.min(50.0, ((avgProgress - studentProgress) / avgProgress) * 50.0);
+        IdBitmap contentIds = new IdBitmap();
+        for (Object[] row : contentRepository.findLessonContentIdsByCourseId(courseId)) {
+            contentIds.add((Long) row[1]);
         }
-
-        // 2. Grade factor (35% weight)
-        double studentGrade = studentMetrics.get("averageGrade");
-        double avgGrade = courseAverages.get("avgGrade");
-        if (avgGrade > 0 && studentGrade < avgGrade) {
-            gradeFactor = Math.min(35.0, ((avgGrade - studentGrade) / avgGrade) * 35.0);
+        int totalActivities = contentIds.size()
+                + examRepository.findIdsByCourseId(courseId).size()
+                + assignmentRepository.findLessonAssignmentIdsByCourseId(courseId).size();
+
+        int[] completed = new int[size];
+        for (int i = 0; i < size; i++) {
+            Object[] student = students.get(i);
+            completed[i] = contentIds.intersectionSize((IdBitmap) student[5], (IdBitmap) student[6]);
         }
 
-        // 3. Attendance factor (15% weight)
-        double studentAttendance = studentMetrics.get("attendanceDays");
-        double avgAttendance = courseAverages.get("avgAttendance");
-        if (avgAttendance > 0 && studentAttendance < avgAttendance) {
-            attendanceFactor = Math.min(15.0, ((avgAttendance - studentAttendance) / avgAttendance) * 15.0);
+        long[] examScoreSum = new long[size];
+        int[] examCount = new int[size];
+        for (Object[] row : submissionRepository.findStudentExamScoresByCourseId(courseId)) {
+            Integer i = rowByStudentId.get((Long) row[0]);
+            if (i == null) {
+                continue;
+            }
+            completed[i]++;
+            if (row[2] != null) {
+                examScoreSum[i] += (Integer) row[2];
+                examCount[i]++;
+            }
         }
 
-        // Calculate total risk score
-        double totalRiskScore = progressFactor + gradeFactor + attendanceFactor;
-
-        // Determine risk level
-        String riskLevel;
-        if (totalRiskScore >= 75.0) {
-            riskLevel = "HIGH";
-        } else if (totalRiskScore >= 50.0) {
-            riskLevel = "MEDIUM";
-        } else if (totalRiskScore >= 25.0) {
-            riskLevel = "LOW";
-        } else {
-            riskLevel = "NONE";
+        long[] assignmentScoreSum = new long[size];
+        int[] assignmentCount = new int[size];
+        for (Object[] row : assignmentSubmissionRepository.findStudentAssignmentScoresByCourseId(courseId)) {
+            Integer i = rowByStudentId.get((Long) row[0]);
+            if (i == null) {
+                continue;
+            }
+            completed[i]++;
+            if (row[2] != null && Boolean.TRUE.equals(row[3])) {
+                assignmentScoreSum[i] += (Integer) row[2];
+                assignmentCount[i]++;
+            }
         }
 
-        factors.put("progressFactor", Math.round(progressFactor * 10.0) / 10.0);
-        factors.put("gradeFactor", Math.round(gradeFactor * 10.0) / 10.0);
-        factors.put("attendanceFactor", Math.round(attendanceFactor * 10.0) / 10.0);
+        for (Object[] row : activityLogRepository.countActiveDaysByCourseStudents(courseId, startDate, endDate)) {
+            Integer i = rowByStudentId.get((Long) row[0]);
+            if (i != null) {
+                matrix.attendance[i] = ((Number) row[1]).doubleValue();
+            }
+        }
 
-        assessment.put("riskScore", Math.round(totalRiskScore * 10.0) / 10.0);
-        assessment.put("riskLevel", riskLevel);
-        assessment.put("factors", factors);
+        for (int i = 0; i < size; i++) {
+            matrix.progress[i] = totalActivities == 0 ? 0.0
+                    : Math.min(100.0, (double) completed[i] / totalActivities * 100);
 
-        return assessment;
+            double examAvg = examCount[i] > 0 ? (double) examScoreSum[i] / examCount[i] : 0.0;
+            double assignmentAvg = assignmentCount[i] > 0 ? (double) assignmentScoreSum[i] / assignmentCount[i] : 0.0;
+            matrix.grade[i] = examCount[i] > 0 && assignmentCount[i] > 0
+                    ? (examAvg + assignmentAvg) / 2.0
+                    : (examCount[i] > 0 ? examAvg : assignmentAvg);
+        }
+        return matrix;
     }
 
     /**
      * Get trend analysis for a specific course
      */
+    @SingleFlight(ttlMillis = COURSE_REPORT_SHARE_MILLIS)
     public Map<String, Object> getTrendAnalysis(Long courseId, String period) {
         Map<String, Object> result = new HashMap<>();
 
@@ -3646,46 +3308,6 @@ public class AnalyticsService {
 
         return result;
     }
-    private Map<Long, Long> getSubmissionAnswers(Submission submission) {
-        Map<Long, Long> answers = new HashMap<>();
-
-        if (submission.getAnswersJson() == null || submission.getAnswersJson().trim().isEmpty()) {
-            return answers;
-        }
-
-        try {
-            // Simple JSON parsing for backward compatibility
-            String answersJson = submission.getAnswersJson();
-            if (answersJson.startsWith("{") && answersJson.endsWith("}")) {
-                String content = answersJson.substring(1, answersJson.length() - 1);
-
-                if (!content.trim().isEmpty()) {
-                    String[] pairs = content.split(",");
-
-                    for (String pair : pairs) {
-                        String[] keyValue = pair.split(":", 2);
-                        if (keyValue.length == 2) {
-                            String key = keyValue[0].trim().replaceAll("\"", "");
-                            String value = keyValue[1].trim().replaceAll("\"", "");
-
-                            try {
-                                // Only include simple numeric answers for analytics
-                                Long questionId = Long.parseLong(key);
-                                Long answerId = Long.parseLong(value);
-                                answers.put(questionId, answerId);
-                            } catch (NumberFormatException e) {
-                                // Skip complex answers that can't be converted to Long
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            // Return empty map if parsing fails
-        }
-
-        return answers;
-    }
 
     /**
      * محاسبه فعالیت در هر درس
@@ -3760,36 +3382,43 @@ public class AnalyticsService {
      * دریافت آنالیز پیشرفته فعالیت‌های دانش‌آموز
      */
     public Map<String, Object> getAdvancedStudentAnalytics(Long studentId, Long courseId, String timeFilter) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+        if (!userRepository.existsById(studentId)) {
+            throw new RuntimeException("Student not found");
+        }
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found");
+        }
 
         LocalDateTime startDate = getStartDateByFilter(timeFilter);
         LocalDateTime endDate = AnalyticsUtils.getNowInIranTime();
 
-        List<ActivityLog> activities = activityLogRepository
-                .findByUserAndTimestampBetweenOrderByTimestampDesc(student, startDate, endDate)
-                .stream()
-                .filter(log -> isCourseRelatedActivity(log, courseId))
-                .collect(Collectors.toList());
-
-        Map<String, Object> analytics = new HashMap<>();
-
-        // 1. توزیع انواع فعالیت‌ها
-        analytics.put("activityTypeDistribution", getActivityTypeDistribution(activities));
-
-        // 2. فعالیت در هر درس
-        analytics.put("lessonActivityBreakdown", getLessonActivityBreakdown(activities, course));
-
-        // 3. Timeline فعالیت‌ها
-        analytics.put("activityTimeline", getActivityTimeline(activities));
-
-        // 4. تحلیل زمان بر اساس نوع فعالیت
-        analytics.put("timeAnalysisByActivityType", getTimeAnalysisByActivityType(activities));
+        return reportComposer.plan("advancedStudentAnalytics")
+                .input("activities", () -> {
+                    List<ActivityLog> activities = activityLogRepository
+                            .findByUserAndTimestampBetweenOrderByTimestampDesc(student(studentId), startDate, endDate)
+                            .stream()
+                            .filter(log -> isCourseRelatedActivity(log, courseId))
+                            .collect(Collectors.toList());
+                    return activities;
+                })
+                // 1. توزیع انواع فعالیت‌ها
+                .section("activityTypeDistribution", List.of("activities"), inputs ->
+                        getActivityTypeDistribution(activities(inputs)))
+                // 2. فعالیت در هر درس
+                .section("lessonActivityBreakdown", List.of("activities"), inputs ->
+                        getLessonActivityBreakdown(activities(inputs), course(courseId)))
+                // 3. Timeline فعالیت‌ها
+                .section("activityTimeline", List.of("activities"), inputs ->
+                        getActivityTimeline(activities(inputs)))
+                // 4. تحلیل زمان بر اساس نوع فعالیت
+                .section("timeAnalysisByActivityType", List.of("activities"), inputs ->
+                        getTimeAnalysisByActivityType(activities(inputs)))
+                .run();
+    }
 
-        return analytics;
+    @SuppressWarnings("unchecked")
+    private static List<ActivityLog> activities(Map<String, Object> inputs) {
+        return (List<ActivityLog>) inputs.get("activities");
     }
 
     /**
@@ -4752,17 +4381,4 @@ public class AnalyticsService {
 
         return Math.min(100.0, (double) completedActivities / totalActivities * 100);
     }
-    private Map<String, Object> parseSubmissionAnswers(String answersJson) {
-        if (answersJson == null || answersJson.trim().isEmpty()) {
-            return new HashMap<>();
-        }
-
-        try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.readValue(answersJson, new TypeReference<Map<String, Object>>() {});
-        } catch (Exception e) {
-            System.err.println("Error parsing answers JSON: " + e.getMessage());
-            return new HashMap<>();
-        }
-    }
 }
\ No newline at end of file
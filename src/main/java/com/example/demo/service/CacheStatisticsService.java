@@ -0,0 +1,82 @@
+package com.example.demo.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hit/miss statistics and manual eviction for the Hibernate second-level and query caches
+ * and the analytics result cache.
+ */
+@Service
+public class CacheStatisticsService {
+
+    private final SessionFactory sessionFactory;
+    private final AnalyticsResultCache analyticsResultCache;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory, AnalyticsResultCache analyticsResultCache) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.analyticsResultCache = analyticsResultCache;
+    }
+
+    public Map<String, Object> getCacheStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        result.put("secondLevelCacheHitRatio", hitRatio(
+                statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("queryCachePuts", statistics.getQueryCachePutCount());
+        result.put("queryCacheHitRatio", hitRatio(
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+        result.put("queryExecutionCount", statistics.getQueryExecutionCount());
+
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(regionName);
+            if (regionStatistics != null) {
+                regions.add(regionToMap(regionName, regionStatistics));
+            }
+        }
+        result.put("regions", regions);
+        result.put("analyticsResults", analyticsResultCache.getStatistics());
+
+        return result;
+    }
+
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+        analyticsResultCache.invalidateAll();
+    }
+
+    public void resetStatistics() {
+        sessionFactory.getStatistics().clear();
+    }
+
+    private Map<String, Object> regionToMap(String regionName, CacheRegionStatistics regionStatistics) {
+        Map<String, Object> region = new LinkedHashMap<>();
+        region.put("region", regionName);
+        region.put("hits", regionStatistics.getHitCount());
+        region.put("misses", regionStatistics.getMissCount());
+        region.put("puts", regionStatistics.getPutCount());
+        region.put("hitRatio", hitRatio(regionStatistics.getHitCount(), regionStatistics.getMissCount()));
+        return region;
+    }
+
+    private double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : Math.round((double) hits / total * 10000) / 100.0;
+    }
+}
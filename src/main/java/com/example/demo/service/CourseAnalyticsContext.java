@@ -0,0 +1,301 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Course;
+import com.example.demo.model.IdBitmap;
+import com.example.demo.model.Lesson;
+import com.example.demo.repository.ActivityLogRepository;
+import com.example.demo.repository.AssignmentRepository;
+import com.example.demo.repository.AssignmentSubmissionRepository;
+import com.example.demo.repository.ContentRepository;
+import com.example.demo.repository.CourseRepository;
+import com.example.demo.repository.LessonRepository;
+import com.example.demo.repository.ProgressRepository;
+import com.example.demo.repository.SubmissionRepository;
+import com.example.demo.util.AnalyticsUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything the course dashboard reports read, loaded once per request: the course, its lessons,
+ * roster, progress rows, exam and assignment results, and the course's activity in the period.
+ * Each part is fetched with one projection query the first time a report asks for it, so a request
+ * for several reports pays for the shared data only once. Not meant to outlive the request.
+ */
+final class CourseAnalyticsContext {
+
+    record Student(long id, String name) {
+    }
+
+    record ProgressRow(long studentId, String studentName, Double completionPercentage,
+                       IdBitmap completedLessons, IdBitmap viewedContent, IdBitmap completedContent,
+                       LocalDateTime lastAccessed, Long totalStudyTime) {
+    }
+
+    record ExamResult(long id, long studentId, long examId, Integer score, boolean passed) {
+    }
+
+    record AssignmentResult(long id, long studentId, long assignmentId, Integer score, boolean graded) {
+    }
+
+    record Activity(long userId, String activityType, long relatedEntityId, Long timeSpent, LocalDateTime timestamp) {
+    }
+
+    private final Long courseId;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+
+    private final CourseRepository courseRepository;
+    private final LessonRepository lessonRepository;
+    private final ProgressRepository progressRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ContentRepository contentRepository;
+    private final ActivityLogRepository activityLogRepository;
+
+    private Course course;
+    private List<Lesson> lessons;
+    private List<Student> roster;
+    private Set<Long> enrolledStudentIds;
+    private List<ProgressRow> progress;
+    private Map<Long, ProgressRow> progressByStudent;
+    private List<ExamResult> examResults;
+    private List<AssignmentResult> assignmentResults;
+    private Map<Long, List<Long>> contentIdsByLesson;
+    private Map<Long, List<Long>> assignmentIdsByLesson;
+    private List<Activity> activities;
+
+    CourseAnalyticsContext(Long courseId, String period,
+                           CourseRepository courseRepository,
+                           LessonRepository lessonRepository,
+                           ProgressRepository progressRepository,
+                           SubmissionRepository submissionRepository,
+                           AssignmentSubmissionRepository assignmentSubmissionRepository,
+                           AssignmentRepository assignmentRepository,
+                           ContentRepository contentRepository,
+                           ActivityLogRepository activityLogRepository) {
+        this.courseId = courseId;
+        this.endDate = LocalDateTime.now();
+        this.startDate = period != null ? AnalyticsUtils.calculateStartDate(endDate, period) : null;
+        this.courseRepository = courseRepository;
+        this.lessonRepository = lessonRepository;
+        this.progressRepository = progressRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.contentRepository = contentRepository;
+        this.activityLogRepository = activityLogRepository;
+    }
+
+    Long courseId() {
+        return courseId;
+    }
+
+    LocalDateTime startDate() {
+        return startDate;
+    }
+
+    LocalDateTime endDate() {
+        return endDate;
+    }
+
+    Course course() {
+        if (course == null) {
+            course = courseRepository.findById(courseId)
+                    .orElseThrow(() -> new RuntimeException("Course not found"));
+        }
+        return course;
+    }
+
+    List<Lesson> lessons() {
+        if (lessons == null) {
+            lessons = lessonRepository.findByCourseIdOrderByOrderIndex(courseId);
+        }
+        return lessons;
+    }
+
+    /**
+     * Every enrolled user, whatever their role.
+     */
+    List<Student> roster() {
+        if (roster == null) {
+            roster = new ArrayList<>();
+            for (Object[] row : courseRepository.findEnrolledStudentRows(courseId)) {
+                roster.add(new Student(((Number) row[0]).longValue(), row[1] + " " + row[2]));
+            }
+        }
+        return roster;
+    }
+
+    /**
+     * Enrolled users with the student role.
+     */
+    Set<Long> enrolledStudentIds() {
+        if (enrolledStudentIds == null) {
+            enrolledStudentIds = new HashSet<>(courseRepository.findEnrolledStudentIdsWithRole(courseId, "ROLE_STUDENT"));
+        }
+        return enrolledStudentIds;
+    }
+
+    /**
+     * Progress records of the course in id order.
+     */
+    List<ProgressRow> progress() {
+        if (progress == null) {
+            progress = new ArrayList<>();
+            for (Object[] row : progressRepository.findDashboardRowsByCourseId(courseId)) {
+                progress.add(new ProgressRow(((Number) row[0]).longValue(), row[1] + " " + row[2],
+                        (Double) row[3], bitmap(row[4]), bitmap(row[5]), bitmap(row[6]),
+                        (LocalDateTime) row[7], (Long) row[8]));
+            }
+        }
+        return progress;
+    }
+
+    ProgressRow progressOf(long studentId) {
+        if (progressByStudent == null) {
+            progressByStudent = new HashMap<>();
+            for (ProgressRow row : progress()) {
+                progressByStudent.putIfAbsent(row.studentId(), row);
+            }
+        }
+        return progressByStudent.get(studentId);
+    }
+
+    /**
+     * Exam submissions of the course in id order.
+     */
+    List<ExamResult> examResults() {
+        if (examResults == null) {
+            examResults = new ArrayList<>();
+            for (Object[] row : submissionRepository.findResultsByCourseId(courseId)) {
+                examResults.add(new ExamResult(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(), (Integer) row[3], (Boolean) row[4]));
+            }
+        }
+        return examResults;
+    }
+
+    /**
+     * Assignment submissions of the course in id order.
+     */
+    List<AssignmentResult> assignmentResults() {
+        if (assignmentResults == null) {
+            assignmentResults = new ArrayList<>();
+            for (Object[] row : assignmentSubmissionRepository.findResultsByCourseId(courseId)) {
+                assignmentResults.add(new AssignmentResult(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                        ((Number) row[2]).longValue(), (Integer) row[3], (Boolean) row[4]));
+            }
+        }
+        return assignmentResults;
+    }
+
+    List<Long> contentIds(long lessonId) {
+        if (contentIdsByLesson == null) {
+            contentIdsByLesson = groupByLesson(contentRepository.findLessonContentIdsByCourseId(courseId));
+        }
+        return contentIdsByLesson.getOrDefault(lessonId, Collections.emptyList());
+    }
+
+    List<Long> assignmentIds(long lessonId) {
+        if (assignmentIdsByLesson == null) {
+            assignmentIdsByLesson = groupByLesson(assignmentRepository.findLessonAssignmentIdsByCourseId(courseId));
+        }
+        return assignmentIdsByLesson.getOrDefault(lessonId, Collections.emptyList());
+    }
+
+    /**
+     * Activity of anyone in the period (bounds inclusive) that points at something in this course,
+     * classified like {@code AnalyticsService.isCourseRelatedActivity} but against id sets loaded
+     * once instead of a lookup per row. Only available when the context was built with a period.
+     */
+    List<Activity> activities() {
+        if (activities == null) {
+            activities = loadActivities();
+        }
+        return activities;
+    }
+
+    private List<Activity> loadActivities() {
+        Set<Long> lessonIds = new HashSet<>();
+        Set<Long> examIds = new HashSet<>();
+        Set<Long> contentIds = new HashSet<>();
+        Set<Long> assignmentIds = new HashSet<>();
+        for (Lesson lesson : lessons()) {
+            lessonIds.add(lesson.getId());
+            if (lesson.getExam() != null) {
+                examIds.add(lesson.getExam().getId());
+            }
+            contentIds.addAll(contentIds(lesson.getId()));
+            assignmentIds.addAll(assignmentIds(lesson.getId()));
+        }
+        Set<Long> fileIds = new HashSet<>(contentRepository.findFileIdsByCourseId(courseId));
+        Set<Long> examSubmissionIds = new HashSet<>();
+        examResults().forEach(result -> examSubmissionIds.add(result.id()));
+        Set<Long> assignmentSubmissionIds = new HashSet<>();
+        assignmentResults().forEach(result -> assignmentSubmissionIds.add(result.id()));
+
+        List<Object[]> rows = activityLogRepository.findEntityActivityRows(startDate, endDate);
+
+        // An assignment activity id is read as a submission id first and as an assignment id only if
+        // no submission has it, so course assignment ids that are some other course's submission don't count
+        Set<Long> candidates = new HashSet<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[2];
+            if (isAssignmentActivity((String) row[1]) && !assignmentSubmissionIds.contains(id) && assignmentIds.contains(id)) {
+                candidates.add(id);
+            }
+        }
+        Set<Long> foreignSubmissionIds = candidates.isEmpty() ? Collections.emptySet()
+                : new HashSet<>(assignmentSubmissionRepository.findExistingIds(candidates));
+
+        List<Activity> result = new ArrayList<>();
+        for (Object[] row : rows) {
+            String type = (String) row[1];
+            if (type == null) {
+                continue;
+            }
+            long id = (Long) row[2];
+            boolean related = switch (type) {
+                case "CONTENT_VIEW", "CONTENT_COMPLETION" -> contentIds.contains(id);
+                case "FILE_ACCESS" -> fileIds.contains(id);
+                case "LESSON_COMPLETION", "LESSON_ACCESS" -> lessonIds.contains(id);
+                case "EXAM_SUBMISSION" -> examSubmissionIds.contains(id);
+                case "EXAM_START" -> examIds.contains(id);
+                case "ASSIGNMENT_SUBMISSION", "ASSIGNMENT_VIEW" -> assignmentSubmissionIds.contains(id)
+                        || (assignmentIds.contains(id) && !foreignSubmissionIds.contains(id));
+                case "CHAT_MESSAGE_SEND", "CHAT_VIEW" -> courseId.equals(id);
+                default -> false;
+            };
+            if (related) {
+                result.add(new Activity(((Number) row[0]).longValue(), type, id, (Long) row[3], (LocalDateTime) row[4]));
+            }
+        }
+        return result;
+    }
+
+    private static boolean isAssignmentActivity(String activityType) {
+        return "ASSIGNMENT_SUBMISSION".equals(activityType) || "ASSIGNMENT_VIEW".equals(activityType);
+    }
+
+    // [lessonId, id] rows grouped by lesson, ids in row order
+    private static Map<Long, List<Long>> groupByLesson(List<Object[]> rows) {
+        Map<Long, List<Long>> byLesson = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            byLesson.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((Long) row[1]);
+        }
+        return byLesson;
+    }
+
+    private static IdBitmap bitmap(Object value) {
+        return value != null ? (IdBitmap) value : new IdBitmap();
+    }
+}
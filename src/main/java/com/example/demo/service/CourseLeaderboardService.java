@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.analytics.AssignmentScoreLeader;
+import com.example.demo.dto.analytics.CompletionLeader;
+import com.example.demo.dto.analytics.ExamScoreLeader;
+import com.example.demo.dto.analytics.StudyTimeLeader;
+import com.example.demo.dto.analytics.TopPerformersReport;
+import com.example.demo.event.EnrollmentChangedEvent;
+import com.example.demo.event.ProgressChangedEvent;
+import com.example.demo.event.SubmissionSavedEvent;
+import com.example.demo.model.IdBitmap;
+import com.example.demo.repository.AssignmentSubmissionRepository;
+import com.example.demo.repository.CourseRepository;
+import com.example.demo.repository.ProgressRepository;
+import com.example.demo.repository.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-course leaderboards behind the top-performers report: completion, exam average, assignment
+ * average and study time. A course's boards are built from a few aggregate queries on first use,
+ * then kept current one student at a time from submission and progress events; anything that
+ * cannot be traced to a single student drops the course's boards, and the next read rebuilds them.
+ */
+@Service
+public class CourseLeaderboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseLeaderboardService.class);
+
+    private final CourseRepository courseRepository;
+    private final ProgressRepository progressRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+
+    private final Map<Long, CourseBoards> boards = new ConcurrentHashMap<>();
+    // Bumped by every change to a course, so a build that raced with a change is not kept
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public CourseLeaderboardService(CourseRepository courseRepository,
+                                    ProgressRepository progressRepository,
+                                    SubmissionRepository submissionRepository,
+                                    AssignmentSubmissionRepository assignmentSubmissionRepository) {
+        this.courseRepository = courseRepository;
+        this.progressRepository = progressRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+    }
+
+    /**
+     * The first {@code limit} students of every category; ties go to the lower student id.
+     */
+    public TopPerformersReport getTopPerformers(Long courseId, int limit) {
+        CourseBoards course = boardsOf(courseId);
+        return new TopPerformersReport(
+                course.completion.top(limit),
+                course.examScores.top(limit),
+                course.assignmentScores.top(limit),
+                course.studyTime.top(limit));
+    }
+
+    public void invalidateCourse(Long courseId) {
+        if (courseId == null) {
+            versions.values().forEach(AtomicLong::incrementAndGet);
+            boards.clear();
+            return;
+        }
+        version(courseId).incrementAndGet();
+        boards.remove(courseId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionSaved(SubmissionSavedEvent event) {
+        if (event.courseId() == null || event.studentId() == null) {
+            invalidateCourse(event.courseId());
+            return;
+        }
+        version(event.courseId()).incrementAndGet();
+        CourseBoards course = boards.get(event.courseId());
+        if (course != null) {
+            synchronized (course) {
+                // Entries are replaced in place, so readers never see the student missing
+                List<Object[]> examScores = submissionRepository.sumScoresByStudent(event.courseId(), event.studentId());
+                if (examScores.isEmpty()) {
+                    course.examScores.remove(event.studentId());
+                }
+                examScores.forEach(course::putExamScore);
+                List<Object[]> assignmentScores =
+                        assignmentSubmissionRepository.sumScoresByStudent(event.courseId(), event.studentId());
+                if (assignmentScores.isEmpty()) {
+                    course.assignmentScores.remove(event.studentId());
+                }
+                assignmentScores.forEach(course::putAssignmentScore);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        if (event.courseId() == null || event.studentId() == null) {
+            invalidateCourse(event.courseId());
+            return;
+        }
+        version(event.courseId()).incrementAndGet();
+        CourseBoards course = boards.get(event.courseId());
+        if (course != null) {
+            synchronized (course) {
+                List<Object[]> standings = progressRepository.findStandingsByCourseId(event.courseId(), event.studentId());
+                if (standings.isEmpty()) {
+                    course.completion.remove(event.studentId());
+                    course.studyTime.remove(event.studentId());
+                }
+                standings.forEach(course::putProgress);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+        invalidateCourse(event.courseId());
+    }
+
+    private CourseBoards boardsOf(Long courseId) {
+        CourseBoards current = boards.get(courseId);
+        if (current != null) {
+            return current;
+        }
+        long version = version(courseId).get();
+        CourseBoards built = build(courseId);
+        if (version(courseId).get() != version) {
+            // Changed while building; answer from this snapshot but build again next time
+            return built;
+        }
+        CourseBoards raced = boards.putIfAbsent(courseId, built);
+        if (raced != null) {
+            return raced;
+        }
+        if (version(courseId).get() != version) {
+            // A change came in between the check and the install, while no board was there to
+            // apply it to; drop the build rather than keep it
+            boards.remove(courseId, built);
+        }
+        return built;
+    }
+
+    private CourseBoards build(Long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new RuntimeException("Course not found");
+        }
+        logger.debug("Building leaderboards for course {}", courseId);
+        CourseBoards course = new CourseBoards();
+        progressRepository.findStandingsByCourseId(courseId, null).forEach(course::putProgress);
+        submissionRepository.sumScoresByStudent(courseId, null).forEach(course::putExamScore);
+        assignmentSubmissionRepository.sumScoresByStudent(courseId, null).forEach(course::putAssignmentScore);
+        return course;
+    }
+
+    private AtomicLong version(Long courseId) {
+        return versions.computeIfAbsent(courseId, id -> new AtomicLong());
+    }
+
+    private static final class CourseBoards {
+        private final Leaderboard<CompletionLeader> completion = new Leaderboard<>();
+        private final Leaderboard<ExamScoreLeader> examScores = new Leaderboard<>();
+        private final Leaderboard<AssignmentScoreLeader> assignmentScores = new Leaderboard<>();
+        private final Leaderboard<StudyTimeLeader> studyTime = new Leaderboard<>();
+
+        // [studentId, firstName, lastName, completionPercentage, completedLessons, totalLessons, totalStudyTime]
+        private void putProgress(Object[] row) {
+            long studentId = ((Number) row[0]).longValue();
+            String name = row[1] + " " + row[2];
+            Double completionPercentage = (Double) row[3];
+            if (completionPercentage != null) {
+                IdBitmap completedLessons = (IdBitmap) row[4];
+                completion.put(studentId, completionPercentage, new CompletionLeader(studentId, name,
+                        completionPercentage, completedLessons != null ? completedLessons.size() : 0, (Integer) row[5]));
+            } else {
+                completion.remove(studentId);
+            }
+            Long totalStudyTime = (Long) row[6];
+            if (totalStudyTime != null && totalStudyTime > 0) {
+                // Shown in minutes, ranked by the raw seconds
+                studyTime.put(studentId, totalStudyTime, new StudyTimeLeader(studentId, name,
+                        Math.round(totalStudyTime / 60.0), totalStudyTime));
+            } else {
+                studyTime.remove(studentId);
+            }
+        }
+
+        // [studentId, firstName, lastName, score sum, submission count]
+        private void putExamScore(Object[] row) {
+            long studentId = ((Number) row[0]).longValue();
+            long count = ((Number) row[4]).longValue();
+            double average = count > 0 && row[3] != null ? ((Number) row[3]).doubleValue() / count : 0.0;
+            examScores.put(studentId, average, new ExamScoreLeader(studentId, row[1] + " " + row[2],
+                    Math.round(average * 10.0), count));
+        }
+
+        // [studentId, firstName, lastName, score sum, scored submission count]
+        private void putAssignmentScore(Object[] row) {
+            long studentId = ((Number) row[0]).longValue();
+            long count = ((Number) row[4]).longValue();
+            double average = count > 0 && row[3] != null ? ((Number) row[3]).doubleValue() / count : 0.0;
+            assignmentScores.put(studentId, average, new AssignmentScoreLeader(studentId, row[1] + " " + row[2],
+                    Math.round(average * 10.0), count));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.event.EnrollmentChangedEvent;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,8 @@ public class CourseService {
     private final FileMetadataRepository fileMetadataRepository;
     private final UserRepository userRepository;
     private final ExamRepository examRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LoginStreakRepository loginStreakRepository;
 
     public CourseService(
             CourseRepository courseRepository,
@@ -34,7 +38,9 @@ public class CourseService {
             LessonRepository lessonRepository,
             FileStorageService fileStorageService,
             AssignmentRepository assignmentRepository,
-            FileMetadataRepository fileMetadataRepository, UserRepository userRepository, ExamRepository examRepository) {
+            FileMetadataRepository fileMetadataRepository, UserRepository userRepository, ExamRepository examRepository,
+            ApplicationEventPublisher eventPublisher,
+            LoginStreakRepository loginStreakRepository) {
         this.courseRepository = courseRepository;
         this.progressRepository = progressRepository;
         this.submissionRepository = submissionRepository;
@@ -46,6 +52,8 @@ public class CourseService {
         this.fileMetadataRepository = fileMetadataRepository;
         this.userRepository = userRepository;
         this.examRepository = examRepository;
+        this.eventPublisher = eventPublisher;
+        this.loginStreakRepository = loginStreakRepository;
     }
 
     // اضافه کردن این متد
@@ -92,6 +100,8 @@ public class CourseService {
             progress.setCompletedLessonCount(0);
             progress.setCompletionPercentage(0.0);
             progressRepository.save(progress);
+
+            eventPublisher.publishEvent(new EnrollmentChangedEvent(courseId, student.getId()));
         }
 
         return course;
@@ -137,7 +147,8 @@ public class CourseService {
                 studentData.put("totalLessons", progress.getTotalLessons() != null ? progress.getTotalLessons() : course.getLessons().size());
                 studentData.put("lastAccessed", progress.getLastAccessed());
                 studentData.put("totalStudyTime", progress.getTotalStudyTime() != null ? progress.getTotalStudyTime() : 0L);
-                studentData.put("currentStreak", progress.getCurrentStreak() != null ? progress.getCurrentStreak() : 0);
+                studentData.put("currentStreak", loginStreakRepository.findById(student.getId())
+                        .map(LoginStreak::getCurrentStreak).orElse(0));
             } else {
                 // اگر Progress record وجود ندارد، از محاسبه استفاده کن
                 studentData.put("completionPercentage", calculatedProgress);
@@ -341,6 +352,8 @@ public class CourseService {
         // 8. حذف دانش‌آموز از لیست ثبت‌نام‌شدگان
         course.getEnrolledStudents().remove(student);
         courseRepository.save(course);
+
+        eventPublisher.publishEvent(new EnrollmentChangedEvent(courseId, studentId));
     }
 
     private double calculateProgressFromActivities(User student, Course course) {
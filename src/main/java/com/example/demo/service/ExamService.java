@@ -1,7 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.event.SubmissionGradedEvent;
+import com.example.demo.event.SubmissionSavedEvent;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -10,6 +13,9 @@ import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import java.math.BigDecimal;
@@ -17,6 +23,8 @@ import java.math.RoundingMode;
 @Service
 public class ExamService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ExamService.class);
+
     private final ExamRepository examRepository;
     private final LessonRepository lessonRepository;
     private final QuestionRepository questionRepository;
@@ -24,17 +32,25 @@ public class ExamService {
     private final CourseRepository courseRepository;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SubmissionAnswersCodec submissionAnswersCodec;
+    private final GradingTracer gradingTracer;
     public ExamService(
             ExamRepository examRepository,
             LessonRepository lessonRepository,
             QuestionRepository questionRepository,
-            SubmissionRepository submissionRepository, CourseRepository courseRepository, UserService userService) {
+            SubmissionRepository submissionRepository, CourseRepository courseRepository, UserService userService,
+            ApplicationEventPublisher eventPublisher, SubmissionAnswersCodec submissionAnswersCodec,
+            GradingTracer gradingTracer) {
         this.examRepository = examRepository;
         this.lessonRepository = lessonRepository;
         this.questionRepository = questionRepository;
         this.submissionRepository = submissionRepository;
         this.courseRepository = courseRepository;
         this.userService = userService;
+        this.eventPublisher = eventPublisher;
+        this.submissionAnswersCodec = submissionAnswersCodec;
+        this.gradingTracer = gradingTracer;
     }
 
 
@@ -67,6 +83,7 @@ public class ExamService {
     }
 
     @Transactional
+    @Timed(value = "lms.grading", extraTags = {"operation", "submit"})
     public Submission submitExam(Long examId, User student, String answersJson) {
         Exam exam = getExamById(examId);
 
@@ -86,31 +103,37 @@ public class ExamService {
         submission.setSubmissionTime(LocalDateTime.now());
         submission.setAnswersJson(answersJson);
 
+        SubmissionAnswers answers = submissionAnswersCodec.parse(answersJson);
+        submission.setAnswersSmile(submissionAnswersCodec.encode(answers));
+
         // Calculate score based on question types
-        int[] scoreResult = calculateScore(exam, answersJson);
+        Map<Long, Integer> earnedByQuestion = new HashMap<>();
+        GradingTracer.Trace trace = gradingTracer.begin("SUBMIT", exam.getId());
+        int[] scoreResult = calculateScore(exam, answers, earnedByQuestion, trace);
         int earnedPoints = scoreResult[0];
         int totalPoints = scoreResult[1];
 
         // Validate score calculation
         if (earnedPoints < 0) {
-            System.err.println("ERROR: Negative earned points detected: " + earnedPoints);
+            logger.error("Negative earned points {} for exam {}", earnedPoints, examId);
             earnedPoints = 0;
         }
 
         if (earnedPoints > totalPoints) {
-            System.err.println("ERROR: Earned points (" + earnedPoints + ") exceed total possible points (" + totalPoints + ")");
+            logger.error("Earned points {} exceed total possible points {} for exam {}", earnedPoints, totalPoints, examId);
             earnedPoints = totalPoints;
         }
 
         if (totalPoints <= 0) {
-            System.err.println("ERROR: Invalid total points: " + totalPoints);
+            logger.error("Invalid total points {} for exam {}", totalPoints, examId);
             // Don't save submission if exam has no valid questions
             throw new RuntimeException("Invalid exam: Total possible score is " + totalPoints);
         }
 
         // Validate against exam's total possible score
         if (exam.getTotalPossibleScore() != null && exam.getTotalPossibleScore() != totalPoints) {
-            System.err.println("WARNING: Calculated total points (" + totalPoints + ") doesn't match exam's stored total (" + exam.getTotalPossibleScore() + ")");
+            logger.warn("Calculated total points {} don't match stored total {} of exam {}",
+                    totalPoints, exam.getTotalPossibleScore(), examId);
             // Update exam's total score if it's wrong
             exam.setTotalPossibleScore(totalPoints);
             examRepository.save(exam);
@@ -118,83 +141,20 @@ public class ExamService {
 
         // Validate passing score
         if (exam.getPassingScore() > totalPoints) {
-            System.err.println("ERROR: Passing score (" + exam.getPassingScore() + ") exceeds total possible points (" + totalPoints + ")");
+            logger.warn("Passing score {} exceeds total possible points {} of exam {}", exam.getPassingScore(), totalPoints, examId);
         }
 
         submission.setScore(earnedPoints);
         submission.setPassed(earnedPoints >= exam.getPassingScore());
 
-        System.out.println("Final submission score: " + earnedPoints + "/" + totalPoints + " (Passed: " + submission.isPassed() + ")");
-
-        return submissionRepository.save(submission);
+        Submission savedSubmission = submissionRepository.save(submission);
+        gradingTracer.finish(trace, savedSubmission.getId(), earnedPoints, totalPoints);
+        logger.debug("Graded submission {} of exam {}: {}/{} passed={}",
+                savedSubmission.getId(), examId, earnedPoints, totalPoints, savedSubmission.isPassed());
+        eventPublisher.publishEvent(new SubmissionGradedEvent(savedSubmission.getId(), earnedByQuestion));
+        return savedSubmission;
     }
 
-
-    private Map<String, Object> parseAnswersJson(String answersJson) {
-        if (answersJson == null || answersJson.trim().isEmpty()) {
-            System.out.println("WARNING: Empty or null answers JSON provided");
-            return new HashMap<>();
-        }
-
-        try {
-            Map<String, Object> parsedAnswers = objectMapper.readValue(answersJson, new TypeReference<Map<String, Object>>() {});
-            System.out.println("Successfully parsed answers JSON. Keys: " + parsedAnswers.keySet());
-            return parsedAnswers;
-        } catch (Exception e) {
-            System.err.println("ERROR: Failed to parse answers JSON: " + answersJson);
-            System.err.println("Error details: " + e.getMessage());
-            e.printStackTrace();
-
-            // Try to parse as simple key-value pairs manually as fallback
-            try {
-                Map<String, Object> fallbackAnswers = parseAnswersJsonManually(answersJson);
-                System.out.println("Fallback parsing successful. Keys: " + fallbackAnswers.keySet());
-                return fallbackAnswers;
-            } catch (Exception fallbackException) {
-                System.err.println("ERROR: Fallback parsing also failed: " + fallbackException.getMessage());
-                return new HashMap<>();
-            }
-        }
-    }
-
-    private Map<String, Object> parseAnswersJsonManually(String answersJson) {
-        Map<String, Object> answers = new HashMap<>();
-
-        // Remove outer braces and split by comma
-        String content = answersJson.trim();
-        if (content.startsWith("{") && content.endsWith("}")) {
-            content = content.substring(1, content.length() - 1);
-        }
-
-        if (content.trim().isEmpty()) {
-            return answers;
-        }
-
-        String[] pairs = content.split(",");
-        for (String pair : pairs) {
-            String[] keyValue = pair.split(":", 2);
-            if (keyValue.length == 2) {
-                String key = keyValue[0].trim().replaceAll("[\"\']", "");
-                String value = keyValue[1].trim().replaceAll("[\"\']", "");
-
-                // Try to parse value as number if possible
-                try {
-                    if (value.contains(".")) {
-                        answers.put(key, Double.parseDouble(value));
-                    } else {
-                        answers.put(key, Long.parseLong(value));
-                    }
-                } catch (NumberFormatException e) {
-                    answers.put(key, value);
-                }
-            }
-        }
-
-        return answers;
-    }
-
-
-
     public List<Submission> getStudentSubmissions(User student) {
         return submissionRepository.findByStudent(student);
     }
@@ -647,14 +607,9 @@ public class ExamService {
 
     public boolean evaluateAnswer(Question question, Object studentAnswer) {
         if (studentAnswer == null) {
-            System.out.println("Student answer is null for question " + question.getId());
             return false;
         }
 
-        System.out.println("Evaluating " + question.getQuestionType() + " question");
-        System.out.println("Student answer type: " + studentAnswer.getClass().getSimpleName());
-        System.out.println("Student answer value: " + studentAnswer);
-
         boolean result;
         switch (question.getQuestionType()) {
             case MULTIPLE_CHOICE:
@@ -674,24 +629,19 @@ public class ExamService {
                 result = evaluateShortAnswer(question, studentAnswer);
                 break;
             default:
-                System.out.println("WARNING: Unsupported question type: " + question.getQuestionType());
+                logger.warn("Unsupported question type {} of question {}", question.getQuestionType(), question.getId());
                 result = false;
         }
 
-        System.out.println("Evaluation result: " + result);
+        logger.trace("Question {} ({}) evaluated to {}", question.getId(), question.getQuestionType(), result);
         return result;
     }
 
     public Object evaluateAnswerWithPartialScoring(Question question, Object studentAnswer) {
         if (studentAnswer == null) {
-            System.out.println("Student answer is null for question " + question.getId());
             return false;
         }
 
-        System.out.println("Evaluating " + question.getQuestionType() + " question with partial scoring support");
-        System.out.println("Student answer type: " + studentAnswer.getClass().getSimpleName());
-        System.out.println("Student answer value: " + studentAnswer);
-
         Object result;
         switch (question.getQuestionType()) {
             case MULTIPLE_CHOICE:
@@ -714,25 +664,17 @@ public class ExamService {
                 // Essay questions require manual grading, so we return true to give full points initially
                 // The actual score will be adjusted during manual grading
                 result = true;
-                System.out.println("ESSAY question marked for manual grading - giving full points initially");
                 break;
             default:
-                System.out.println("WARNING: Unsupported question type: " + question.getQuestionType());
+                logger.warn("Unsupported question type {} of question {}", question.getQuestionType(), question.getId());
                 result = false;
         }
 
-        System.out.println("Evaluation result: " + result);
+        logger.trace("Question {} ({}) evaluated to {}", question.getId(), question.getQuestionType(), result);
         return result;
     }
     private boolean evaluateSimpleAnswer(Question question, Object studentAnswer) {
         try {
-            System.out.println("Evaluating simple answer...");
-            System.out.println("Question type: " + question.getQuestionType());
-            System.out.println("Available answers:");
-            for (Answer answer : question.getAnswers()) {
-                System.out.println("  Answer ID: " + answer.getId() + ", Text: '" + answer.getText() + "', Correct: " + answer.getCorrect());
-            }
-
             // Handle TRUE_FALSE questions differently - they send string values instead of IDs
             if (question.getQuestionType() == QuestionType.TRUE_FALSE) {
                 return evaluateTrueFalseAnswer(question, studentAnswer);
@@ -742,12 +684,10 @@ public class ExamService {
             Long answerId;
             if (studentAnswer instanceof Number) {
                 answerId = ((Number) studentAnswer).longValue();
-                System.out.println("Parsed student answer as Number: " + answerId);
             } else if (studentAnswer instanceof String) {
                 answerId = Long.parseLong((String) studentAnswer);
-                System.out.println("Parsed student answer as String to Long: " + answerId);
             } else {
-                System.out.println("ERROR: Cannot parse student answer - unsupported type: " + studentAnswer.getClass().getSimpleName());
+                logger.debug("Unsupported answer type {} for question {}", studentAnswer.getClass().getSimpleName(), question.getId());
                 return false;
             }
 
@@ -757,41 +697,35 @@ public class ExamService {
                     .orElse(null);
 
             if (selectedAnswer != null) {
-                System.out.println("Found matching answer: '" + selectedAnswer.getText() + "', Correct: " + selectedAnswer.getCorrect());
                 return selectedAnswer.getCorrect();
             } else {
-                System.out.println("ERROR: No answer found with ID: " + answerId);
+                logger.debug("No answer {} in question {}", answerId, question.getId());
                 return false;
             }
         } catch (NumberFormatException e) {
-            System.out.println("ERROR: Failed to parse answer ID from: " + studentAnswer + " - " + e.getMessage());
+            logger.debug("Invalid answer id {} for question {}", studentAnswer, question.getId());
             return false;
         }
     }
 
     private boolean evaluateTrueFalseAnswer(Question question, Object studentAnswer) {
         try {
-            System.out.println("Evaluating TRUE_FALSE answer...");
-
             String studentValue = studentAnswer.toString().toLowerCase().trim();
-            System.out.println("Student answer value (normalized): '" + studentValue + "'");
 
             // Check each answer option to find the one that matches the student's input
             for (Answer answer : question.getAnswers()) {
                 String answerText = answer.getText().toLowerCase().trim();
-                System.out.println("Checking answer: '" + answerText + "', Correct: " + answer.getCorrect());
 
                 // Match the student's string input against the answer text
                 if (answerText.equals(studentValue)) {
-                    System.out.println("Found matching answer: '" + answer.getText() + "', Correct: " + answer.getCorrect());
                     return answer.getCorrect();
                 }
             }
 
-            System.out.println("ERROR: No matching answer found for student input: '" + studentValue + "'");
+            logger.debug("No TRUE_FALSE option '{}' in question {}", studentValue, question.getId());
             return false;
         } catch (Exception e) {
-            System.out.println("ERROR: Exception in TRUE_FALSE evaluation: " + e.getMessage());
+            logger.warn("TRUE_FALSE evaluation of question {} failed", question.getId(), e);
             return false;
         }
     }
@@ -860,16 +794,12 @@ public class ExamService {
 
     private double evaluateCategorizationAnswerPartial(Question question, Object studentAnswer) {
         try {
-            System.out.println("Evaluating CATEGORIZATION answer with partial scoring...");
-
             // Validate input parameters
             if (question == null) {
-                System.out.println("ERROR: Question is null");
                 return 0.0;
             }
 
             if (studentAnswer == null) {
-                System.out.println("WARNING: Student provided no answer for CATEGORIZATION question");
                 return 0.0;
             }
 
@@ -882,17 +812,17 @@ public class ExamService {
                 try {
                     studentAnswers = parseComplexAnswerFromString((String) studentAnswer);
                 } catch (Exception parseException) {
-                    System.out.println("ERROR: Failed to parse student answer JSON: " + parseException.getMessage());
+                    logger.debug("Unparseable answer for question {}: {}", question.getId(), parseException.getMessage());
                     return 0.0;
                 }
             } else {
-                System.out.println("ERROR: Unsupported student answer type for CATEGORIZATION: " + studentAnswer.getClass().getSimpleName());
+                logger.debug("Unsupported answer type {} for question {}", studentAnswer.getClass().getSimpleName(), question.getId());
                 return 0.0;
             }
 
             // Validate that we have answers from the question
             if (question.getAnswers() == null || question.getAnswers().isEmpty()) {
-                System.out.println("ERROR: Question has no answers defined");
+                logger.warn("CATEGORIZATION question {} has no answers defined", question.getId());
                 return 0.0;
             }
 
@@ -903,18 +833,15 @@ public class ExamService {
                     answer.getCategory() != null && !answer.getCategory().trim().isEmpty()) {
                     correctCategories.put(answer.getText().trim(), answer.getCategory().trim());
                 } else {
-                    System.out.println("WARNING: Skipping invalid answer - text: '" + answer.getText() + "', category: '" + answer.getCategory() + "'");
+                    logger.warn("Skipping invalid categorization item {} of question {}", answer.getId(), question.getId());
                 }
             }
 
             if (correctCategories.isEmpty()) {
-                System.out.println("ERROR: No valid categorization items found in question");
+                logger.warn("CATEGORIZATION question {} has no valid items", question.getId());
                 return 0.0;
             }
 
-            System.out.println("Correct categories: " + correctCategories);
-            System.out.println("Student answers: " + studentAnswers);
-
             // Enhanced scoring logic
             int correctCount = 0;
             int totalItems = correctCategories.size();
@@ -931,19 +858,7 @@ public class ExamService {
 
                     if (Objects.equals(studentCategory, correctCategory)) {
                         correctCount++;
-                        System.out.println("✓ Correct categorization: '" + item + "' → '" + studentCategory + "'");
-                    } else {
-                        System.out.println("✗ Incorrect categorization: '" + item + "' → '" + studentCategory + "' (should be '" + correctCategory + "')");
                     }
-                } else {
-                    System.out.println("○ Not attempted: '" + item + "' (correct category: '" + correctCategory + "')");
-                }
-            }
-
-            // Check for extra answers (items that don't exist in the question)
-            for (String studentItem : studentAnswers.keySet()) {
-                if (!correctCategories.containsKey(studentItem)) {
-                    System.out.println("WARNING: Student answered for unknown item: '" + studentItem + "'");
                 }
             }
 
@@ -953,16 +868,12 @@ public class ExamService {
             // Ensure percentage is between 0.0 and 1.0
             percentage = Math.max(0.0, Math.min(1.0, percentage));
 
-            System.out.println("CATEGORIZATION scoring summary:");
-            System.out.println("  Total items: " + totalItems);
-            System.out.println("  Attempted items: " + attemptedItems);
-            System.out.println("  Correct items: " + correctCount);
-            System.out.println("  Partial score: " + correctCount + "/" + totalItems + " = " + String.format("%.4f", percentage) + " (" + String.format("%.1f", percentage * 100) + "%)");
+            logger.trace("CATEGORIZATION question {}: {} of {} items correct, {} attempted",
+                    question.getId(), correctCount, totalItems, attemptedItems);
 
             return percentage;
         } catch (Exception e) {
-            System.out.println("ERROR: Exception in CATEGORIZATION partial evaluation: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("CATEGORIZATION evaluation of question {} failed", question != null ? question.getId() : null, e);
             return 0.0;
         }
     }
@@ -1009,16 +920,12 @@ public class ExamService {
 
     private double evaluateMatchingAnswerPartial(Question question, Object studentAnswer) {
         try {
-            System.out.println("Evaluating MATCHING answer with partial scoring...");
-
             // Validate input parameters
             if (question == null) {
-                System.out.println("ERROR: Question is null");
                 return 0.0;
             }
 
             if (studentAnswer == null) {
-                System.out.println("WARNING: Student provided no answer for MATCHING question");
                 return 0.0;
             }
 
@@ -1031,17 +938,17 @@ public class ExamService {
                 try {
                     studentAnswers = parseComplexAnswerFromString((String) studentAnswer);
                 } catch (Exception parseException) {
-                    System.out.println("ERROR: Failed to parse student answer JSON: " + parseException.getMessage());
+                    logger.debug("Unparseable answer for question {}: {}", question.getId(), parseException.getMessage());
                     return 0.0;
                 }
             } else {
-                System.out.println("ERROR: Unsupported student answer type for MATCHING: " + studentAnswer.getClass().getSimpleName());
+                logger.debug("Unsupported answer type {} for question {}", studentAnswer.getClass().getSimpleName(), question.getId());
                 return 0.0;
             }
 
             // Validate that we have matching pairs from the question
             if (question.getMatchingPairs() == null || question.getMatchingPairs().isEmpty()) {
-                System.out.println("ERROR: Question has no matching pairs defined");
+                logger.warn("MATCHING question {} has no matching pairs defined", question.getId());
                 return 0.0;
             }
 
@@ -1052,18 +959,15 @@ public class ExamService {
                     pair.getRightItem() != null && !pair.getRightItem().trim().isEmpty()) {
                     correctMatches.put(pair.getLeftItem().trim(), pair.getRightItem().trim());
                 } else {
-                    System.out.println("WARNING: Skipping invalid matching pair - left: '" + pair.getLeftItem() + "', right: '" + pair.getRightItem() + "'");
+                    logger.warn("Skipping invalid matching pair {} of question {}", pair.getId(), question.getId());
                 }
             }
 
             if (correctMatches.isEmpty()) {
-                System.out.println("ERROR: No valid matching pairs found in question");
+                logger.warn("MATCHING question {} has no valid pairs", question.getId());
                 return 0.0;
             }
 
-            System.out.println("Correct matches: " + correctMatches);
-            System.out.println("Student answers: " + studentAnswers);
-
             // Enhanced scoring logic
             int correctCount = 0;
             int totalPairs = correctMatches.size();
@@ -1081,19 +985,7 @@ public class ExamService {
 
                     if (Objects.equals(studentRightItem, correctRightItem)) {
                         correctCount++;
-                        System.out.println("✓ Correct match: '" + leftItem + "' → '" + studentRightItem + "'");
-                    } else {
-                        System.out.println("✗ Incorrect match: '" + leftItem + "' → '" + studentRightItem + "' (should be '" + correctRightItem + "')");
                     }
-                } else {
-                    System.out.println("○ Not attempted: '" + leftItem + "' (should match '" + correctRightItem + "')");
-                }
-            }
-
-            // Check for extra answers (left items that don't exist in the question)
-            for (String studentLeftItem : studentAnswers.keySet()) {
-                if (!correctMatches.containsKey(studentLeftItem)) {
-                    System.out.println("WARNING: Student provided match for unknown left item: '" + studentLeftItem + "'");
                 }
             }
 
@@ -1103,16 +995,12 @@ public class ExamService {
             // Ensure percentage is between 0.0 and 1.0
             percentage = Math.max(0.0, Math.min(1.0, percentage));
 
-            System.out.println("MATCHING scoring summary:");
-            System.out.println("  Total pairs: " + totalPairs);
-            System.out.println("  Attempted pairs: " + attemptedPairs);
-            System.out.println("  Correct pairs: " + correctCount);
-            System.out.println("  Partial score: " + correctCount + "/" + totalPairs + " = " + String.format("%.4f", percentage) + " (" + String.format("%.1f", percentage * 100) + "%)");
+            logger.trace("MATCHING question {}: {} of {} pairs correct, {} attempted",
+                    question.getId(), correctCount, totalPairs, attemptedPairs);
 
             return percentage;
         } catch (Exception e) {
-            System.out.println("ERROR: Exception in MATCHING partial evaluation: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("MATCHING evaluation of question {} failed", question != null ? question.getId() : null, e);
             return 0.0;
         }
     }
@@ -1269,34 +1157,20 @@ public class ExamService {
     private Map<String, String> parseComplexAnswerFromString(String answerJson) throws Exception {
         return objectMapper.readValue(answerJson, new TypeReference<Map<String, String>>() {});
     }
-    private int[] calculateScore(Exam exam, String answersJson) {
+    private int[] calculateScore(Exam exam, SubmissionAnswers submissionAnswers, Map<Long, Integer> earnedByQuestion,
+                                 GradingTracer.Trace trace) {
         List<Question> questions = questionRepository.findByExamOrderById(exam);
         int totalPoints = 0;
         int earnedPoints = 0;
 
-        System.out.println("=== EXAM SCORING DEBUG ===");
-        System.out.println("Exam ID: " + exam.getId());
-        System.out.println("Exam Title: " + exam.getTitle());
-        System.out.println("Questions Count: " + questions.size());
-        System.out.println("Raw Answers JSON: " + answersJson);
-
-        // Parse JSON answers
-        Map<String, Object> answers = parseAnswersJson(answersJson);
-        System.out.println("Parsed Answers Map: " + answers);
-        System.out.println("Parsed Answers Size: " + answers.size());
+        Map<String, Object> answers = submissionAnswers.asMap();
 
         for (Question question : questions) {
             int questionPoints = question.getPoints();
             totalPoints += questionPoints;
 
-            String questionId = question.getId().toString();
-            Object studentAnswer = answers.get(questionId);
-
-            System.out.println("--- Question " + questionId + " ---");
-            System.out.println("Question Text: " + question.getText());
-            System.out.println("Question Type: " + question.getQuestionType());
-            System.out.println("Question Points: " + questionPoints);
-            System.out.println("Student Answer: " + studentAnswer);
+            Object studentAnswer = answers.get(question.getId().toString());
+            int awarded = 0;
 
             if (studentAnswer != null) {
                 Object evaluationResult = evaluateAnswerWithPartialScoring(question, studentAnswer);
@@ -1304,45 +1178,46 @@ public class ExamService {
                 if (evaluationResult instanceof Boolean) {
                     // Binary scoring (TRUE/FALSE, MULTIPLE_CHOICE, FILL_IN_THE_BLANKS, SHORT_ANSWER, etc.)
                     boolean isCorrect = (Boolean) evaluationResult;
-                    System.out.println("Answer Evaluation: " + (isCorrect ? "CORRECT" : "INCORRECT"));
-                    if (isCorrect) {
-                        earnedPoints += questionPoints;
-                        System.out.println("Points Awarded: " + questionPoints);
-                    } else {
-                        System.out.println("Points Awarded: 0");
-                    }
+                    awarded = isCorrect ? questionPoints : 0;
+                    trace.question(question, isCorrect ? GradingTracer.Outcome.CORRECT : GradingTracer.Outcome.INCORRECT,
+                            awarded, null);
                 } else if (evaluationResult instanceof Double) {
-                    // Partial scoring (MATCHING, CATEGORIZATION)
+                    // Partial scoring (MATCHING, CATEGORIZATION), rounded by the question's scoring policy
                     double percentage = (Double) evaluationResult;
-
-                    // Apply scoring policy from the question
-                    ScoringPolicy policy = question.getScoringPolicy();
-                    int partialPoints = applyScoring(percentage, questionPoints, policy);
-
-                    earnedPoints += partialPoints;
-                    System.out.println("Answer Evaluation: PARTIAL (" + String.format("%.2f", percentage * 100) + "%)");
-                    System.out.println("Question scoring policy: " + (policy != null ? policy : "DEFAULT"));
-                    System.out.println("Points Awarded: " + partialPoints + " out of " + questionPoints);
+                    awarded = applyScoring(percentage, questionPoints, question.getScoringPolicy());
+                    trace.question(question, GradingTracer.Outcome.PARTIAL, awarded, percentage);
                 } else {
-                    System.out.println("ERROR: Unexpected evaluation result type: " + evaluationResult.getClass().getSimpleName());
-                    System.out.println("Points Awarded: 0");
+                    logger.warn("Unexpected evaluation result {} for question {}", evaluationResult, question.getId());
+                    trace.question(question, GradingTracer.Outcome.ERROR, 0, null);
                 }
             } else {
-                System.out.println("No answer provided - Points Awarded: 0");
+                trace.question(question, GradingTracer.Outcome.UNANSWERED, 0, null);
             }
+            earnedPoints += awarded;
+            earnedByQuestion.put(question.getId(), awarded);
         }
 
-        System.out.println("=== FINAL SCORE CALCULATION ===");
-        System.out.println("Total Possible Points: " + totalPoints);
-        System.out.println("Earned Points: " + earnedPoints);
-        System.out.println("Percentage: " + (totalPoints > 0 ? (earnedPoints * 100.0 / totalPoints) : 0) + "%");
-        System.out.println("Passing Score: " + exam.getPassingScore());
-        System.out.println("Will Pass: " + (earnedPoints >= exam.getPassingScore()));
-        System.out.println("=== END SCORING DEBUG ===");
-
         return new int[]{earnedPoints, totalPoints};
     }
 
+    /**
+     * Points the automatic grader awards for an answer (0 when there is no answer).
+     */
+    public int gradeAnswer(Question question, Object studentAnswer) {
+        if (studentAnswer == null) {
+            return 0;
+        }
+        Object evaluationResult = evaluateAnswerWithPartialScoring(question, studentAnswer);
+        if (evaluationResult instanceof Boolean) {
+            return (Boolean) evaluationResult ? question.getPoints() : 0;
+        }
+        if (evaluationResult instanceof Double) {
+            double percentage = Math.max(0.0, Math.min(1.0, (Double) evaluationResult));
+            return applyScoring(percentage, question.getPoints(), question.getScoringPolicy());
+        }
+        return 0;
+    }
+
     public Map<String, Object> evaluateStudentAnswer(Question question, Object studentAnswer) {
         Map<String, Object> result = new HashMap<>();
 
@@ -1456,6 +1331,8 @@ public class ExamService {
             if (forceReplace) {
                 // حذف تمام submissions
                 submissionRepository.deleteByExam(existingExam);
+                // Bulk delete bypasses entity listeners, so announce it explicitly
+                eventPublisher.publishEvent(new SubmissionSavedEvent(lesson.getCourse().getId(), null));
                 // حذف آزمون قبلی
                 examRepository.delete(existingExam);
                 lesson.setExam(null);
@@ -1526,16 +1403,13 @@ public class ExamService {
         // Ensure we don't exceed the question's total points
         finalPoints = Math.max(0, Math.min(finalPoints, questionPoints));
 
-        System.out.println("Scoring policy applied: " + policy +
-                          " | Exact: " + exactPoints.setScale(3, RoundingMode.HALF_UP) +
-                          " → Final: " + finalPoints);
-
         return finalPoints;
     }
 
     /**
      * Recalculate submission score including both automatic and manual grades
      */
+    @Timed(value = "lms.grading", extraTags = {"operation", "recalculate"})
     public int recalculateSubmissionScore(Submission submission, Map<String, Object> manualGrades) {
         if (submission == null) {
             throw new IllegalArgumentException("Submission cannot be null");
@@ -1548,21 +1422,16 @@ public class ExamService {
 
         List<Question> questions = questionRepository.findByExamOrderById(exam);
         if (questions.isEmpty()) {
-            System.out.println("WARNING: Exam has no questions - returning score 0");
+            logger.warn("Exam {} has no questions, submission {} scores 0", exam.getId(), submission.getId());
             return 0;
         }
 
         // Parse student answers from JSON
-        Map<String, Object> studentAnswers = parseAnswersJson(submission.getAnswersJson());
+        Map<String, Object> studentAnswers = submissionAnswersCodec.read(submission).asMap();
 
         int totalScore = 0;
         int totalPossibleScore = 0;
-
-        System.out.println("=== RECALCULATING SUBMISSION SCORE ===");
-        System.out.println("Submission ID: " + submission.getId());
-        System.out.println("Exam: " + exam.getTitle());
-        System.out.println("Questions Count: " + questions.size());
-        System.out.println("Manual grades provided: " + (manualGrades != null ? manualGrades.size() : 0));
+        GradingTracer.Trace trace = gradingTracer.begin("RECALCULATE", exam.getId());
 
         for (Question question : questions) {
             String questionId = String.valueOf(question.getId());
@@ -1570,32 +1439,25 @@ public class ExamService {
             int earnedPoints = 0;
             totalPossibleScore += questionPoints;
 
-            System.out.println("--- Question " + questionId + " (" + question.getQuestionType() + ") ---");
-            System.out.println("Question Points: " + questionPoints);
-
             if (question.getQuestionType() == QuestionType.ESSAY ||
                 question.getQuestionType() == QuestionType.SHORT_ANSWER) {
                 // Use manual grade for essay and short answer questions
-                if (manualGrades != null && manualGrades.containsKey(questionId)) {
-                    Object gradeObj = manualGrades.get(questionId);
-                    if (gradeObj != null) {
-                        try {
-                            earnedPoints = ((Number) gradeObj).intValue();
-                            // Ensure manual grade doesn't exceed question points
-                            earnedPoints = Math.max(0, Math.min(earnedPoints, questionPoints));
-                            System.out.println("Manual Grade: " + earnedPoints + "/" + questionPoints);
-                        } catch (ClassCastException e) {
-                            System.err.println("ERROR: Invalid manual grade format for question " + questionId + ": " + gradeObj);
-                            earnedPoints = 0;
-                        }
-                    } else {
+                Object gradeObj = manualGrades != null ? manualGrades.get(questionId) : null;
+                if (gradeObj != null) {
+                    try {
+                        earnedPoints = ((Number) gradeObj).intValue();
+                        // Ensure manual grade doesn't exceed question points
+                        earnedPoints = Math.max(0, Math.min(earnedPoints, questionPoints));
+                        trace.question(question, GradingTracer.Outcome.MANUAL, earnedPoints, null);
+                    } catch (ClassCastException e) {
+                        logger.warn("Invalid manual grade {} for question {} of submission {}",
+                                gradeObj, questionId, submission.getId());
                         earnedPoints = 0;
-                        System.out.println("Manual grade is null - Points: 0/" + questionPoints);
+                        trace.question(question, GradingTracer.Outcome.ERROR, 0, null);
                     }
                 } else {
                     // No manual grade assigned yet, use 0
-                    earnedPoints = 0;
-                    System.out.println("No manual grade assigned - Points: 0/" + questionPoints);
+                    trace.question(question, GradingTracer.Outcome.UNGRADED, 0, null);
                 }
             } else {
                 // Use automatic grading for other question types
@@ -1608,7 +1470,8 @@ public class ExamService {
                             // Binary scoring
                             boolean isCorrect = (Boolean) evaluationResult;
                             earnedPoints = isCorrect ? questionPoints : 0;
-                            System.out.println("Auto Grade (Binary): " + earnedPoints + "/" + questionPoints + " (Correct: " + isCorrect + ")");
+                            trace.question(question, isCorrect ? GradingTracer.Outcome.CORRECT : GradingTracer.Outcome.INCORRECT,
+                                    earnedPoints, null);
                         } else if (evaluationResult instanceof Double) {
                             // Partial scoring
                             double percentage = (Double) evaluationResult;
@@ -1616,44 +1479,35 @@ public class ExamService {
                             percentage = Math.max(0.0, Math.min(1.0, percentage));
                             ScoringPolicy policy = question.getScoringPolicy();
                             earnedPoints = applyScoring(percentage, questionPoints, policy);
-                            System.out.println("Auto Grade (Partial): " + earnedPoints + "/" + questionPoints + " (" + String.format("%.1f", percentage * 100) + "%)");
+                            trace.question(question, GradingTracer.Outcome.PARTIAL, earnedPoints, percentage);
                         } else {
-                            System.err.println("WARNING: Unexpected evaluation result type for question " + questionId + ": " + evaluationResult);
+                            logger.warn("Unexpected evaluation result {} for question {}", evaluationResult, questionId);
                             earnedPoints = 0;
+                            trace.question(question, GradingTracer.Outcome.ERROR, 0, null);
                         }
                     } catch (Exception e) {
-                        System.err.println("ERROR: Exception during automatic grading for question " + questionId + ": " + e.getMessage());
+                        logger.error("Automatic grading failed for question {} of submission {}",
+                                questionId, submission.getId(), e);
                         earnedPoints = 0;
+                        trace.question(question, GradingTracer.Outcome.ERROR, 0, null);
                     }
                 } else {
-                    System.out.println("No student answer - Points: 0/" + questionPoints);
+                    trace.question(question, GradingTracer.Outcome.UNANSWERED, 0, null);
                 }
             }
 
-            // Validate earned points don't exceed question points
-            if (earnedPoints > questionPoints) {
-                System.err.println("ERROR: Earned points (" + earnedPoints + ") exceed question points (" + questionPoints + ") for question " + questionId);
-                earnedPoints = questionPoints;
-            }
-
             totalScore += earnedPoints;
         }
 
         // Final validation
-        if (totalScore < 0) {
-            System.err.println("ERROR: Total score is negative (" + totalScore + "), setting to 0");
-            totalScore = 0;
-        }
-
         if (totalScore > totalPossibleScore) {
-            System.err.println("ERROR: Total score (" + totalScore + ") exceeds total possible score (" + totalPossibleScore + "), capping at maximum");
+            logger.error("Score {} of submission {} exceeds total possible score {}, capping",
+                    totalScore, submission.getId(), totalPossibleScore);
             totalScore = totalPossibleScore;
         }
 
-        System.out.println("=== RECALCULATION COMPLETE ===");
-        System.out.println("Total Score: " + totalScore + "/" + totalPossibleScore);
-        System.out.println("Percentage: " + (totalPossibleScore > 0 ? String.format("%.1f", (totalScore * 100.0 / totalPossibleScore)) : "0.0") + "%");
-        System.out.println("===========================");
+        gradingTracer.finish(trace, submission.getId(), totalScore, totalPossibleScore);
+        logger.debug("Recalculated submission {}: {}/{}", submission.getId(), totalScore, totalPossibleScore);
 
         return totalScore;
     }
@@ -1675,12 +1529,11 @@ public class ExamService {
         Integer totalPossibleScore = exam.getTotalPossibleScore();
 
         if (totalPossibleScore != null && score > totalPossibleScore) {
-            System.err.println("WARNING: Submission " + submission.getId() + " has score (" + score +
-                             ") exceeding exam total (" + totalPossibleScore + ")");
+            logger.warn("Submission {} has score {} exceeding exam total {}", submission.getId(), score, totalPossibleScore);
         }
 
         if (score < 0) {
-            System.err.println("WARNING: Submission " + submission.getId() + " has negative score: " + score);
+            logger.warn("Submission {} has negative score {}", submission.getId(), score);
         }
     }
 
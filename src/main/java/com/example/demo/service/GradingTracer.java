@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import com.example.demo.event.GradingTracedEvent;
+import com.example.demo.model.GradingTrace;
+import com.example.demo.model.Question;
+import com.example.demo.model.QuestionType;
+import com.example.demo.model.ScoringPolicy;
+import com.example.demo.repository.GradingTraceRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Audit trail of automatic and manual grading: one event per question with its outcome and points.
+ * Events go to the {@value #AUDIT_LOGGER} logger at DEBUG (asynchronously, see logback-spring.xml)
+ * and, with lms.grading.trace.persist, into a {@link GradingTrace} row per grading pass, stored after
+ * the grading commits. When neither is on, {@link #begin} hands out {@link Trace#NONE} and grading
+ * records nothing.
+ */
+@Service
+public class GradingTracer {
+
+    public static final String AUDIT_LOGGER = "grading.audit";
+
+    private static final Logger auditLog = LoggerFactory.getLogger(AUDIT_LOGGER);
+    private static final Logger logger = LoggerFactory.getLogger(GradingTracer.class);
+
+    private final GradingTraceRepository gradingTraceRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean persist;
+
+    public GradingTracer(GradingTraceRepository gradingTraceRepository,
+                         ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${lms.grading.trace.persist:false}") boolean persist) {
+        this.gradingTraceRepository = gradingTraceRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.persist = persist;
+    }
+
+    public enum Outcome {
+        CORRECT, INCORRECT, PARTIAL, UNANSWERED, MANUAL, UNGRADED, ERROR
+    }
+
+    public record GradingEvent(Long questionId, QuestionType type, Outcome outcome, int earned, int points,
+                               Double percentage, ScoringPolicy policy) {
+    }
+
+    /**
+     * Starts tracing one grading pass ("SUBMIT" or "RECALCULATE") of an exam.
+     */
+    public Trace begin(String operation, Long examId) {
+        if (!persist && !auditLog.isDebugEnabled()) {
+            return Trace.NONE;
+        }
+        return new Trace(operation, examId);
+    }
+
+    /**
+     * Logs and, when enabled, queues the trace to be stored once the grading commits. A failure to
+     * store it is logged and never fails or rolls back the grading.
+     */
+    public void finish(Trace trace, Long submissionId, int earnedPoints, int totalPoints) {
+        if (trace == Trace.NONE) {
+            return;
+        }
+        if (auditLog.isDebugEnabled()) {
+            for (GradingEvent event : trace.events) {
+                auditLog.debug("operation={} exam={} submission={} question={} type={} outcome={} earned={} points={} percentage={} policy={}",
+                        trace.operation, trace.examId, submissionId, event.questionId(), event.type(), event.outcome(),
+                        event.earned(), event.points(), event.percentage(), event.policy());
+            }
+            auditLog.debug("operation={} exam={} submission={} earned={} total={} questions={}",
+                    trace.operation, trace.examId, submissionId, earnedPoints, totalPoints, trace.events.size());
+        }
+        if (persist && submissionId != null) {
+            try {
+                GradingTrace record = new GradingTrace();
+                record.setSubmissionId(submissionId);
+                record.setOperation(trace.operation);
+                record.setEarnedPoints(earnedPoints);
+                record.setTotalPoints(totalPoints);
+                record.setCreatedAt(LocalDateTime.now());
+                record.setEventsJson(objectMapper.writeValueAsString(trace.events));
+                eventPublisher.publishEvent(new GradingTracedEvent(record));
+            } catch (Exception e) {
+                logger.warn("Could not store grading trace of submission {}: {}", submissionId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stores a trace after the grading transaction commits, in its own transaction.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onGradingTraced(GradingTracedEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> gradingTraceRepository.save(event.trace()));
+        } catch (RuntimeException e) {
+            logger.warn("Could not store grading trace of submission {}: {}", event.trace().getSubmissionId(), e.getMessage());
+        }
+    }
+
+    public List<GradingTrace> getTraces(Long submissionId) {
+        return gradingTraceRepository.findBySubmissionIdOrderByIdAsc(submissionId);
+    }
+
+    /**
+     * Events of one grading pass. {@link #NONE} ignores everything, so callers never check.
+     */
+    public static final class Trace {
+
+        public static final Trace NONE = new Trace(null, null);
+
+        private final String operation;
+        private final Long examId;
+        private final List<GradingEvent> events;
+
+        private Trace(String operation, Long examId) {
+            this.operation = operation;
+            this.examId = examId;
+            this.events = operation == null ? Collections.emptyList() : new ArrayList<>();
+        }
+
+        public void question(Question question, Outcome outcome, int earned, Double percentage) {
+            if (this != NONE) {
+                events.add(new GradingEvent(question.getId(), question.getQuestionType(), outcome, earned,
+                        question.getPoints(), percentage, question.getScoringPolicy()));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * One ranking of a course's students, best first: a skip list ordered by (value descending, student
+ * id) plus each student's current key, so replacing a student's value is O(log n) and reading the
+ * top entries is O(K) without sorting. Writers are serialized; readers never block.
+ */
+final class Leaderboard<T> {
+
+    private record Key(double value, long studentId) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparingDouble(Key::value).reversed()
+            .thenComparingLong(Key::studentId);
+
+    private final ConcurrentSkipListMap<Key, T> ranking = new ConcurrentSkipListMap<>(ORDER);
+    private final Map<Long, Key> keys = new ConcurrentHashMap<>();
+
+    synchronized void put(long studentId, double value, T entry) {
+        Key key = new Key(value, studentId);
+        Key previous = keys.put(studentId, key);
+        // New position first, so a concurrent reader never sees the student missing
+        ranking.put(key, entry);
+        if (previous != null && !previous.equals(key)) {
+            ranking.remove(previous);
+        }
+    }
+
+    synchronized void remove(long studentId) {
+        Key previous = keys.remove(studentId);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+    }
+
+    List<T> top(int limit) {
+        List<T> top = new ArrayList<>(limit);
+        for (T entry : ranking.values()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(entry);
+        }
+        return top;
+    }
+}
@@ -1,25 +1,68 @@
 package com.example.demo.service;
 
+import com.example.demo.event.ContentCompletedEvent;
+import com.example.demo.event.CourseStructureChangedEvent;
+import com.example.demo.event.SubmissionSavedEvent;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.List;
-import java.util.Optional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lesson gating: a lesson is open once every earlier lesson of the course is completed.
+ *
+ * Per (student, course) the service keeps the unlocked frontier, the number of leading lessons
+ * the student has completed, so an access check is a comparison against the lesson's position.
+ * The frontier is computed with a handful of bulk queries, moved forward when content of the
+ * frontier lesson is completed, recomputed on exam / assignment submission and dropped for the
+ * whole course when its lessons, contents, exams or assignments change.
+ */
 @Service
 public class LessonAccessService {
 
     private final LessonRepository lessonRepository;
+    private final CourseRepository courseRepository;
     private final ProgressRepository progressRepository;
-    private final LessonCompletionService lessonCompletionService; // Add this
+    private final ContentRepository contentRepository;
+    private final SubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentSubmissionRepository assignmentSubmissionRepository;
+
+    private static final IdBitmap NONE = new IdBitmap();
+
+    private final Cache<FrontierKey, Integer> frontiers;
 
     public LessonAccessService(
             LessonRepository lessonRepository,
+            CourseRepository courseRepository,
             ProgressRepository progressRepository,
-            LessonCompletionService lessonCompletionService) { // Add this parameter
+            ContentRepository contentRepository,
+            SubmissionRepository submissionRepository,
+            AssignmentRepository assignmentRepository,
+            AssignmentSubmissionRepository assignmentSubmissionRepository,
+            @Value("${lms.lesson-access.frontier.max-entries:10000}") long maxEntries,
+            @Value("${lms.lesson-access.frontier.ttl:PT30M}") Duration ttl) {
         this.lessonRepository = lessonRepository;
+        this.courseRepository = courseRepository;
         this.progressRepository = progressRepository;
-        this.lessonCompletionService = lessonCompletionService; // Add this
+        this.contentRepository = contentRepository;
+        this.submissionRepository = submissionRepository;
+        this.assignmentRepository = assignmentRepository;
+        this.assignmentSubmissionRepository = assignmentSubmissionRepository;
+        this.frontiers = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
     }
 
     /**
@@ -29,74 +72,157 @@ public class LessonAccessService {
         Lesson targetLesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Lesson not found"));
 
-        Course course = targetLesson.getCourse();
+        return checkAccess(student, targetLesson) == AccessResult.GRANTED;
+    }
+
+    /**
+     * Get access info for a lesson
+     */
+    public LessonAccessInfo getLessonAccessInfo(User student, Long lessonId) {
+        Lesson targetLesson = lessonRepository.findById(lessonId)
+                .orElseThrow(() -> new RuntimeException("Lesson not found"));
+
+        switch (checkAccess(student, targetLesson)) {
+            case GRANTED:
+                return new LessonAccessInfo(true, "");
+            case NOT_ENROLLED:
+                return new LessonAccessInfo(false, "You are not enrolled in this course");
+            default:
+                return new LessonAccessInfo(false, "You must complete previous lessons and their exams/exercises");
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentCompleted(ContentCompletedEvent event) {
+        FrontierKey key = new FrontierKey(event.studentId(), event.courseId());
+        Integer frontier = frontiers.getIfPresent(key);
+        if (frontier == null) {
+            return;
+        }
+        // Completing content beyond the frontier cannot open anything new until the frontier lesson is done
+        List<Lesson> lessons = lessonRepository.findByCourseIdOrderByOrderIndex(key.courseId());
+        if (frontier < lessons.size() && lessons.get(frontier).getId().equals(event.lessonId())) {
+            replaceFrontier(key, frontier, computeFrontier(key, lessons, frontier));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionSaved(SubmissionSavedEvent event) {
+        if (event.courseId() == null || event.studentId() == null) {
+            invalidateCourse(event.courseId());
+            return;
+        }
+        FrontierKey key = new FrontierKey(event.studentId(), event.courseId());
+        Integer frontier = frontiers.getIfPresent(key);
+        if (frontier == null) {
+            return;
+        }
+        // A regrade can also close lessons again, so start over rather than only moving forward
+        replaceFrontier(key, frontier, computeFrontier(key, lessonRepository.findByCourseIdOrderByOrderIndex(key.courseId()), 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseStructureChanged(CourseStructureChangedEvent event) {
+        invalidateCourse(event.courseId());
+    }
+
+    private AccessResult checkAccess(User student, Lesson targetLesson) {
+        Long courseId = targetLesson.getCourse().getId();
 
         // Check if student is enrolled in the course
-        if (!course.getEnrolledStudents().contains(student)) {
-            return false;
+        if (!courseRepository.isStudentEnrolled(courseId, student.getId())) {
+            return AccessResult.NOT_ENROLLED;
         }
 
         // Get all lessons in the course ordered by orderIndex
-        List<Lesson> allLessons = lessonRepository.findByCourseOrderByOrderIndex(course);
+        List<Lesson> allLessons = lessonRepository.findByCourseIdOrderByOrderIndex(courseId);
 
         // Find the target lesson's position
         int targetIndex = -1;
         for (int i = 0; i < allLessons.size(); i++) {
-            if (allLessons.get(i).getId().equals(lessonId)) {
+            if (allLessons.get(i).getId().equals(targetLesson.getId())) {
                 targetIndex = i;
                 break;
             }
         }
 
         if (targetIndex == -1) {
-            return false; // Lesson not found in course
+            return AccessResult.NOT_IN_COURSE;
         }
 
         // First lesson is always accessible
         if (targetIndex == 0) {
-            return true;
+            return AccessResult.GRANTED;
         }
 
-        // Check if all previous lessons are completed using LessonCompletionService
-        for (int i = 0; i < targetIndex; i++) {
-            Lesson previousLesson = allLessons.get(i);
-            if (!lessonCompletionService.isLessonCompleted(student, previousLesson)) {
-                return false;
-            }
-        }
-
-        return true;
+        // Open when every earlier lesson is completed
+        int frontier = frontiers.get(new FrontierKey(student.getId(), courseId),
+                key -> computeFrontier(key, allLessons, 0));
+        return targetIndex <= frontier ? AccessResult.GRANTED : AccessResult.LOCKED;
     }
 
     /**
-     * Get access info for a lesson
+     * Publishes a frontier computed outside the cache, so no map lock is held across the queries.
+     * When the entry changed in the meantime neither value can be trusted, and it is dropped.
      */
-    public LessonAccessInfo getLessonAccessInfo(User student, Long lessonId) {
-        boolean canAccess = canAccessLesson(student, lessonId);
-        String reason = "";
-
-        if (!canAccess) {
-            reason = getAccessDeniedReason(student, lessonId);
+    private void replaceFrontier(FrontierKey key, Integer expected, int frontier) {
+        if (!frontiers.asMap().replace(key, expected, frontier)) {
+            frontiers.invalidate(key);
         }
-
-        return new LessonAccessInfo(canAccess, reason);
     }
 
-    private String getAccessDeniedReason(User student, Long lessonId) {
-        Lesson targetLesson = lessonRepository.findById(lessonId)
-                .orElse(null);
-
-        if (targetLesson == null) {
-            return "Lesson not found";
+    private void invalidateCourse(Long courseId) {
+        if (courseId == null) {
+            frontiers.invalidateAll();
+            return;
         }
+        frontiers.asMap().keySet().removeIf(key -> courseId.equals(key.courseId()));
+    }
 
-        Course course = targetLesson.getCourse();
+    /**
+     * Number of leading lessons the student has completed, scanning from {@code fromIndex}
+     * (lessons before it are known to be complete). Uses the same rules as
+     * {@link LessonCompletionService#isLessonCompleted}: every content completed, the exam
+     * passed and every assignment submitted.
+     */
+    private int computeFrontier(FrontierKey key, List<Lesson> lessons, int fromIndex) {
+        IdBitmap completedContent = progressRepository.findByStudentIdAndCourseId(key.studentId(), key.courseId())
+                .map(Progress::getCompletedContent)
+                .orElseGet(IdBitmap::new);
+        Set<Long> passedExams = new HashSet<>(
+                submissionRepository.findPassedExamIds(key.studentId(), key.courseId()));
+        IdBitmap submittedAssignments = IdBitmap.of(
+                assignmentSubmissionRepository.findSubmittedAssignmentIds(key.studentId(), key.courseId()));
+        Map<Long, IdBitmap> contentsByLesson = groupByLesson(
+                contentRepository.findLessonContentIdsByCourseId(key.courseId()));
+        Map<Long, IdBitmap> assignmentsByLesson = groupByLesson(
+                assignmentRepository.findLessonAssignmentIdsByCourseId(key.courseId()));
+
+        int frontier = fromIndex;
+        while (frontier < lessons.size()) {
+            Lesson lesson = lessons.get(frontier);
+            boolean completed = completedContent.containsAll(contentsByLesson.getOrDefault(lesson.getId(), NONE))
+                    && (lesson.getExam() == null || passedExams.contains(lesson.getExam().getId()))
+                    && submittedAssignments.containsAll(assignmentsByLesson.getOrDefault(lesson.getId(), NONE));
+            if (!completed) {
+                break;
+            }
+            frontier++;
+        }
+        return frontier;
+    }
 
-        if (!course.getEnrolledStudents().contains(student)) {
-            return "You are not enrolled in this course";
+    private Map<Long, IdBitmap> groupByLesson(List<Object[]> lessonChildIds) {
+        Map<Long, IdBitmap> byLesson = new HashMap<>();
+        for (Object[] row : lessonChildIds) {
+            byLesson.computeIfAbsent((Long) row[0], id -> new IdBitmap()).add((Long) row[1]);
         }
+        return byLesson;
+    }
+
+    private enum AccessResult { GRANTED, LOCKED, NOT_ENROLLED, NOT_IN_COURSE }
 
-        return "You must complete previous lessons and their exams/exercises";
+    private record FrontierKey(Long studentId, Long courseId) {
     }
 
     public static class LessonAccessInfo {
@@ -111,4 +237,4 @@ public class LessonAccessService {
         public boolean isCanAccess() { return canAccess; }
         public String getReason() { return reason; }
     }
-}
\ No newline at end of file
+}
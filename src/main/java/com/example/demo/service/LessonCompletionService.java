@@ -205,11 +205,12 @@ public class LessonCompletionService {
         return allContentCompleted && examCompleted && assignmentsCompleted;
     }
 
+    @RetryOnConflict
     @Transactional
     public void checkAndAutoCompleteLesson(User student, Lesson lesson) {
         if (shouldAutoComplete(student, lesson)) {
             // Call ProgressService to mark lesson complete
-            Progress progress = progressRepository.findByStudentAndCourse(student, lesson.getCourse())
+            Progress progress = progressRepository.findForUpdate(student, lesson.getCourse())
                     .orElseThrow(() -> new RuntimeException("Progress not found"));
 
             progress.getCompletedLessons().add(lesson.getId());
@@ -1,7 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.event.ContentCompletedEvent;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
@@ -9,6 +12,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed("lms.progress")
 public class ProgressService {
 
     private final ProgressRepository progressRepository;
@@ -19,6 +23,7 @@ public class ProgressService {
     private final AssignmentSubmissionRepository assignmentSubmissionRepository;
     private final AssignmentRepository assignmentRepository;
     private final ExamRepository examRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ProgressService(
             ProgressRepository progressRepository,
@@ -28,7 +33,8 @@ public class ProgressService {
             LessonCompletionService lessonCompletionService,
             AssignmentSubmissionRepository assignmentSubmissionRepository,
             AssignmentRepository assignmentRepository,
-            ExamRepository examRepository) {
+            ExamRepository examRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.progressRepository = progressRepository;
         this.lessonRepository = lessonRepository;
         this.contentRepository = contentRepository;
@@ -37,6 +43,7 @@ public class ProgressService {
         this.assignmentSubmissionRepository = assignmentSubmissionRepository;
         this.assignmentRepository = assignmentRepository;
         this.examRepository = examRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Progress> getProgressByStudent(User student) {
@@ -59,13 +66,23 @@ public class ProgressService {
                 });
     }
 
+    /**
+     * The student's progress row, locked until the transaction ends so concurrent completion
+     * updates queue instead of overwriting each other's bitmaps.
+     */
+    private Progress getOrCreateProgressForUpdate(User student, Course course) {
+        return progressRepository.findForUpdate(student, course)
+                .orElseGet(() -> getOrCreateProgress(student, course));
+    }
+
+    @RetryOnConflict
     @Transactional
     public Progress markLessonComplete(User student, Long lessonId) {
         Lesson lesson = lessonRepository.findById(lessonId)
                 .orElseThrow(() -> new RuntimeException("Lesson not found"));
 
         Course course = lesson.getCourse();
-        Progress progress = getOrCreateProgress(student, course);
+        Progress progress = getOrCreateProgressForUpdate(student, course);
 
         progress.getCompletedLessons().add(lessonId);
         progress.setLastAccessed(LocalDateTime.now());
@@ -85,6 +102,7 @@ public class ProgressService {
         return progressRepository.save(progress);
     }
 
+    @RetryOnConflict
     @Transactional
     public Progress markContentViewed(User student, Long contentId) {
         Content content = contentRepository.findById(contentId)
@@ -92,7 +110,7 @@ public class ProgressService {
 
         Lesson lesson = content.getLesson();
         Course course = lesson.getCourse();
-        Progress progress = getOrCreateProgress(student, course);
+        Progress progress = getOrCreateProgressForUpdate(student, course);
 
         progress.getViewedContent().add(contentId);
         progress.setLastAccessed(LocalDateTime.now());
@@ -100,6 +118,7 @@ public class ProgressService {
         return progressRepository.save(progress);
     }
 
+    @RetryOnConflict
     @Transactional
     public Progress markContentComplete(User student, Long contentId) {
         Content content = contentRepository.findById(contentId)
@@ -107,7 +126,7 @@ public class ProgressService {
 
         Lesson lesson = content.getLesson();
         Course course = lesson.getCourse();
-        Progress progress = getOrCreateProgress(student, course);
+        Progress progress = getOrCreateProgressForUpdate(student, course);
 
         // Mark content as completed and viewed
         progress.getCompletedContent().add(contentId);
@@ -119,6 +138,8 @@ public class ProgressService {
         // Check if lesson should be auto-completed
         lessonCompletionService.checkAndAutoCompleteLesson(student, lesson);
 
+        eventPublisher.publishEvent(new ContentCompletedEvent(student.getId(), course.getId(), lesson.getId()));
+
         return updatedProgress;
     }
 
@@ -0,0 +1,453 @@
+package com.example.demo.service;
+
+import com.example.demo.event.SubmissionGradedEvent;
+import com.example.demo.model.Exam;
+import com.example.demo.model.Question;
+import com.example.demo.model.QuestionStats;
+import com.example.demo.model.QuestionType;
+import com.example.demo.model.Submission;
+import com.example.demo.model.SubmissionAnswers;
+import com.example.demo.repository.ExamRepository;
+import com.example.demo.repository.QuestionRepository;
+import com.example.demo.repository.QuestionStatsRepository;
+import com.example.demo.repository.SubmissionRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintains the per-question {@link QuestionStats} aggregate. Submissions are added once they are
+ * committed, manual grading applies the difference for the regraded questions, and a rebuild job
+ * re-derives everything from the submissions to repair drift (edited questions, missed updates).
+ */
+@Service
+public class QuestionStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionStatsService.class);
+
+    private static final Set<QuestionType> OPTION_TYPES = EnumSet.of(QuestionType.MULTIPLE_CHOICE, QuestionType.TRUE_FALSE);
+    private static final Set<QuestionType> MANUAL_TYPES = EnumSet.of(QuestionType.ESSAY, QuestionType.SHORT_ANSWER);
+
+    private final QuestionStatsRepository questionStatsRepository;
+    private final QuestionRepository questionRepository;
+    private final SubmissionRepository submissionRepository;
+    private final ExamRepository examRepository;
+    private final ExamService examService;
+    private final SubmissionAnswersCodec submissionAnswersCodec;
+    private final AnalyticsResultCache analyticsResultCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService rebuildExecutor;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public QuestionStatsService(
+            QuestionStatsRepository questionStatsRepository,
+            QuestionRepository questionRepository,
+            SubmissionRepository submissionRepository,
+            ExamRepository examRepository,
+            ExamService examService,
+            SubmissionAnswersCodec submissionAnswersCodec,
+            AnalyticsResultCache analyticsResultCache,
+            PlatformTransactionManager transactionManager) {
+        this.questionStatsRepository = questionStatsRepository;
+        this.questionRepository = questionRepository;
+        this.submissionRepository = submissionRepository;
+        this.examRepository = examRepository;
+        this.examService = examService;
+        this.submissionAnswersCodec = submissionAnswersCodec;
+        this.analyticsResultCache = analyticsResultCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // The nightly rebuild scans every submission; it runs here rather than on the scheduler's single
+        // thread, which also flushes the analytics cache and runs the other nightly jobs
+        this.rebuildExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "question-stats-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Add a freshly graded submission. Runs after the submission commits, in its own short
+     * transaction, so the row locks on a popular exam's questions are not held for the whole
+     * submit request and a failure here never rejects the submission.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSubmissionGraded(SubmissionGradedEvent event) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordSubmission(event));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent submission created the same rows first; they exist on the second try
+                if (attempt >= 2) {
+                    logger.warn("Could not record question stats for submission {}: {}", event.submissionId(), e.getMessage());
+                    return;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not record question stats for submission {}; the next rebuild will include it",
+                        event.submissionId(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply a manual (re)grade to the stats of the essay / short-answer questions. Must be called
+     * before the submission's manualGradesJson is overwritten, as the previous grades are read from it.
+     */
+    public void recordRegrade(Submission submission, Map<String, Object> manualGrades) {
+        List<Question> manualQuestions = new ArrayList<>();
+        for (Question question : questionRepository.findByExamOrderById(submission.getExam())) {
+            if (MANUAL_TYPES.contains(question.getQuestionType())) {
+                manualQuestions.add(question);
+            }
+        }
+        if (manualQuestions.isEmpty()) {
+            return;
+        }
+
+        SubmissionAnswers answers = submissionAnswersCodec.read(submission, ids(manualQuestions));
+        Map<String, Object> previousGrades = parseManualGrades(submission.getManualGradesJson());
+        Map<String, Object> newGrades = manualGrades != null ? manualGrades : Map.of();
+
+        // Rows that do not exist yet never saw this submission; the rebuild job will pick it up
+        Map<Long, QuestionStats> stats = new HashMap<>();
+        for (QuestionStats questionStats : questionStatsRepository.findAllForUpdate(ids(manualQuestions))) {
+            stats.put(questionStats.getQuestionId(), questionStats);
+        }
+
+        boolean changed = false;
+        for (Question question : manualQuestions) {
+            QuestionStats questionStats = stats.get(question.getId());
+            if (questionStats == null) {
+                continue;
+            }
+            int previous = earnedPoints(question, answers.get(question.getId()), previousGrades);
+            int current = earnedPoints(question, answers.get(question.getId()), newGrades);
+            if (previous != current) {
+                addScore(questionStats, question.getPoints(), previous, -1);
+                addScore(questionStats, question.getPoints(), current, 1);
+                questionStats.setUpdatedAt(LocalDateTime.now());
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            analyticsResultCache.invalidateCourse(courseId(submission.getExam()));
+        }
+    }
+
+    /**
+     * Stats for the given questions. With {@code since} set, questions whose history starts
+     * before the window are recounted from the window's submissions; everything else is read
+     * straight from the aggregate.
+     */
+    public Map<Long, QuestionStats> getStats(Collection<Question> questions, LocalDateTime since, LocalDateTime until) {
+        Map<Long, QuestionStats> result = new HashMap<>();
+        for (QuestionStats questionStats : questionStatsRepository.findAllById(ids(questions))) {
+            result.put(questionStats.getQuestionId(), questionStats);
+        }
+        if (since == null) {
+            return result;
+        }
+
+        Map<Exam, List<Question>> partialExams = new LinkedHashMap<>();
+        for (Question question : questions) {
+            QuestionStats questionStats = result.get(question.getId());
+            boolean outsideWindow = questionStats != null && questionStats.getLastAttemptAt() != null
+                    && questionStats.getLastAttemptAt().isBefore(since);
+            if (outsideWindow) {
+                result.remove(question.getId());
+            } else if (questionStats != null && questionStats.getFirstAttemptAt() != null
+                    && questionStats.getFirstAttemptAt().isBefore(since)) {
+                partialExams.computeIfAbsent(question.getExam(), exam -> new ArrayList<>()).add(question);
+            }
+        }
+
+        for (Map.Entry<Exam, List<Question>> entry : partialExams.entrySet()) {
+            List<Submission> submissions = submissionRepository
+                    .findByExamAndSubmissionTimeBetween(entry.getKey(), since, until);
+            Map<Long, QuestionStats> windowed = aggregate(
+                    questionRepository.findByExamOrderById(entry.getKey()), submissions);
+            for (Question question : entry.getValue()) {
+                QuestionStats questionStats = windowed.get(question.getId());
+                if (questionStats != null && questionStats.getAttempts() > 0) {
+                    result.put(question.getId(), questionStats);
+                } else {
+                    result.remove(question.getId());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(cron = "${lms.question-stats.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            logger.info("Skipping scheduled question stats rebuild, a rebuild is already in progress");
+            return;
+        }
+        rebuildExecutor.submit(() -> {
+            try {
+                logger.info("Rebuilt question stats: {}", rebuildAll());
+            } catch (RuntimeException e) {
+                logger.error("Question stats rebuild failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Recompute every question's stats from its submissions, one exam per transaction.
+     */
+    public Map<String, Object> rebuildAll() {
+        long start = System.currentTimeMillis();
+        int exams = 0;
+        int questions = 0;
+        int submissions = 0;
+
+        for (Exam exam : examRepository.findAll()) {
+            int[] counts = transactionTemplate.execute(status -> rebuildExam(exam.getId()));
+            exams++;
+            questions += counts[0];
+            submissions += counts[1];
+        }
+
+        int orphaned = transactionTemplate.execute(status -> {
+            List<Long> orphanedIds = questionStatsRepository.findOrphanedQuestionIds();
+            questionStatsRepository.deleteAllById(orphanedIds);
+            return orphanedIds.size();
+        });
+
+        analyticsResultCache.invalidateAll();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("exams", exams);
+        summary.put("questions", questions);
+        summary.put("submissions", submissions);
+        summary.put("orphanedRemoved", orphaned);
+        summary.put("durationMs", System.currentTimeMillis() - start);
+        return summary;
+    }
+
+    private int[] rebuildExam(Long examId) {
+        Exam exam = examRepository.findById(examId).orElse(null);
+        if (exam == null) {
+            return new int[]{0, 0};
+        }
+        List<Question> questions = questionRepository.findByExamOrderById(exam);
+        if (questions.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        // Lock before reading the submissions so an incremental update cannot slip in between
+        Map<Long, QuestionStats> stats = lockStats(questions);
+        List<Submission> submissions = submissionRepository.findByExam(exam);
+        Map<Long, QuestionStats> fresh = aggregate(questions, submissions);
+        for (Question question : questions) {
+            copyCounters(fresh.get(question.getId()), stats.get(question.getId()));
+        }
+        return new int[]{questions.size(), submissions.size()};
+    }
+
+    private void recordSubmission(SubmissionGradedEvent event) {
+        Submission submission = submissionRepository.findById(event.submissionId()).orElse(null);
+        if (submission == null) {
+            return;
+        }
+        List<Question> questions = questionRepository.findByExamOrderById(submission.getExam());
+        if (questions.isEmpty()) {
+            return;
+        }
+
+        SubmissionAnswers answers = submissionAnswersCodec.read(submission);
+        long timeShare = timeShare(submission, questions.size());
+        Map<Long, QuestionStats> stats = lockStats(questions);
+
+        for (Question question : questions) {
+            int earned = event.earnedPoints().getOrDefault(question.getId(), 0);
+            accumulate(stats.get(question.getId()), question, answers.get(question.getId()),
+                    earned, timeShare, submission.getSubmissionTime());
+        }
+
+        analyticsResultCache.invalidateCourse(courseId(submission.getExam()));
+    }
+
+    /**
+     * In-memory stats for the given questions over the given submissions, graded the same way
+     * the incremental path grades them.
+     */
+    private Map<Long, QuestionStats> aggregate(List<Question> questions, List<Submission> submissions) {
+        Map<Long, QuestionStats> stats = new HashMap<>();
+        for (Question question : questions) {
+            stats.put(question.getId(), new QuestionStats(question.getId(), question.getExam().getId()));
+        }
+
+        for (Submission submission : submissions) {
+            SubmissionAnswers answers = submissionAnswersCodec.read(submission);
+            Map<String, Object> manualGrades = parseManualGrades(submission.getManualGradesJson());
+            long timeShare = timeShare(submission, questions.size());
+
+            for (Question question : questions) {
+                Object answer = answers.get(question.getId());
+                accumulate(stats.get(question.getId()), question, answer,
+                        earnedPoints(question, answer, manualGrades), timeShare, submission.getSubmissionTime());
+            }
+        }
+        return stats;
+    }
+
+    private void accumulate(QuestionStats stats, Question question, Object answer, int earned,
+                            long timeShare, LocalDateTime submittedAt) {
+        stats.setAttempts(stats.getAttempts() + 1);
+        if (answer != null) {
+            stats.setAnswered(stats.getAnswered() + 1);
+            if (OPTION_TYPES.contains(question.getQuestionType())) {
+                stats.getAnswerCounts().merge(answerKey(answer), 1L, Long::sum);
+            }
+        }
+        addScore(stats, question.getPoints(), earned, 1);
+        stats.setPossiblePoints(stats.getPossiblePoints() + pointsOf(question));
+        stats.setTimeSpentSeconds(stats.getTimeSpentSeconds() + timeShare);
+
+        if (submittedAt != null) {
+            if (stats.getFirstAttemptAt() == null || submittedAt.isBefore(stats.getFirstAttemptAt())) {
+                stats.setFirstAttemptAt(submittedAt);
+            }
+            if (stats.getLastAttemptAt() == null || submittedAt.isAfter(stats.getLastAttemptAt())) {
+                stats.setLastAttemptAt(submittedAt);
+            }
+        }
+        stats.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void addScore(QuestionStats stats, Integer points, int earned, int sign) {
+        int possible = points != null ? points : 0;
+        if (possible > 0) {
+            if (earned >= possible) {
+                stats.setCorrect(stats.getCorrect() + sign);
+            }
+            if (earned * 2 >= possible) {
+                stats.setHalfCredit(stats.getHalfCredit() + sign);
+            }
+        }
+        stats.setEarnedPoints(stats.getEarnedPoints() + (long) sign * earned);
+    }
+
+    /**
+     * Points for one answer: the manual grade for essay / short-answer questions once the
+     * submission has been graded by hand, otherwise the automatic grade.
+     */
+    private int earnedPoints(Question question, Object answer, Map<String, Object> manualGrades) {
+        if (manualGrades != null && MANUAL_TYPES.contains(question.getQuestionType())) {
+            Object grade = manualGrades.get(question.getId().toString());
+            if (grade instanceof Number) {
+                return Math.max(0, Math.min(((Number) grade).intValue(), pointsOf(question)));
+            }
+            return 0;
+        }
+        return examService.gradeAnswer(question, answer);
+    }
+
+    private Map<Long, QuestionStats> lockStats(List<Question> questions) {
+        Map<Long, QuestionStats> stats = new HashMap<>();
+        for (QuestionStats questionStats : questionStatsRepository.findAllForUpdate(ids(questions))) {
+            stats.put(questionStats.getQuestionId(), questionStats);
+        }
+        for (Question question : questions) {
+            if (!stats.containsKey(question.getId())) {
+                QuestionStats created = new QuestionStats(question.getId(), question.getExam().getId());
+                stats.put(question.getId(), questionStatsRepository.save(created));
+            }
+        }
+        return stats;
+    }
+
+    private void copyCounters(QuestionStats from, QuestionStats to) {
+        to.setExamId(from.getExamId());
+        to.setAttempts(from.getAttempts());
+        to.setAnswered(from.getAnswered());
+        to.setCorrect(from.getCorrect());
+        to.setHalfCredit(from.getHalfCredit());
+        to.setEarnedPoints(from.getEarnedPoints());
+        to.setPossiblePoints(from.getPossiblePoints());
+        to.setTimeSpentSeconds(from.getTimeSpentSeconds());
+        to.getAnswerCounts().clear();
+        to.getAnswerCounts().putAll(from.getAnswerCounts());
+        to.setFirstAttemptAt(from.getFirstAttemptAt());
+        to.setLastAttemptAt(from.getLastAttemptAt());
+        to.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private Map<String, Object> parseManualGrades(String manualGradesJson) {
+        if (manualGradesJson == null || manualGradesJson.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(manualGradesJson, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            logger.warn("Ignoring unreadable manual grades: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String answerKey(Object answer) {
+        if (answer instanceof Number) {
+            return String.valueOf(((Number) answer).longValue());
+        }
+        return answer.toString().trim();
+    }
+
+    private long timeShare(Submission submission, int questionCount) {
+        return submission.getTimeSpent() != null && questionCount > 0 ? submission.getTimeSpent() / questionCount : 0;
+    }
+
+    private int pointsOf(Question question) {
+        return question.getPoints() != null ? question.getPoints() : 0;
+    }
+
+    private Long courseId(Exam exam) {
+        return exam.getLesson() != null && exam.getLesson().getCourse() != null
+                ? exam.getLesson().getCourse().getId()
+                : null;
+    }
+
+    private List<Long> ids(Collection<Question> questions) {
+        List<Long> ids = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            ids.add(question.getId());
+        }
+        return ids;
+    }
+}
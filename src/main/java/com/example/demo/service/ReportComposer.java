@@ -0,0 +1,229 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds multi-section reports whose sections run concurrently. A report is declared as a
+ * {@link Plan} of named sections, each with the sections it reads; a section starts as soon as
+ * everything it depends on is done, so independent sections overlap and a report takes about as
+ * long as its slowest chain rather than the sum of its sections.
+ *
+ * Every section runs on a bounded pool in its own read-only transaction, so it must load the
+ * entities it touches itself; values handed between sections are detached. A section that fails,
+ * runs past the timeout or finds the pool's queue full is left out of the report and named under
+ * {@code failedSections}, as is every section that depends on it. A timed-out section is cancelled
+ * (see {@link StatementCancellation}), so it does not keep its thread and connection.
+ */
+@Service
+public class ReportComposer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportComposer.class);
+
+    public static final String FAILED_SECTIONS = "failedSections";
+
+    private final ExecutorService executor;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration sectionTimeout;
+
+    public ReportComposer(
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            MeterRegistry meterRegistry,
+            @Value("${lms.reports.section-threads:4}") int sectionThreads,
+            @Value("${lms.reports.section-queue:100}") int sectionQueue,
+            @Value("${lms.reports.section-timeout:PT10S}") Duration sectionTimeout) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.sectionTimeout = sectionTimeout;
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        // Once the queue is full sections are rejected and reported as failed, rather than run on the
+        // submitting thread, which may be a request thread or the common pool
+        this.executor = new ThreadPoolExecutor(sectionThreads, sectionThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(sectionQueue), runnable -> {
+            Thread thread = new Thread(runnable, "report-section-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        new ExecutorServiceMetrics(executor, "report-sections", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public Plan plan(String report) {
+        return new Plan(report);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sections of one report, in declaration order; a section may only depend on sections declared
+     * before it.
+     */
+    public final class Plan {
+
+        private final String report;
+        private final Map<String, Section> sections = new LinkedHashMap<>();
+
+        private Plan(String report) {
+            this.report = report;
+        }
+
+        /**
+         * A value other sections read but that is not part of the report itself.
+         */
+        public Plan input(String name, Supplier<?> loader) {
+            return add(name, List.of(), inputs -> loader.get(), false);
+        }
+
+        public Plan section(String name, Supplier<?> compute) {
+            return add(name, List.of(), inputs -> compute.get(), true);
+        }
+
+        /**
+         * A section computed from the results of {@code dependsOn}, passed in by name.
+         */
+        public Plan section(String name, List<String> dependsOn, Function<Map<String, Object>, ?> compute) {
+            return add(name, dependsOn, compute, true);
+        }
+
+        private Plan add(String name, List<String> dependsOn, Function<Map<String, Object>, ?> compute, boolean published) {
+            for (String dependency : dependsOn) {
+                if (!sections.containsKey(dependency)) {
+                    throw new IllegalArgumentException("Section " + name + " depends on undeclared section " + dependency);
+                }
+            }
+            if (sections.putIfAbsent(name, new Section(dependsOn, compute, published)) != null) {
+                throw new IllegalArgumentException("Duplicate section " + name);
+            }
+            return this;
+        }
+
+        /**
+         * Runs every section and returns the published ones by name.
+         */
+        public Map<String, Object> run() {
+            Map<String, CompletableFuture<Object>> futures = new HashMap<>();
+            sections.forEach((name, section) -> futures.put(name, start(name, section, futures)));
+
+            Map<String, Object> result = new HashMap<>();
+            List<String> failed = new ArrayList<>();
+            sections.forEach((name, section) -> {
+                try {
+                    Object value = futures.get(name).join();
+                    if (section.published) {
+                        result.put(name, value);
+                    }
+                } catch (CompletionException e) {
+                    if (section.published) {
+                        failed.add(name);
+                    }
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    if (!(cause instanceof DependencyFailedException)) {
+                        logger.warn("Section {} of report {} failed: {}", name, report, describe(cause));
+                    }
+                }
+            });
+            if (!failed.isEmpty()) {
+                result.put(FAILED_SECTIONS, failed);
+            }
+            return result;
+        }
+
+        private CompletableFuture<Object> start(String name, Section section, Map<String, CompletableFuture<Object>> futures) {
+            List<CompletableFuture<Object>> dependencies = section.dependsOn.stream().map(futures::get).toList();
+            return CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(e -> {
+                        throw new DependencyFailedException(name);
+                    })
+                    .thenCompose(ignored -> {
+                        Map<String, Object> inputs = new HashMap<>();
+                        for (int i = 0; i < section.dependsOn.size(); i++) {
+                            inputs.put(section.dependsOn.get(i), dependencies.get(i).join());
+                        }
+                        return submit(section, inputs);
+                    });
+        }
+
+        /**
+         * Runs the section on the pool; on timeout a queued section is dropped and a running one
+         * has its statements cancelled.
+         */
+        private CompletableFuture<Object> submit(Section section, Map<String, Object> inputs) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            StatementCancellation cancellation = new StatementCancellation();
+            Future<?> running = executor.submit(() -> {
+                try {
+                    result.complete(transactionTemplate.execute(status -> {
+                        cancellation.attach(EntityManagerFactoryUtils
+                                .getTransactionalEntityManager(entityManagerFactory).unwrap(Session.class));
+                        return section.compute.apply(inputs);
+                    }));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            result.orTimeout(sectionTimeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((value, e) -> {
+                if (e instanceof TimeoutException) {
+                    running.cancel(false);
+                    cancellation.cancel();
+                }
+            });
+            return result;
+        }
+
+        private String describe(Throwable cause) {
+            if (cause instanceof TimeoutException) {
+                return "timed out after " + sectionTimeout;
+            }
+            if (cause instanceof RejectedExecutionException) {
+                return "section pool is full";
+            }
+            return cause.toString();
+        }
+    }
+
+    private record Section(List<String> dependsOn, Function<Map<String, Object>, ?> compute, boolean published) {
+    }
+
+    private static final class DependencyFailedException extends RuntimeException {
+        private DependencyFailedException(String section) {
+            super("A dependency of section " + section + " failed", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method again, in a fresh transaction, when it loses an optimistic lock
+ * (another request saved the same versioned entity first). See {@link RetryOnConflictAspect}.
+ *
+ * Only the outermost call retries: inside an existing transaction the conflict surfaces when
+ * that transaction commits, so it is left to the caller.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /**
+     * Total number of attempts, the first one included.
+     */
+    int attempts() default 5;
+}
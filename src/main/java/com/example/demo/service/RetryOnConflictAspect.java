@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Implements {@link RetryOnConflict}. Ordered just ahead of the transaction interceptor (which
+ * runs at the lowest precedence), so each attempt gets its own transaction and reloads the
+ * entity; the conflict itself is only detected when that transaction flushes.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryOnConflictAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryOnConflictAspect.class);
+
+    private static final long BACKOFF_MILLIS = 50;
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryOnConflictAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retryOnConflict.attempts()) {
+                    throw e;
+                }
+                logger.debug("{} lost an optimistic lock, retrying (attempt {})",
+                        joinPoint.getSignature().toShortString(), attempt + 1);
+                Counter.builder("lms.optimistic-lock.retries")
+                        .description("Calls run again after losing an optimistic lock")
+                        .tag("method", joinPoint.getSignature().getDeclaringType().getSimpleName()
+                                + "." + joinPoint.getSignature().getName())
+                        .register(meterRegistry)
+                        .increment();
+                // Random, growing pause so the writers that collided do not collide again
+                Thread.sleep(ThreadLocalRandom.current().nextLong(BACKOFF_MILLIS) * attempt);
+            }
+        }
+    }
+}
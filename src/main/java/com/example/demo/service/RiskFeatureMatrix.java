@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.analytics.RiskAverages;
+import com.example.demo.dto.analytics.RiskFactors;
+import com.example.demo.dto.analytics.StudentRiskMetrics;
+
+/**
+ * Inputs of the at-risk score for one course, column by column: row {@code i} of every array is the
+ * i-th student with progress in the course. {@link AnalyticsService} fills the columns from a few
+ * course-wide queries; averages and scores are then plain loops over primitive arrays.
+ *
+ * Weights: progress 50, grade 35, attendance 15 points, each scaled by how far the student is below
+ * the course average. A score of 50 or more puts the student at risk.
+ */
+final class RiskFeatureMatrix {
+
+    static final double AT_RISK_THRESHOLD = 50.0;
+
+    private static final double PROGRESS_WEIGHT = 50.0;
+    private static final double GRADE_WEIGHT = 35.0;
+    private static final double ATTENDANCE_WEIGHT = 15.0;
+
+    final int size;
+    /** Completed share of the course's contents, exams and assignments, 0-100 */
+    final double[] progress;
+    /** Mean exam score, mean graded assignment score, or the mean of both when there are both */
+    final double[] grade;
+    /** Distinct days with any activity in the period */
+    final double[] attendance;
+
+    final double[] progressFactor;
+    final double[] gradeFactor;
+    final double[] attendanceFactor;
+    final double[] riskScore;
+    final String[] riskLevel;
+
+    RiskFeatureMatrix(int size) {
+        this.size = size;
+        this.progress = new double[size];
+        this.grade = new double[size];
+        this.attendance = new double[size];
+        this.progressFactor = new double[size];
+        this.gradeFactor = new double[size];
+        this.attendanceFactor = new double[size];
+        this.riskScore = new double[size];
+        this.riskLevel = new String[size];
+    }
+
+    /**
+     * Course averages; students without a positive grade are left out of the grade average.
+     */
+    RiskAverages averages() {
+        double progressSum = 0.0;
+        double gradeSum = 0.0;
+        double attendanceSum = 0.0;
+        int graded = 0;
+        for (int i = 0; i < size; i++) {
+            progressSum += progress[i];
+            attendanceSum += attendance[i];
+            if (grade[i] > 0) {
+                gradeSum += grade[i];
+                graded++;
+            }
+        }
+        return new RiskAverages(
+                size > 0 ? progressSum / size : 0.0,
+                graded > 0 ? gradeSum / graded : 0.0,
+                size > 0 ? attendanceSum / size : 0.0);
+    }
+
+    /**
+     * Fills the factor and score columns, rounded to one decimal, and the risk levels.
+     */
+    void score(RiskAverages averages) {
+        deficit(progress, averages.avgProgress(), PROGRESS_WEIGHT, progressFactor);
+        deficit(grade, averages.avgGrade(), GRADE_WEIGHT, gradeFactor);
+        deficit(attendance, averages.avgAttendance(), ATTENDANCE_WEIGHT, attendanceFactor);
+        for (int i = 0; i < size; i++) {
+            double total = progressFactor[i] + gradeFactor[i] + attendanceFactor[i];
+            riskScore[i] = round(total);
+            riskLevel[i] = level(total);
+        }
+        for (int i = 0; i < size; i++) {
+            progressFactor[i] = round(progressFactor[i]);
+            gradeFactor[i] = round(gradeFactor[i]);
+            attendanceFactor[i] = round(attendanceFactor[i]);
+        }
+    }
+
+    // (average - value) / average * weight for values below the average, 0 otherwise
+    private void deficit(double[] values, double average, double weight, double[] out) {
+        if (average <= 0) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            out[i] = values[i] < average ? Math.min(weight, (average - values[i]) / average * weight) : 0.0;
+        }
+    }
+
+    StudentRiskMetrics metrics(int row) {
+        return new StudentRiskMetrics(progress[row], grade[row], attendance[row]);
+    }
+
+    RiskFactors factors(int row) {
+        return new RiskFactors(progressFactor[row], gradeFactor[row], attendanceFactor[row]);
+    }
+
+    private static String level(double riskScore) {
+        if (riskScore >= 75.0) {
+            return "HIGH";
+        } else if (riskScore >= AT_RISK_THRESHOLD) {
+            return "MEDIUM";
+        } else if (riskScore >= 25.0) {
+            return "LOW";
+        }
+        return "NONE";
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10.0) / 10.0;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.analytics.ScoreStatistics;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import com.example.demo.util.AnalyticsUtils;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -16,9 +18,13 @@ import java.util.stream.Collectors;
  * Handles exam scores, grade distributions, and student performance metrics
  */
 @Service
+@Timed("lms.analytics")
 public class ScoreAnalyticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(ScoreAnalyticsService.class);
+    // Exams are scored out of 100, assignments out of 20
+    private static final double EXAM_MAX_SCORE = 100.0;
+    private static final double ASSIGNMENT_MAX_SCORE = 20.0;
 
     private final SubmissionRepository submissionRepository;
     private final AssignmentSubmissionRepository assignmentSubmissionRepository;
@@ -53,66 +59,31 @@ public class ScoreAnalyticsService {
         LocalDateTime endDate = LocalDateTime.now();
         LocalDateTime startDate = AnalyticsUtils.calculateStartDate(endDate, period);
 
-        // Get exam submissions for this course
-        List<Submission> submissions;
-        if (examId != null) {
-            // Filter by specific exam
-            submissions = submissionRepository.findAll().stream()
-                    .filter(s -> s.getExam() != null && s.getExam().getId().equals(examId))
-                    .filter(s -> s.getSubmissionTime() != null)
-                    .filter(s -> !s.getSubmissionTime().isBefore(startDate) && !s.getSubmissionTime().isAfter(endDate))
-                    .collect(Collectors.toList());
-        } else {
-            // All exams in the course
-            submissions = submissionRepository.findAll().stream()
-                    .filter(s -> s.getExam() != null &&
-                            s.getExam().getLesson() != null &&
-                            s.getExam().getLesson().getCourse() != null &&
-                            s.getExam().getLesson().getCourse().getId().equals(courseId))
-                    .filter(s -> s.getSubmissionTime() != null)
-                    .filter(s -> !s.getSubmissionTime().isBefore(startDate) && !s.getSubmissionTime().isAfter(endDate))
-                    .collect(Collectors.toList());
-        }
-
-        // Calculate statistics
-        List<Integer> scores = submissions.stream()
-                .map(Submission::getScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        double averageScore = scores.isEmpty() ? 0 :
-                scores.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        int maxScore = scores.isEmpty() ? 0 :
-                scores.stream().mapToInt(Integer::intValue).max().orElse(0);
-        int minScore = scores.isEmpty() ? 0 :
-                scores.stream().mapToInt(Integer::intValue).min().orElse(0);
+        // An exam's statistics are still scoped to this course
+        ScoreStatistics statistics = examStatistics(courseId, examId, null, startDate, endDate);
 
         result.put("courseId", courseId);
         result.put("courseName", course.getTitle());
         result.put("period", period);
-        result.put("totalSubmissions", submissions.size());
-        result.put("averageScore", AnalyticsUtils.roundTo2Decimals(averageScore));
-        result.put("maxScore", maxScore);
-        result.put("minScore", minScore);
+        result.put("totalSubmissions", (int) statistics.total());
+        result.put("averageScore", AnalyticsUtils.roundTo2Decimals(statistics.average()));
+        result.put("maxScore", statistics.max());
+        result.put("minScore", statistics.min());
 
         // Grade distribution
-        Map<String, Integer> gradeDistribution = calculateExamGradeDistribution(submissions);
-        result.put("gradeDistribution", gradeDistribution);
-
-        if (includeDetails && examId != null) {
-            // Include detailed student scores
-            List<Map<String, Object>> studentScores = submissions.stream()
-                    .map(submission -> {
-                        Map<String, Object> scoreData = new HashMap<>();
-                        scoreData.put("studentId", submission.getStudent().getId());
-                        scoreData.put("studentName", submission.getStudent().getFirstName() + " " +
-                                submission.getStudent().getLastName());
-                        scoreData.put("score", submission.getScore());
-                        scoreData.put("submittedAt", submission.getSubmissionTime());
-                        return scoreData;
-                    })
-                    .sorted((a, b) -> Integer.compare((Integer) b.get("score"), (Integer) a.get("score")))
-                    .collect(Collectors.toList());
+        result.put("gradeDistribution", statistics.distribution());
+
+        if (includeDetails && examId != null && statistics.total() > 0) {
+            // Include detailed student scores, best first
+            List<Map<String, Object>> studentScores = new ArrayList<>();
+            for (Object[] row : submissionRepository.findStudentScoresByExamId(examId, startDate, endDate)) {
+                Map<String, Object> scoreData = new HashMap<>();
+                scoreData.put("studentId", row[0]);
+                scoreData.put("studentName", row[1] + " " + row[2]);
+                scoreData.put("score", row[3]);
+                scoreData.put("submittedAt", row[4]);
+                studentScores.add(scoreData);
+            }
 
             result.put("studentScores", studentScores);
         }
@@ -166,38 +137,17 @@ public class ScoreAnalyticsService {
 
         Map<String, Object> result = new HashMap<>();
 
-        // Get exam submissions
-        List<Submission> examSubmissions = submissionRepository.findAll().stream()
-                .filter(s -> s.getStudent().getId().equals(studentId))
-                .filter(s -> s.getScore() != null)
-                .filter(s -> s.getSubmissionTime() != null)
-                .filter(s -> !s.getSubmissionTime().isBefore(startDate) && !s.getSubmissionTime().isAfter(endDate))
-                .filter(s -> courseId == null || (s.getExam() != null &&
-                        s.getExam().getLesson() != null &&
-                        s.getExam().getLesson().getCourse() != null &&
-                        s.getExam().getLesson().getCourse().getId().equals(courseId)))
-                .collect(Collectors.toList());
-
-        // Get assignment submissions
-        List<AssignmentSubmission> assignmentSubmissions = assignmentSubmissionRepository.findAll().stream()
-                .filter(s -> s.getStudent().getId().equals(studentId))
-                .filter(s -> s.getScore() != null)
-                .filter(s -> s.getSubmittedAt() != null)
-                .filter(s -> !s.getSubmittedAt().isBefore(startDate) && !s.getSubmittedAt().isAfter(endDate))
-                .filter(s -> courseId == null || (s.getAssignment() != null &&
-                        s.getAssignment().getLesson() != null &&
-                        s.getAssignment().getLesson().getCourse() != null &&
-                        s.getAssignment().getLesson().getCourse().getId().equals(courseId)))
-                .collect(Collectors.toList());
+        ScoreStatistics examStatistics = examStatistics(courseId, null, studentId, startDate, endDate);
+        ScoreStatistics assignmentStatistics = assignmentStatistics(courseId, studentId, startDate, endDate);
 
         // Calculate enhanced distributions
-        Map<String, Object> examDistribution = calculateEnhancedExamGradeDistribution(examSubmissions);
-        Map<String, Object> assignmentDistribution = calculateEnhancedAssignmentGradeDistribution(assignmentSubmissions);
+        Map<String, Object> examDistribution = enhancedDistribution(examStatistics, "Score");
+        Map<String, Object> assignmentDistribution = enhancedDistribution(assignmentStatistics, "Grade");
 
         result.put("examGrades", examDistribution);
         result.put("assignmentGrades", assignmentDistribution);
-        result.put("totalExams", examSubmissions.size());
-        result.put("totalAssignments", assignmentSubmissions.size());
+        result.put("totalExams", (int) examStatistics.scored());
+        result.put("totalAssignments", (int) assignmentStatistics.scored());
 
         return result;
     }
@@ -214,27 +164,11 @@ public class ScoreAnalyticsService {
 
         Map<String, Object> result = new HashMap<>();
 
-        // Get exam submissions
-        List<Submission> examSubmissions = submissionRepository.findAll().stream()
-                .filter(s -> s.getStudent().getId().equals(studentId))
-                .filter(s -> s.getScore() != null)
-                .filter(s -> s.getSubmissionTime() != null)
-                .filter(s -> !s.getSubmissionTime().isBefore(startDate) && !s.getSubmissionTime().isAfter(endDate))
-                .filter(s -> courseId == null || (s.getExam() != null &&
-                        s.getExam().getLesson() != null &&
-                        s.getExam().getLesson().getCourse() != null &&
-                        s.getExam().getLesson().getCourse().getId().equals(courseId)))
-                .collect(Collectors.toList());
-
-        List<Integer> examScores = examSubmissions.stream()
-                .map(Submission::getScore)
-                .collect(Collectors.toList());
-
-        Map<String, Integer> examGradeDistribution = calculateGradeDistribution(examScores, 100.0);
+        ScoreStatistics examStatistics = examStatistics(courseId, null, studentId, startDate, endDate);
 
         result.put("examGrades", Map.of(
-                "distribution", examGradeDistribution,
-                "total", examSubmissions.size()
+                "distribution", examStatistics.distribution(),
+                "total", (int) examStatistics.scored()
         ));
 
         return result;
@@ -242,116 +176,39 @@ public class ScoreAnalyticsService {
 
     // ==================== Private Helper Methods ====================
 
-    /**
-     * Calculate grade distribution from exam submissions
-     */
-    private Map<String, Integer> calculateExamGradeDistribution(List<Submission> examSubmissions) {
-        List<Integer> scores = examSubmissions.stream()
-                .map(Submission::getScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        return calculateGradeDistribution(scores, 100.0);
+    private ScoreStatistics examStatistics(Long courseId, Long examId, Long studentId,
+                                           LocalDateTime start, LocalDateTime end) {
+        return ScoreStatistics.fromRow(submissionRepository.scoreStatistics(courseId, examId, studentId, start, end,
+                GradeCategory.AVERAGE.getMinScore(EXAM_MAX_SCORE),
+                GradeCategory.GOOD.getMinScore(EXAM_MAX_SCORE),
+                GradeCategory.EXCELLENT.getMinScore(EXAM_MAX_SCORE)).get(0));
     }
 
-    /**
-     * Calculate grade distribution from assignment submissions
-     */
-    private Map<String, Integer> calculateAssignmentGradeDistribution(List<AssignmentSubmission> assignmentSubmissions) {
-        List<Integer> grades = assignmentSubmissions.stream()
-                .map(AssignmentSubmission::getScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        return calculateGradeDistribution(grades, 20.0);
+    private ScoreStatistics assignmentStatistics(Long courseId, Long studentId, LocalDateTime start, LocalDateTime end) {
+        return ScoreStatistics.fromRow(assignmentSubmissionRepository.scoreStatistics(courseId, studentId, start, end,
+                GradeCategory.AVERAGE.getMinScore(ASSIGNMENT_MAX_SCORE),
+                GradeCategory.GOOD.getMinScore(ASSIGNMENT_MAX_SCORE),
+                GradeCategory.EXCELLENT.getMinScore(ASSIGNMENT_MAX_SCORE)).get(0));
     }
 
     /**
-     * Calculate grade distribution with percentage-based categories
+     * Distribution with average/max/min, named averageScore etc. for exams and averageGrade etc. for assignments
      */
-    private Map<String, Integer> calculateGradeDistribution(List<Integer> scores, double maxScore) {
-        Map<String, Integer> distribution = new HashMap<>();
-
-        // Initialize all categories
-        for (GradeCategory category : GradeCategory.values()) {
-            distribution.put(category.name().toLowerCase(), 0);
-        }
-
-        // Categorize scores
-        for (Integer score : scores) {
-            if (score == null) continue;
-
-            double percentage = GradeCategory.calculatePercentage(score, maxScore);
-            GradeCategory category = GradeCategory.fromPercentage(percentage);
-            String categoryName = category.name().toLowerCase();
-            distribution.put(categoryName, distribution.get(categoryName) + 1);
-        }
-
-        return distribution;
-    }
-
-    /**
-     * Calculate enhanced exam grade distribution with details
-     */
-    private Map<String, Object> calculateEnhancedExamGradeDistribution(List<Submission> examSubmissions) {
+    private Map<String, Object> enhancedDistribution(ScoreStatistics statistics, String suffix) {
         Map<String, Object> result = new HashMap<>();
 
-        if (examSubmissions.isEmpty()) {
+        if (statistics.scored() == 0) {
             result.put("distribution", new HashMap<String, Integer>());
-            result.put("averageScore", 0.0);
-            result.put("maxScore", 0);
-            result.put("minScore", 0);
+            result.put("average" + suffix, 0.0);
+            result.put("max" + suffix, 0);
+            result.put("min" + suffix, 0);
             return result;
         }
 
-        List<Integer> scores = examSubmissions.stream()
-                .map(Submission::getScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        Map<String, Integer> distribution = calculateGradeDistribution(scores, 100.0);
-
-        double averageScore = scores.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        int maxScore = scores.stream().mapToInt(Integer::intValue).max().orElse(0);
-        int minScore = scores.stream().mapToInt(Integer::intValue).min().orElse(0);
-
-        result.put("distribution", distribution);
-        result.put("averageScore", AnalyticsUtils.roundTo2Decimals(averageScore));
-        result.put("maxScore", maxScore);
-        result.put("minScore", minScore);
-
-        return result;
-    }
-
-    /**
-     * Calculate enhanced assignment grade distribution with details
-     */
-    private Map<String, Object> calculateEnhancedAssignmentGradeDistribution(List<AssignmentSubmission> assignmentSubmissions) {
-        Map<String, Object> result = new HashMap<>();
-
-        if (assignmentSubmissions.isEmpty()) {
-            result.put("distribution", new HashMap<String, Integer>());
-            result.put("averageGrade", 0.0);
-            result.put("maxGrade", 0);
-            result.put("minGrade", 0);
-            return result;
-        }
-
-        List<Integer> grades = assignmentSubmissions.stream()
-                .map(AssignmentSubmission::getScore)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        Map<String, Integer> distribution = calculateGradeDistribution(grades, 20.0);
-
-        double averageGrade = grades.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        int maxGrade = grades.stream().mapToInt(Integer::intValue).max().orElse(0);
-        int minGrade = grades.stream().mapToInt(Integer::intValue).min().orElse(0);
-
-        result.put("distribution", distribution);
-        result.put("averageGrade", AnalyticsUtils.roundTo2Decimals(averageGrade));
-        result.put("maxGrade", maxGrade);
-        result.put("minGrade", minGrade);
+        result.put("distribution", statistics.distribution());
+        result.put("average" + suffix, AnalyticsUtils.roundTo2Decimals(statistics.average()));
+        result.put("max" + suffix, statistics.max());
+        result.put("min" + suffix, statistics.min());
 
         return result;
     }
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesces concurrent calls of the annotated method with equal arguments: the first caller runs
+ * the method and everyone who arrives while it is running gets the same result (or exception)
+ * instead of computing it again. See {@link SingleFlightAspect}.
+ *
+ * Arguments must have value equality (ids, strings, enums, collections of them), and the result
+ * is shared: a Map or List result comes back unmodifiable, and nested values must not be modified.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SingleFlight {
+
+    /**
+     * How long a successful result keeps being handed out after the call finishes; 0 shares it
+     * only with callers that arrived while it was running.
+     */
+    long ttlMillis() default 0;
+
+    /**
+     * How long a caller waits for the running call before giving up on it and running the method
+     * itself.
+     */
+    long waitMillis() default 60_000;
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Implements {@link SingleFlight}: one in-flight future per (method, arguments). The caller that
+ * registers the future runs the method on its own thread; callers that find it wait for it, up to
+ * {@link SingleFlight#waitMillis()}, and then run the method themselves. A Map or List result is
+ * handed out, to every caller, as an unmodifiable copy.
+ */
+@Aspect
+@Component
+public class SingleFlightAspect {
+
+    private final Map<FlightKey, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public SingleFlightAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(singleFlight)")
+    public Object coalesce(ProceedingJoinPoint joinPoint, SingleFlight singleFlight) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        FlightKey key = new FlightKey(method, Arrays.asList(joinPoint.getArgs()));
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            try {
+                Object result = existing.get(singleFlight.waitMillis(), TimeUnit.MILLISECONDS);
+                coalescedCounter(method).increment();
+                return result;
+            } catch (TimeoutException e) {
+                return joinPoint.proceed();
+            } catch (ExecutionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        }
+
+        try {
+            Object result = shared(joinPoint.proceed());
+            flight.complete(result);
+            if (singleFlight.ttlMillis() > 0) {
+                CompletableFuture.delayedExecutor(singleFlight.ttlMillis(), TimeUnit.MILLISECONDS)
+                        .execute(() -> flights.remove(key, flight));
+            } else {
+                flights.remove(key, flight);
+            }
+            return result;
+        } catch (Throwable e) {
+            // Failures are handed to the callers already waiting but never kept
+            flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object shared(Object result) {
+        if (result instanceof Map<?, ?> map) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+        }
+        if (result instanceof List<?> list) {
+            return Collections.unmodifiableList(new ArrayList<>(list));
+        }
+        return result;
+    }
+
+    private Counter coalescedCounter(Method method) {
+        return Counter.builder("lms.singleflight.coalesced")
+                .description("Calls answered by an identical call that was already running")
+                .tag("method", method.getDeclaringClass().getSimpleName() + "." + method.getName())
+                .register(meterRegistry);
+    }
+
+    private record FlightKey(Method method, List<Object> args) {
+    }
+}
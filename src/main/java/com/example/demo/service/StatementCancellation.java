@@ -0,0 +1,57 @@
+package com.example.demo.service;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Stops database work running on a pool thread from another thread: cancels the statement the
+ * attached session is executing and fails every statement it prepares afterwards. Used instead of
+ * interrupting the thread, which closes H2's file channel under a running query and with it the
+ * database.
+ */
+final class StatementCancellation extends BaseSessionEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCancellation.class);
+
+    private volatile boolean cancelled;
+    private volatile Session session;
+
+    /**
+     * Watch {@code session}; called on the worker thread once it has a session.
+     */
+    void attach(Session session) {
+        session.addEventListeners(this);
+        this.session = session;
+        if (cancelled) {
+            cancelRunning(session);
+        }
+    }
+
+    void cancel() {
+        cancelled = true;
+        Session current = session;
+        if (current != null) {
+            cancelRunning(current);
+        }
+    }
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        if (cancelled) {
+            throw new CancellationException("Cancelled after timing out");
+        }
+    }
+
+    private void cancelRunning(Session session) {
+        try {
+            session.cancelQuery();
+        } catch (RuntimeException e) {
+            // No statement running, or it finished meanwhile
+            logger.debug("Could not cancel the running statement: {}", e.getMessage());
+        }
+    }
+}
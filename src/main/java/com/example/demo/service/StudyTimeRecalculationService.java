@@ -0,0 +1,204 @@
+package com.example.demo.service;
+
+import com.example.demo.event.ProgressChangedEvent;
+import com.example.demo.repository.ActivityLogRepository;
+import com.example.demo.repository.ProgressRepository;
+import com.example.demo.util.AnalyticsUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recomputes {@code Progress.totalStudyTime} (time spent on course-tagged activity during the
+ * last month) for every student and course. Study time is summed with one grouped query over the
+ * activity log, and progress rows are walked in id order and written in JDBC batches, only where
+ * the value changed. Runs in the background, one run at a time, and nightly. The batches bypass
+ * the entity listeners, so each course with changed rows gets one course-wide
+ * {@link ProgressChangedEvent} at the end of the run.
+ */
+@Service
+public class StudyTimeRecalculationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudyTimeRecalculationService.class);
+
+    private final ActivityLogRepository activityLogRepository;
+    private final ProgressRepository progressRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile String state = "IDLE";
+    private volatile long total;
+    private volatile long processed;
+    private volatile long updated;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+
+    public StudyTimeRecalculationService(
+            ActivityLogRepository activityLogRepository,
+            ProgressRepository progressRepository,
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${lms.study-time.chunk-size:500}") int chunkSize) {
+        this.activityLogRepository = activityLogRepository;
+        this.progressRepository = progressRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        // A plain pool rather than newSingleThreadExecutor, whose wrapper hides the queue from metrics
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "study-time-recalculation");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        new ExecutorServiceMetrics(executor, "study-time-recalculation", Tags.empty()).bindTo(meterRegistry);
+        Gauge.builder("lms.study-time.recalculation.remaining", this, service -> service.running.get()
+                        ? Math.max(0, service.total - service.processed) : 0)
+                .description("Progress rows still to be processed by the running study time recalculation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a recalculation in the background. Returns false when one is already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        begin();
+        executor.submit(this::run);
+        return true;
+    }
+
+    @Scheduled(cron = "${lms.study-time.recalculate-cron:0 0 4 * * *}", zone = "Asia/Tehran")
+    public void scheduledRecalculation() {
+        // On the recalculation thread, not the scheduler's: the scheduler has a single thread shared with
+        // the analytics cache flush and the other nightly jobs
+        if (running.compareAndSet(false, true)) {
+            begin();
+            executor.submit(this::run);
+        } else {
+            logger.info("Skipping scheduled study time recalculation, a run is already in progress");
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state);
+        status.put("total", total);
+        status.put("processed", processed);
+        status.put("updated", updated);
+        status.put("percent", total > 0 ? Math.round((double) processed / total * 1000) / 10.0 : 0.0);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void begin() {
+        state = "RUNNING";
+        total = 0;
+        processed = 0;
+        updated = 0;
+        error = null;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+    }
+
+    private void run() {
+        Set<Long> changedCourses = new HashSet<>();
+        try {
+            total = progressRepository.count();
+            Map<StudentCourse, Long> studyTimes = loadStudyTimes();
+
+            long afterId = 0L;
+            List<Object[]> chunk;
+            while (!(chunk = progressRepository.findStudyTimeChunk(afterId, PageRequest.of(0, chunkSize))).isEmpty()) {
+                List<Object[]> changes = new ArrayList<>();
+                for (Object[] row : chunk) {
+                    Long studentId = (Long) row[1];
+                    Long courseId = (Long) row[2];
+                    long studyTime = studyTimes.getOrDefault(new StudentCourse(studentId, courseId), 0L);
+                    if (!Objects.equals(row[3], studyTime)) {
+                        changes.add(new Object[]{studyTime, row[0]});
+                        changedCourses.add(courseId);
+                    }
+                }
+                if (!changes.isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            jdbcTemplate.batchUpdate("UPDATE progress SET total_study_time = ?, version = version + 1 WHERE id = ?", changes));
+                }
+                afterId = (Long) chunk.get(chunk.size() - 1)[0];
+                processed += chunk.size();
+                updated += changes.size();
+            }
+
+            state = "COMPLETED";
+            logger.info("Recalculated study times: {} progress rows, {} updated", processed, updated);
+        } catch (RuntimeException e) {
+            state = "FAILED";
+            error = e.getMessage();
+            logger.error("Study time recalculation failed after {} rows", processed, e);
+        } finally {
+            // Committed chunks stay written when a later one fails, so announce them either way
+            changedCourses.forEach(courseId -> eventPublisher.publishEvent(new ProgressChangedEvent(courseId, null)));
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private Map<StudentCourse, Long> loadStudyTimes() {
+        List<Object[]> rows = activityLogRepository.sumTimeSpentByUserAndCourse(
+                AnalyticsUtils.getIranTimeMinusMonths(1), AnalyticsUtils.getNowInIranTime());
+
+        Map<StudentCourse, Long> studyTimes = new HashMap<>();
+        for (Object[] row : rows) {
+            long seconds = row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            studyTimes.merge(new StudentCourse((Long) row[0], (Long) row[1]), seconds, Long::sum);
+        }
+        return studyTimes;
+    }
+
+    private record StudentCourse(Long studentId, Long courseId) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Submission;
+import com.example.demo.model.SubmissionAnswers;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads and writes submission answers. Answers are decoded with a streaming parser, so a caller
+ * that only needs a few questions can skip the rest of the document, and are stored Smile-encoded
+ * next to the JSON text; submissions saved before the binary column existed are read from the text.
+ */
+@Service
+public class SubmissionAnswersCodec {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionAnswersCodec.class);
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    public SubmissionAnswers read(Submission submission) {
+        return read(submission, null);
+    }
+
+    /**
+     * Answers of the submission, limited to the given question ids (all of them when null).
+     */
+    public SubmissionAnswers read(Submission submission, Collection<Long> questionIds) {
+        byte[] smile = submission.getAnswersSmile();
+        if (smile != null && smile.length > 0) {
+            try (JsonParser parser = smileMapper.createParser(smile)) {
+                return decode(parser, keys(questionIds));
+            } catch (IOException e) {
+                logger.warn("Unreadable binary answers for submission {}, falling back to JSON: {}",
+                        submission.getId(), e.getMessage());
+            }
+        }
+        return parse(submission.getAnswersJson(), questionIds);
+    }
+
+    public SubmissionAnswers parse(String answersJson) {
+        return parse(answersJson, null);
+    }
+
+    public SubmissionAnswers parse(String answersJson, Collection<Long> questionIds) {
+        if (answersJson == null || answersJson.trim().isEmpty()) {
+            return SubmissionAnswers.empty();
+        }
+
+        Set<String> wanted = keys(questionIds);
+        try (JsonParser parser = jsonMapper.createParser(answersJson)) {
+            return decode(parser, wanted);
+        } catch (IOException e) {
+            logger.warn("Failed to parse answers JSON, trying the lenient parser: {}", e.getMessage());
+            return new SubmissionAnswers(parseManually(answersJson, wanted));
+        }
+    }
+
+    public byte[] encode(SubmissionAnswers answers) {
+        try {
+            return smileMapper.writeValueAsBytes(answers.asMap());
+        } catch (IOException e) {
+            // The JSON text stays authoritative, so a missing binary copy only costs speed
+            logger.warn("Could not encode answers: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private SubmissionAnswers decode(JsonParser parser, Set<String> wanted) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Answers must be an object keyed by question id");
+        }
+
+        Map<String, Object> answers = new HashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String questionId = parser.currentName();
+            parser.nextToken();
+            if (wanted == null || wanted.contains(questionId)) {
+                answers.put(questionId, parser.readValueAs(Object.class));
+                if (wanted != null && answers.size() == wanted.size()) {
+                    break;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new SubmissionAnswers(answers);
+    }
+
+    /**
+     * Last resort for hand-written answer strings that are not valid JSON: flat key/value pairs only.
+     */
+    private Map<String, Object> parseManually(String answersJson, Set<String> wanted) {
+        Map<String, Object> answers = new HashMap<>();
+
+        // Remove outer braces and split by comma
+        String content = answersJson.trim();
+        if (content.startsWith("{") && content.endsWith("}")) {
+            content = content.substring(1, content.length() - 1);
+        }
+
+        if (content.trim().isEmpty()) {
+            return answers;
+        }
+
+        for (String pair : content.split(",")) {
+            String[] keyValue = pair.split(":", 2);
+            if (keyValue.length != 2) {
+                continue;
+            }
+            String key = keyValue[0].trim().replaceAll("[\"']", "");
+            if (wanted != null && !wanted.contains(key)) {
+                continue;
+            }
+            String value = keyValue[1].trim().replaceAll("[\"']", "");
+
+            // Try to parse value as number if possible
+            try {
+                if (value.contains(".")) {
+                    answers.put(key, Double.parseDouble(value));
+                } else {
+                    answers.put(key, Long.parseLong(value));
+                }
+            } catch (NumberFormatException e) {
+                answers.put(key, value);
+            }
+        }
+
+        return answers;
+    }
+
+    private Set<String> keys(Collection<Long> questionIds) {
+        if (questionIds == null) {
+            return null;
+        }
+        Set<String> keys = new HashSet<>();
+        for (Long questionId : questionIds) {
+            keys.add(String.valueOf(questionId));
+        }
+        return keys;
+    }
+}
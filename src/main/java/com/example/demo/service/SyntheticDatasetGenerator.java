@@ -0,0 +1,509 @@
+package com.example.demo.service;
+
+import com.example.demo.model.ActivityLog;
+import com.example.demo.model.ActivityType;
+import com.example.demo.model.IdBitmap;
+import com.example.demo.model.Role;
+import com.example.demo.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a large, reproducible data set for load testing and benchmarks: teachers, courses with
+ * lessons and finalized exams, students with enrollments, graded submissions, activity logs and
+ * progress rows. Everything derives from one seed, so the same settings always produce the same data.
+ *
+ * Rows are written with JDBC batch inserts in FK order, one transaction per flush, with ids taken
+ * from the entities' Hibernate sequences; the sequences are moved past the generated ids at the
+ * end so the application keeps allocating without collisions. Sequence statements use H2 syntax.
+ */
+@Service
+public class SyntheticDatasetGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDatasetGenerator.class);
+
+    private static final int HISTORY_DAYS = 90;
+    private static final int OPTIONS_PER_QUESTION = 4;
+
+    // Activity mix of a typical student; weights are relative
+    private static final String[] ACTIVITY_TYPES = {
+            "CONTENT_VIEW", "LESSON_ACCESS", "LOGIN", "CONTENT_COMPLETION", "EXAM_START",
+            "LESSON_COMPLETION", "FILE_ACCESS", "ASSIGNMENT_SUBMISSION", "CHAT_VIEW"};
+    private static final int[] ACTIVITY_WEIGHTS = {34, 20, 10, 12, 6, 6, 6, 3, 3};
+    // Median seconds spent per activity type (0 = no study time)
+    private static final int[] ACTIVITY_MEDIAN_SECONDS = {240, 90, 0, 30, 0, 20, 120, 900, 45};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RoleRepository roleRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    public SyntheticDatasetGenerator(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     RoleRepository roleRepository,
+                                     PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.roleRepository = roleRepository;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Sizes of a generated data set. {@link #forScale} gives the defaults per scale factor:
+     * scale 1 is 10 courses, 1,000 students, about 100k activity logs and 10k submissions;
+     * scale 100 is about 10M activity logs and 1M submissions.
+     */
+    public record Settings(long seed,
+                           int courses,
+                           int students,
+                           int lessonsPerCourse,
+                           int questionsPerExam,
+                           int enrollmentsPerStudent,
+                           int activitiesPerStudent,
+                           double examParticipation,
+                           String password,
+                           int batchSize) {
+
+        public static Settings forScale(double scale, long seed) {
+            return new Settings(seed,
+                    Math.max(1, (int) Math.round(10 * scale)),
+                    Math.max(1, (int) Math.round(1000 * scale)),
+                    8, 10, 3, 100, 0.85, "Pass@1234", 5000);
+        }
+    }
+
+    public Map<String, Object> generate(Settings settings) {
+        long started = System.currentTimeMillis();
+        Random random = new Random(settings.seed());
+        Writers writers = new Writers(settings.batchSize());
+        IdRange users = reserve("lms_user_seq");
+        IdRange courses = reserve("course_seq");
+        IdRange lessons = reserve("lesson_seq");
+        IdRange exams = reserve("exam_seq");
+        IdRange questions = reserve("question_seq");
+        IdRange options = reserve("answer_seq");
+        IdRange submissions = reserve("submission_seq");
+        IdRange activities = reserve("activity_log_seq");
+        IdRange progress = reserve("progress_seq");
+
+        long studentRole = role("ROLE_STUDENT");
+        long teacherRole = role("ROLE_TEACHER");
+        String passwordHash = passwordEncoder.encode(settings.password());
+        LocalDateTime now = LocalDateTime.now();
+
+        // Teachers and the course structure, kept in memory for the student phase
+        int teacherCount = Math.max(1, settings.courses() / 5);
+        long[] teacherIds = new long[teacherCount];
+        for (int t = 0; t < teacherCount; t++) {
+            teacherIds[t] = users.next();
+            writers.user(teacherIds[t], "syn_t" + teacherIds[t], passwordHash, "Teacher", String.valueOf(t), teacherRole);
+        }
+
+        List<CourseFixture> courseFixtures = new ArrayList<>();
+        for (int c = 0; c < settings.courses(); c++) {
+            CourseFixture course = new CourseFixture(courses.next());
+            long teacherId = teacherIds[c % teacherCount];
+            writers.add(Writers.COURSE, course.id, true, "Synthetic course " + (c + 1), "Generated for load testing", teacherId);
+            for (int l = 0; l < settings.lessonsPerCourse(); l++) {
+                ExamFixture exam = new ExamFixture(exams.next());
+                for (int q = 0; q < settings.questionsPerExam(); q++) {
+                    exam.questions.add(question(writers, exam.id, questions.next(), options, random));
+                }
+                int totalPoints = exam.questions.stream().mapToInt(question -> question.points).sum();
+                exam.passingScore = (int) Math.ceil(totalPoints * 0.6);
+                writers.add(Writers.EXAM, exam.id, "Lesson " + (l + 1) + " exam", "FINALIZED", 30, exam.passingScore,
+                        totalPoints, now.minusDays(HISTORY_DAYS + 30), teacherId);
+                long lessonId = lessons.next();
+                writers.add(Writers.LESSON, lessonId, "Lesson " + (l + 1), "Synthetic lesson", 30, l + 1,
+                        now.minusDays(HISTORY_DAYS + 30), course.id, exam.id);
+                course.lessonIds.add(lessonId);
+                course.exams.add(exam);
+            }
+            courseFixtures.add(course);
+        }
+        writers.flush();
+
+        // Students: enrollments, submissions, activity and progress, flushed every few thousand rows
+        long submissionCount = 0;
+        long activityCount = 0;
+        double[] popularity = popularity(courseFixtures.size());
+        for (int s = 0; s < settings.students(); s++) {
+            long studentId = users.next();
+            writers.user(studentId, "syn_s" + studentId, passwordHash, "Student", String.valueOf(s), studentRole);
+            double ability = random.nextGaussian();
+
+            List<CourseFixture> enrolled = pickCourses(courseFixtures, popularity,
+                    Math.min(settings.enrollmentsPerStudent(), courseFixtures.size()), random);
+            Map<Long, Long> studyTimeByCourse = new HashMap<>();
+            Map<Long, LocalDateTime> lastAccessByCourse = new HashMap<>();
+
+            for (CourseFixture course : enrolled) {
+                writers.add(Writers.ENROLLMENT, course.id, studentId);
+
+                // Stronger students get further through the course
+                double reach = sigmoid(ability + random.nextGaussian() * 0.7 + 0.3);
+                int lessonsReached = (int) Math.round(course.lessonIds.size() * reach);
+                IdBitmap completedLessons = new IdBitmap();
+                for (int l = 0; l < lessonsReached; l++) {
+                    ExamFixture exam = course.exams.get(l);
+                    if (random.nextDouble() >= settings.examParticipation()) {
+                        continue;
+                    }
+                    if (submit(writers, submissions.next(), studentId, exam, ability, now, random)) {
+                        completedLessons.add(course.lessonIds.get(l));
+                    }
+                    submissionCount++;
+                }
+
+                int totalLessons = course.lessonIds.size();
+                writers.add(Writers.PROGRESS, progress.next(), studentId, course.id, totalLessons,
+                        completedLessons.size(), totalLessons > 0 ? completedLessons.size() * 100.0 / totalLessons : 0.0,
+                        completedLessons.isEmpty() ? null : completedLessons.toBytes(), 0L, null);
+            }
+
+            for (int a = 0; a < settings.activitiesPerStudent() && !enrolled.isEmpty(); a++) {
+                CourseFixture course = enrolled.get(random.nextInt(enrolled.size()));
+                int type = weighted(ACTIVITY_WEIGHTS, random);
+                LocalDateTime timestamp = timestamp(now, random);
+                long timeSpent = ACTIVITY_MEDIAN_SECONDS[type] == 0 ? 0L
+                        : Math.round(ACTIVITY_MEDIAN_SECONDS[type] * Math.exp(random.nextGaussian() * 0.6));
+                long relatedId = ACTIVITY_TYPES[type].equals("LOGIN") ? studentId
+                        : course.lessonIds.get(random.nextInt(course.lessonIds.size()));
+                short typeCode = ActivityType.valueOf(ACTIVITY_TYPES[type]).getCode();
+                if (ACTIVITY_TYPES[type].equals("LOGIN")) {
+                    writers.add(Writers.ACTIVITY, activities.next(), typeCode, relatedId, timeSpent, timestamp, studentId,
+                            ActivityLog.encodeMetadata(Map.of("userType", "STUDENT")), null);
+                } else {
+                    writers.add(Writers.ACTIVITY, activities.next(), typeCode, relatedId, timeSpent, timestamp, studentId,
+                            ActivityLog.encodeMetadata(Map.of("courseId", String.valueOf(course.id))), course.id);
+                    studyTimeByCourse.merge(course.id, timeSpent, Long::sum);
+                    lastAccessByCourse.merge(course.id, timestamp, (x, y) -> x.isAfter(y) ? x : y);
+                }
+                activityCount++;
+            }
+            writers.patchProgress(studentId, studyTimeByCourse, lastAccessByCourse);
+
+            if (writers.pending() >= settings.batchSize()) {
+                writers.flush();
+            }
+            if ((s + 1) % 10_000 == 0) {
+                logger.info("Generated {} / {} students ({} submissions, {} activities)",
+                        s + 1, settings.students(), submissionCount, activityCount);
+            }
+        }
+        writers.flush();
+
+        for (IdRange range : List.of(users, courses, lessons, exams, questions, options, submissions, activities, progress)) {
+            range.release();
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("seed", settings.seed());
+        summary.put("teachers", teacherCount);
+        summary.put("students", settings.students());
+        summary.put("courses", courseFixtures.size());
+        summary.put("lessons", (long) courseFixtures.size() * settings.lessonsPerCourse());
+        summary.put("questions", (long) courseFixtures.size() * settings.lessonsPerCourse() * settings.questionsPerExam());
+        summary.put("submissions", submissionCount);
+        summary.put("activityLogs", activityCount);
+        summary.put("elapsedSeconds", (System.currentTimeMillis() - started) / 1000.0);
+        return summary;
+    }
+
+    private QuestionFixture question(Writers writers, long examId, long questionId, IdRange options, Random random) {
+        QuestionFixture question = new QuestionFixture(questionId);
+        question.difficulty = random.nextGaussian();
+        question.points = 1 + random.nextInt(3);
+        double kind = random.nextDouble();
+        question.type = kind < 0.7 ? "MULTIPLE_CHOICE" : kind < 0.9 ? "TRUE_FALSE" : "SHORT_ANSWER";
+        String correctAnswer = null;
+
+        switch (question.type) {
+            case "MULTIPLE_CHOICE" -> {
+                int correct = random.nextInt(OPTIONS_PER_QUESTION);
+                for (int o = 0; o < OPTIONS_PER_QUESTION; o++) {
+                    long optionId = options.next();
+                    question.optionIds.add(optionId);
+                    if (o == correct) {
+                        question.correctOptionId = optionId;
+                    }
+                    writers.add(Writers.OPTION, optionId, "Option " + (o + 1), o == correct, o, questionId);
+                }
+            }
+            case "TRUE_FALSE" -> {
+                question.correctText = random.nextBoolean() ? "true" : "false";
+                writers.add(Writers.OPTION, options.next(), "True", question.correctText.equals("true"), 0, questionId);
+                writers.add(Writers.OPTION, options.next(), "False", question.correctText.equals("false"), 1, questionId);
+            }
+            default -> {
+                question.correctText = "answer " + questionId;
+                correctAnswer = question.correctText;
+            }
+        }
+        // Difficulty in the app's 1-5 scale
+        double difficulty = Math.round(Math.max(1, Math.min(5, 3 + question.difficulty)) * 10) / 10.0;
+        writers.add(Writers.QUESTION, questionId, "Synthetic question " + questionId, question.type, question.points,
+                difficulty, correctAnswer, examId);
+        return question;
+    }
+
+    /**
+     * Writes a graded submission and returns whether it passed. The chance of a correct answer
+     * follows a simple item-response curve of student ability against question difficulty.
+     */
+    private boolean submit(Writers writers, long submissionId, long studentId, ExamFixture exam,
+                           double ability, LocalDateTime now, Random random) {
+        StringBuilder answers = new StringBuilder("{");
+        int score = 0;
+        for (QuestionFixture question : exam.questions) {
+            if (random.nextDouble() < 0.05) {
+                continue; // skipped
+            }
+            boolean correct = random.nextDouble() < sigmoid(1.2 * ability - question.difficulty + 0.5);
+            if (answers.length() > 1) {
+                answers.append(',');
+            }
+            answers.append('"').append(question.id).append("\":");
+            switch (question.type) {
+                case "MULTIPLE_CHOICE" -> answers.append(correct ? question.correctOptionId
+                        : wrongOption(question, random));
+                case "TRUE_FALSE" -> answers.append('"').append(correct ? question.correctText
+                        : question.correctText.equals("true") ? "false" : "true").append('"');
+                default -> answers.append('"').append(correct ? question.correctText : "no idea").append('"');
+            }
+            if (correct) {
+                score += question.points;
+            }
+        }
+        answers.append('}');
+
+        boolean passed = score >= exam.passingScore;
+        long timeSpent = Math.round(exam.questions.size() * 45 * Math.exp(random.nextGaussian() * 0.4));
+        writers.add(Writers.SUBMISSION, submissionId, answers.toString(), passed, score, timestamp(now, random),
+                timeSpent, exam.id, studentId);
+        return passed;
+    }
+
+    private long wrongOption(QuestionFixture question, Random random) {
+        long optionId;
+        do {
+            optionId = question.optionIds.get(random.nextInt(question.optionIds.size()));
+        } while (optionId == question.correctOptionId);
+        return optionId;
+    }
+
+    private List<CourseFixture> pickCourses(List<CourseFixture> courses, double[] popularity, int count, Random random) {
+        Set<CourseFixture> picked = new LinkedHashSet<>();
+        while (picked.size() < count) {
+            double target = random.nextDouble() * popularity[popularity.length - 1];
+            int index = 0;
+            while (popularity[index] < target) {
+                index++;
+            }
+            picked.add(courses.get(index));
+        }
+        return new ArrayList<>(picked);
+    }
+
+    /**
+     * Cumulative Zipf-like weights, so a few courses are much more popular than the rest.
+     */
+    private double[] popularity(int courses) {
+        double[] cumulative = new double[courses];
+        double sum = 0;
+        for (int i = 0; i < courses; i++) {
+            sum += 1.0 / Math.pow(i + 1, 0.8);
+            cumulative[i] = sum;
+        }
+        return cumulative;
+    }
+
+    /**
+     * A moment in the last {@value #HISTORY_DAYS} days, with most activity in the afternoon and evening.
+     */
+    private LocalDateTime timestamp(LocalDateTime now, Random random) {
+        int hour = (int) Math.max(0, Math.min(23, Math.round(17 + random.nextGaussian() * 4)));
+        return now.toLocalDate().minusDays(random.nextInt(HISTORY_DAYS))
+                .atTime(hour, random.nextInt(60), random.nextInt(60));
+    }
+
+    private int weighted(int[] weights, Random random) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    private long role(String name) {
+        return roleRepository.findByName(name).orElseGet(() -> {
+            Role role = new Role();
+            role.setName(name);
+            return roleRepository.save(role);
+        }).getId();
+    }
+
+    private IdRange reserve(String sequence) {
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+        return new IdRange(sequence, next != null ? next + 1 : 1);
+    }
+
+    /**
+     * Ids handed out from above the sequence's current value; Hibernate's pooled optimizer only uses
+     * ids up to the values it has already read, so moving the sequence past the range keeps both apart.
+     */
+    private final class IdRange {
+        private final String sequence;
+        private long next;
+        private final long first;
+
+        private IdRange(String sequence, long first) {
+            this.sequence = sequence;
+            this.first = first;
+            this.next = first;
+        }
+
+        long next() {
+            return next++;
+        }
+
+        void release() {
+            if (next > first) {
+                // Sequences allocate in blocks of 50, with the value read being the top of the block
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (next + 50));
+            }
+        }
+    }
+
+    /**
+     * Pending rows per table, flushed in foreign-key order as JDBC batches in one transaction.
+     */
+    private final class Writers {
+        static final int USER = 0, USER_ROLE = 1, COURSE = 2, EXAM = 3, LESSON = 4, QUESTION = 5, OPTION = 6,
+                ENROLLMENT = 7, SUBMISSION = 8, ACTIVITY = 9, PROGRESS = 10;
+
+        private final String[] sql = {
+                "INSERT INTO lms_user (id, username, password, first_name, last_name, email, national_id, age) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)",
+                "INSERT INTO course (id, active, title, description, teacher_id) VALUES (?, ?, ?, ?, ?)",
+                "INSERT INTO exam (id, title, status, time_limit, passing_score, total_possible_score, finalized_at, finalized_by_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO lesson (id, title, description, duration, order_index, created_at, course_id, exam_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO question (id, text, question_type, points, difficulty, correct_answer, exam_id, in_bank, is_required) VALUES (?, ?, ?, ?, ?, ?, ?, FALSE, TRUE)",
+                "INSERT INTO answer (id, text, correct, order_index, question_id, answer_type, points) VALUES (?, ?, ?, ?, ?, 'TEXT', 0)",
+                "INSERT INTO course_enrollments (course_id, user_id) VALUES (?, ?)",
+                "INSERT INTO submission (id, answers_json, passed, score, submission_time, time_spent, exam_id, student_id, graded_manually) VALUES (?, ?, ?, ?, ?, ?, ?, ?, FALSE)",
+                "INSERT INTO activity_log (id, activity_type_code, related_entity_id, time_spent, timestamp, user_id, metadata_json, course_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                "INSERT INTO progress (id, student_id, course_id, total_lessons, completed_lesson_count, completion_percentage, completed_lessons_bits, total_study_time, last_accessed) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)"};
+
+        private final List<List<Object[]>> rows = new ArrayList<>();
+        private final int batchSize;
+        private int pending;
+
+        Writers(int batchSize) {
+            this.batchSize = batchSize;
+            for (int i = 0; i < sql.length; i++) {
+                rows.add(new ArrayList<>());
+            }
+        }
+
+        void add(int table, Object... values) {
+            rows.get(table).add(values);
+            pending++;
+        }
+
+        void user(long id, String username, String passwordHash, String firstName, String lastName, long roleId) {
+            add(USER, id, username, passwordHash, firstName, lastName, username + "@example.com",
+                    String.format("%010d", id), 18 + (int) (id % 40));
+            add(USER_ROLE, id, roleId);
+        }
+
+        /**
+         * Fills in study time and last access on the student's progress rows, which are still pending.
+         */
+        void patchProgress(long studentId, Map<Long, Long> studyTime, Map<Long, LocalDateTime> lastAccess) {
+            List<Object[]> progressRows = rows.get(PROGRESS);
+            for (int i = progressRows.size() - 1; i >= 0 && progressRows.get(i)[1].equals(studentId); i--) {
+                Object[] row = progressRows.get(i);
+                row[7] = studyTime.getOrDefault((Long) row[2], 0L);
+                row[8] = lastAccess.get((Long) row[2]);
+            }
+        }
+
+        int pending() {
+            return pending;
+        }
+
+        void flush() {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int table = 0; table < sql.length; table++) {
+                    List<Object[]> tableRows = rows.get(table);
+                    for (int from = 0; from < tableRows.size(); from += batchSize) {
+                        jdbcTemplate.batchUpdate(sql[table], tableRows.subList(from, Math.min(tableRows.size(), from + batchSize)));
+                    }
+                    tableRows.clear();
+                }
+            });
+            pending = 0;
+        }
+    }
+
+    private static final class CourseFixture {
+        final long id;
+        final List<Long> lessonIds = new ArrayList<>();
+        final List<ExamFixture> exams = new ArrayList<>();
+
+        CourseFixture(long id) {
+            this.id = id;
+        }
+    }
+
+    private static final class ExamFixture {
+        final long id;
+        final List<QuestionFixture> questions = new ArrayList<>();
+        int passingScore;
+
+        ExamFixture(long id) {
+            this.id = id;
+        }
+    }
+
+    private static final class QuestionFixture {
+        final long id;
+        final List<Long> optionIds = new ArrayList<>();
+        String type;
+        int points;
+        double difficulty;
+        long correctOptionId;
+        String correctText;
+
+        QuestionFixture(long id) {
+            this.id = id;
+        }
+    }
+}
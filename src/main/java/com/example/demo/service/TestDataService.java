@@ -7,6 +7,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -43,6 +44,9 @@ public class TestDataService {
     @Autowired
     private ActivityLogRepository activityLogRepository;
 
+    @Autowired
+    private LoginStreakRepository loginStreakRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -90,6 +94,7 @@ public class TestDataService {
         // Clean in proper order to avoid foreign key constraints
         activityLogRepository.deleteAll();
         progressRepository.deleteAll();
+        loginStreakRepository.deleteAll();
         assignmentRepository.deleteAll();
         questionRepository.deleteAll();
         examRepository.deleteAll();
@@ -352,6 +357,7 @@ public class TestDataService {
 
         for (User student : students) {
             List<Course> enrolledCourses = courseRepository.findByEnrolledStudentsContaining(student);
+            int longestStreak = 0;
 
             for (Course course : enrolledCourses) {
                 Progress progress = new Progress();
@@ -378,10 +384,14 @@ public class TestDataService {
 
                 progress.setCompletionPercentage(completionRate);
                 progress.setTotalStudyTime((long) (completionRate * 18000)); // Up to 5 hours
-                progress.setCurrentStreak((int) (completionRate * 20)); // Up to 20 days
+                longestStreak = Math.max(longestStreak, (int) (completionRate * 20)); // Up to 20 days
 
                 progressRepository.save(progress);
             }
+
+            if (longestStreak > 0) {
+                loginStreakRepository.save(new LoginStreak(student.getId(), longestStreak, longestStreak, LocalDate.now(ActivityTrackingService.STREAK_ZONE).toEpochDay()));
+            }
         }
     }
 
@@ -3,6 +3,7 @@ package com.example.demo.service;
 import com.example.demo.model.*;
 import com.example.demo.repository.*;
 import com.example.demo.util.AnalyticsUtils;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
  * Handles all time distribution, study time calculations, and timeline generation
  */
 @Service
+@Timed("lms.analytics")
 public class TimeAnalyticsService {
 
     private static final Logger logger = LoggerFactory.getLogger(TimeAnalyticsService.class);
@@ -27,16 +29,19 @@ public class TimeAnalyticsService {
     private final ProgressRepository progressRepository;
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
+    private final ActivityColumnStore activityColumnStore;
 
     public TimeAnalyticsService(
             ActivityLogRepository activityLogRepository,
             ProgressRepository progressRepository,
             CourseRepository courseRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            ActivityColumnStore activityColumnStore) {
         this.activityLogRepository = activityLogRepository;
         this.progressRepository = progressRepository;
         this.courseRepository = courseRepository;
         this.userRepository = userRepository;
+        this.activityColumnStore = activityColumnStore;
     }
 
     /**
@@ -118,6 +123,25 @@ public class TimeAnalyticsService {
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new RuntimeException("Student not found"));
 
+        if (activityColumnStore.isReady()) {
+            Map<String, long[]> byType = activityColumnStore.query()
+                    .user(studentId)
+                    .between(AnalyticsUtils.getIranTimeMinusDays(90), AnalyticsUtils.getNowInIranTime())
+                    .countAndTimeByType();
+
+            List<Map<String, Object>> timeAnalysis = new ArrayList<>();
+            byType.forEach((activityType, totals) -> {
+                double avgTime = (double) totals[1] / totals[0];
+                Map<String, Object> contentTypeData = new HashMap<>();
+                contentTypeData.put("contentType", getContentTypeLabel(activityType));
+                contentTypeData.put("avgTime", avgTime);
+                contentTypeData.put("totalTime", totals[1]);
+                contentTypeData.put("efficiency", AnalyticsUtils.calculateEfficiencyScore(activityType, avgTime));
+                timeAnalysis.add(contentTypeData);
+            });
+            return timeAnalysis;
+        }
+
         List<ActivityLog> activities = activityLogRepository.findByUserAndTimestampBetweenOrderByTimestampDesc(
                 student, AnalyticsUtils.getIranTimeMinusDays(90), AnalyticsUtils.getNowInIranTime());
 
@@ -170,6 +194,14 @@ public class TimeAnalyticsService {
         LocalDateTime oneMonthAgo = AnalyticsUtils.getIranTimeMinusMonths(1);
         LocalDateTime now = AnalyticsUtils.getNowInIranTime();
 
+        if (activityColumnStore.isReady()) {
+            return activityColumnStore.query()
+                    .user(student.getId())
+                    .course(course.getId())
+                    .between(oneMonthAgo, now)
+                    .sumTimeSpent();
+        }
+
         List<ActivityLog> activities = activityLogRepository
                 .findByUserAndTimestampBetweenOrderByTimestampDesc(student, oneMonthAgo, now);
 
@@ -187,13 +219,21 @@ public class TimeAnalyticsService {
         LocalDateTime threeMonthsAgo = AnalyticsUtils.getIranTimeMinusMonths(3);
         LocalDateTime now = AnalyticsUtils.getNowInIranTime();
 
-        List<ActivityLog> allActivities = activityLogRepository
-                .findByUserAndTimestampBetweenOrderByTimestampDesc(student, threeMonthsAgo, now);
-
         Set<Long> courseIds = courses.stream()
                 .map(Course::getId)
                 .collect(Collectors.toSet());
 
+        if (activityColumnStore.isReady()) {
+            return activityColumnStore.query()
+                    .user(student.getId())
+                    .courses(courseIds)
+                    .between(threeMonthsAgo, now)
+                    .sumTimeSpent();
+        }
+
+        List<ActivityLog> allActivities = activityLogRepository
+                .findByUserAndTimestampBetweenOrderByTimestampDesc(student, threeMonthsAgo, now);
+
         // Filter to only include activities related to the student's courses
         return allActivities.stream()
                 .filter(log -> {
@@ -371,20 +411,6 @@ public class TimeAnalyticsService {
      * Helper method to check if activity is related to a course
      */
     private boolean isCourseRelatedActivity(ActivityLog log, Long courseId) {
-        if (log.getMetadata() == null || log.getMetadata().isEmpty()) {
-            return false;
-        }
-
-        // Check for courseId in metadata
-        String courseIdStr = log.getMetadata().get("courseId");
-        if (courseIdStr != null) {
-            try {
-                return Long.parseLong(courseIdStr) == courseId;
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-
-        return false;
+        return log.getCourseId() != null && log.getCourseId().equals(courseId);
     }
 }
@@ -196,7 +196,8 @@ public class AnalyticsUtils {
     // ==================== Statistical Calculations ====================
 
     /**
-     * Calculate percentile of a value within an array of values
+     * Calculate percentile of a value within an array of values; use RankIndex for repeated lookups
+     * over the same values
      */
     public static double calculatePercentile(double value, double[] values) {
         if (values.length == 0) return 0;
@@ -0,0 +1,86 @@
+package com.example.demo.util;
+
+import java.util.Arrays;
+
+/**
+ * Sorted snapshot of one metric over a cohort (e.g. every exam score in a course), for rank and
+ * percentile lookups by binary search instead of a scan per student. Immutable once built; build
+ * a new one when the underlying values change.
+ */
+public final class RankIndex {
+
+    public static final RankIndex EMPTY = new RankIndex(new double[0], 0.0);
+
+    private final double[] sorted;
+    private final double mean;
+
+    private RankIndex(double[] sorted, double mean) {
+        this.sorted = sorted;
+        this.mean = mean;
+    }
+
+    /**
+     * Builds an index over a copy of {@code values}; the caller's array is left untouched.
+     */
+    public static RankIndex of(double[] values) {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        // Averaged in the given order, as a stream average over the raw values would be
+        double mean = Arrays.stream(values).average().orElse(0.0);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return new RankIndex(sorted, mean);
+    }
+
+    public int size() {
+        return sorted.length;
+    }
+
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Number of values strictly below {@code value}.
+     */
+    public int countBelow(double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Number of values strictly above {@code value}.
+     */
+    public int countAbove(double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return sorted.length - low;
+    }
+
+    /**
+     * Share of values strictly below {@code value}, 0-100; same definition as
+     * {@link AnalyticsUtils#calculatePercentile}.
+     */
+    public double percentile(double value) {
+        if (sorted.length == 0) return 0;
+        return (double) countBelow(value) / sorted.length * 100;
+    }
+}
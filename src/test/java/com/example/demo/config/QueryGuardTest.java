@@ -0,0 +1,110 @@
+package com.example.demo.config;
+
+import com.example.demo.service.SyntheticDatasetGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Query budget of real endpoints, read from the X-Query-Count header, against a small synthetic
+ * data set in an in-memory database.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-guard;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "lms.activity-store.enabled=false",
+        "lms.query-guard.debug-header=true"
+})
+@AutoConfigureMockMvc
+class QueryGuardTest {
+
+    private static boolean generated;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SyntheticDatasetGenerator generator;
+
+    @Value("${lms.query-guard.max-statements}")
+    private int maxStatements;
+
+    private long courseId;
+
+    @BeforeEach
+    void generateDataSet() {
+        if (!generated) {
+            generator.generate(SyntheticDatasetGenerator.Settings.forScale(0.02, 42));
+            generated = true;
+        }
+        courseId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM course", Long.class);
+    }
+
+    @Test
+    void topPerformersStaysWithinBudget() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/analytics/course/{courseId}/top-performers", courseId)
+                        .with(httpBasic("admin", "Admin@123")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertWithinBudget(result);
+    }
+
+    @Test
+    void bulkheadReportCountsPoolStatementsWithinBudget() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/analytics/teacher/course/{courseId}/performance", courseId)
+                        .with(httpBasic("admin", "Admin@123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The async dispatch reuses the same response, so read the first dispatch's count now
+        int beforeDispatch = queryCount(started);
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // More than the authentication lookups: the report's own queries ran on the bulkhead pool
+        assertThat(queryCount(result)).isGreaterThan(beforeDispatch);
+        assertWithinBudget(result);
+    }
+
+    @Test
+    void countsJdbcTemplateStatements() {
+        RequestQueryStats stats = RequestQueryStats.begin();
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM course", Long.class);
+            jdbcTemplate.batchUpdate("UPDATE course SET title = title WHERE id = ?", List.of(
+                    new Object[]{courseId}, new Object[]{courseId}));
+        } finally {
+            RequestQueryStats.end();
+        }
+
+        assertThat(stats.getCount()).isEqualTo(2);
+    }
+
+    private void assertWithinBudget(MvcResult result) {
+        assertThat(queryCount(result)).isPositive().isLessThanOrEqualTo(maxStatements);
+    }
+
+    private static int queryCount(MvcResult result) {
+        String header = result.getResponse().getHeader(QueryGuardConfig.QUERY_COUNT_HEADER);
+        return header != null ? Integer.parseInt(header) : 0;
+    }
+}